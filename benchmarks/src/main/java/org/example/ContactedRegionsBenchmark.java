@@ -0,0 +1,40 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+// The contacted region names joined into the comma separated string every response handler records
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class ContactedRegionsBenchmark {
+
+    @Param({"1", "2", "3"})
+    public int regionCount;
+
+    private Set<String> contactedRegionNames;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        contactedRegionNames = Collections.unmodifiableSet(new LinkedHashSet<>(
+                Arrays.asList("East US", "West US", "North Europe").subList(0, regionCount)));
+    }
+
+    @Benchmark
+    public String join() {
+        return String.join(",", contactedRegionNames);
+    }
+}
@@ -0,0 +1,41 @@
+package org.example;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+
+// Runs every drill hot path benchmark at 1 to 64 threads with the GC profiler, so the allocation rate per
+// operation (gc.alloc.rate.norm) is reported next to the throughput. Any arguments are handed to the regular
+// JMH command line instead, e.g. "BookBenchmark -t 8 -prof gc".
+public class DrillBenchmarks {
+
+    private static final int[] THREAD_COUNTS = {1, 2, 4, 8, 16, 32, 64};
+
+    public static void main(String[] args) throws RunnerException, IOException {
+
+        if (args.length > 0) {
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+
+        for (int threadCount : THREAD_COUNTS) {
+            Options options = new OptionsBuilder()
+                    .include("org\\.example\\.(Book|RequestResponseInfo|IdReservoir|ContactedRegions)Benchmark")
+                    .threads(threadCount)
+                    .forks(1)
+                    .warmupIterations(3)
+                    .measurementIterations(5)
+                    .addProfiler(GCProfiler.class)
+                    .resultFormat(ResultFormatType.CSV)
+                    .result("jmh-result-" + threadCount + "-threads.csv")
+                    .build();
+
+            new Runner(options).run();
+        }
+    }
+}
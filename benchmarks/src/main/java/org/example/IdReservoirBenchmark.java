@@ -0,0 +1,69 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// successfullyPersistedIds as reads and queries see it - a full reservoir sampled by every benchmark thread, and
+// a mix of one writer per three samplers
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class IdReservoirBenchmark {
+
+    @Param({"UNIFORM", "RECENCY_BIASED"})
+    public IdSamplingStrategy samplingStrategy;
+
+    private IdReservoir idReservoir;
+    private String[] idsToAdd;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        idReservoir = new IdReservoir(1_000_000, samplingStrategy);
+
+        for (int i = 0; i < 1_000_000; i++) {
+            idReservoir.add(UUID.randomUUID().toString());
+        }
+
+        idsToAdd = new String[1024];
+
+        for (int i = 0; i < idsToAdd.length; i++) {
+            idsToAdd[i] = UUID.randomUUID().toString();
+        }
+    }
+
+    @Benchmark
+    public String sample() {
+        return idReservoir.sample();
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(3)
+    public String mixedSample() {
+        return idReservoir.sample();
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public void mixedAdd(WriterState writerState) {
+        idReservoir.add(idsToAdd[writerState.next++ & (idsToAdd.length - 1)]);
+    }
+
+    @State(Scope.Thread)
+    public static class WriterState {
+        int next;
+    }
+}
@@ -0,0 +1,54 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+// The line LogDrillEventSink renders for every operation, without diagnostics
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class RequestResponseInfoBenchmark {
+
+    private final Instant timeOfResponse = Instant.ofEpochMilli(System.currentTimeMillis());
+    private final Duration runTimeRemaining = Duration.ofMinutes(17);
+    private int count;
+
+    @Benchmark
+    public RequestResponseInfo build() {
+        return builder().build();
+    }
+
+    @Benchmark
+    public String buildAndRender() {
+        return builder().build().toString();
+    }
+
+    private RequestResponseInfo.Builder builder() {
+        count++;
+
+        return RequestResponseInfo.builder()
+                .timeOfResponse(timeOfResponse)
+                .operationType(WorkloadUtils.CREATE_OP)
+                .drillId("benchmark-drill")
+                .withCounts(count, 0)
+                .threadId(7)
+                .latencyMicros(4200)
+                .commaSeparatedContactedRegions("East US,West US")
+                .connectionModeAsStr("DIRECT")
+                .containerName("TestContainer")
+                .accountName("https://benchmark.documents.azure.com:443/")
+                .possiblyColdStartClient(false)
+                .databaseName("TestDatabase")
+                .runTimeRemaining(runTimeRemaining)
+                .latestRecordedSessionToken("0:-1#1234")
+                .withSuccessResponse(201, "");
+    }
+}
@@ -0,0 +1,127 @@
+package org.example;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Compares the closed loop worker executor on platform threads (CLOSED_LOOP) against virtual threads (VIRTUAL_THREADS).
+// Every worker emulates a blocking Cosmos DB call by sleeping for the simulated latency, so the achieved throughput
+// is bounded by how many workers the executor can actually keep alive.
+//
+// Not a JMH benchmark, it measures whole executors rather than a hot path, but ships in the benchmarks jar with them.
+//
+// Usage: java -cp benchmarks/target/benchmarks.jar org.example.WorkerExecutionBenchmark [workers] [durationInSeconds] [simulatedLatencyInMs]
+public class WorkerExecutionBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(WorkerExecutionBenchmark.class);
+
+    public static void main(String[] args) throws InterruptedException {
+
+        int workerCount = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int durationInSeconds = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+        int simulatedLatencyInMs = args.length > 2 ? Integer.parseInt(args[2]) : 50;
+
+        for (ExecutionMode executionMode : List.of(ExecutionMode.CLOSED_LOOP, ExecutionMode.VIRTUAL_THREADS)) {
+            run(executionMode, workerCount, durationInSeconds, simulatedLatencyInMs);
+            System.gc();
+        }
+    }
+
+    private static void run(ExecutionMode executionMode, int workerCount, int durationInSeconds, int simulatedLatencyInMs) throws InterruptedException {
+
+        Configuration cfg = new Configuration();
+        cfg.setExecutionMode(executionMode);
+
+        MemoryMXBean memoryMXBean = ManagementFactory.getMemoryMXBean();
+        LongAdder completedOperations = new LongAdder();
+
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(
+                workerCount,
+                WorkloadUtils.createWorkerThreadFactory(cfg, "BenchmarkWorker"));
+
+        long startNanos = System.nanoTime();
+        long deadlineNanos = startNanos + TimeUnit.SECONDS.toNanos(durationInSeconds);
+        int startedWorkers = 0;
+
+        try {
+            for (int i = 0; i < workerCount; i++) {
+                executor.schedule(() -> {
+                    try {
+                        while (System.nanoTime() < deadlineNanos) {
+                            Thread.sleep(simulatedLatencyInMs);
+                            completedOperations.increment();
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }, 0, TimeUnit.MILLISECONDS);
+
+                startedWorkers++;
+            }
+        } catch (OutOfMemoryError e) {
+            logger.error("{} : only {} of {} workers could be started", executionMode, startedWorkers, workerCount, e);
+        }
+
+        long peakHeapUsedBytes = 0;
+        long peakResidentSetSizeBytes = 0;
+
+        while (System.nanoTime() < deadlineNanos) {
+            Thread.sleep(1000);
+            peakHeapUsedBytes = Math.max(peakHeapUsedBytes, memoryMXBean.getHeapMemoryUsage().getUsed());
+            peakResidentSetSizeBytes = Math.max(peakResidentSetSizeBytes, getResidentSetSizeBytes());
+        }
+
+        executor.shutdown();
+        executor.awaitTermination(simulatedLatencyInMs + 10_000L, TimeUnit.MILLISECONDS);
+
+        double elapsedSeconds = (System.nanoTime() - startNanos) / 1e9;
+
+        logger.info(
+                "WorkerExecutionBenchmark [executionMode={}, workers={}, startedWorkers={}, simulatedLatencyMs={}, "
+                        + "throughputOpsPerSecond={}, idealThroughputOpsPerSecond={}, peakHeapUsedMb={}, peakResidentSetSizeMb={}, peakPlatformThreads={}]",
+                executionMode,
+                workerCount,
+                startedWorkers,
+                simulatedLatencyInMs,
+                String.format(Locale.ROOT, "%.1f", completedOperations.sum() / elapsedSeconds),
+                String.format(Locale.ROOT, "%.1f", startedWorkers * 1000.0 / simulatedLatencyInMs),
+                peakHeapUsedBytes / (1024 * 1024),
+                peakResidentSetSizeBytes / (1024 * 1024),
+                ManagementFactory.getThreadMXBean().getPeakThreadCount());
+
+        ManagementFactory.getThreadMXBean().resetPeakThreadCount();
+    }
+
+    // Thread stacks live outside the heap, the resident set size is what actually shows their cost
+    private static long getResidentSetSizeBytes() {
+
+        Path status = Paths.get("/proc/self/status");
+
+        if (!Files.exists(status)) {
+            return 0;
+        }
+
+        try {
+            for (String line : Files.readAllLines(status)) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.replaceAll("[^0-9]", "")) * 1024;
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            logger.warn("Unable to read the resident set size", e);
+        }
+
+        return 0;
+    }
+}
@@ -0,0 +1,398 @@
+package org.example;
+
+import com.azure.cosmos.CosmosDiagnostics;
+import com.azure.cosmos.CosmosDiagnosticsContext;
+import com.azure.cosmos.CosmosDiagnosticsRequestInfo;
+import com.azure.cosmos.CosmosEndToEndOperationLatencyPolicyConfigBuilder;
+import com.azure.cosmos.ThresholdBasedAvailabilityStrategy;
+import com.azure.cosmos.implementation.CosmosDaemonThreadFactory;
+import com.azure.cosmos.models.CosmosItemRequestOptions;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+// Splits the reads of one drill round robin across request option variants, so end to end timeouts and availability
+// strategy thresholds are compared over the same keys and the same failover instead of across separate drills. Each
+// variant is reported per reporting interval as a ReadVariantInterval line, and as a ReadVariantSummary line at the
+// end: latency percentiles, availability, the share of reads the availability strategy hedged, the request charge
+// of the responses, the request charge spent on hedges on top of it and the request charge of failed reads.
+//
+// Variants are given as <name>=[<e2e timeout>[,<threshold>,<threshold step>]] separated by ';', durations in ISO-8601.
+// A variant without a timeout uses the client defaults, one without a threshold has no availability strategy. The
+// simulator doesn't apply request options, against it the variants only differ by chance.
+public class AvailabilityStrategyExperiment {
+
+    private static final Logger logger = LoggerFactory.getLogger(AvailabilityStrategyExperiment.class);
+
+    private static final int NUMBER_OF_SIGNIFICANT_VALUE_DIGITS = 3;
+
+    private final List<ReadVariant> variants;
+    private final DrillMetrics metrics;
+
+    private final AtomicLong readCount = new AtomicLong(0);
+
+    private ScheduledExecutorService intervalReportingExecutor;
+
+    public AvailabilityStrategyExperiment(List<ReadVariant> variants, DrillMetrics metrics) {
+
+        if (variants.size() < 2) {
+            throw new IllegalArgumentException("readVariants should name at least two variants to compare, got " + variants.size());
+        }
+
+        Set<String> names = new HashSet<>();
+
+        for (ReadVariant variant : variants) {
+            if (!names.add(variant.name)) {
+                throw new IllegalArgumentException("Read variant " + variant.name + " is named more than once");
+            }
+        }
+
+        this.variants = List.copyOf(variants);
+        this.metrics = metrics;
+    }
+
+    // Null unless reads are split across variants
+    public static AvailabilityStrategyExperiment fromConfiguration(Configuration cfg, DrillMetrics metrics) {
+
+        if (cfg.getReadVariants().trim().isEmpty()) {
+            return null;
+        }
+
+        return new AvailabilityStrategyExperiment(parseVariants(cfg.getReadVariants()), metrics);
+    }
+
+    public ReadVariant nextVariant() {
+        return variants.get((int) Math.floorMod(readCount.getAndIncrement(), (long) variants.size()));
+    }
+
+    public void recordSuccess(ReadVariant variant, long latencyNanos, double responseRequestCharge, CosmosDiagnostics cosmosDiagnostics) {
+
+        CosmosDiagnosticsContext diagnosticsContext = cosmosDiagnostics != null ? cosmosDiagnostics.getDiagnosticsContext() : null;
+
+        boolean isHedged = diagnosticsContext != null && diagnosticsContext.getDiagnostics().size() > 1;
+        // the response only carries the request charge of the request which won, the context that of all of them
+        double hedgeRequestCharge = diagnosticsContext != null
+                ? Math.max(0, diagnosticsContext.getTotalRequestCharge() - responseRequestCharge)
+                : 0;
+
+        variant.record(latencyNanos, false, false, isHedged, responseRequestCharge, hedgeRequestCharge, 0);
+        metrics.recordReadVariant(variant.name, "success", latencyNanos, hedgeRequestCharge, 0);
+    }
+
+    public void recordFailure(ReadVariant variant, long latencyNanos, boolean isAvailabilityRelatedFailure, CosmosDiagnostics cosmosDiagnostics) {
+
+        CosmosDiagnosticsContext diagnosticsContext = cosmosDiagnostics != null ? cosmosDiagnostics.getDiagnosticsContext() : null;
+
+        boolean isHedged = diagnosticsContext != null && diagnosticsContext.getDiagnostics().size() > 1;
+        double failedRequestCharge = diagnosticsContext != null ? diagnosticsContext.getTotalRequestCharge() : 0;
+        // without a response the primary is told apart by the endpoint of the first request
+        double hedgeRequestCharge = isHedged ? getRequestChargeBeyondFirstEndpoint(diagnosticsContext) : 0;
+
+        variant.record(latencyNanos, true, isAvailabilityRelatedFailure, isHedged, 0, hedgeRequestCharge, failedRequestCharge);
+        metrics.recordReadVariant(
+                variant.name,
+                isAvailabilityRelatedFailure ? "availability_failure" : "failure",
+                latencyNanos,
+                hedgeRequestCharge,
+                failedRequestCharge);
+    }
+
+    private static double getRequestChargeBeyondFirstEndpoint(CosmosDiagnosticsContext diagnosticsContext) {
+
+        Collection<CosmosDiagnosticsRequestInfo> requestInfos = diagnosticsContext.getRequestInfo();
+
+        if (requestInfos == null) {
+            return 0;
+        }
+
+        CosmosDiagnosticsRequestInfo firstRequestInfo = null;
+
+        for (CosmosDiagnosticsRequestInfo requestInfo : requestInfos) {
+            if (requestInfo.getStartTime() != null
+                    && (firstRequestInfo == null || requestInfo.getStartTime().isBefore(firstRequestInfo.getStartTime()))) {
+                firstRequestInfo = requestInfo;
+            }
+        }
+
+        if (firstRequestInfo == null) {
+            return 0;
+        }
+
+        double requestCharge = 0;
+
+        for (CosmosDiagnosticsRequestInfo requestInfo : requestInfos) {
+            if (!Objects.equals(requestInfo.getEndpoint(), firstRequestInfo.getEndpoint())) {
+                requestCharge += requestInfo.getRequestCharge();
+            }
+        }
+
+        return requestCharge;
+    }
+
+    public synchronized void startIntervalReporting(Duration reportingInterval) {
+
+        if (intervalReportingExecutor != null) {
+            return;
+        }
+
+        for (ReadVariant variant : variants) {
+            logger.info("ReadVariant [variant={}, {}]", variant.name, variant.describe());
+        }
+
+        intervalReportingExecutor = new ScheduledThreadPoolExecutor(1, new CosmosDaemonThreadFactory("ReadVariantReporter"));
+        intervalReportingExecutor.scheduleAtFixedRate(
+                this::logInterval,
+                reportingInterval.toMillis(),
+                reportingInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stopIntervalReporting() {
+
+        if (intervalReportingExecutor != null) {
+            intervalReportingExecutor.shutdownNow();
+            intervalReportingExecutor = null;
+        }
+    }
+
+    public synchronized void logSummary() {
+
+        for (ReadVariant variant : variants) {
+
+            variant.foldInterval();
+
+            logger.info(
+                    "ReadVariantSummary [variant={}, {}, {}]",
+                    variant.name,
+                    toCountString(
+                            variant.cumulativeReadCount,
+                            variant.cumulativeFailureCount,
+                            variant.cumulativeAvailabilityFailureCount,
+                            variant.cumulativeHedgedCount,
+                            variant.cumulativeRequestCharge,
+                            variant.cumulativeHedgeRequestCharge,
+                            variant.cumulativeFailedRequestCharge),
+                    LatencyRecorder.toPercentileString(variant.cumulativeLatencyHistogram));
+        }
+    }
+
+    private synchronized void logInterval() {
+        try {
+            for (ReadVariant variant : variants) {
+
+                long readCount = variant.cumulativeReadCount;
+                long failureCount = variant.cumulativeFailureCount;
+                long availabilityFailureCount = variant.cumulativeAvailabilityFailureCount;
+                long hedgedCount = variant.cumulativeHedgedCount;
+                double requestCharge = variant.cumulativeRequestCharge;
+                double hedgeRequestCharge = variant.cumulativeHedgeRequestCharge;
+                double failedRequestCharge = variant.cumulativeFailedRequestCharge;
+
+                Histogram intervalLatencyHistogram = variant.foldInterval();
+
+                logger.info(
+                        "ReadVariantInterval [variant={}, {}, {}]",
+                        variant.name,
+                        toCountString(
+                                variant.cumulativeReadCount - readCount,
+                                variant.cumulativeFailureCount - failureCount,
+                                variant.cumulativeAvailabilityFailureCount - availabilityFailureCount,
+                                variant.cumulativeHedgedCount - hedgedCount,
+                                variant.cumulativeRequestCharge - requestCharge,
+                                variant.cumulativeHedgeRequestCharge - hedgeRequestCharge,
+                                variant.cumulativeFailedRequestCharge - failedRequestCharge),
+                        LatencyRecorder.toPercentileString(intervalLatencyHistogram));
+            }
+        } catch (Exception e) {
+            logger.error("Failed to report read variant intervals", e);
+        }
+    }
+
+    private static String toCountString(
+            long readCount,
+            long failureCount,
+            long availabilityFailureCount,
+            long hedgedCount,
+            double requestCharge,
+            double hedgeRequestCharge,
+            double failedRequestCharge) {
+
+        return "reads=" + readCount
+                + ", failures=" + failureCount
+                + ", availability=" + String.format(Locale.ROOT, "%.5f", readCount == 0 ? 1.0 : (double) (readCount - availabilityFailureCount) / readCount)
+                + ", hedged=" + String.format(Locale.ROOT, "%.4f", readCount == 0 ? 0.0 : (double) hedgedCount / readCount)
+                + ", requestCharge=" + String.format(Locale.ROOT, "%.2f", requestCharge)
+                + ", hedgeRequestCharge=" + String.format(Locale.ROOT, "%.2f", hedgeRequestCharge)
+                + ", failedRequestCharge=" + String.format(Locale.ROOT, "%.2f", failedRequestCharge);
+    }
+
+    static List<ReadVariant> parseVariants(String variantsAsString) {
+
+        List<ReadVariant> parsedVariants = new ArrayList<>();
+
+        for (String variant : variantsAsString.split(";")) {
+
+            if (variant.trim().isEmpty()) {
+                continue;
+            }
+
+            String[] nameAndSettings = variant.split("=", 2);
+
+            if (nameAndSettings.length != 2 || nameAndSettings[0].trim().isEmpty()) {
+                throw new IllegalArgumentException("Invalid read variant '" + variant.trim() + "', expected <name>=[<e2e timeout>[,<threshold>,<threshold step>]]");
+            }
+
+            String name = nameAndSettings[0].trim();
+            String[] settings = nameAndSettings[1].trim().isEmpty() ? new String[0] : nameAndSettings[1].split(",");
+
+            if (settings.length != 0 && settings.length != 1 && settings.length != 3) {
+                throw new IllegalArgumentException("Invalid read variant '" + variant.trim() + "', expected <name>=[<e2e timeout>[,<threshold>,<threshold step>]]");
+            }
+
+            try {
+                parsedVariants.add(new ReadVariant(
+                        name,
+                        settings.length > 0 ? Duration.parse(settings[0].trim()) : null,
+                        settings.length > 1 ? Duration.parse(settings[1].trim()) : null,
+                        settings.length > 2 ? Duration.parse(settings[2].trim()) : null));
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("Invalid duration in read variant '" + variant.trim() + "', expected ISO-8601 durations such as PT6S", e);
+            }
+        }
+
+        return parsedVariants;
+    }
+
+    // The request options of a variant are built once and shared by all of its reads
+    public static class ReadVariant {
+
+        private final String name;
+        private final Duration endToEndTimeout;
+        private final Duration threshold;
+        private final Duration thresholdStep;
+        private final CosmosItemRequestOptions requestOptions;
+
+        private final Recorder latencyRecorder = new Recorder(NUMBER_OF_SIGNIFICANT_VALUE_DIGITS);
+        private final LongAdder readCount = new LongAdder();
+        private final LongAdder failureCount = new LongAdder();
+        private final LongAdder availabilityFailureCount = new LongAdder();
+        private final LongAdder hedgedCount = new LongAdder();
+        private final DoubleAdder requestCharge = new DoubleAdder();
+        private final DoubleAdder hedgeRequestCharge = new DoubleAdder();
+        private final DoubleAdder failedRequestCharge = new DoubleAdder();
+
+        // guarded by the experiment
+        private final Histogram cumulativeLatencyHistogram = new Histogram(NUMBER_OF_SIGNIFICANT_VALUE_DIGITS);
+        private long cumulativeReadCount;
+        private long cumulativeFailureCount;
+        private long cumulativeAvailabilityFailureCount;
+        private long cumulativeHedgedCount;
+        private double cumulativeRequestCharge;
+        private double cumulativeHedgeRequestCharge;
+        private double cumulativeFailedRequestCharge;
+
+        ReadVariant(String name, Duration endToEndTimeout, Duration threshold, Duration thresholdStep) {
+
+            if (endToEndTimeout != null && (endToEndTimeout.isNegative() || endToEndTimeout.isZero())) {
+                throw new IllegalArgumentException("The end to end timeout of read variant " + name + " should be positive");
+            }
+
+            if (threshold != null && (threshold.isNegative() || threshold.isZero() || thresholdStep.isNegative() || thresholdStep.isZero())) {
+                throw new IllegalArgumentException("The threshold and threshold step of read variant " + name + " should be positive");
+            }
+
+            this.name = name;
+            this.endToEndTimeout = endToEndTimeout;
+            this.threshold = threshold;
+            this.thresholdStep = thresholdStep;
+
+            if (endToEndTimeout == null) {
+                this.requestOptions = null;
+            } else {
+
+                CosmosEndToEndOperationLatencyPolicyConfigBuilder policyBuilder = new CosmosEndToEndOperationLatencyPolicyConfigBuilder(endToEndTimeout);
+
+                if (threshold != null) {
+                    policyBuilder = policyBuilder.availabilityStrategy(new ThresholdBasedAvailabilityStrategy(threshold, thresholdStep));
+                }
+
+                this.requestOptions = new CosmosItemRequestOptions().setCosmosEndToEndOperationLatencyPolicyConfig(policyBuilder.build());
+            }
+        }
+
+        public String getName() { return name; }
+        // null to use the client defaults
+        public CosmosItemRequestOptions getRequestOptions() { return requestOptions; }
+
+        String describe() {
+
+            if (endToEndTimeout == null) {
+                return "client defaults";
+            }
+
+            return "e2eTimeout=" + endToEndTimeout + (threshold != null ? ", threshold=" + threshold + ", thresholdStep=" + thresholdStep : ", no availability strategy");
+        }
+
+        void record(
+                long latencyNanos,
+                boolean isFailure,
+                boolean isAvailabilityRelatedFailure,
+                boolean isHedged,
+                double requestCharge,
+                double hedgeRequestCharge,
+                double failedRequestCharge) {
+
+            latencyRecorder.recordValue(Math.max(0, TimeUnit.NANOSECONDS.toMicros(latencyNanos)));
+            readCount.increment();
+            this.requestCharge.add(requestCharge);
+            this.hedgeRequestCharge.add(hedgeRequestCharge);
+            this.failedRequestCharge.add(failedRequestCharge);
+
+            if (isFailure) {
+                failureCount.increment();
+            }
+
+            if (isAvailabilityRelatedFailure) {
+                availabilityFailureCount.increment();
+            }
+
+            if (isHedged) {
+                hedgedCount.increment();
+            }
+        }
+
+        // Adds the interval since the last fold to the cumulative stats and returns its latencies
+        Histogram foldInterval() {
+
+            Histogram intervalLatencyHistogram = latencyRecorder.getIntervalHistogram();
+
+            cumulativeLatencyHistogram.add(intervalLatencyHistogram);
+            cumulativeReadCount += readCount.sumThenReset();
+            cumulativeFailureCount += failureCount.sumThenReset();
+            cumulativeAvailabilityFailureCount += availabilityFailureCount.sumThenReset();
+            cumulativeHedgedCount += hedgedCount.sumThenReset();
+            cumulativeRequestCharge += requestCharge.sumThenReset();
+            cumulativeHedgeRequestCharge += hedgeRequestCharge.sumThenReset();
+            cumulativeFailedRequestCharge += failedRequestCharge.sumThenReset();
+
+            return intervalLatencyHistogram;
+        }
+    }
+}
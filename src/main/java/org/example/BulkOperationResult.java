@@ -0,0 +1,34 @@
+package org.example;
+
+// Outcome of one document of a bulk ingest. Results are emitted as the micro batches complete, not in the order
+// the documents were submitted in.
+public class BulkOperationResult {
+
+    private final GeneratedDocument document;
+    // when the document entered the bulk pipeline, so latency includes the time spent waiting for a micro batch
+    private final long operationStartNanos;
+    // exactly one of response and exception is set
+    private final DataPlaneResponse response;
+    private final DataPlaneException exception;
+
+    private BulkOperationResult(GeneratedDocument document, long operationStartNanos, DataPlaneResponse response, DataPlaneException exception) {
+        this.document = document;
+        this.operationStartNanos = operationStartNanos;
+        this.response = response;
+        this.exception = exception;
+    }
+
+    public static BulkOperationResult success(GeneratedDocument document, long operationStartNanos, DataPlaneResponse response) {
+        return new BulkOperationResult(document, operationStartNanos, response, null);
+    }
+
+    public static BulkOperationResult failure(GeneratedDocument document, long operationStartNanos, DataPlaneException exception) {
+        return new BulkOperationResult(document, operationStartNanos, null, exception);
+    }
+
+    public boolean isSuccess() { return exception == null; }
+    public GeneratedDocument getDocument() { return document; }
+    public long getOperationStartNanos() { return operationStartNanos; }
+    public DataPlaneResponse getResponse() { return response; }
+    public DataPlaneException getException() { return exception; }
+}
@@ -0,0 +1,367 @@
+package org.example;
+
+import com.azure.cosmos.models.CosmosItemRequestOptions;
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+// Finds the create rate the container sustains before the drill starts, so the drill is loaded off a measured capacity
+// rather than guessed threads and throughput. Creates are issued through the async data plane under an AIMD limit on
+// in-flight creates, evaluated every window: the limit doubles per healthy window until the first congested one (a
+// throttle rate or p99 latency above its threshold), then grows by a fixed step per healthy window and is cut by a
+// quarter per congested one. The capacity is the highest create rate of a healthy window.
+//
+// The SDK retries 429s itself, so creates it had to retry count as throttled along with the 429s it surfaced.
+public class CapacityCalibrator {
+
+    private static final Logger logger = LoggerFactory.getLogger(CapacityCalibrator.class);
+
+    private static final int NUMBER_OF_SIGNIFICANT_VALUE_DIGITS = 2;
+
+    private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    // windows with fewer completions are extended, their rates and percentiles are noise
+    private static final long MIN_WINDOW_COMPLETIONS = 20;
+
+    private static final double BACKOFF_RATIO = 0.75;
+
+    // of the limit the first congested window was seen at
+    private static final double ADDITIVE_INCREASE_RATIO = 0.05;
+
+    // the limit has settled around the capacity by then
+    private static final int MAX_CONGESTED_WINDOWS = 5;
+
+    private static final long DRAIN_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    private final DataPlane dataPlane;
+    private final KeySpace keySpace;
+    private final DocumentGenerator documentGenerator;
+    private final CosmosItemRequestOptions requestOptions;
+    private final IdReservoir successfullyPersistedIds;
+    private final Duration duration;
+    private final double throttleRateThreshold;
+    private final long latencyThresholdMicros;
+    private final int maxConcurrency;
+
+    // guarded by this
+    private int inFlightCount;
+    private long windowCompletedCount;
+    private long windowSucceededCount;
+    private long windowThrottledCount;
+    private double windowRequestCharge;
+    private final Histogram windowLatencyHistogram = new Histogram(NUMBER_OF_SIGNIFICANT_VALUE_DIGITS);
+
+    public CapacityCalibrator(
+            DataPlane dataPlane,
+            KeySpace keySpace,
+            DocumentGenerator documentGenerator,
+            CosmosItemRequestOptions requestOptions,
+            IdReservoir successfullyPersistedIds,
+            Duration duration,
+            double throttleRateThreshold,
+            Duration latencyThreshold,
+            int maxConcurrency) {
+
+        if (duration.isNegative() || duration.isZero()) {
+            throw new IllegalArgumentException("calibrationDuration should be greater than 0");
+        }
+
+        if (throttleRateThreshold < 0 || throttleRateThreshold >= 1) {
+            throw new IllegalArgumentException("calibrationThrottleRateThreshold should be at least 0 and less than 1");
+        }
+
+        if (latencyThreshold.isNegative() || latencyThreshold.isZero()) {
+            throw new IllegalArgumentException("calibrationLatencyThreshold should be greater than 0");
+        }
+
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("calibrationMaxConcurrency should be greater than 0");
+        }
+
+        this.dataPlane = dataPlane;
+        this.keySpace = keySpace;
+        this.documentGenerator = documentGenerator;
+        this.requestOptions = requestOptions;
+        this.successfullyPersistedIds = successfullyPersistedIds;
+        this.duration = duration;
+        this.throttleRateThreshold = throttleRateThreshold;
+        this.latencyThresholdMicros = TimeUnit.NANOSECONDS.toMicros(latencyThreshold.toNanos());
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    public static CapacityCalibrator fromConfiguration(
+            Configuration cfg,
+            DataPlane dataPlane,
+            KeySpace keySpace,
+            DocumentGenerator documentGenerator,
+            IdReservoir successfullyPersistedIds) {
+
+        return new CapacityCalibrator(
+                dataPlane,
+                keySpace,
+                documentGenerator,
+                cfg.shouldWritesHaveE2ETimeout()
+                        ? WorkloadUtils.REQUEST_OPTIONS_FOR_CREATE_WITH_E2E_TIMEOUT
+                        : WorkloadUtils.REQUEST_OPTIONS_FOR_CREATE_WO_E2E_TIMEOUT,
+                successfullyPersistedIds,
+                cfg.getCalibrationDuration(),
+                cfg.getCalibrationThrottleRateThreshold(),
+                cfg.getCalibrationLatencyThreshold(),
+                cfg.getCalibrationMaxConcurrency());
+    }
+
+    // Blocks for up to the calibration duration, plus the time in-flight creates take to drain
+    public Calibration calibrate() throws InterruptedException {
+
+        long startNanos = System.nanoTime();
+        long deadlineNanos = startNanos + duration.toNanos();
+        long windowStartNanos = startNanos;
+
+        double concurrencyLimit = 1;
+        double additiveIncrease = 0;
+        int windowCount = 0;
+        int congestedWindowCount = 0;
+        Calibration healthiest = null;
+        Calibration latest = null;
+
+        while (true) {
+
+            synchronized (this) {
+
+                long nowNanos = System.nanoTime();
+
+                if (nowNanos - windowStartNanos >= WINDOW_NANOS && windowCompletedCount >= MIN_WINDOW_COMPLETIONS) {
+
+                    latest = evaluateWindow((int) concurrencyLimit, nowNanos - windowStartNanos);
+                    windowStartNanos = nowNanos;
+                    windowCount++;
+
+                    if (latest.isCongested) {
+
+                        congestedWindowCount++;
+
+                        if (additiveIncrease == 0) {
+                            additiveIncrease = Math.max(1, concurrencyLimit * ADDITIVE_INCREASE_RATIO);
+                        }
+
+                        concurrencyLimit = Math.max(1, concurrencyLimit * BACKOFF_RATIO);
+                    } else {
+
+                        if (healthiest == null || latest.operationsPerSecond > healthiest.operationsPerSecond) {
+                            healthiest = latest;
+                        }
+
+                        concurrencyLimit = Math.min(
+                                maxConcurrency,
+                                additiveIncrease == 0 ? concurrencyLimit * 2 : concurrencyLimit + additiveIncrease);
+                    }
+                }
+
+                if (nowNanos >= deadlineNanos || congestedWindowCount >= MAX_CONGESTED_WINDOWS) {
+                    break;
+                }
+
+                if (inFlightCount >= (int) concurrencyLimit) {
+                    long waitMillis = TimeUnit.NANOSECONDS.toMillis(Math.min(deadlineNanos, windowStartNanos + WINDOW_NANOS) - nowNanos);
+                    wait(Math.max(1, waitMillis));
+                    continue;
+                }
+
+                inFlightCount++;
+            }
+
+            create();
+        }
+
+        synchronized (this) {
+
+            long drainDeadlineMillis = System.currentTimeMillis() + DRAIN_TIMEOUT_MILLIS;
+
+            while (inFlightCount > 0 && System.currentTimeMillis() < drainDeadlineMillis) {
+                wait(Math.max(1, drainDeadlineMillis - System.currentTimeMillis()));
+            }
+        }
+
+        if (healthiest == null) {
+
+            if (latest == null) {
+                throw new IllegalStateException("Calibration completed no window of creates within " + duration + ", no capacity to load the drill off");
+            }
+
+            logger.warn("No calibration window stayed under the throttle rate and p99 thresholds, the capacity is taken from the last window");
+            healthiest = latest;
+        }
+
+        return new Calibration(
+                healthiest.concurrencyLimit,
+                healthiest.operationsPerSecond,
+                healthiest.requestUnitsPerSecond,
+                healthiest.throttleRate,
+                healthiest.p99LatencyMicros,
+                false,
+                windowCount,
+                congestedWindowCount,
+                Duration.ofNanos(System.nanoTime() - startNanos));
+    }
+
+    // Sets the target rate of the drill to the load fraction of the capacity, shared by the paced operation types. Rates
+    // set for an operation type with -target*OperationsPerSecond are kept.
+    public static int pinLoad(Configuration cfg, Calibration calibration, int pacedOperationTypeCount) {
+
+        if (cfg.getCalibrationLoadFraction() <= 0 || cfg.getCalibrationLoadFraction() > 1) {
+            throw new IllegalArgumentException("calibrationLoadFraction should be greater than 0 and at most 1");
+        }
+
+        // the SINUSOIDAL profile peaks above its target rate
+        double peakToTargetRatio = cfg.getLoadProfileType() == LoadProfileType.SINUSOIDAL ? 1 + cfg.getLoadProfileAmplitude() : 1;
+        double loadFraction = cfg.getCalibrationLoadFraction() / pacedOperationTypeCount / peakToTargetRatio;
+
+        int pinnedOperationsPerSecond = (int) Math.max(1, Math.round(calibration.operationsPerSecond * loadFraction));
+        int concurrency = (int) Math.max(1, Math.ceil(calibration.concurrencyLimit * loadFraction));
+
+        cfg.setTargetOperationsPerSecond(pinnedOperationsPerSecond);
+
+        if (cfg.getExecutionMode() == ExecutionMode.OPEN_LOOP) {
+            cfg.setMaxInFlightOperations(Math.max(cfg.getMaxInFlightOperations(), calibration.concurrencyLimit));
+        } else if (cfg.getNumberOfThreads() < concurrency) {
+            logger.warn(
+                    "Workers block on their operation, -numberOfThreads {} may not reach the calibrated {} operations per second, it takes about {} in flight",
+                    cfg.getNumberOfThreads(),
+                    pinnedOperationsPerSecond,
+                    concurrency);
+        }
+
+        return pinnedOperationsPerSecond;
+    }
+
+    private Calibration evaluateWindow(int concurrencyLimit, long windowNanos) {
+
+        double windowSeconds = windowNanos / 1e9;
+        double throttleRate = (double) windowThrottledCount / windowCompletedCount;
+        long p99LatencyMicros = windowLatencyHistogram.getValueAtPercentile(99);
+        boolean isCongested = throttleRate > throttleRateThreshold || p99LatencyMicros > latencyThresholdMicros;
+
+        Calibration window = new Calibration(
+                concurrencyLimit,
+                windowSucceededCount / windowSeconds,
+                windowRequestCharge / windowSeconds,
+                throttleRate,
+                p99LatencyMicros,
+                isCongested,
+                0,
+                0,
+                Duration.ofNanos(windowNanos));
+
+        logger.info("CalibrationWindow [{}, completed={}]", window.toSummaryString(), windowCompletedCount);
+
+        windowCompletedCount = 0;
+        windowSucceededCount = 0;
+        windowThrottledCount = 0;
+        windowRequestCharge = 0;
+        windowLatencyHistogram.reset();
+
+        return window;
+    }
+
+    private void create() {
+
+        String id = keySpace.nextId();
+        GeneratedDocument document = documentGenerator.next(id, keySpace.getPartitionKeyValue(id));
+        long operationStartNanos = System.nanoTime();
+
+        dataPlane
+                .createItem(document, requestOptions)
+                .subscribe(
+                        createResponse -> {
+                            successfullyPersistedIds.add(document.getId());
+
+                            int retryCount = createResponse.getCosmosDiagnostics() != null
+                                    && createResponse.getCosmosDiagnostics().getDiagnosticsContext() != null
+                                    ? createResponse.getCosmosDiagnostics().getDiagnosticsContext().getRetryCount()
+                                    : 0;
+
+                            onCompleted(operationStartNanos, true, retryCount > 0, createResponse.getRequestCharge());
+                        },
+                        throwable -> onCompleted(
+                                operationStartNanos,
+                                false,
+                                throwable instanceof DataPlaneException && ((DataPlaneException) throwable).getStatusCode() == 429,
+                                0));
+    }
+
+    private synchronized void onCompleted(long operationStartNanos, boolean isSuccess, boolean isThrottled, double requestCharge) {
+
+        windowLatencyHistogram.recordValue(Math.max(0, TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - operationStartNanos)));
+        windowCompletedCount++;
+        windowRequestCharge += requestCharge;
+
+        if (isSuccess) {
+            windowSucceededCount++;
+        }
+
+        if (isThrottled) {
+            windowThrottledCount++;
+        }
+
+        inFlightCount--;
+        notifyAll();
+    }
+
+    // The capacity found by a calibration, or the rates of one window of it
+    public static class Calibration {
+
+        private final int concurrencyLimit;
+        private final double operationsPerSecond;
+        private final double requestUnitsPerSecond;
+        private final double throttleRate;
+        private final long p99LatencyMicros;
+        private final boolean isCongested;
+        private final int windowCount;
+        private final int congestedWindowCount;
+        private final Duration duration;
+
+        private Calibration(
+                int concurrencyLimit,
+                double operationsPerSecond,
+                double requestUnitsPerSecond,
+                double throttleRate,
+                long p99LatencyMicros,
+                boolean isCongested,
+                int windowCount,
+                int congestedWindowCount,
+                Duration duration) {
+
+            this.concurrencyLimit = concurrencyLimit;
+            this.operationsPerSecond = operationsPerSecond;
+            this.requestUnitsPerSecond = requestUnitsPerSecond;
+            this.throttleRate = throttleRate;
+            this.p99LatencyMicros = p99LatencyMicros;
+            this.isCongested = isCongested;
+            this.windowCount = windowCount;
+            this.congestedWindowCount = congestedWindowCount;
+            this.duration = duration;
+        }
+
+        public int getConcurrencyLimit() { return concurrencyLimit; }
+        public double getOperationsPerSecond() { return operationsPerSecond; }
+        public double getRequestUnitsPerSecond() { return requestUnitsPerSecond; }
+        public double getThrottleRate() { return throttleRate; }
+        public long getP99LatencyMicros() { return p99LatencyMicros; }
+        public int getWindowCount() { return windowCount; }
+        public int getCongestedWindowCount() { return congestedWindowCount; }
+        public Duration getDuration() { return duration; }
+
+        String toSummaryString() {
+            return "concurrencyLimit=" + concurrencyLimit
+                    + ", opsPerSec=" + String.format(Locale.ROOT, "%.1f", operationsPerSecond)
+                    + ", requestUnitsPerSec=" + String.format(Locale.ROOT, "%.1f", requestUnitsPerSecond)
+                    + ", throttleRate=" + String.format(Locale.ROOT, "%.4f", throttleRate)
+                    + ", p99Ms=" + String.format(Locale.ROOT, "%.3f", p99LatencyMicros / 1000.0)
+                    + ", congested=" + isCongested;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package org.example;
+
+import java.util.List;
+
+// One page of a change feed read, the continuation token resumes the feed range after its last change
+public class ChangeFeedPage {
+
+    private final List<String> ids;
+    private final String continuationToken;
+    private final DataPlaneResponse response;
+
+    public ChangeFeedPage(List<String> ids, String continuationToken, DataPlaneResponse response) {
+        this.ids = ids;
+        this.continuationToken = continuationToken;
+        this.response = response;
+    }
+
+    public List<String> getIds() { return ids; }
+    public String getContinuationToken() { return continuationToken; }
+    public DataPlaneResponse getResponse() { return response; }
+}
@@ -0,0 +1,287 @@
+package org.example;
+
+import com.azure.cosmos.implementation.CosmosDaemonThreadFactory;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Matches the documents change feed consumers read against the creates the writers issued. The lag of a document is
+// the time from issuing its create to consuming it, recorded per feed range. Documents read twice are duplicates,
+// documents of a successful create not read within the missing threshold are missing (and late if read after all),
+// and documents read without a create of this drill are unexpected. Creates which failed but whose document shows up
+// anyway are counted as well, a timed out write can still have been persisted.
+//
+// A create stays indexed by id until the missing threshold has passed since it completed, a missing one for another
+// missing threshold, so the index holds about create rate x threshold entries plus the creates missing in the last
+// threshold. Only the ids of evicted missing creates are kept after that, up to a fixed count, so a document read
+// even later is still counted as late after eviction rather than unexpected. A duplicate read of a consumed document
+// after its threshold has passed is reported as unexpected.
+public class ChangeFeedTracker {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChangeFeedTracker.class);
+
+    private static final int NUMBER_OF_SIGNIFICANT_VALUE_DIGITS = 3;
+
+    private static final int PENDING = 0;
+    private static final int CONSUMED = 1;
+    private static final int MISSING = 2;
+    private static final int CONSUMED_LATE = 3;
+    private static final int EVICTED = 4;
+
+    // ids of evicted missing creates beyond this are forgotten, their late reads count as unexpected
+    private static final int MAX_EVICTED_MISSING_IDS = 100_000;
+
+    private final long missingThresholdNanos;
+    private final DrillMetrics metrics;
+
+    private final ConcurrentHashMap<String, TrackedCreate> trackedCreates = new ConcurrentHashMap<>();
+    // in completion order, checked once the missing threshold has passed
+    private final ConcurrentLinkedQueue<TrackedCreate> completedCreates = new ConcurrentLinkedQueue<>();
+    // in the order they went missing, evicted once another missing threshold has passed - guarded by the tracker
+    private final ArrayDeque<TrackedCreate> missingCreates = new ArrayDeque<>();
+    private final Set<String> evictedMissingIds = ConcurrentHashMap.newKeySet();
+
+    // keyed by feed range id
+    private final ConcurrentHashMap<String, Recorder> lagRecorders = new ConcurrentHashMap<>();
+    private final Map<String, Histogram> cumulativeLagHistograms = new HashMap<>();
+
+    private final LongAdder consumedCount = new LongAdder();
+    private final LongAdder duplicateCount = new LongAdder();
+    private final LongAdder missingCount = new LongAdder();
+    private final LongAdder lateCount = new LongAdder();
+    private final LongAdder lateAfterEvictionCount = new LongAdder();
+    private final LongAdder unexpectedCount = new LongAdder();
+    private final LongAdder persistedFailedCreateCount = new LongAdder();
+
+    private ScheduledExecutorService intervalReportingExecutor;
+
+    public ChangeFeedTracker(Duration missingThreshold, DrillMetrics metrics) {
+
+        if (missingThreshold == null || missingThreshold.isNegative() || missingThreshold.isZero()) {
+            throw new IllegalArgumentException("missingThreshold should be a positive duration");
+        }
+
+        this.missingThresholdNanos = missingThreshold.toNanos();
+        this.metrics = metrics;
+    }
+
+    public void onCreateIssued(String id, long operationStartNanos) {
+        trackedCreates.put(id, new TrackedCreate(id, operationStartNanos));
+    }
+
+    public void onCreateCompleted(String id, boolean isSuccess) {
+
+        TrackedCreate trackedCreate = trackedCreates.get(id);
+
+        if (trackedCreate == null) {
+            return;
+        }
+
+        trackedCreate.isFailed = !isSuccess;
+        trackedCreate.completedNanos = System.nanoTime();
+        completedCreates.add(trackedCreate);
+    }
+
+    public void onConsumed(String feedRangeId, String id) {
+
+        long nowNanos = System.nanoTime();
+        TrackedCreate trackedCreate = trackedCreates.get(id);
+
+        if (trackedCreate == null) {
+            onUntrackedConsumed(id);
+            return;
+        }
+
+        if (trackedCreate.state.compareAndSet(PENDING, CONSUMED)) {
+            consumedCount.increment();
+            metrics.recordChangeFeedDocument("consumed");
+        } else if (trackedCreate.state.compareAndSet(MISSING, CONSUMED_LATE)) {
+            consumedCount.increment();
+            lateCount.increment();
+            metrics.recordChangeFeedDocument("late");
+            trackedCreates.remove(id);
+        } else if (trackedCreate.state.get() == EVICTED) {
+            onUntrackedConsumed(id);
+            return;
+        } else {
+            duplicateCount.increment();
+            metrics.recordChangeFeedDocument("duplicate");
+            return;
+        }
+
+        long lagNanos = nowNanos - trackedCreate.operationStartNanos;
+
+        lagRecorders
+                .computeIfAbsent(feedRangeId, rangeId -> new Recorder(NUMBER_OF_SIGNIFICANT_VALUE_DIGITS))
+                .recordValue(Math.max(0, TimeUnit.NANOSECONDS.toMicros(lagNanos)));
+        metrics.recordChangeFeedLag(feedRangeId, lagNanos);
+    }
+
+    public synchronized void startIntervalReporting(Duration reportingInterval) {
+
+        if (intervalReportingExecutor != null) {
+            return;
+        }
+
+        intervalReportingExecutor = new ScheduledThreadPoolExecutor(1, new CosmosDaemonThreadFactory("ChangeFeedReporter"));
+        intervalReportingExecutor.scheduleAtFixedRate(
+                this::logInterval,
+                reportingInterval.toMillis(),
+                reportingInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stopIntervalReporting() {
+
+        if (intervalReportingExecutor != null) {
+            intervalReportingExecutor.shutdownNow();
+            intervalReportingExecutor = null;
+        }
+    }
+
+    // Creates still within the missing threshold at the end of the run are reported as unresolved, not missing
+    public synchronized void logSummary() {
+
+        checkCompletedCreates(System.nanoTime());
+        getIntervalHistograms();
+
+        for (Map.Entry<String, Histogram> entry : new TreeMap<>(cumulativeLagHistograms).entrySet()) {
+            logger.info("ChangeFeedLagSummary [feedRange={}, {}]", entry.getKey(), LatencyRecorder.toPercentileString(entry.getValue()));
+        }
+
+        int unresolvedCount = 0;
+
+        for (TrackedCreate trackedCreate : trackedCreates.values()) {
+            if (trackedCreate.state.get() == PENDING && !trackedCreate.isFailed) {
+                unresolvedCount++;
+            }
+        }
+
+        logger.info("ChangeFeedSummary [{}, unresolvedCreates={}]", toCountString(), unresolvedCount);
+    }
+
+    private synchronized void logInterval() {
+        try {
+            checkCompletedCreates(System.nanoTime());
+
+            for (Map.Entry<String, Histogram> entry : new TreeMap<>(getIntervalHistograms()).entrySet()) {
+                logger.info("ChangeFeedLagInterval [feedRange={}, {}]", entry.getKey(), LatencyRecorder.toPercentileString(entry.getValue()));
+            }
+
+            logger.info("ChangeFeedInterval [{}, trackedCreates={}]", toCountString(), trackedCreates.size());
+        } catch (Exception e) {
+            logger.error("Failed to report change feed lag", e);
+        }
+    }
+
+    private Map<String, Histogram> getIntervalHistograms() {
+
+        Map<String, Histogram> intervalHistograms = new HashMap<>();
+
+        for (Map.Entry<String, Recorder> entry : lagRecorders.entrySet()) {
+
+            Histogram intervalHistogram = entry.getValue().getIntervalHistogram();
+
+            cumulativeLagHistograms
+                    .computeIfAbsent(entry.getKey(), key -> new Histogram(NUMBER_OF_SIGNIFICANT_VALUE_DIGITS))
+                    .add(intervalHistogram);
+
+            if (intervalHistogram.getTotalCount() > 0) {
+                intervalHistograms.put(entry.getKey(), intervalHistogram);
+            }
+        }
+
+        return intervalHistograms;
+    }
+
+    private void onUntrackedConsumed(String id) {
+
+        if (evictedMissingIds.remove(id)) {
+            consumedCount.increment();
+            lateAfterEvictionCount.increment();
+            metrics.recordChangeFeedDocument("late_after_eviction");
+        } else {
+            unexpectedCount.increment();
+            metrics.recordChangeFeedDocument("unexpected");
+        }
+    }
+
+    private void checkCompletedCreates(long nowNanos) {
+
+        TrackedCreate trackedCreate;
+
+        while ((trackedCreate = completedCreates.peek()) != null && nowNanos - trackedCreate.completedNanos >= missingThresholdNanos) {
+
+            completedCreates.poll();
+
+            // kept indexed, so that a document read after all is told apart from an unexpected one
+            if (!trackedCreate.isFailed && trackedCreate.state.compareAndSet(PENDING, MISSING)) {
+                missingCount.increment();
+                metrics.recordChangeFeedDocument("missing");
+                missingCreates.add(trackedCreate);
+                continue;
+            }
+
+            if (trackedCreate.isFailed && trackedCreate.state.get() != PENDING) {
+                persistedFailedCreateCount.increment();
+                metrics.recordChangeFeedDocument("persisted_failed_create");
+            }
+
+            trackedCreates.remove(trackedCreate.id);
+        }
+
+        while ((trackedCreate = missingCreates.peek()) != null && nowNanos - trackedCreate.completedNanos >= 2 * missingThresholdNanos) {
+
+            missingCreates.poll();
+
+            // a create consumed late has already been removed
+            if (trackedCreate.state.compareAndSet(MISSING, EVICTED)) {
+
+                if (evictedMissingIds.size() < MAX_EVICTED_MISSING_IDS) {
+                    evictedMissingIds.add(trackedCreate.id);
+                }
+
+                trackedCreates.remove(trackedCreate.id, trackedCreate);
+            }
+        }
+    }
+
+    private String toCountString() {
+        return "consumed=" + consumedCount.sum() + ", " +
+                "duplicates=" + duplicateCount.sum() + ", " +
+                "missing=" + missingCount.sum() + ", " +
+                "late=" + lateCount.sum() + ", " +
+                "lateAfterEviction=" + lateAfterEvictionCount.sum() + ", " +
+                "unexpected=" + unexpectedCount.sum() + ", " +
+                "persistedFailedCreates=" + persistedFailedCreateCount.sum();
+    }
+
+    private static class TrackedCreate {
+
+        private final String id;
+        private final long operationStartNanos;
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+        private volatile boolean isFailed;
+        private volatile long completedNanos;
+
+        TrackedCreate(String id, long operationStartNanos) {
+            this.id = id;
+            this.operationStartNanos = operationStartNanos;
+        }
+    }
+}
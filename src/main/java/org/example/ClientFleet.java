@@ -0,0 +1,356 @@
+package org.example;
+
+import com.azure.cosmos.CosmosAsyncContainer;
+import com.azure.cosmos.CosmosClientBuilder;
+import com.azure.cosmos.implementation.CosmosDaemonThreadFactory;
+import com.azure.cosmos.models.CosmosClientTelemetryConfig;
+import com.azure.cosmos.models.CosmosMetricCategory;
+import com.azure.cosmos.models.CosmosMicrometerMetricsOptions;
+import io.micrometer.core.instrument.Measurement;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Statistic;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+// Runs a drill through a fleet of clients in one JVM, the way services run many client instances per host, to see how
+// connections, address refreshes and per partition failover state scale with the no. of clients. Each client has its
+// own user agent suffix and preferred region order, and shares connections with the others or keeps its own
+// (-shouldShareFleetConnections). The operations are spread across the clients by FleetDataPlane.
+//
+// Clients are started one after the other, the first one provisions the container. Each is timed, and the heap it
+// retained is estimated by the used heap after a GC before and after it started. Its open connections, backend
+// endpoints and address resolutions are read off the Micrometer metrics of the SDK, kept in a registry per client, and
+// reported as a FleetInterval line per reporting interval and a FleetClientSummary line per client at the end.
+public class ClientFleet implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClientFleet.class);
+
+    // meter names of the SDK's direct mode metrics, gateway mode clients don't report them
+    private static final String CHANNELS_ACQUIRED_METER = "cosmos.client.rntbd.channels.acquired.count";
+    private static final String CHANNELS_CLOSED_METER = "cosmos.client.rntbd.channels.closed.count";
+    private static final String ENDPOINTS_METER = "cosmos.client.rntbd.endpoints.count";
+    private static final String ADDRESS_RESOLUTIONS_METER = "cosmos.client.rntbd.addressResolution.requests";
+
+    private final DrillMetrics metrics;
+    private final boolean shouldShareConnections;
+    private final List<Member> members;
+    private final FleetDataPlane dataPlane;
+    private final long startNanos;
+
+    private ScheduledExecutorService intervalReportingExecutor;
+    private long lastReportNanos;
+
+    private ClientFleet(DrillMetrics metrics, boolean shouldShareConnections, List<Member> members) {
+
+        List<DataPlane> memberDataPlanes = new ArrayList<>();
+
+        for (Member member : members) {
+            memberDataPlanes.add(new CosmosDataPlane(member.bootstrap.getContainer()));
+            member.startupAddressResolutions = member.sumMeter(ADDRESS_RESOLUTIONS_METER);
+            member.lastAddressResolutions = member.startupAddressResolutions;
+        }
+
+        this.metrics = metrics;
+        this.shouldShareConnections = shouldShareConnections;
+        this.members = members;
+        this.dataPlane = new FleetDataPlane(memberDataPlanes);
+        this.startNanos = System.nanoTime();
+        this.lastReportNanos = startNanos;
+    }
+
+    // clientBuilderFactory returns a builder with the workload's own settings for the user agent suffix it is given,
+    // connection sharing, metrics and preferred regions are set here. Blocks until every client is ready.
+    public static ClientFleet start(
+            Configuration cfg,
+            Function<String, CosmosClientBuilder> clientBuilderFactory,
+            DrillMetrics metrics) {
+
+        if (cfg.getFleetClientCount() < 1) {
+            throw new IllegalArgumentException("fleetClientCount should be greater than 0");
+        }
+
+        List<List<String>> preferredRegionOrders = new ArrayList<>();
+
+        for (String preferredRegionOrder : cfg.getFleetPreferredRegionOrders().split(";")) {
+            if (!preferredRegionOrder.trim().isEmpty()) {
+                preferredRegionOrders.add(CosmosClientBootstrap.parsePreferredRegions(preferredRegionOrder));
+            }
+        }
+
+        List<Member> members = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < cfg.getFleetClientCount(); i++) {
+
+                String clientName = "client-" + i;
+                String userAgentSuffix = cfg.getDrillId() + "-" + clientName;
+                List<String> preferredRegions;
+
+                if (!preferredRegionOrders.isEmpty()) {
+                    preferredRegions = preferredRegionOrders.get(i % preferredRegionOrders.size());
+                } else if (i == 0) {
+                    preferredRegions = CosmosClientBootstrap.parsePreferredRegions(cfg.getPreferredRegions());
+                } else {
+                    // the others rotate the regions the first client ended up with, so each prefers another region
+                    preferredRegions = new ArrayList<>(members.get(0).bootstrap.getRegions());
+                    Collections.rotate(preferredRegions, -i);
+                }
+
+                MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+                CosmosClientBuilder clientBuilder = clientBuilderFactory
+                        .apply(userAgentSuffix)
+                        .connectionSharingAcrossClientsEnabled(cfg.shouldShareFleetConnections())
+                        .clientTelemetryConfig(new CosmosClientTelemetryConfig()
+                                .metricsOptions(new CosmosMicrometerMetricsOptions()
+                                        .meterRegistry(meterRegistry)
+                                        .setMetricCategories(
+                                                CosmosMetricCategory.DIRECT_CHANNELS,
+                                                CosmosMetricCategory.DIRECT_ENDPOINTS,
+                                                CosmosMetricCategory.DIRECT_ADDRESS_RESOLUTIONS)));
+
+                long heapBytesBefore = usedHeapBytesAfterGc();
+
+                CosmosClientBootstrap bootstrap = CosmosClientBootstrap.start(cfg, clientBuilder, metrics, clientName, preferredRegions, i == 0);
+
+                members.add(new Member(clientName, userAgentSuffix, bootstrap, meterRegistry));
+                bootstrap.awaitReady();
+
+                members.get(i).heapBytes = usedHeapBytesAfterGc() - heapBytesBefore;
+            }
+        } catch (RuntimeException e) {
+            members.forEach(Member::close);
+            throw e;
+        }
+
+        ClientFleet clientFleet = new ClientFleet(metrics, cfg.shouldShareFleetConnections(), members);
+
+        clientFleet.recordMetrics();
+
+        return clientFleet;
+    }
+
+    public DataPlane getDataPlane() {
+        return dataPlane;
+    }
+
+    public List<CosmosAsyncContainer> getContainers() {
+
+        List<CosmosAsyncContainer> containers = new ArrayList<>();
+
+        for (Member member : members) {
+            containers.add(member.bootstrap.getContainer());
+        }
+
+        return containers;
+    }
+
+    public synchronized void startIntervalReporting(Duration reportingInterval) {
+
+        if (intervalReportingExecutor != null) {
+            return;
+        }
+
+        intervalReportingExecutor = new ScheduledThreadPoolExecutor(1, new CosmosDaemonThreadFactory("ClientFleetReporter"));
+        intervalReportingExecutor.scheduleAtFixedRate(
+                this::logInterval,
+                reportingInterval.toMillis(),
+                reportingInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stopIntervalReporting() {
+
+        if (intervalReportingExecutor != null) {
+            intervalReportingExecutor.shutdownNow();
+            intervalReportingExecutor = null;
+        }
+    }
+
+    public synchronized void logSummary() {
+
+        double elapsedSeconds = (System.nanoTime() - startNanos) / 1e9;
+        long totalStartupNanos = 0;
+        long maxStartupNanos = 0;
+        long totalHeapBytes = 0;
+
+        for (int i = 0; i < members.size(); i++) {
+
+            Member member = members.get(i);
+            double addressResolutions = member.sumMeter(ADDRESS_RESOLUTIONS_METER);
+            double drillAddressResolutions = addressResolutions - member.startupAddressResolutions;
+
+            totalStartupNanos += member.bootstrap.getStartupNanos();
+            maxStartupNanos = Math.max(maxStartupNanos, member.bootstrap.getStartupNanos());
+            totalHeapBytes += member.heapBytes;
+
+            logger.info(
+                    "FleetClientSummary [client={}, userAgentSuffix={}, regions={}, startupMs={}, heapBytes={}, operations={}, openConnections={}, endpoints={}, startupAddressResolutions={}, addressResolutions={}, addressResolutionsPerSec={}]",
+                    member.clientName,
+                    member.userAgentSuffix,
+                    member.bootstrap.getRegions(),
+                    TimeUnit.NANOSECONDS.toMillis(member.bootstrap.getStartupNanos()),
+                    member.heapBytes,
+                    dataPlane.getRoutedOperationCount(i),
+                    String.format(Locale.ROOT, "%.0f", member.openConnections()),
+                    String.format(Locale.ROOT, "%.0f", member.sumMeter(ENDPOINTS_METER)),
+                    String.format(Locale.ROOT, "%.0f", member.startupAddressResolutions),
+                    String.format(Locale.ROOT, "%.0f", drillAddressResolutions),
+                    String.format(Locale.ROOT, "%.2f", elapsedSeconds > 0 ? drillAddressResolutions / elapsedSeconds : 0));
+        }
+
+        logger.info(
+                "FleetSummary [clients={}, sharedConnections={}, meanStartupMs={}, maxStartupMs={}, meanHeapBytesPerClient={}, {}]",
+                members.size(),
+                shouldShareConnections,
+                TimeUnit.NANOSECONDS.toMillis(totalStartupNanos / members.size()),
+                TimeUnit.NANOSECONDS.toMillis(maxStartupNanos),
+                totalHeapBytes / members.size(),
+                toTotalString(elapsedSeconds, startupAddressResolutions()));
+    }
+
+    @Override
+    public void close() {
+        members.forEach(Member::close);
+    }
+
+    private synchronized void logInterval() {
+        try {
+            long nowNanos = System.nanoTime();
+            double intervalSeconds = (nowNanos - lastReportNanos) / 1e9;
+            double[] lastAddressResolutions = new double[members.size()];
+
+            for (int i = 0; i < members.size(); i++) {
+                lastAddressResolutions[i] = members.get(i).lastAddressResolutions;
+            }
+
+            recordMetrics();
+
+            logger.info("FleetInterval [clients={}, {}]", members.size(), toTotalString(intervalSeconds, lastAddressResolutions));
+
+            lastReportNanos = nowNanos;
+        } catch (Exception e) {
+            logger.error("Failed to report the client fleet interval", e);
+        }
+    }
+
+    // Counts the address resolutions of each client since the given ones
+    private String toTotalString(double seconds, double[] previousAddressResolutions) {
+
+        double totalOpenConnections = 0;
+        double maxOpenConnections = 0;
+        double totalAddressResolutions = 0;
+        double maxAddressResolutions = 0;
+
+        for (int i = 0; i < members.size(); i++) {
+
+            Member member = members.get(i);
+            double openConnections = member.openConnections();
+            double addressResolutions = member.sumMeter(ADDRESS_RESOLUTIONS_METER) - previousAddressResolutions[i];
+
+            totalOpenConnections += openConnections;
+            maxOpenConnections = Math.max(maxOpenConnections, openConnections);
+            totalAddressResolutions += addressResolutions;
+            maxAddressResolutions = Math.max(maxAddressResolutions, addressResolutions);
+        }
+
+        return "openConnections=" + String.format(Locale.ROOT, "%.0f", totalOpenConnections)
+                + ", maxOpenConnectionsPerClient=" + String.format(Locale.ROOT, "%.0f", maxOpenConnections)
+                + ", addressResolutionsPerSec=" + String.format(Locale.ROOT, "%.2f", seconds > 0 ? totalAddressResolutions / seconds : 0)
+                + ", maxAddressResolutionsPerSecPerClient=" + String.format(Locale.ROOT, "%.2f", seconds > 0 ? maxAddressResolutions / seconds : 0);
+    }
+
+    private double[] startupAddressResolutions() {
+
+        double[] startupAddressResolutions = new double[members.size()];
+
+        for (int i = 0; i < members.size(); i++) {
+            startupAddressResolutions[i] = members.get(i).startupAddressResolutions;
+        }
+
+        return startupAddressResolutions;
+    }
+
+    private void recordMetrics() {
+        for (int i = 0; i < members.size(); i++) {
+
+            Member member = members.get(i);
+
+            member.lastAddressResolutions = member.sumMeter(ADDRESS_RESOLUTIONS_METER);
+            metrics.recordFleetClient(
+                    member.clientName,
+                    member.openConnections(),
+                    member.sumMeter(ENDPOINTS_METER),
+                    member.lastAddressResolutions,
+                    dataPlane.getRoutedOperationCount(i),
+                    member.heapBytes);
+        }
+    }
+
+    private static long usedHeapBytesAfterGc() {
+        System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static class Member {
+
+        private final String clientName;
+        private final String userAgentSuffix;
+        private final CosmosClientBootstrap bootstrap;
+        private final MeterRegistry meterRegistry;
+
+        // set once the client is ready
+        private long heapBytes;
+
+        // guarded by the fleet, as of the end of the startup and of the latest report
+        private double startupAddressResolutions;
+        private double lastAddressResolutions;
+
+        Member(String clientName, String userAgentSuffix, CosmosClientBootstrap bootstrap, MeterRegistry meterRegistry) {
+            this.clientName = clientName;
+            this.userAgentSuffix = userAgentSuffix;
+            this.bootstrap = bootstrap;
+            this.meterRegistry = meterRegistry;
+        }
+
+        double openConnections() {
+            return Math.max(0, sumMeter(CHANNELS_ACQUIRED_METER) - sumMeter(CHANNELS_CLOSED_METER));
+        }
+
+        // Sums the counts of counters and timers and the values of gauges over every tag combination of the meter
+        double sumMeter(String meterName) {
+
+            double sum = 0;
+
+            for (Meter meter : meterRegistry.getMeters()) {
+                if (meter.getId().getName().equals(meterName)) {
+                    for (Measurement measurement : meter.measure()) {
+                        if (measurement.getStatistic() == Statistic.COUNT || measurement.getStatistic() == Statistic.VALUE) {
+                            sum += measurement.getValue();
+                        }
+                    }
+                }
+            }
+
+            return sum;
+        }
+
+        void close() {
+            bootstrap.getClient().close();
+            meterRegistry.close();
+        }
+    }
+}
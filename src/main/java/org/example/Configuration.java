@@ -17,6 +17,8 @@ public class Configuration {
     // Define the date format
     private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("dd-MM-yyyy");
 
+    private static final int DEFAULT_TARGET_OPERATIONS_PER_SECOND = 100;
+
     @Parameter(names = "-accountMasterKey", description = "The master key associated with the account.", required = false)
     private String accountMasterKey = "";
 
@@ -50,15 +52,21 @@ public class Configuration {
     @Parameter(names = "-provisionedThroughput", description = "The manual provisioned throughput for the target container.")
     private int provisionedThroughput = 10000;
 
-    @Parameter(names = "-sleepTime", description = "The duration in milliseconds between each iteration of tasks.")
-    private int sleepTime = 2000;
+    @Parameter(names = "-sleepTime", description = "The duration in milliseconds between each iteration of a thread in the former fixed sleep pacing. When given without -targetOperationsPerSecond, the target rate defaults to the same rate, numberOfThreads * 1000 / sleepTime.")
+    private Integer sleepTime = null;
 
     @Parameter(names = "-isSharedThroughput", description = "A boolean parameter to indicate whether the database is a shared throughput database.", arity = 1)
     private boolean isSharedThroughput = false;
 
-    @Parameter(names = "-shouldLogCosmosDiagnosticsForSuccessfulResponse", description = "A boolean parameter to indicate whether the diagnostics string is logged for a successful response.", arity = 1)
+    @Parameter(names = "-shouldLogCosmosDiagnosticsForSuccessfulResponse", description = "A boolean parameter to indicate whether the diagnostics string is logged for tail latency and sampled successful responses.", arity = 1)
     private boolean shouldLogCosmosDiagnosticsForSuccessfulResponse = false;
 
+    @Parameter(names = "-diagnosticsSamplesPerSecond", description = "The no. of successful responses per second and operation type sampled for their diagnostics string, on top of tail latency ones.")
+    private double diagnosticsSamplesPerSecond = 1.0;
+
+    @Parameter(names = "-diagnosticsTailPercentile", description = "The latency percentile of an operation type above which successful responses log their diagnostics string, 100 disables it.")
+    private double diagnosticsTailPercentile = 99.0;
+
     @Parameter(names = "-shouldExecuteReadWorkload", description = "A boolean parameter to indicate whether point read workload should be executed.", arity = 1)
     private boolean shouldExecuteReadWorkload = true;
 
@@ -68,29 +76,262 @@ public class Configuration {
     @Parameter(names = "-shouldInjectResponseDelayForReads", description = "A boolean parameter to indicate whether point read workload should be injected with response delay.", arity = 1)
     private boolean shouldInjectResponseDelayForReads = false;
 
+    @Parameter(names = "-faultScenarioFile", description = "A JSON timeline of fault phases to inject during the drill, takes the place of -shouldInjectResponseDelayForReads.")
+    private String faultScenarioFile = "";
+
     @Parameter(names = "-drillId", description = "An identifier to uniquely identify a DR drill.")
     private String drillId = UTC_TIME.format(FORMATTER);;
 
     @Parameter(names = "-connectionMode", description = "A parameter to denote the Connection Mode to use for the client.", converter = ConnectionModeConverter.class)
     private ConnectionMode connectionMode = ConnectionMode.DIRECT;
 
-    @Parameter(names = "-drillWorkloadType", description = "An identifier to denote whether this is a Session Consistency specific PPAF drill or Generic PPAF drill.", converter = WorkloadTypeConverter.class)
+    @Parameter(names = "-drillWorkloadType", description = "An identifier to denote whether this is a Session Consistency specific PPAF drill, a Generic PPAF drill or a Generic PPAF drill writing through bulk (PPAFBulkIngestWorkload) or transactional batches (PPAFTransactionalBatchWorkload), or one consuming the change feed alongside (PPAFChangeFeedWorkload).", converter = WorkloadTypeConverter.class)
     private WorkloadType drillWorkloadType = WorkloadType.PPAFDrillWorkload;
 
     @Parameter(names = "-shouldUseSessionTokenOnRequestOptions", description = "A boolean parameter to indicate whether session token should be used with request options.", arity = 1)
     private boolean shouldUseSessionTokenOnRequestOptions = false;
 
+    @Parameter(names = "-shouldCheckSessionConsistency", description = "A boolean parameter to indicate whether the session tokens of creates and reads should be checked for reads going backwards (monotonic read violations).", arity = 1)
+    private boolean shouldCheckSessionConsistency = false;
+
+    @Parameter(names = "-shouldStopOnSessionConsistencyViolation", description = "A boolean parameter to indicate whether the drill should stop on the first monotonic read violation.", arity = 1)
+    private boolean shouldStopOnSessionConsistencyViolation = false;
+
+    @Parameter(names = "-sessionConsistencyHistoryInSeconds", description = "How long each partition key range keeps the session tokens observed, reads taking longer than this can't be checked for monotonic reads.")
+    private int sessionConsistencyHistoryInSeconds = 60;
+
     @Parameter(names = "-shouldHaveE2ETimeoutForWrites", description = "A boolean parameter to indicate whether writes should have e2e timeout set.", arity = 1)
     private boolean shouldHaveE2ETimeoutForWrites = false;
 
     @Parameter(names = "-isThinClientEnabled", description = "A boolean parameter to indicate whether the thin client is enabled.", arity = 1)
     private boolean isThinClientEnabled = false;
 
+    @Parameter(names = "-preferredRegions", description = "Comma-separated preferred regions of the client, the account's readable regions in service order when empty.")
+    private String preferredRegions = "";
+
+    @Parameter(names = "-shouldWarmUpConnections", description = "A boolean parameter to indicate whether connections and caches of the container are opened before the drill starts.", arity = 1)
+    private boolean shouldWarmUpConnections = true;
+
+    @Parameter(names = "-fleetClientCount", description = "The no. of clients the drill's operations are spread across, more than 1 runs a client fleet against the account.")
+    private int fleetClientCount = 1;
+
+    @Parameter(names = "-shouldShareFleetConnections", description = "A boolean parameter to indicate whether the clients of a fleet share their connections.", arity = 1)
+    private boolean shouldShareFleetConnections = true;
+
+    @Parameter(names = "-fleetPreferredRegionOrders", description = "The ';' separated preferred region orders the clients of a fleet take in turn, e.g. 'East US,West US;West US,East US'. When empty each client rotates the regions of the first by its index.")
+    private String fleetPreferredRegionOrders = "";
+
+    @Parameter(names = "-executionMode", description = "A parameter to denote whether operations are issued by blocking worker threads (CLOSED_LOOP), by blocking workers on virtual threads (VIRTUAL_THREADS) or at a fixed target rate (OPEN_LOOP).", converter = ExecutionModeConverter.class)
+    private ExecutionMode executionMode = ExecutionMode.CLOSED_LOOP;
+
+    @Parameter(names = "-targetOperationsPerSecond", description = "The target rate of each operation type unless overridden for the operation type, 100 unless derived from -sleepTime.")
+    private Integer targetOperationsPerSecond = null;
+
+    @Parameter(names = "-targetCreateOperationsPerSecond", description = "The target rate of create operations, defaults to -targetOperationsPerSecond when not positive.")
+    private int targetCreateOperationsPerSecond = 0;
+
+    @Parameter(names = "-targetReadOperationsPerSecond", description = "The target rate of read operations, defaults to -targetOperationsPerSecond when not positive.")
+    private int targetReadOperationsPerSecond = 0;
+
+    @Parameter(names = "-targetQueryOperationsPerSecond", description = "The target rate of query operations, defaults to -targetOperationsPerSecond when not positive.")
+    private int targetQueryOperationsPerSecond = 0;
+
+    @Parameter(names = "-loadProfile", description = "The shape of the target rate over the run - CONSTANT, RAMP, STEP or SINUSOIDAL.", converter = LoadProfileTypeConverter.class)
+    private LoadProfileType loadProfileType = LoadProfileType.CONSTANT;
+
+    @Parameter(names = "-rampUpDuration", description = "The time the RAMP load profile takes to reach the target rate.", converter = DurationConverter.class)
+    private Duration rampUpDuration = Duration.ofMinutes(5);
+
+    @Parameter(names = "-loadProfileStepDuration", description = "The time the STEP load profile holds each step.", converter = DurationConverter.class)
+    private Duration loadProfileStepDuration = Duration.ofMinutes(5);
+
+    @Parameter(names = "-loadProfileStepCount", description = "The no. of equal steps the STEP load profile takes to reach the target rate.")
+    private int loadProfileStepCount = 4;
+
+    @Parameter(names = "-loadProfilePeriod", description = "The period of the SINUSOIDAL load profile.", converter = DurationConverter.class)
+    private Duration loadProfilePeriod = Duration.ofMinutes(10);
+
+    @Parameter(names = "-loadProfileAmplitude", description = "The amplitude of the SINUSOIDAL load profile as a fraction (0 to 1) of the target rate.")
+    private double loadProfileAmplitude = 0.5;
+
+    @Parameter(names = "-maxInFlightOperations", description = "The max no. of in-flight operations of each operation type when running in OPEN_LOOP execution mode.")
+    private int maxInFlightOperations = 500;
+
+    @Parameter(names = "-shouldCalibrate", description = "A boolean parameter to indicate whether the create capacity of the container is calibrated before the drill, and the target rate set off it.", arity = 1)
+    private boolean shouldCalibrate = false;
+
+    @Parameter(names = "-calibrationDuration", description = "The max time the calibration runs for before the drill.", converter = DurationConverter.class)
+    private Duration calibrationDuration = Duration.ofMinutes(1);
+
+    @Parameter(names = "-calibrationThrottleRateThreshold", description = "The share (0 to 1) of throttled or retried creates above which a calibration window is congested.")
+    private double calibrationThrottleRateThreshold = 0.01;
+
+    @Parameter(names = "-calibrationLatencyThreshold", description = "The p99 create latency above which a calibration window is congested.", converter = DurationConverter.class)
+    private Duration calibrationLatencyThreshold = Duration.ofMillis(100);
+
+    @Parameter(names = "-calibrationMaxConcurrency", description = "The max no. of in-flight creates the calibration ramps up to.")
+    private int calibrationMaxConcurrency = 1024;
+
+    @Parameter(names = "-calibrationLoadFraction", description = "The fraction (0 to 1) of the calibrated capacity the drill's operation types are paced at together.")
+    private double calibrationLoadFraction = 0.7;
+
+    @Parameter(names = "-queryShapes", description = "The comma separated query shapes the query workload cycles through - POINT, CROSS_PARTITION, ORDER_BY, AGGREGATE or PAGED.")
+    private String queryShapes = "POINT";
+
+    @Parameter(names = "-queryPageSize", description = "The max no. of items per query page, also the no. of documents an ORDER_BY query returns.")
+    private int queryPageSize = 100;
+
+    @Parameter(names = "-maxInFlightQueries", description = "The max no. of in-flight queries when running in OPEN_LOOP execution mode, defaults to -maxInFlightOperations when not positive.")
+    private int maxInFlightQueries = 0;
+
+    @Parameter(names = "-readVariants", description = "The ';' separated request option variants reads are split across round robin, each as <name>=[<e2e timeout>[,<threshold>,<threshold step>]] with ISO-8601 durations, e.g. 'default=;hedge-1s=PT6S,PT1S,PT0.5S'. Reads use the same request options when empty.")
+    private String readVariants = "";
+
+    @Parameter(names = "-documentSizeInBytes", description = "The size in bytes of created documents, from 1 KB up to 2 MB.")
+    private int documentSizeInBytes = 1024;
+
+    @Parameter(names = "-documentDepth", description = "The no. of nested object levels in created documents.")
+    private int documentDepth = 1;
+
+    @Parameter(names = "-documentFieldCount", description = "The no. of fields in each object level of created documents.")
+    private int documentFieldCount = 10;
+
+    @Parameter(names = "-documentEntropy", description = "The share (0 to 1) of random characters in string values of created documents, lower values compress better.")
+    private double documentEntropy = 0.5;
+
+    @Parameter(names = "-documentPoolSize", description = "The no. of distinct pre-generated payloads created documents are drawn from.")
+    private int documentPoolSize = 256;
+
+    @Parameter(names = "-bulkMaxMicroBatchSize", description = "The max no. of documents the PPAFBulkIngestWorkload sends per bulk request (micro batch).")
+    private int bulkMaxMicroBatchSize = 100;
+
+    @Parameter(names = "-bulkMaxMicroBatchConcurrency", description = "The max no. of micro batches the PPAFBulkIngestWorkload has in flight per partition key range.")
+    private int bulkMaxMicroBatchConcurrency = 1;
+
+    @Parameter(names = "-batchSize", description = "The no. of documents the PPAFTransactionalBatchWorkload creates per transactional batch, all sharing one partition key value (at most 100).")
+    private int batchSize = 10;
+
+    @Parameter(names = "-changeFeedPollIntervalInMillis", description = "The time in milliseconds a PPAFChangeFeedWorkload consumer waits before reading a caught up feed range again.")
+    private int changeFeedPollIntervalInMillis = 1000;
+
+    @Parameter(names = "-changeFeedMissingThresholdInSeconds", description = "The time in seconds after a create completes within which its document has to show up on the change feed before it is reported missing.")
+    private int changeFeedMissingThresholdInSeconds = 60;
+
+    @Parameter(names = "-latencyReportingIntervalInSeconds", description = "The interval in seconds at which latency percentiles since the previous report are logged.")
+    private int latencyReportingIntervalInSeconds = 10;
+
+    @Parameter(names = "-drainTimeoutInSeconds", description = "The time in seconds in-flight operations are given to complete once the running time has elapsed.")
+    private int drainTimeoutInSeconds = 30;
+
+    @Parameter(names = "-metricsPort", description = "The port drill metrics are served on at /metrics in the OpenMetrics text format, 0 disables the endpoint.")
+    private int metricsPort = 0;
+
+    @Parameter(names = "-availabilityWindowInSeconds", description = "The sliding window in seconds the availability metric is computed over.")
+    private int availabilityWindowInSeconds = 60;
+
+    @Parameter(names = "-availabilityTarget", description = "The availability target (e.g. 0.999) the error budget of the recovery report is derived from.")
+    private double availabilityTarget = 0.999;
+
+    @Parameter(names = "-recoveryQuietPeriodInSeconds", description = "The time without availability failures after which a failover transition is considered recovered.")
+    private int recoveryQuietPeriodInSeconds = 30;
+
+    @Parameter(names = "-drillEventSinkType", description = "A parameter to denote where per-operation events go - LOG (RequestResponseInfo lines through log4j) or NDJSON (asynchronous ring buffer drained into an NDJSON file).", converter = DrillEventSinkTypeConverter.class)
+    private DrillEventSinkType drillEventSinkType = DrillEventSinkType.LOG;
+
+    @Parameter(names = "-drillEventLogDirectory", description = "The directory the NDJSON drill event log is written to.")
+    private String drillEventLogDirectory = "../java-ppaf-drill-logs";
+
+    @Parameter(names = "-drillEventRingBufferSize", description = "The no. of preallocated event slots (rounded up to a power of 2) between the workload and the NDJSON writer.")
+    private int drillEventRingBufferSize = 65536;
+
+    @Parameter(names = "-idReservoirCapacity", description = "The max no. of recently persisted ids which reads and queries pick from.")
+    private int idReservoirCapacity = 1_000_000;
+
+    @Parameter(names = "-idSamplingStrategy", description = "A parameter to denote how reads and queries pick a persisted id - UNIFORM or RECENCY_BIASED.", converter = IdSamplingStrategyConverter.class)
+    private IdSamplingStrategy idSamplingStrategy = IdSamplingStrategy.UNIFORM;
+
+    @Parameter(names = "-partitionKeyCount", description = "The no. of logical partition key values created documents are spread over, 0 gives every document its own partition key.")
+    private int partitionKeyCount = 0;
+
+    @Parameter(names = "-partitionKeyDistribution", description = "A parameter to denote how created documents pick their partition key value - UNIFORM or ZIPFIAN.", converter = PartitionKeyDistributionConverter.class)
+    private PartitionKeyDistribution partitionKeyDistribution = PartitionKeyDistribution.UNIFORM;
+
+    @Parameter(names = "-zipfianExponent", description = "The skew of the ZIPFIAN partition key distribution, higher values concentrate more operations on the hottest partition keys.")
+    private double zipfianExponent = 0.99;
+
+    @Parameter(names = "-dataPlane", description = "A parameter to denote what serves the drill's operations - COSMOS (the configured account) or SIMULATOR (an in-process multi-region simulator).", converter = DataPlaneTypeConverter.class)
+    private DataPlaneType dataPlaneType = DataPlaneType.COSMOS;
+
+    @Parameter(names = "-simulatorRegions", description = "The simulated regions in preference order with their median latency in milliseconds, e.g. East US=4,West US=38.")
+    private String simulatorRegions = "East US=4,West US=38,North Europe=85";
+
+    @Parameter(names = "-simulatorLatencySigma", description = "The shape (sigma) of the log-normal latency distribution of simulated regions.")
+    private double simulatorLatencySigma = 0.35;
+
+    @Parameter(names = "-simulatorPartitionCount", description = "The no. of partitions the simulator hashes items onto.")
+    private int simulatorPartitionCount = 16;
+
+    @Parameter(names = "-simulatorTransientFailureRate", description = "The share (0 to 1) of simulated operations failing with a transient 503, 408 or 410.")
+    private double simulatorTransientFailureRate = 0.0;
+
+    @Parameter(names = "-simulatorReplicationLagInMillis", description = "The time in milliseconds a simulated write takes to become visible outside the write region.")
+    private int simulatorReplicationLagInMillis = 100;
+
+    @Parameter(names = "-simulatorOutageStart", description = "The time after start at which the first simulated region becomes unavailable.", converter = DurationConverter.class)
+    private Duration simulatorOutageStart = Duration.ofMinutes(2);
+
+    @Parameter(names = "-simulatorOutageDuration", description = "The time the first simulated region stays unavailable, PT0S disables the outage.", converter = DurationConverter.class)
+    private Duration simulatorOutageDuration = Duration.ZERO;
+
+    @Parameter(names = "-simulatorOutagePartitionFraction", description = "The share (0 to 1) of simulated partitions the outage affects.")
+    private double simulatorOutagePartitionFraction = 0.5;
+
+    @Parameter(names = "-simulatorFailoverDelay", description = "The time an affected simulated partition takes to fail over its writes after the outage starts, and to fail back after it ends.", converter = DurationConverter.class)
+    private Duration simulatorFailoverDelay = Duration.ofSeconds(15);
+
+    @Parameter(names = "-drillRole", description = "A parameter to denote whether this process runs the drill on its own (STANDALONE), coordinates drill agents and merges their results (COORDINATOR) or runs the drill as an agent of a coordinator (AGENT).", converter = DrillRoleConverter.class)
+    private DrillRole drillRole = DrillRole.STANDALONE;
+
+    @Parameter(names = "-coordinatorHost", description = "The host an AGENT connects to the coordinator on, and the address the COORDINATOR listens on (0.0.0.0 for all interfaces).")
+    private String coordinatorHost = "localhost";
+
+    @Parameter(names = "-coordinatorPort", description = "The port the COORDINATOR listens on for agents.")
+    private int coordinatorPort = 7300;
+
+    @Parameter(names = "-coordinatorSecret", description = "The shared secret an AGENT presents to the COORDINATOR when joining, the coordinator only sends the drill to agents presenting its own.")
+    private String coordinatorSecret = "";
+
+    @Parameter(names = "-agentCount", description = "The no. of agents the COORDINATOR waits for before starting the drill.")
+    private int agentCount = 1;
+
+    @Parameter(names = "-agentName", description = "The name an AGENT reports its results under, defaults to its host name and process id.")
+    private String agentName = "";
+
+    @Parameter(names = "-coordinatedStartDelayInSeconds", description = "The time in seconds between the last agent joining and the synchronized start of the drill on all agents.")
+    private int coordinatedStartDelayInSeconds = 10;
+
     public boolean shouldLogCosmosDiagnosticsForSuccessfulResponse() {
         return this.shouldLogCosmosDiagnosticsForSuccessfulResponse;
     }
 
-    public int getSleepTime() {
+    public double getDiagnosticsSamplesPerSecond() {
+        return this.diagnosticsSamplesPerSecond;
+    }
+
+    public void setDiagnosticsSamplesPerSecond(double diagnosticsSamplesPerSecond) {
+        this.diagnosticsSamplesPerSecond = diagnosticsSamplesPerSecond;
+    }
+
+    public double getDiagnosticsTailPercentile() {
+        return this.diagnosticsTailPercentile;
+    }
+
+    public void setDiagnosticsTailPercentile(double diagnosticsTailPercentile) {
+        this.diagnosticsTailPercentile = diagnosticsTailPercentile;
+    }
+
+    // Null unless given
+    public Integer getSleepTime() {
         return this.sleepTime;
     }
 
@@ -106,6 +347,10 @@ public class Configuration {
         return this.accountMasterKey;
     }
 
+    public void setAccountMasterKey(String accountMasterKey) {
+        this.accountMasterKey = accountMasterKey;
+    }
+
     public String getAccountHost() {
         return this.accountHost;
     }
@@ -174,6 +419,10 @@ public class Configuration {
         return this.drillId;
     }
 
+    public void setDrillId(String drillId) {
+        this.drillId = drillId;
+    }
+
     public boolean shouldExecuteReadWorkload() {
         return this.shouldExecuteReadWorkload;
     }
@@ -194,6 +443,18 @@ public class Configuration {
         return this.shouldInjectResponseDelayForReads;
     }
 
+    public void setShouldInjectResponseDelayForReads(boolean shouldInjectResponseDelayForReads) {
+        this.shouldInjectResponseDelayForReads = shouldInjectResponseDelayForReads;
+    }
+
+    public String getFaultScenarioFile() {
+        return this.faultScenarioFile;
+    }
+
+    public void setFaultScenarioFile(String faultScenarioFile) {
+        this.faultScenarioFile = faultScenarioFile;
+    }
+
     public WorkloadType getDrillWorkloadType() {
         return this.drillWorkloadType;
     }
@@ -206,6 +467,30 @@ public class Configuration {
         return shouldHaveE2ETimeoutForWrites;
     }
 
+    public boolean shouldCheckSessionConsistency() {
+        return this.shouldCheckSessionConsistency;
+    }
+
+    public void setShouldCheckSessionConsistency(boolean shouldCheckSessionConsistency) {
+        this.shouldCheckSessionConsistency = shouldCheckSessionConsistency;
+    }
+
+    public boolean shouldStopOnSessionConsistencyViolation() {
+        return this.shouldStopOnSessionConsistencyViolation;
+    }
+
+    public void setShouldStopOnSessionConsistencyViolation(boolean shouldStopOnSessionConsistencyViolation) {
+        this.shouldStopOnSessionConsistencyViolation = shouldStopOnSessionConsistencyViolation;
+    }
+
+    public int getSessionConsistencyHistoryInSeconds() {
+        return this.sessionConsistencyHistoryInSeconds;
+    }
+
+    public void setSessionConsistencyHistoryInSeconds(int sessionConsistencyHistoryInSeconds) {
+        this.sessionConsistencyHistoryInSeconds = sessionConsistencyHistoryInSeconds;
+    }
+
 
     public boolean isThinClientEnabled() {
         return isThinClientEnabled;
@@ -215,6 +500,575 @@ public class Configuration {
         isThinClientEnabled = thinClientEnabled;
     }
 
+    public String getPreferredRegions() {
+        return this.preferredRegions;
+    }
+
+    public void setPreferredRegions(String preferredRegions) {
+        this.preferredRegions = preferredRegions;
+    }
+
+    public boolean shouldWarmUpConnections() {
+        return this.shouldWarmUpConnections;
+    }
+
+    public void setShouldWarmUpConnections(boolean shouldWarmUpConnections) {
+        this.shouldWarmUpConnections = shouldWarmUpConnections;
+    }
+
+    public int getFleetClientCount() {
+        return this.fleetClientCount;
+    }
+
+    public void setFleetClientCount(int fleetClientCount) {
+        this.fleetClientCount = fleetClientCount;
+    }
+
+    public boolean shouldShareFleetConnections() {
+        return this.shouldShareFleetConnections;
+    }
+
+    public void setShouldShareFleetConnections(boolean shouldShareFleetConnections) {
+        this.shouldShareFleetConnections = shouldShareFleetConnections;
+    }
+
+    public String getFleetPreferredRegionOrders() {
+        return this.fleetPreferredRegionOrders;
+    }
+
+    public void setFleetPreferredRegionOrders(String fleetPreferredRegionOrders) {
+        this.fleetPreferredRegionOrders = fleetPreferredRegionOrders;
+    }
+
+    public ExecutionMode getExecutionMode() {
+        return this.executionMode;
+    }
+
+    public void setExecutionMode(ExecutionMode executionMode) {
+        this.executionMode = executionMode;
+    }
+
+    // Drills which still pass -sleepTime keep the rate their threads used to issue operations at
+    public int getTargetOperationsPerSecond() {
+
+        if (this.targetOperationsPerSecond != null) {
+            return this.targetOperationsPerSecond;
+        }
+
+        if (this.sleepTime != null) {
+
+            if (this.sleepTime <= 0) {
+                throw new IllegalArgumentException("sleepTime should be greater than 0");
+            }
+
+            return (int) Math.max(1, Math.round(this.numberOfThreads * 1000.0 / this.sleepTime));
+        }
+
+        return DEFAULT_TARGET_OPERATIONS_PER_SECOND;
+    }
+
+    public void setTargetOperationsPerSecond(int targetOperationsPerSecond) {
+        this.targetOperationsPerSecond = targetOperationsPerSecond;
+    }
+
+    public int getTargetOperationsPerSecond(String operationType) {
+
+        int targetOperationsPerSecondForOperationType;
+
+        switch (operationType) {
+            case WorkloadUtils.CREATE_OP:
+            case WorkloadUtils.BULK_CREATE_OP:
+            case WorkloadUtils.BATCH_OP:
+                targetOperationsPerSecondForOperationType = this.targetCreateOperationsPerSecond;
+                break;
+            case WorkloadUtils.READ_OP:
+                targetOperationsPerSecondForOperationType = this.targetReadOperationsPerSecond;
+                break;
+            case WorkloadUtils.QUERY_OP:
+                targetOperationsPerSecondForOperationType = this.targetQueryOperationsPerSecond;
+                break;
+            default:
+                targetOperationsPerSecondForOperationType = 0;
+        }
+
+        return targetOperationsPerSecondForOperationType > 0 ? targetOperationsPerSecondForOperationType : getTargetOperationsPerSecond();
+    }
+
+    public void setTargetCreateOperationsPerSecond(int targetCreateOperationsPerSecond) {
+        this.targetCreateOperationsPerSecond = targetCreateOperationsPerSecond;
+    }
+
+    public void setTargetReadOperationsPerSecond(int targetReadOperationsPerSecond) {
+        this.targetReadOperationsPerSecond = targetReadOperationsPerSecond;
+    }
+
+    public void setTargetQueryOperationsPerSecond(int targetQueryOperationsPerSecond) {
+        this.targetQueryOperationsPerSecond = targetQueryOperationsPerSecond;
+    }
+
+    public LoadProfileType getLoadProfileType() {
+        return this.loadProfileType;
+    }
+
+    public void setLoadProfileType(LoadProfileType loadProfileType) {
+        this.loadProfileType = loadProfileType;
+    }
+
+    public Duration getRampUpDuration() {
+        return this.rampUpDuration;
+    }
+
+    public void setRampUpDuration(Duration rampUpDuration) {
+        this.rampUpDuration = rampUpDuration;
+    }
+
+    public Duration getLoadProfileStepDuration() {
+        return this.loadProfileStepDuration;
+    }
+
+    public void setLoadProfileStepDuration(Duration loadProfileStepDuration) {
+        this.loadProfileStepDuration = loadProfileStepDuration;
+    }
+
+    public int getLoadProfileStepCount() {
+        return this.loadProfileStepCount;
+    }
+
+    public void setLoadProfileStepCount(int loadProfileStepCount) {
+        this.loadProfileStepCount = loadProfileStepCount;
+    }
+
+    public Duration getLoadProfilePeriod() {
+        return this.loadProfilePeriod;
+    }
+
+    public void setLoadProfilePeriod(Duration loadProfilePeriod) {
+        this.loadProfilePeriod = loadProfilePeriod;
+    }
+
+    public double getLoadProfileAmplitude() {
+        return this.loadProfileAmplitude;
+    }
+
+    public void setLoadProfileAmplitude(double loadProfileAmplitude) {
+        this.loadProfileAmplitude = loadProfileAmplitude;
+    }
+
+    public int getMaxInFlightOperations() {
+        return this.maxInFlightOperations;
+    }
+
+    public void setMaxInFlightOperations(int maxInFlightOperations) {
+        this.maxInFlightOperations = maxInFlightOperations;
+    }
+
+    public boolean shouldCalibrate() {
+        return this.shouldCalibrate;
+    }
+
+    public void setShouldCalibrate(boolean shouldCalibrate) {
+        this.shouldCalibrate = shouldCalibrate;
+    }
+
+    public Duration getCalibrationDuration() {
+        return this.calibrationDuration;
+    }
+
+    public void setCalibrationDuration(Duration calibrationDuration) {
+        this.calibrationDuration = calibrationDuration;
+    }
+
+    public double getCalibrationThrottleRateThreshold() {
+        return this.calibrationThrottleRateThreshold;
+    }
+
+    public void setCalibrationThrottleRateThreshold(double calibrationThrottleRateThreshold) {
+        this.calibrationThrottleRateThreshold = calibrationThrottleRateThreshold;
+    }
+
+    public Duration getCalibrationLatencyThreshold() {
+        return this.calibrationLatencyThreshold;
+    }
+
+    public void setCalibrationLatencyThreshold(Duration calibrationLatencyThreshold) {
+        this.calibrationLatencyThreshold = calibrationLatencyThreshold;
+    }
+
+    public int getCalibrationMaxConcurrency() {
+        return this.calibrationMaxConcurrency;
+    }
+
+    public void setCalibrationMaxConcurrency(int calibrationMaxConcurrency) {
+        this.calibrationMaxConcurrency = calibrationMaxConcurrency;
+    }
+
+    public double getCalibrationLoadFraction() {
+        return this.calibrationLoadFraction;
+    }
+
+    public void setCalibrationLoadFraction(double calibrationLoadFraction) {
+        this.calibrationLoadFraction = calibrationLoadFraction;
+    }
+
+    public String getQueryShapes() {
+        return this.queryShapes;
+    }
+
+    public void setQueryShapes(String queryShapes) {
+        this.queryShapes = queryShapes;
+    }
+
+    public int getQueryPageSize() {
+        return this.queryPageSize;
+    }
+
+    public void setQueryPageSize(int queryPageSize) {
+        this.queryPageSize = queryPageSize;
+    }
+
+    public int getMaxInFlightQueries() {
+        return this.maxInFlightQueries > 0 ? this.maxInFlightQueries : this.maxInFlightOperations;
+    }
+
+    public void setMaxInFlightQueries(int maxInFlightQueries) {
+        this.maxInFlightQueries = maxInFlightQueries;
+    }
+
+    public String getReadVariants() {
+        return this.readVariants;
+    }
+
+    public void setReadVariants(String readVariants) {
+        this.readVariants = readVariants;
+    }
+
+    public int getDocumentSizeInBytes() {
+        return this.documentSizeInBytes;
+    }
+
+    public void setDocumentSizeInBytes(int documentSizeInBytes) {
+        this.documentSizeInBytes = documentSizeInBytes;
+    }
+
+    public int getDocumentDepth() {
+        return this.documentDepth;
+    }
+
+    public void setDocumentDepth(int documentDepth) {
+        this.documentDepth = documentDepth;
+    }
+
+    public int getDocumentFieldCount() {
+        return this.documentFieldCount;
+    }
+
+    public void setDocumentFieldCount(int documentFieldCount) {
+        this.documentFieldCount = documentFieldCount;
+    }
+
+    public double getDocumentEntropy() {
+        return this.documentEntropy;
+    }
+
+    public void setDocumentEntropy(double documentEntropy) {
+        this.documentEntropy = documentEntropy;
+    }
+
+    public int getDocumentPoolSize() {
+        return this.documentPoolSize;
+    }
+
+    public void setDocumentPoolSize(int documentPoolSize) {
+        this.documentPoolSize = documentPoolSize;
+    }
+
+    public int getBulkMaxMicroBatchSize() {
+        return this.bulkMaxMicroBatchSize;
+    }
+
+    public void setBulkMaxMicroBatchSize(int bulkMaxMicroBatchSize) {
+        this.bulkMaxMicroBatchSize = bulkMaxMicroBatchSize;
+    }
+
+    public int getBulkMaxMicroBatchConcurrency() {
+        return this.bulkMaxMicroBatchConcurrency;
+    }
+
+    public void setBulkMaxMicroBatchConcurrency(int bulkMaxMicroBatchConcurrency) {
+        this.bulkMaxMicroBatchConcurrency = bulkMaxMicroBatchConcurrency;
+    }
+
+    public int getBatchSize() {
+        return this.batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public int getChangeFeedPollIntervalInMillis() {
+        return this.changeFeedPollIntervalInMillis;
+    }
+
+    public void setChangeFeedPollIntervalInMillis(int changeFeedPollIntervalInMillis) {
+        this.changeFeedPollIntervalInMillis = changeFeedPollIntervalInMillis;
+    }
+
+    public int getChangeFeedMissingThresholdInSeconds() {
+        return this.changeFeedMissingThresholdInSeconds;
+    }
+
+    public void setChangeFeedMissingThresholdInSeconds(int changeFeedMissingThresholdInSeconds) {
+        this.changeFeedMissingThresholdInSeconds = changeFeedMissingThresholdInSeconds;
+    }
+
+    public int getLatencyReportingIntervalInSeconds() {
+        return this.latencyReportingIntervalInSeconds;
+    }
+
+    public void setLatencyReportingIntervalInSeconds(int latencyReportingIntervalInSeconds) {
+        this.latencyReportingIntervalInSeconds = latencyReportingIntervalInSeconds;
+    }
+
+    public int getDrainTimeoutInSeconds() {
+        return this.drainTimeoutInSeconds;
+    }
+
+    public void setDrainTimeoutInSeconds(int drainTimeoutInSeconds) {
+        this.drainTimeoutInSeconds = drainTimeoutInSeconds;
+    }
+
+    public int getMetricsPort() {
+        return this.metricsPort;
+    }
+
+    public void setMetricsPort(int metricsPort) {
+        this.metricsPort = metricsPort;
+    }
+
+    public int getAvailabilityWindowInSeconds() {
+        return this.availabilityWindowInSeconds;
+    }
+
+    public void setAvailabilityWindowInSeconds(int availabilityWindowInSeconds) {
+        this.availabilityWindowInSeconds = availabilityWindowInSeconds;
+    }
+
+    public double getAvailabilityTarget() {
+        return this.availabilityTarget;
+    }
+
+    public void setAvailabilityTarget(double availabilityTarget) {
+        this.availabilityTarget = availabilityTarget;
+    }
+
+    public int getRecoveryQuietPeriodInSeconds() {
+        return this.recoveryQuietPeriodInSeconds;
+    }
+
+    public void setRecoveryQuietPeriodInSeconds(int recoveryQuietPeriodInSeconds) {
+        this.recoveryQuietPeriodInSeconds = recoveryQuietPeriodInSeconds;
+    }
+
+    public DrillEventSinkType getDrillEventSinkType() {
+        return this.drillEventSinkType;
+    }
+
+    public void setDrillEventSinkType(DrillEventSinkType drillEventSinkType) {
+        this.drillEventSinkType = drillEventSinkType;
+    }
+
+    public String getDrillEventLogDirectory() {
+        return this.drillEventLogDirectory;
+    }
+
+    public void setDrillEventLogDirectory(String drillEventLogDirectory) {
+        this.drillEventLogDirectory = drillEventLogDirectory;
+    }
+
+    public int getDrillEventRingBufferSize() {
+        return this.drillEventRingBufferSize;
+    }
+
+    public void setDrillEventRingBufferSize(int drillEventRingBufferSize) {
+        this.drillEventRingBufferSize = drillEventRingBufferSize;
+    }
+
+    public int getIdReservoirCapacity() {
+        return this.idReservoirCapacity;
+    }
+
+    public void setIdReservoirCapacity(int idReservoirCapacity) {
+        this.idReservoirCapacity = idReservoirCapacity;
+    }
+
+    public IdSamplingStrategy getIdSamplingStrategy() {
+        return this.idSamplingStrategy;
+    }
+
+    public void setIdSamplingStrategy(IdSamplingStrategy idSamplingStrategy) {
+        this.idSamplingStrategy = idSamplingStrategy;
+    }
+
+    public int getPartitionKeyCount() {
+        return this.partitionKeyCount;
+    }
+
+    public void setPartitionKeyCount(int partitionKeyCount) {
+        this.partitionKeyCount = partitionKeyCount;
+    }
+
+    public PartitionKeyDistribution getPartitionKeyDistribution() {
+        return this.partitionKeyDistribution;
+    }
+
+    public void setPartitionKeyDistribution(PartitionKeyDistribution partitionKeyDistribution) {
+        this.partitionKeyDistribution = partitionKeyDistribution;
+    }
+
+    public double getZipfianExponent() {
+        return this.zipfianExponent;
+    }
+
+    public void setZipfianExponent(double zipfianExponent) {
+        this.zipfianExponent = zipfianExponent;
+    }
+
+    public DrillRole getDrillRole() {
+        return this.drillRole;
+    }
+
+    public void setDrillRole(DrillRole drillRole) {
+        this.drillRole = drillRole;
+    }
+
+    public String getCoordinatorHost() {
+        return this.coordinatorHost;
+    }
+
+    public void setCoordinatorHost(String coordinatorHost) {
+        this.coordinatorHost = coordinatorHost;
+    }
+
+    public int getCoordinatorPort() {
+        return this.coordinatorPort;
+    }
+
+    public void setCoordinatorPort(int coordinatorPort) {
+        this.coordinatorPort = coordinatorPort;
+    }
+
+    public String getCoordinatorSecret() {
+        return this.coordinatorSecret;
+    }
+
+    public void setCoordinatorSecret(String coordinatorSecret) {
+        this.coordinatorSecret = coordinatorSecret;
+    }
+
+    public int getAgentCount() {
+        return this.agentCount;
+    }
+
+    public void setAgentCount(int agentCount) {
+        this.agentCount = agentCount;
+    }
+
+    public String getAgentName() {
+        return this.agentName;
+    }
+
+    public void setAgentName(String agentName) {
+        this.agentName = agentName;
+    }
+
+    public int getCoordinatedStartDelayInSeconds() {
+        return this.coordinatedStartDelayInSeconds;
+    }
+
+    public void setCoordinatedStartDelayInSeconds(int coordinatedStartDelayInSeconds) {
+        this.coordinatedStartDelayInSeconds = coordinatedStartDelayInSeconds;
+    }
+
+    public DataPlaneType getDataPlaneType() {
+        return this.dataPlaneType;
+    }
+
+    public void setDataPlaneType(DataPlaneType dataPlaneType) {
+        this.dataPlaneType = dataPlaneType;
+    }
+
+    public String getSimulatorRegions() {
+        return this.simulatorRegions;
+    }
+
+    public void setSimulatorRegions(String simulatorRegions) {
+        this.simulatorRegions = simulatorRegions;
+    }
+
+    public double getSimulatorLatencySigma() {
+        return this.simulatorLatencySigma;
+    }
+
+    public void setSimulatorLatencySigma(double simulatorLatencySigma) {
+        this.simulatorLatencySigma = simulatorLatencySigma;
+    }
+
+    public int getSimulatorPartitionCount() {
+        return this.simulatorPartitionCount;
+    }
+
+    public void setSimulatorPartitionCount(int simulatorPartitionCount) {
+        this.simulatorPartitionCount = simulatorPartitionCount;
+    }
+
+    public double getSimulatorTransientFailureRate() {
+        return this.simulatorTransientFailureRate;
+    }
+
+    public void setSimulatorTransientFailureRate(double simulatorTransientFailureRate) {
+        this.simulatorTransientFailureRate = simulatorTransientFailureRate;
+    }
+
+    public int getSimulatorReplicationLagInMillis() {
+        return this.simulatorReplicationLagInMillis;
+    }
+
+    public void setSimulatorReplicationLagInMillis(int simulatorReplicationLagInMillis) {
+        this.simulatorReplicationLagInMillis = simulatorReplicationLagInMillis;
+    }
+
+    public Duration getSimulatorOutageStart() {
+        return this.simulatorOutageStart;
+    }
+
+    public void setSimulatorOutageStart(Duration simulatorOutageStart) {
+        this.simulatorOutageStart = simulatorOutageStart;
+    }
+
+    public Duration getSimulatorOutageDuration() {
+        return this.simulatorOutageDuration;
+    }
+
+    public void setSimulatorOutageDuration(Duration simulatorOutageDuration) {
+        this.simulatorOutageDuration = simulatorOutageDuration;
+    }
+
+    public double getSimulatorOutagePartitionFraction() {
+        return this.simulatorOutagePartitionFraction;
+    }
+
+    public void setSimulatorOutagePartitionFraction(double simulatorOutagePartitionFraction) {
+        this.simulatorOutagePartitionFraction = simulatorOutagePartitionFraction;
+    }
+
+    public Duration getSimulatorFailoverDelay() {
+        return this.simulatorFailoverDelay;
+    }
+
+    public void setSimulatorFailoverDelay(Duration simulatorFailoverDelay) {
+        this.simulatorFailoverDelay = simulatorFailoverDelay;
+    }
 
     @Override
     public String toString() {
@@ -230,23 +1084,52 @@ public class Configuration {
                     
                     Workload Configuration:
                     - Running Time: %s
+                    - Drain Timeout: %d seconds
                     - Number of Threads: %d
-                    - Sleep Time: %d ms
                     - Execute Read Workload: %b
                     - Execute Query Workload: %b
+                    - ID Reservoir Capacity: %d
+                    - ID Sampling Strategy: %s
+                    - Partition Keys: %d, %s (zipfian exponent: %.2f)
                     - Drill ID: %s
                     - Drill Workload Type: %s
+                    - Execution Mode: %s
+                    - Target Operations Per Second: %d (create: %d, read: %d, query: %d)
+                    - Load Profile: %s (ramp up: %s, step: %s x %d, period: %s, amplitude: %.2f)
+                    - Max In-Flight Operations: %d
+                    - Calibration: %b (up to %s, throttle rate %.3f, p99 %s, %d in flight, load fraction %.2f)
+                    - Queries: %s, page size %d, %d in flight
+                    - Read Variants: %s
+                    - Document: %d bytes, depth %d, %d fields per level, entropy %.2f, pool of %d
+                    - Bulk: micro batches of %d, %d concurrent per partition key range
+                    - Transactional Batch Size: %d
+                    - Change Feed: poll interval %d ms, missing threshold %d seconds
                     
                     Connection Configuration:
+                    - Data Plane: %s
+                    - Simulator: regions %s, sigma %.2f, %d partitions, transient failure rate %s, replication lag %d ms
+                    - Simulator Outage: start %s, duration %s, partition fraction %.2f, failover delay %s
+                    - Drill Role: %s (coordinator %s:%d, secret %s, %d agents, agent name %s, start delay %d seconds)
                     - Connection Mode: %s
+                    - Preferred Regions: %s (warm up connections: %b)
+                    - Client Fleet: %d clients (shared connections: %b, preferred region orders: %s)
                     - Account Host: %s
                     - Account Master Key: %s
                     
                     Advanced Settings:
-                    - Log Cosmos Diagnostics: %b
+                    - Log Cosmos Diagnostics: %b (sampled per second: %.2f, tail percentile: %.2f)
                     - Inject Response Delay for Reads: %b
+                    - Fault Scenario File: %s
                     - Use Session Token: %b
+                    - Session Consistency Check: %b (stop on violation: %b, history: %ds)
                     - E2E Timeout for Writes: %b
+                    - Latency Reporting Interval: %d seconds
+                    - Metrics Port: %d
+                    - Availability Window: %d seconds
+                    - Availability Target: %s
+                    - Recovery Quiet Period: %d seconds
+                    - Drill Event Sink Type: %s
+                    - Drill Event Log Directory: %s
                 }""",
                 databaseName,
                 containerName,
@@ -255,19 +1138,91 @@ public class Configuration {
                 provisionedThroughput,
                 isSharedThroughput,
                 runningTime,
+                drainTimeoutInSeconds,
                 numberOfThreads,
-                sleepTime,
                 shouldExecuteReadWorkload,
                 shouldExecuteQueryWorkload,
+                idReservoirCapacity,
+                idSamplingStrategy,
+                partitionKeyCount,
+                partitionKeyDistribution,
+                zipfianExponent,
                 drillId,
                 drillWorkloadType,
+                executionMode,
+                getTargetOperationsPerSecond(),
+                getTargetOperationsPerSecond(WorkloadUtils.CREATE_OP),
+                getTargetOperationsPerSecond(WorkloadUtils.READ_OP),
+                getTargetOperationsPerSecond(WorkloadUtils.QUERY_OP),
+                loadProfileType,
+                rampUpDuration,
+                loadProfileStepDuration,
+                loadProfileStepCount,
+                loadProfilePeriod,
+                loadProfileAmplitude,
+                maxInFlightOperations,
+                shouldCalibrate,
+                calibrationDuration,
+                calibrationThrottleRateThreshold,
+                calibrationLatencyThreshold,
+                calibrationMaxConcurrency,
+                calibrationLoadFraction,
+                queryShapes,
+                queryPageSize,
+                getMaxInFlightQueries(),
+                readVariants.isEmpty() ? "none" : readVariants,
+                documentSizeInBytes,
+                documentDepth,
+                documentFieldCount,
+                documentEntropy,
+                documentPoolSize,
+                bulkMaxMicroBatchSize,
+                bulkMaxMicroBatchConcurrency,
+                batchSize,
+                changeFeedPollIntervalInMillis,
+                changeFeedMissingThresholdInSeconds,
+                dataPlaneType,
+                simulatorRegions,
+                simulatorLatencySigma,
+                simulatorPartitionCount,
+                simulatorTransientFailureRate,
+                simulatorReplicationLagInMillis,
+                simulatorOutageStart,
+                simulatorOutageDuration,
+                simulatorOutagePartitionFraction,
+                simulatorFailoverDelay,
+                drillRole,
+                coordinatorHost,
+                coordinatorPort,
+                coordinatorSecret.isEmpty() ? "none" : "...",
+                agentCount,
+                agentName,
+                coordinatedStartDelayInSeconds,
                 connectionMode,
+                preferredRegions.isEmpty() ? "account service order" : preferredRegions,
+                shouldWarmUpConnections,
+                fleetClientCount,
+                shouldShareFleetConnections,
+                fleetPreferredRegionOrders.isEmpty() ? "rotated" : fleetPreferredRegionOrders,
                 accountHost,
                 accountMasterKey.substring(0, Math.min(accountMasterKey.length(), 4)) + "...",
                 shouldLogCosmosDiagnosticsForSuccessfulResponse,
+                diagnosticsSamplesPerSecond,
+                diagnosticsTailPercentile,
                 shouldInjectResponseDelayForReads,
+                faultScenarioFile,
                 shouldUseSessionTokenOnRequestOptions,
-                shouldHaveE2ETimeoutForWrites
+                shouldCheckSessionConsistency,
+                shouldStopOnSessionConsistencyViolation,
+                sessionConsistencyHistoryInSeconds,
+                shouldHaveE2ETimeoutForWrites,
+                latencyReportingIntervalInSeconds,
+                metricsPort,
+                availabilityWindowInSeconds,
+                availabilityTarget,
+                recoveryQuietPeriodInSeconds,
+                drillEventSinkType,
+                drillEventLogDirectory
         );
     }
 
@@ -314,7 +1269,146 @@ public class Configuration {
                 return WorkloadType.PPAFDrillWorkload;
             }
 
+            if (value.toLowerCase(Locale.ROOT).equals("ppafbulkingestworkload")) {
+                return WorkloadType.PPAFBulkIngestWorkload;
+            }
+
+            if (value.toLowerCase(Locale.ROOT).equals("ppaftransactionalbatchworkload")) {
+                return WorkloadType.PPAFTransactionalBatchWorkload;
+            }
+
+            if (value.toLowerCase(Locale.ROOT).equals("ppafchangefeedworkload")) {
+                return WorkloadType.PPAFChangeFeedWorkload;
+            }
+
             return WorkloadType.PPAFForSessionConsistencyWorkload;
         }
     }
+
+    static class DrillEventSinkTypeConverter implements IStringConverter<DrillEventSinkType> {
+
+        @Override
+        public DrillEventSinkType convert(String value) {
+
+            if (value != null && value.toLowerCase(Locale.ROOT).trim().equals("ndjson")) {
+                return DrillEventSinkType.NDJSON;
+            }
+
+            return DrillEventSinkType.LOG;
+        }
+    }
+
+    static class LoadProfileTypeConverter implements IStringConverter<LoadProfileType> {
+
+        @Override
+        public LoadProfileType convert(String value) {
+
+            if (value == null || value.isEmpty()) {
+                return LoadProfileType.CONSTANT;
+            }
+
+            String normalizedLoadProfileTypeAsString = value.toLowerCase(Locale.ROOT).replace(" ", "").trim();
+
+            switch (normalizedLoadProfileTypeAsString) {
+                case "ramp":
+                    return LoadProfileType.RAMP;
+                case "step":
+                    return LoadProfileType.STEP;
+                case "sinusoidal":
+                    return LoadProfileType.SINUSOIDAL;
+                default:
+                    return LoadProfileType.CONSTANT;
+            }
+        }
+    }
+
+    static class IdSamplingStrategyConverter implements IStringConverter<IdSamplingStrategy> {
+
+        @Override
+        public IdSamplingStrategy convert(String value) {
+
+            if (value == null || value.isEmpty()) {
+                return IdSamplingStrategy.UNIFORM;
+            }
+
+            String normalizedIdSamplingStrategyAsString
+                    = value.toLowerCase(Locale.ROOT).replace(" ", "").replace("_", "").trim();
+
+            if (normalizedIdSamplingStrategyAsString.equals("recencybiased")) {
+                return IdSamplingStrategy.RECENCY_BIASED;
+            }
+
+            return IdSamplingStrategy.UNIFORM;
+        }
+    }
+
+    static class PartitionKeyDistributionConverter implements IStringConverter<PartitionKeyDistribution> {
+
+        @Override
+        public PartitionKeyDistribution convert(String value) {
+
+            if (value != null && value.toLowerCase(Locale.ROOT).trim().equals("zipfian")) {
+                return PartitionKeyDistribution.ZIPFIAN;
+            }
+
+            return PartitionKeyDistribution.UNIFORM;
+        }
+    }
+
+    static class DataPlaneTypeConverter implements IStringConverter<DataPlaneType> {
+
+        @Override
+        public DataPlaneType convert(String value) {
+
+            if (value != null && value.toLowerCase(Locale.ROOT).trim().equals("simulator")) {
+                return DataPlaneType.SIMULATOR;
+            }
+
+            return DataPlaneType.COSMOS;
+        }
+    }
+
+    static class DrillRoleConverter implements IStringConverter<DrillRole> {
+
+        @Override
+        public DrillRole convert(String value) {
+
+            if (value == null) {
+                return DrillRole.STANDALONE;
+            }
+
+            switch (value.toLowerCase(Locale.ROOT).trim()) {
+                case "coordinator":
+                    return DrillRole.COORDINATOR;
+                case "agent":
+                    return DrillRole.AGENT;
+                default:
+                    return DrillRole.STANDALONE;
+            }
+        }
+    }
+
+    static class ExecutionModeConverter implements IStringConverter<ExecutionMode> {
+
+        @Override
+        public ExecutionMode convert(String value) {
+
+            if (value == null || value.isEmpty()) {
+                return ExecutionMode.CLOSED_LOOP;
+            }
+
+            String normalizedExecutionModeAsString
+                    = value.toLowerCase(Locale.ROOT).replace(" ", "").replace("_", "").trim();
+
+            if (normalizedExecutionModeAsString.equals("openloop")) {
+                return ExecutionMode.OPEN_LOOP;
+            }
+
+            if (normalizedExecutionModeAsString.equals("virtualthreads")) {
+                return ExecutionMode.VIRTUAL_THREADS;
+            }
+
+            return ExecutionMode.CLOSED_LOOP;
+        }
+    }
 }
@@ -0,0 +1,189 @@
+package org.example;
+
+import com.azure.cosmos.CosmosAsyncClient;
+import com.azure.cosmos.CosmosAsyncContainer;
+import com.azure.cosmos.CosmosAsyncDatabase;
+import com.azure.cosmos.CosmosClientBuilder;
+import com.azure.cosmos.models.CosmosContainerProperties;
+import com.azure.cosmos.models.ThroughputProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+// The startup of a drill against an account. The workload client is built once and the readable regions are read
+// off the account it fetched on the way. Provisioning the database and container, then opening the connections and
+// address caches of the container, run in the background while the workload prepares its payloads, and the workload
+// waits for them in awaitReady. Each step is timed, logged as a ClientStartup line and exposed as
+// ppaf_drill_startup_seconds, so cold start effects aren't mistaken for failover effects.
+//
+// Without -preferredRegions the client follows the service order of the account's readable regions, the order the
+// drill used to look up through a separate client, and only connections to the first region are warmed up.
+//
+// Clients of a fleet are named, report their startup under their name and leave provisioning to the first of them.
+public class CosmosClientBootstrap {
+
+    private static final Logger logger = LoggerFactory.getLogger(CosmosClientBootstrap.class);
+
+    private final DrillMetrics metrics;
+    private final String clientName;
+    private final CosmosAsyncClient client;
+    private final CosmosAsyncContainer container;
+    private final List<String> regions;
+    private final int warmedUpRegionCount;
+    private final long startNanos;
+    private final long clientBuiltNanos;
+    private final CompletableFuture<Void> readiness;
+
+    // set by the readiness pipeline
+    private volatile long provisionedNanos;
+    private volatile long warmedUpNanos;
+
+    private CosmosClientBootstrap(
+            Configuration cfg,
+            DrillMetrics metrics,
+            String clientName,
+            CosmosAsyncClient client,
+            List<String> preferredRegions,
+            boolean shouldProvision,
+            long startNanos,
+            long clientBuiltNanos) {
+
+        this.metrics = metrics;
+        this.clientName = clientName;
+        this.client = client;
+        this.container = client.getDatabase(cfg.getDatabaseName()).getContainer(cfg.getContainerName());
+        this.regions = preferredRegions.isEmpty() ? Utils.getReadableRegions(client) : preferredRegions;
+        this.warmedUpRegionCount = !cfg.shouldWarmUpConnections() ? 0 : Math.max(1, preferredRegions.size());
+        this.startNanos = startNanos;
+        this.clientBuiltNanos = clientBuiltNanos;
+
+        Mono<Void> warmUp = Mono.empty();
+
+        if (cfg.shouldWarmUpConnections()) {
+            // the SDK can only warm up regions it was given as preferred regions
+            warmUp = (preferredRegions.isEmpty()
+                    ? container.openConnectionsAndInitCaches()
+                    : container.openConnectionsAndInitCaches(preferredRegions.size()))
+                    .onErrorResume(throwable -> {
+                        logger.warn("Warming up connections of container {} failed, the drill starts cold", cfg.getContainerName(), throwable);
+                        return Mono.empty();
+                    });
+        }
+
+        this.readiness = (shouldProvision ? provision(client, cfg) : Mono.<Void>empty())
+                .then(Mono.fromRunnable(() -> provisionedNanos = System.nanoTime()))
+                .then(warmUp)
+                .then(Mono.fromRunnable(() -> warmedUpNanos = System.nanoTime()))
+                .then()
+                .toFuture();
+    }
+
+    // clientBuilder carries the workload's own settings, preferred regions are set here
+    public static CosmosClientBootstrap start(Configuration cfg, CosmosClientBuilder clientBuilder, DrillMetrics metrics) {
+        return start(cfg, clientBuilder, metrics, null, parsePreferredRegions(cfg.getPreferredRegions()), true);
+    }
+
+    // An empty list of preferred regions leaves the client on the account's service order
+    public static CosmosClientBootstrap start(
+            Configuration cfg,
+            CosmosClientBuilder clientBuilder,
+            DrillMetrics metrics,
+            String clientName,
+            List<String> preferredRegions,
+            boolean shouldProvision) {
+
+        long startNanos = System.nanoTime();
+
+        if (!preferredRegions.isEmpty()) {
+            clientBuilder = clientBuilder.preferredRegions(preferredRegions);
+        }
+
+        CosmosAsyncClient client = clientBuilder.buildAsyncClient();
+
+        try {
+            return new CosmosClientBootstrap(cfg, metrics, clientName, client, preferredRegions, shouldProvision, startNanos, System.nanoTime());
+        } catch (RuntimeException e) {
+            client.close();
+            throw e;
+        }
+    }
+
+    // Blocks until the container is provisioned and warmed up, the caller closes the client if this fails
+    public void awaitReady() {
+
+        readiness.join();
+
+        recordStartupStep("client_build", clientBuiltNanos - startNanos);
+        recordStartupStep("provisioning", provisionedNanos - clientBuiltNanos);
+        recordStartupStep("warm_up", warmedUpNanos - provisionedNanos);
+        recordStartupStep("total", warmedUpNanos - startNanos);
+
+        logger.info(
+                "ClientStartup [{}clientBuildMs={}, provisioningMs={}, warmUpMs={}, totalMs={}, regions={}, warmedUpRegions={}]",
+                clientName != null ? "client=" + clientName + ", " : "",
+                TimeUnit.NANOSECONDS.toMillis(clientBuiltNanos - startNanos),
+                TimeUnit.NANOSECONDS.toMillis(provisionedNanos - clientBuiltNanos),
+                TimeUnit.NANOSECONDS.toMillis(warmedUpNanos - provisionedNanos),
+                TimeUnit.NANOSECONDS.toMillis(warmedUpNanos - startNanos),
+                regions,
+                warmedUpRegionCount);
+    }
+
+    public CosmosAsyncClient getClient() { return client; }
+    public CosmosAsyncContainer getContainer() { return container; }
+    public List<String> getRegions() { return regions; }
+    // Only set once the client is ready
+    public long getStartupNanos() { return warmedUpNanos - startNanos; }
+
+    private void recordStartupStep(String step, long durationNanos) {
+        if (clientName != null) {
+            metrics.recordStartupStep(clientName, step, durationNanos);
+        } else {
+            metrics.recordStartupStep(step, durationNanos);
+        }
+    }
+
+    // Already existing databases and containers are kept as they are
+    private static Mono<Void> provision(CosmosAsyncClient client, Configuration cfg) {
+
+        ThroughputProperties throughputProperties = ThroughputProperties.createManualThroughput(cfg.getProvisionedThroughput());
+        CosmosContainerProperties cosmosContainerProperties = new CosmosContainerProperties(cfg.getContainerName(), cfg.getPartitionKeyPath());
+        CosmosAsyncDatabase cosmosAsyncDatabase = client.getDatabase(cfg.getDatabaseName());
+
+        if (cfg.isSharedThroughput()) {
+            return client
+                    .createDatabaseIfNotExists(cfg.getDatabaseName(), throughputProperties)
+                    .onErrorResume(throwable -> Mono.empty())
+                    .then(cosmosAsyncDatabase
+                            .createContainerIfNotExists(cosmosContainerProperties)
+                            .onErrorResume(throwable -> Mono.empty()))
+                    .then();
+        }
+
+        return client
+                .createDatabaseIfNotExists(cfg.getDatabaseName())
+                .onErrorResume(throwable -> Mono.empty())
+                .then(cosmosAsyncDatabase
+                        .createContainerIfNotExists(cosmosContainerProperties, throughputProperties)
+                        .onErrorResume(throwable -> Mono.empty()))
+                .then();
+    }
+
+    static List<String> parsePreferredRegions(String commaSeparatedRegions) {
+
+        List<String> regions = new ArrayList<>();
+
+        for (String region : commaSeparatedRegions.split(",")) {
+            if (!region.trim().isEmpty()) {
+                regions.add(region.trim());
+            }
+        }
+
+        return regions;
+    }
+}
@@ -0,0 +1,280 @@
+package org.example;
+
+import com.azure.cosmos.CosmosAsyncContainer;
+import com.azure.cosmos.CosmosDiagnostics;
+import com.azure.cosmos.CosmosException;
+import com.azure.cosmos.models.CosmosBatch;
+import com.azure.cosmos.models.CosmosBatchResponse;
+import com.azure.cosmos.models.CosmosBulkExecutionOptions;
+import com.azure.cosmos.models.CosmosBulkItemResponse;
+import com.azure.cosmos.models.CosmosBulkOperationResponse;
+import com.azure.cosmos.models.CosmosBulkOperations;
+import com.azure.cosmos.models.CosmosChangeFeedRequestOptions;
+import com.azure.cosmos.models.CosmosItemOperation;
+import com.azure.cosmos.models.CosmosItemRequestOptions;
+import com.azure.cosmos.models.CosmosItemResponse;
+import com.azure.cosmos.models.CosmosQueryRequestOptions;
+import com.azure.cosmos.models.FeedRange;
+import com.azure.cosmos.models.FeedResponse;
+import com.azure.cosmos.models.PartitionKey;
+import com.azure.cosmos.models.SqlQuerySpec;
+import com.azure.cosmos.util.CosmosPagedFlux;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+public class CosmosDataPlane implements DataPlane {
+
+    private static final int CHANGE_FEED_MAX_ITEM_COUNT = 1000;
+
+    private final CosmosAsyncContainer cosmosAsyncContainer;
+
+    public CosmosDataPlane(CosmosAsyncContainer cosmosAsyncContainer) {
+        this.cosmosAsyncContainer = cosmosAsyncContainer;
+    }
+
+    public CosmosAsyncContainer getCosmosAsyncContainer() {
+        return cosmosAsyncContainer;
+    }
+
+    @Override
+    public Mono<DataPlaneResponse> createItem(GeneratedDocument document, CosmosItemRequestOptions requestOptions) {
+
+        Mono<CosmosItemResponse<GeneratedDocument>> createResponse = requestOptions != null
+                ? cosmosAsyncContainer.createItem(document, requestOptions)
+                : cosmosAsyncContainer.createItem(document);
+
+        return createResponse
+                .map(CosmosDataPlane::toDataPlaneResponse)
+                .onErrorMap(CosmosException.class, DataPlaneException::from);
+    }
+
+    @Override
+    public Mono<DataPlaneResponse> upsertItem(Book book) {
+        return cosmosAsyncContainer
+                .upsertItem(book)
+                .map(CosmosDataPlane::toDataPlaneResponse)
+                .onErrorMap(CosmosException.class, DataPlaneException::from);
+    }
+
+    @Override
+    public Flux<BulkOperationResult> executeBulkCreates(Flux<GeneratedDocument> documents, int maxMicroBatchSize, int maxMicroBatchConcurrency) {
+
+        CosmosBulkExecutionOptions bulkExecutionOptions = new CosmosBulkExecutionOptions()
+                .setMaxMicroBatchSize(maxMicroBatchSize)
+                .setMaxMicroBatchConcurrency(maxMicroBatchConcurrency);
+
+        Flux<CosmosItemOperation> operations = documents.map(document -> CosmosBulkOperations.getCreateItemOperation(
+                document,
+                new PartitionKey(document.getPk()),
+                new BulkCreateContext(document, System.nanoTime())));
+
+        return cosmosAsyncContainer
+                .<BulkCreateContext>executeBulkOperations(operations, bulkExecutionOptions)
+                .map(CosmosDataPlane::toBulkOperationResult);
+    }
+
+    @Override
+    public Mono<DataPlaneResponse> executeTransactionalBatchCreates(String partitionKeyValue, List<GeneratedDocument> documents) {
+
+        CosmosBatch cosmosBatch = CosmosBatch.createCosmosBatch(new PartitionKey(partitionKeyValue));
+
+        for (GeneratedDocument document : documents) {
+            cosmosBatch.createItemOperation(document);
+        }
+
+        // a failed batch completes with the status code of the operation that failed it rather than erroring
+        return cosmosAsyncContainer
+                .executeCosmosBatch(cosmosBatch)
+                .flatMap(batchResponse -> batchResponse.isSuccessStatusCode()
+                        ? Mono.just(toDataPlaneResponse(batchResponse))
+                        : Mono.<DataPlaneResponse>error(toDataPlaneException(batchResponse)))
+                .onErrorMap(CosmosException.class, DataPlaneException::from);
+    }
+
+    @Override
+    public Mono<DataPlaneResponse> readItem(String id, String partitionKeyValue, CosmosItemRequestOptions requestOptions) {
+
+        PartitionKey partitionKey = new PartitionKey(partitionKeyValue);
+
+        // items are either books or generated documents, they are read as plain JSON
+        Mono<CosmosItemResponse<ObjectNode>> readResponse = requestOptions != null
+                ? cosmosAsyncContainer.readItem(id, partitionKey, requestOptions, ObjectNode.class)
+                : cosmosAsyncContainer.readItem(id, partitionKey, ObjectNode.class);
+
+        return readResponse
+                .map(CosmosDataPlane::toDataPlaneResponse)
+                .onErrorMap(CosmosException.class, DataPlaneException::from);
+    }
+
+    // FeedResponse has no status code, a page is only emitted once its request succeeded. Pages are read as JsonNode,
+    // VALUE projections return scalars.
+    @Override
+    public Flux<QueryPage> queryItems(SqlQuerySpec querySpec, String partitionKeyValue, String continuationToken, int pageSize) {
+
+        CosmosQueryRequestOptions requestOptions = new CosmosQueryRequestOptions();
+
+        if (partitionKeyValue != null) {
+            requestOptions.setPartitionKey(new PartitionKey(partitionKeyValue));
+        }
+
+        CosmosPagedFlux<JsonNode> queryFlux = cosmosAsyncContainer.queryItems(querySpec, requestOptions, JsonNode.class);
+
+        return (continuationToken != null ? queryFlux.byPage(continuationToken, pageSize) : queryFlux.byPage(pageSize))
+                .map(feedResponse -> new QueryPage(
+                        feedResponse.getContinuationToken(),
+                        new DataPlaneResponse(
+                                200,
+                                getContactedRegionNames(feedResponse.getCosmosDiagnostics()),
+                                feedResponse.getSessionToken(),
+                                feedResponse.getRequestCharge(),
+                                feedResponse.getCosmosDiagnostics())))
+                .onErrorMap(CosmosException.class, DataPlaneException::from);
+    }
+
+    @Override
+    public Mono<List<String>> getFeedRanges() {
+        return cosmosAsyncContainer
+                .getFeedRanges()
+                .map(feedRanges -> {
+
+                    List<String> serializedFeedRanges = new ArrayList<>(feedRanges.size());
+
+                    for (FeedRange feedRange : feedRanges) {
+                        serializedFeedRanges.add(feedRange.toString());
+                    }
+
+                    return serializedFeedRanges;
+                })
+                .onErrorMap(CosmosException.class, DataPlaneException::from);
+    }
+
+    // The pull model completes the pages of a read once the feed range is caught up
+    @Override
+    public Flux<ChangeFeedPage> readChangeFeed(String feedRange, String continuationToken) {
+
+        CosmosChangeFeedRequestOptions changeFeedRequestOptions = (continuationToken != null
+                ? CosmosChangeFeedRequestOptions.createForProcessingFromContinuation(continuationToken)
+                : CosmosChangeFeedRequestOptions.createForProcessingFromNow(FeedRange.fromString(feedRange)))
+                .setMaxItemCount(CHANGE_FEED_MAX_ITEM_COUNT);
+
+        return cosmosAsyncContainer
+                .queryChangeFeed(changeFeedRequestOptions, ObjectNode.class)
+                .byPage()
+                .map(CosmosDataPlane::toChangeFeedPage)
+                .onErrorMap(CosmosException.class, DataPlaneException::from);
+    }
+
+
+    private static DataPlaneResponse toDataPlaneResponse(CosmosItemResponse<?> itemResponse) {
+        return new DataPlaneResponse(
+                itemResponse.getStatusCode(),
+                getContactedRegionNames(itemResponse.getDiagnostics()),
+                itemResponse.getSessionToken(),
+                itemResponse.getRequestCharge(),
+                itemResponse.getDiagnostics());
+    }
+
+    private static ChangeFeedPage toChangeFeedPage(FeedResponse<ObjectNode> feedResponse) {
+
+        List<String> ids = new ArrayList<>(feedResponse.getResults().size());
+
+        for (ObjectNode document : feedResponse.getResults()) {
+            ids.add(document.get("id").asText());
+        }
+
+        return new ChangeFeedPage(
+                ids,
+                feedResponse.getContinuationToken(),
+                new DataPlaneResponse(
+                        200, // as for queries, FeedResponse doesn't have a status code
+                        getContactedRegionNames(feedResponse.getCosmosDiagnostics()),
+                        feedResponse.getSessionToken(),
+                        feedResponse.getRequestCharge(),
+                        feedResponse.getCosmosDiagnostics()));
+    }
+
+    private static DataPlaneResponse toDataPlaneResponse(CosmosBatchResponse batchResponse) {
+        return new DataPlaneResponse(
+                batchResponse.getStatusCode(),
+                getContactedRegionNames(batchResponse.getDiagnostics()),
+                batchResponse.getSessionToken(),
+                batchResponse.getRequestCharge(),
+                batchResponse.getDiagnostics());
+    }
+
+    private static DataPlaneException toDataPlaneException(CosmosBatchResponse batchResponse) {
+        return new DataPlaneException(
+                batchResponse.getErrorMessage(),
+                batchResponse.getStatusCode(),
+                batchResponse.getSubStatusCode(),
+                getContactedRegionNames(batchResponse.getDiagnostics()),
+                batchResponse.getDiagnostics(),
+                null);
+    }
+
+    private static BulkOperationResult toBulkOperationResult(CosmosBulkOperationResponse<BulkCreateContext> bulkOperationResponse) {
+
+        BulkCreateContext context = bulkOperationResponse.getOperation().getContext();
+        CosmosBulkItemResponse itemResponse = bulkOperationResponse.getResponse();
+        Exception exception = bulkOperationResponse.getException();
+
+        if (itemResponse != null && itemResponse.isSuccessStatusCode()) {
+            return BulkOperationResult.success(context.document, context.operationStartNanos, new DataPlaneResponse(
+                    itemResponse.getStatusCode(),
+                    getContactedRegionNames(itemResponse.getCosmosDiagnostics()),
+                    itemResponse.getSessionToken(),
+                    itemResponse.getRequestCharge(),
+                    itemResponse.getCosmosDiagnostics()));
+        }
+
+        if (exception instanceof CosmosException) {
+            return BulkOperationResult.failure(context.document, context.operationStartNanos, DataPlaneException.from((CosmosException) exception));
+        }
+
+        // failed items come back with their status code, an exception without one means the operation never ran
+        DataPlaneException dataPlaneException = itemResponse != null
+                ? new DataPlaneException(
+                        "Bulk create failed with status code " + itemResponse.getStatusCode(),
+                        itemResponse.getStatusCode(),
+                        itemResponse.getSubStatusCode(),
+                        getContactedRegionNames(itemResponse.getCosmosDiagnostics()),
+                        itemResponse.getCosmosDiagnostics(),
+                        exception)
+                : new DataPlaneException(
+                        exception != null ? exception.getMessage() : "Bulk create failed without a response",
+                        0,
+                        0,
+                        Collections.emptySet(),
+                        null,
+                        exception);
+
+        return BulkOperationResult.failure(context.document, context.operationStartNanos, dataPlaneException);
+    }
+
+    private static Set<String> getContactedRegionNames(CosmosDiagnostics cosmosDiagnostics) {
+
+        if (cosmosDiagnostics == null || cosmosDiagnostics.getDiagnosticsContext() == null) {
+            return Collections.emptySet();
+        }
+
+        return cosmosDiagnostics.getDiagnosticsContext().getContactedRegionNames();
+    }
+
+    private static class BulkCreateContext {
+
+        private final GeneratedDocument document;
+        private final long operationStartNanos;
+
+        BulkCreateContext(GeneratedDocument document, long operationStartNanos) {
+            this.document = document;
+            this.operationStartNanos = operationStartNanos;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package org.example;
+
+import com.azure.cosmos.models.CosmosItemRequestOptions;
+import com.azure.cosmos.models.SqlQuerySpec;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+// The item operations a drill issues, served either by a Cosmos DB container or by the in-process simulator.
+// Failed operations error with a DataPlaneException. Null request options mean the client defaults apply.
+public interface DataPlane {
+
+    Mono<DataPlaneResponse> createItem(GeneratedDocument document, CosmosItemRequestOptions requestOptions);
+
+    Mono<DataPlaneResponse> upsertItem(Book book);
+
+    // Creates the documents as they are emitted, grouped into micro batches per partition key range. Failed documents
+    // are emitted as failed results, the returned Flux only errors if the pipeline itself fails.
+    Flux<BulkOperationResult> executeBulkCreates(Flux<GeneratedDocument> documents, int maxMicroBatchSize, int maxMicroBatchConcurrency);
+
+    // Creates the documents, all sharing the partition key value, atomically in one transactional batch
+    Mono<DataPlaneResponse> executeTransactionalBatchCreates(String partitionKeyValue, List<GeneratedDocument> documents);
+
+    Mono<DataPlaneResponse> readItem(String id, String partitionKeyValue, CosmosItemRequestOptions requestOptions);
+
+    // Emits the pages of the query, of at most pageSize items each, from the continuation token on or from the start
+    // without one. A null partition key value runs the query across partitions.
+    Flux<QueryPage> queryItems(SqlQuerySpec querySpec, String partitionKeyValue, String continuationToken, int pageSize);
+
+    // The feed ranges change feed consumers split the container by, one per partition key range
+    Mono<List<String>> getFeedRanges();
+
+    // Emits the pages of changes of the feed range after the continuation token until it is caught up. Without a
+    // continuation token it emits a single page without changes whose continuation token marks the current end.
+    Flux<ChangeFeedPage> readChangeFeed(String feedRange, String continuationToken);
+}
@@ -0,0 +1,77 @@
+package org.example;
+
+import com.azure.cosmos.CosmosDiagnostics;
+import com.azure.cosmos.CosmosException;
+
+import java.util.Collections;
+import java.util.Set;
+
+// A failed data plane operation, carrying what the drill records about a failure independent of the backend
+public class DataPlaneException extends RuntimeException {
+
+    private final int statusCode;
+    private final int subStatusCode;
+    private final Set<String> contactedRegionNames;
+    // null when the operation wasn't served by the Cosmos DB SDK
+    private final CosmosDiagnostics cosmosDiagnostics;
+    // null when the failure didn't get to a partition key range
+    private final String partitionKeyRangeId;
+
+    public DataPlaneException(
+            String message,
+            int statusCode,
+            int subStatusCode,
+            Set<String> contactedRegionNames,
+            CosmosDiagnostics cosmosDiagnostics,
+            Throwable cause) {
+
+        this(
+                message,
+                statusCode,
+                subStatusCode,
+                contactedRegionNames,
+                cosmosDiagnostics,
+                PartitionKeyRangeIds.fromDiagnostics(cosmosDiagnostics),
+                cause);
+    }
+
+    public DataPlaneException(
+            String message,
+            int statusCode,
+            int subStatusCode,
+            Set<String> contactedRegionNames,
+            CosmosDiagnostics cosmosDiagnostics,
+            String partitionKeyRangeId,
+            Throwable cause) {
+
+        super(message, cause);
+
+        this.statusCode = statusCode;
+        this.subStatusCode = subStatusCode;
+        this.contactedRegionNames = contactedRegionNames;
+        this.cosmosDiagnostics = cosmosDiagnostics;
+        this.partitionKeyRangeId = partitionKeyRangeId;
+    }
+
+    public static DataPlaneException from(CosmosException cosmosException) {
+
+        CosmosDiagnostics cosmosDiagnostics = cosmosException.getDiagnostics();
+        Set<String> contactedRegionNames = cosmosDiagnostics != null && cosmosDiagnostics.getDiagnosticsContext() != null
+                ? cosmosDiagnostics.getDiagnosticsContext().getContactedRegionNames()
+                : Collections.emptySet();
+
+        return new DataPlaneException(
+                cosmosException.getMessage(),
+                cosmosException.getStatusCode(),
+                cosmosException.getSubStatusCode(),
+                contactedRegionNames,
+                cosmosDiagnostics,
+                cosmosException);
+    }
+
+    public int getStatusCode() { return statusCode; }
+    public int getSubStatusCode() { return subStatusCode; }
+    public Set<String> getContactedRegionNames() { return contactedRegionNames; }
+    public CosmosDiagnostics getCosmosDiagnostics() { return cosmosDiagnostics; }
+    public String getPartitionKeyRangeId() { return partitionKeyRangeId; }
+}
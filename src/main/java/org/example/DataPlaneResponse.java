@@ -0,0 +1,44 @@
+package org.example;
+
+import com.azure.cosmos.CosmosDiagnostics;
+
+import java.util.Set;
+
+// Outcome of a successful data plane operation (or of one page of a query)
+public class DataPlaneResponse {
+
+    private final int statusCode;
+    private final Set<String> contactedRegionNames;
+    private final String sessionToken;
+    private final double requestCharge;
+    // null when the operation wasn't served by the Cosmos DB SDK
+    private final CosmosDiagnostics cosmosDiagnostics;
+
+    public DataPlaneResponse(
+            int statusCode,
+            Set<String> contactedRegionNames,
+            String sessionToken,
+            double requestCharge,
+            CosmosDiagnostics cosmosDiagnostics) {
+
+        this.statusCode = statusCode;
+        this.contactedRegionNames = contactedRegionNames;
+        this.sessionToken = sessionToken;
+        this.requestCharge = requestCharge;
+        this.cosmosDiagnostics = cosmosDiagnostics;
+    }
+
+    public int getStatusCode() { return statusCode; }
+    public Set<String> getContactedRegionNames() { return contactedRegionNames; }
+    public String getSessionToken() { return sessionToken; }
+    public double getRequestCharge() { return requestCharge; }
+    public CosmosDiagnostics getCosmosDiagnostics() { return cosmosDiagnostics; }
+
+    // From the session token, or the diagnostics of responses without one. Null for responses spanning several
+    // partition key ranges.
+    public String getPartitionKeyRangeId() {
+        return sessionToken != null
+                ? PartitionKeyRangeIds.fromSessionToken(sessionToken)
+                : PartitionKeyRangeIds.fromDiagnostics(cosmosDiagnostics);
+    }
+}
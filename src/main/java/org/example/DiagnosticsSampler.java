@@ -0,0 +1,158 @@
+package org.example;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Picks the operations whose full CosmosDiagnostics are logged, serializing them costs several KB of CPU and disk per
+// operation. Every other operation only logs the summary DrillEvent extracts from them. Failed operations always keep
+// their full diagnostics. With -shouldLogCosmosDiagnosticsForSuccessfulResponse, successful operations keep them when
+// they are slower than the -diagnosticsTailPercentile latency of their operation type, or when they are sampled.
+//
+// The sampling rate of an operation type is adapted every second to its operation rate, so about
+// -diagnosticsSamplesPerSecond of its successful operations are sampled per second however fast the drill runs. The
+// tail latency threshold is taken over the latest second with enough successful operations to compute it from.
+public class DiagnosticsSampler {
+
+    private static final Logger logger = LoggerFactory.getLogger(DiagnosticsSampler.class);
+
+    public static final String FAILURE = "failure";
+    public static final String TAIL = "tail";
+    public static final String SAMPLED = "sampled";
+
+    private static final int NUMBER_OF_SIGNIFICANT_VALUE_DIGITS = 2;
+
+    private static final long ADAPTATION_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    // fewer latencies than this don't give a meaningful tail percentile
+    private static final long MIN_TAIL_LATENCY_COUNT = 100;
+
+    private final boolean shouldKeepForSuccesses;
+    private final double samplesPerSecond;
+    private final double tailPercentile;
+
+    private final ConcurrentHashMap<String, OperationState> operationStates = new ConcurrentHashMap<>();
+
+    public DiagnosticsSampler(boolean shouldKeepForSuccesses, double samplesPerSecond, double tailPercentile) {
+
+        if (samplesPerSecond < 0) {
+            throw new IllegalArgumentException("diagnosticsSamplesPerSecond should not be negative");
+        }
+
+        if (tailPercentile <= 0 || tailPercentile > 100) {
+            throw new IllegalArgumentException("diagnosticsTailPercentile should be greater than 0 and at most 100");
+        }
+
+        this.shouldKeepForSuccesses = shouldKeepForSuccesses;
+        this.samplesPerSecond = samplesPerSecond;
+        this.tailPercentile = tailPercentile;
+    }
+
+    public static DiagnosticsSampler fromConfiguration(Configuration cfg) {
+        return new DiagnosticsSampler(
+                cfg.shouldLogCosmosDiagnosticsForSuccessfulResponse(),
+                cfg.getDiagnosticsSamplesPerSecond(),
+                cfg.getDiagnosticsTailPercentile());
+    }
+
+    // Returns why the operation keeps its full diagnostics (FAILURE, TAIL or SAMPLED), null if it doesn't
+    public String sample(String operationType, boolean isSuccess, long latencyMicros) {
+
+        OperationState state = operationStates.computeIfAbsent(operationType, opType -> new OperationState());
+
+        if (!isSuccess) {
+            state.keptCounts[0].increment();
+            return FAILURE;
+        }
+
+        if (!shouldKeepForSuccesses) {
+            return null;
+        }
+
+        long nowNanos = System.nanoTime();
+        long intervalStartNanos = state.intervalStartNanos.get();
+
+        if (nowNanos - intervalStartNanos >= ADAPTATION_INTERVAL_NANOS && state.intervalStartNanos.compareAndSet(intervalStartNanos, nowNanos)) {
+            state.adapt(nowNanos - intervalStartNanos);
+        }
+
+        state.operationCount.increment();
+        state.latencyRecorder.recordValue(Math.max(0, latencyMicros));
+
+        if (latencyMicros > state.tailThresholdMicros) {
+            state.keptCounts[1].increment();
+            return TAIL;
+        }
+
+        if (ThreadLocalRandom.current().nextDouble() < state.samplingRate
+                && state.sampledCount.incrementAndGet() <= Math.ceil(samplesPerSecond)) {
+            state.keptCounts[2].increment();
+            return SAMPLED;
+        }
+
+        return null;
+    }
+
+    public void logSummary() {
+        for (Map.Entry<String, OperationState> entry : new TreeMap<>(operationStates).entrySet()) {
+
+            OperationState state = entry.getValue();
+
+            logger.info(
+                    "DiagnosticsSamplingSummary [operationType={}, failures={}, tail={}, sampled={}, samplingRate={}, tailThresholdMs={}]",
+                    entry.getKey(),
+                    state.keptCounts[0].sum(),
+                    state.keptCounts[1].sum(),
+                    state.keptCounts[2].sum(),
+                    String.format(Locale.ROOT, "%.5f", state.samplingRate),
+                    state.tailThresholdMicros == Long.MAX_VALUE ? "n/a" : String.format(Locale.ROOT, "%.3f", state.tailThresholdMicros / 1000.0));
+        }
+    }
+
+    private class OperationState {
+
+        private final AtomicLong intervalStartNanos = new AtomicLong(System.nanoTime());
+        private final LongAdder operationCount = new LongAdder();
+        private final AtomicLong sampledCount = new AtomicLong(0);
+        private final Recorder latencyRecorder = new Recorder(NUMBER_OF_SIGNIFICANT_VALUE_DIGITS);
+
+        // [0] - failures, [1] - tail latency, [2] - sampled
+        private final LongAdder[] keptCounts = {new LongAdder(), new LongAdder(), new LongAdder()};
+
+        // guarded by this, latencies of the intervals since the tail threshold was last taken
+        private final Histogram pendingLatencyHistogram = new Histogram(NUMBER_OF_SIGNIFICANT_VALUE_DIGITS);
+
+        // the first interval is sampled at the full rate, capped by the samples per second
+        private volatile double samplingRate = 1.0;
+        private volatile long tailThresholdMicros = Long.MAX_VALUE;
+
+        synchronized void adapt(long intervalNanos) {
+
+            double operationsPerSecond = operationCount.sumThenReset() * (double) TimeUnit.SECONDS.toNanos(1) / intervalNanos;
+
+            samplingRate = operationsPerSecond <= samplesPerSecond ? 1.0 : samplesPerSecond / operationsPerSecond;
+            sampledCount.set(0);
+
+            if (tailPercentile >= 100) {
+                return;
+            }
+
+            pendingLatencyHistogram.add(latencyRecorder.getIntervalHistogram());
+
+            if (pendingLatencyHistogram.getTotalCount() >= MIN_TAIL_LATENCY_COUNT) {
+                tailThresholdMicros = pendingLatencyHistogram.getValueAtPercentile(tailPercentile);
+                pendingLatencyHistogram.reset();
+            }
+        }
+    }
+}
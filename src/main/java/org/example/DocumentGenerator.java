@@ -0,0 +1,177 @@
+package org.example;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Objects;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Generates the documents written by the create operations from a pool of payloads rendered at startup, so the
+// cost of building and serializing large or deeply nested documents isn't paid on the hot path.
+//
+// Each payload object level holds a numeric field f0, string fields f1..fN and, above the deepest level, a nested
+// object under "child". The string values share the byte budget left by the structure, each character is random
+// with probability entropy and otherwise continues a repeating phrase, so low entropies compress well.
+public class DocumentGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(DocumentGenerator.class);
+
+    public static final int MIN_DOCUMENT_SIZE_IN_BYTES = 1024;
+
+    // Cosmos DB rejects items over 2 MB, including the system properties it adds on write
+    public static final int MAX_DOCUMENT_SIZE_IN_BYTES = 2 * 1024 * 1024 - 1024;
+
+    private static final int MAX_DEPTH = 64;
+
+    private static final long MAX_POOL_SIZE_IN_BYTES = 256L * 1024 * 1024;
+
+    // sized for UUID ids and partition keys, documents of a key space carry a few bytes more
+    private static final int ENVELOPE_SIZE_IN_BYTES = new GeneratedDocument(new UUID(0, 0).toString(), new UUID(0, 0).toString(), "", 0).getSerializedSizeInBytes();
+
+    private static final String RANDOM_CHARACTERS = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+    private static final String REPEATING_PHRASE = "the quick brown fox jumps over the lazy dog ";
+
+    private final int documentSizeInBytes;
+    private final int depth;
+    private final int fieldCount;
+    private final double entropy;
+
+    private final String[] payloads;
+
+    public DocumentGenerator(int documentSizeInBytes, int depth, int fieldCount, double entropy, int poolSize, long seed) {
+
+        if (documentSizeInBytes < MIN_DOCUMENT_SIZE_IN_BYTES || documentSizeInBytes > MAX_DOCUMENT_SIZE_IN_BYTES) {
+            throw new IllegalArgumentException(
+                    "documentSizeInBytes should be between " + MIN_DOCUMENT_SIZE_IN_BYTES + " and " + MAX_DOCUMENT_SIZE_IN_BYTES);
+        }
+
+        if (depth < 1 || depth > MAX_DEPTH) {
+            throw new IllegalArgumentException("depth should be between 1 and " + MAX_DEPTH);
+        }
+
+        if (fieldCount < 2) {
+            throw new IllegalArgumentException("fieldCount should be at least 2");
+        }
+
+        if (entropy < 0 || entropy > 1) {
+            throw new IllegalArgumentException("entropy should be between 0 and 1");
+        }
+
+        if (poolSize <= 0) {
+            throw new IllegalArgumentException("poolSize should be greater than 0");
+        }
+
+        this.documentSizeInBytes = documentSizeInBytes;
+        this.depth = depth;
+        this.fieldCount = fieldCount;
+        this.entropy = entropy;
+
+        int payloadSizeInBytes = documentSizeInBytes - ENVELOPE_SIZE_IN_BYTES;
+        int structureSizeInBytes = render(new Random(seed), 0, 0).length();
+        int valueBudgetInBytes = payloadSizeInBytes - structureSizeInBytes;
+
+        if (valueBudgetInBytes < 0) {
+            throw new IllegalArgumentException(
+                    "documentSizeInBytes " + documentSizeInBytes + " is too small for " + fieldCount + " fields at depth " + depth
+                            + ", the structure alone takes " + (structureSizeInBytes + ENVELOPE_SIZE_IN_BYTES) + " bytes");
+        }
+
+        int effectivePoolSize = (int) Math.max(1, Math.min(poolSize, MAX_POOL_SIZE_IN_BYTES / payloadSizeInBytes));
+
+        if (effectivePoolSize < poolSize) {
+            logger.warn("Document pool reduced from {} to {} payloads to stay within {} MB", poolSize, effectivePoolSize, MAX_POOL_SIZE_IN_BYTES >> 20);
+        }
+
+        int stringFieldCount = depth * (fieldCount - 1);
+        long generationStartNanos = System.nanoTime();
+        Random random = new Random(seed);
+
+        this.payloads = new String[effectivePoolSize];
+
+        for (int i = 0; i < effectivePoolSize; i++) {
+            this.payloads[i] = render(random, valueBudgetInBytes / stringFieldCount, valueBudgetInBytes % stringFieldCount);
+        }
+
+        logger.info(
+                "DocumentGenerator [documentSizeInBytes={}, depth={}, fieldCount={}, entropy={}, poolSize={}, generationMillis={}]",
+                documentSizeInBytes,
+                depth,
+                fieldCount,
+                entropy,
+                effectivePoolSize,
+                (System.nanoTime() - generationStartNanos) / 1_000_000);
+    }
+
+    public static DocumentGenerator fromConfiguration(Configuration cfg) {
+        return new DocumentGenerator(
+                cfg.getDocumentSizeInBytes(),
+                cfg.getDocumentDepth(),
+                cfg.getDocumentFieldCount(),
+                cfg.getDocumentEntropy(),
+                cfg.getDocumentPoolSize(),
+                Objects.hashCode(cfg.getDrillId()));
+    }
+
+    public GeneratedDocument next(String id, String partitionKeyValue) {
+
+        String payload = payloads[ThreadLocalRandom.current().nextInt(payloads.length)];
+
+        // payloads are ASCII, one byte per character
+        return new GeneratedDocument(id, partitionKeyValue, payload, payload.length());
+    }
+
+    public int getDocumentSizeInBytes() {
+        return documentSizeInBytes;
+    }
+
+    public int getPoolSize() {
+        return payloads.length;
+    }
+
+    private String render(Random random, int valueLength, int extraCharacters) {
+
+        StringBuilder json = new StringBuilder(documentSizeInBytes);
+
+        appendObject(json, random, 0, valueLength, new int[] {extraCharacters});
+
+        return json.toString();
+    }
+
+    private void appendObject(StringBuilder json, Random random, int level, int valueLength, int[] extraCharacters) {
+
+        // fixed width, so that the structure has the same size in every payload
+        json.append("{\"f0\":").append(100_000_000 + random.nextInt(900_000_000));
+
+        for (int field = 1; field < fieldCount; field++) {
+
+            int length = valueLength;
+
+            if (extraCharacters[0] > 0) {
+                length++;
+                extraCharacters[0]--;
+            }
+
+            json.append(",\"f").append(field).append("\":\"");
+            appendValue(json, random, length);
+            json.append('"');
+        }
+
+        if (level + 1 < depth) {
+            json.append(",\"child\":");
+            appendObject(json, random, level + 1, valueLength, extraCharacters);
+        }
+
+        json.append('}');
+    }
+
+    private void appendValue(StringBuilder json, Random random, int length) {
+
+        for (int i = 0; i < length; i++) {
+            json.append(random.nextDouble() < entropy
+                    ? RANDOM_CHARACTERS.charAt(random.nextInt(RANDOM_CHARACTERS.length()))
+                    : REPEATING_PHRASE.charAt(json.length() % REPEATING_PHRASE.length()));
+        }
+    }
+}
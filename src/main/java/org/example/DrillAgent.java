@@ -0,0 +1,169 @@
+package org.example;
+
+import com.beust.jcommander.JCommander;
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+// Runs the drill of a DrillCoordinator: joins it, waits for its arguments and start time, runs the drill from them
+// and streams the interval latency histograms back. Histograms are folded over partition key ranges before they are
+// sent. The drill id is suffixed with the agent name, so agents sharing a host don't write over each other's files.
+//
+// The agent's clock is aligned with the coordinator's on joining, a drill the coordinator lost contact with still
+// runs to completion. The coordinator doesn't send account credentials, the agent runs the drill against the account
+// of its own accountHost and accountMasterKey.
+public class DrillAgent implements LatencyIntervalListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(DrillAgent.class);
+
+    private static final Duration CONNECT_TIMEOUT = Duration.ofMinutes(5);
+    private static final Duration CONNECT_RETRY_INTERVAL = Duration.ofSeconds(1);
+
+    private final Configuration cfg;
+    private final String agentName;
+
+    // guarded by this, null once the coordinator is lost
+    private DataOutputStream out;
+    private long clockOffsetMillis;
+
+    public DrillAgent(Configuration cfg) {
+        this.cfg = cfg;
+        this.agentName = cfg.getAgentName().isEmpty() ? getHostName() + "-" + ProcessHandle.current().pid() : cfg.getAgentName();
+    }
+
+    public void run() {
+
+        try (Socket socket = connect()) {
+
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+
+            synchronized (this) {
+                out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+                DrillProtocol.writeHello(out, agentName, cfg.getCoordinatorSecret());
+            }
+
+            logger.info("Agent {} joined the coordinator at {}:{}, waiting for the drill to start", agentName, cfg.getCoordinatorHost(), cfg.getCoordinatorPort());
+
+            byte type;
+
+            try {
+                type = DrillProtocol.readType(in);
+            } catch (EOFException e) {
+                throw new IOException("The coordinator closed the connection, check that the agent has its coordinatorSecret", e);
+            }
+
+            if (type != DrillProtocol.CONFIGURE) {
+                throw new IOException("Expected the drill configuration from the coordinator");
+            }
+
+            DrillProtocol.Configure configure = DrillProtocol.readConfigure(in);
+
+            Configuration drillCfg = new Configuration();
+            JCommander.newBuilder().addObject(drillCfg).build().parse(configure.getDrillArgs());
+            drillCfg.setDrillRole(DrillRole.AGENT);
+            drillCfg.setAccountHost(cfg.getAccountHost());
+            drillCfg.setAccountMasterKey(cfg.getAccountMasterKey());
+            drillCfg.setDrillId(drillCfg.getDrillId() + "-" + agentName);
+
+            synchronized (this) {
+                clockOffsetMillis = configure.getClockOffsetMillis();
+            }
+
+            long localStartEpochMillis = configure.getStartEpochMillis() - configure.getClockOffsetMillis();
+            long delayMillis = localStartEpochMillis - System.currentTimeMillis();
+
+            logger.info("Agent {} starts the drill at {} (clock offset to the coordinator {} ms)",
+                    agentName, Instant.ofEpochMilli(localStartEpochMillis), configure.getClockOffsetMillis());
+
+            if (delayMillis > 0) {
+                Thread.sleep(delayMillis);
+            }
+
+            WorkloadDriver.run(drillCfg, this);
+
+            synchronized (this) {
+                if (out != null) {
+                    DrillProtocol.writeDone(out);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Agent " + agentName + " failed to take part in the coordinated drill", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public synchronized void onInterval(long intervalEndEpochMillis, Map<LatencyKey, Histogram> intervalHistograms) {
+
+        if (out == null) {
+            return;
+        }
+
+        Map<LatencyKey, Histogram> foldedHistograms = new HashMap<>();
+
+        for (Map.Entry<LatencyKey, Histogram> entry : intervalHistograms.entrySet()) {
+
+            LatencyKey latencyKey = entry.getKey();
+            LatencyKey foldedKey = new LatencyKey(
+                    latencyKey.getOperationType(), latencyKey.getCommaSeparatedContactedRegions(), null, latencyKey.getStatusCode(), latencyKey.getSubStatusCode());
+
+            Histogram foldedHistogram = foldedHistograms.get(foldedKey);
+
+            if (foldedHistogram == null) {
+                foldedHistograms.put(foldedKey, entry.getValue().copy());
+            } else {
+                foldedHistogram.add(entry.getValue());
+            }
+        }
+
+        try {
+            DrillProtocol.writeSnapshot(out, intervalEndEpochMillis + clockOffsetMillis, foldedHistograms);
+        } catch (IOException e) {
+            logger.warn("Agent {} lost the coordinator, the drill continues without reporting to it", agentName, e);
+            out = null;
+        }
+    }
+
+    // The coordinator may come up after its agents
+    private Socket connect() throws IOException, InterruptedException {
+
+        long deadlineNanos = System.nanoTime() + CONNECT_TIMEOUT.toNanos();
+
+        while (true) {
+            try {
+                return new Socket(cfg.getCoordinatorHost(), cfg.getCoordinatorPort());
+            } catch (ConnectException e) {
+                if (System.nanoTime() - deadlineNanos > 0) {
+                    throw e;
+                }
+
+                Thread.sleep(CONNECT_RETRY_INTERVAL.toMillis());
+            }
+        }
+    }
+
+    private static String getHostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "agent";
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package org.example;
+
+import java.time.Duration;
+import java.time.Instant;
+
+// Run-wide state shared by every operation of a drill
+public class DrillContext {
+
+    private final Configuration cfg;
+
+    private final Instant startTime;
+
+    private final Duration runDuration;
+
+    private final LatencyRecorder latencyRecorder;
+
+    private final DrillEventSink drillEventSink;
+
+    private final DrillLifecycle lifecycle;
+
+    private final PacingController pacingController;
+
+    private final DrillMetrics metrics;
+
+    private final RecoveryAnalyzer recoveryAnalyzer;
+
+    private final DiagnosticsSampler diagnosticsSampler;
+
+    private final DocumentGenerator documentGenerator;
+
+    private final KeySpace keySpace;
+
+    // null unless the drill consumes the change feed
+    private final ChangeFeedTracker changeFeedTracker;
+
+    // null unless session tokens are checked for monotonic reads
+    private final SessionConsistencyChecker sessionConsistencyChecker;
+
+    // null unless the drill runs a fault scenario
+    private final FaultScenarioEngine faultScenarioEngine;
+
+    // null unless the drill runs the query workload
+    private final QueryEngine queryEngine;
+
+    // null unless reads are split across read variants
+    private final AvailabilityStrategyExperiment availabilityStrategyExperiment;
+
+    private DrillContext(Builder builder) {
+        this.cfg = builder.cfg;
+        this.startTime = builder.startTime;
+        this.runDuration = builder.runDuration;
+        this.latencyRecorder = builder.latencyRecorder;
+        this.drillEventSink = builder.drillEventSink;
+        this.lifecycle = builder.lifecycle;
+        this.pacingController = builder.pacingController;
+        this.metrics = builder.metrics;
+        this.recoveryAnalyzer = builder.recoveryAnalyzer;
+        this.diagnosticsSampler = builder.diagnosticsSampler;
+        this.documentGenerator = builder.documentGenerator;
+        this.keySpace = builder.keySpace;
+        this.changeFeedTracker = builder.changeFeedTracker;
+        this.sessionConsistencyChecker = builder.sessionConsistencyChecker;
+        this.faultScenarioEngine = builder.faultScenarioEngine;
+        this.queryEngine = builder.queryEngine;
+        this.availabilityStrategyExperiment = builder.availabilityStrategyExperiment;
+    }
+
+    public Configuration getCfg() { return cfg; }
+    public Instant getStartTime() { return startTime; }
+    public Duration getRunDuration() { return runDuration; }
+    public LatencyRecorder getLatencyRecorder() { return latencyRecorder; }
+    public DrillEventSink getDrillEventSink() { return drillEventSink; }
+    public DrillLifecycle getLifecycle() { return lifecycle; }
+    public PacingController getPacingController() { return pacingController; }
+    public DrillMetrics getMetrics() { return metrics; }
+    public RecoveryAnalyzer getRecoveryAnalyzer() { return recoveryAnalyzer; }
+    public DiagnosticsSampler getDiagnosticsSampler() { return diagnosticsSampler; }
+    public DocumentGenerator getDocumentGenerator() { return documentGenerator; }
+    public KeySpace getKeySpace() { return keySpace; }
+    public ChangeFeedTracker getChangeFeedTracker() { return changeFeedTracker; }
+    public SessionConsistencyChecker getSessionConsistencyChecker() { return sessionConsistencyChecker; }
+    public FaultScenarioEngine getFaultScenarioEngine() { return faultScenarioEngine; }
+    public QueryEngine getQueryEngine() { return queryEngine; }
+    public AvailabilityStrategyExperiment getAvailabilityStrategyExperiment() { return availabilityStrategyExperiment; }
+
+    // Set by the lifecycle deadline or an early stop, workers finish their current operation and exit
+    public boolean isRunDurationElapsed() {
+        return lifecycle.isStopRequested();
+    }
+
+    public long getRunTimeRemainingMillis(long epochMillis) {
+        return runDuration.toMillis() - (epochMillis - startTime.toEpochMilli());
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static class Builder {
+        private Configuration cfg;
+        private Instant startTime;
+        private Duration runDuration;
+        private LatencyRecorder latencyRecorder;
+        private DrillEventSink drillEventSink;
+        private DrillLifecycle lifecycle;
+        private PacingController pacingController;
+        private DrillMetrics metrics;
+        private RecoveryAnalyzer recoveryAnalyzer;
+        private DiagnosticsSampler diagnosticsSampler;
+        private DocumentGenerator documentGenerator;
+        private KeySpace keySpace;
+        private ChangeFeedTracker changeFeedTracker;
+        private SessionConsistencyChecker sessionConsistencyChecker;
+        private FaultScenarioEngine faultScenarioEngine;
+        private QueryEngine queryEngine;
+        private AvailabilityStrategyExperiment availabilityStrategyExperiment;
+
+        private Builder() {}
+
+        public Builder cfg(Configuration cfg) {
+            this.cfg = cfg;
+            return this;
+        }
+
+        public Builder startTime(Instant startTime) {
+            this.startTime = startTime;
+            return this;
+        }
+
+        public Builder runDuration(Duration runDuration) {
+            this.runDuration = runDuration;
+            return this;
+        }
+
+        public Builder latencyRecorder(LatencyRecorder latencyRecorder) {
+            this.latencyRecorder = latencyRecorder;
+            return this;
+        }
+
+        public Builder drillEventSink(DrillEventSink drillEventSink) {
+            this.drillEventSink = drillEventSink;
+            return this;
+        }
+
+        public Builder lifecycle(DrillLifecycle lifecycle) {
+            this.lifecycle = lifecycle;
+            return this;
+        }
+
+        public Builder pacingController(PacingController pacingController) {
+            this.pacingController = pacingController;
+            return this;
+        }
+
+        public Builder metrics(DrillMetrics metrics) {
+            this.metrics = metrics;
+            return this;
+        }
+
+        public Builder recoveryAnalyzer(RecoveryAnalyzer recoveryAnalyzer) {
+            this.recoveryAnalyzer = recoveryAnalyzer;
+            return this;
+        }
+
+        public Builder diagnosticsSampler(DiagnosticsSampler diagnosticsSampler) {
+            this.diagnosticsSampler = diagnosticsSampler;
+            return this;
+        }
+
+        public Builder documentGenerator(DocumentGenerator documentGenerator) {
+            this.documentGenerator = documentGenerator;
+            return this;
+        }
+
+        public Builder keySpace(KeySpace keySpace) {
+            this.keySpace = keySpace;
+            return this;
+        }
+
+        public Builder changeFeedTracker(ChangeFeedTracker changeFeedTracker) {
+            this.changeFeedTracker = changeFeedTracker;
+            return this;
+        }
+
+        public Builder sessionConsistencyChecker(SessionConsistencyChecker sessionConsistencyChecker) {
+            this.sessionConsistencyChecker = sessionConsistencyChecker;
+            return this;
+        }
+
+        public Builder faultScenarioEngine(FaultScenarioEngine faultScenarioEngine) {
+            this.faultScenarioEngine = faultScenarioEngine;
+            return this;
+        }
+
+        public Builder queryEngine(QueryEngine queryEngine) {
+            this.queryEngine = queryEngine;
+            return this;
+        }
+
+        public Builder availabilityStrategyExperiment(AvailabilityStrategyExperiment availabilityStrategyExperiment) {
+            this.availabilityStrategyExperiment = availabilityStrategyExperiment;
+            return this;
+        }
+
+        public DrillContext build() {
+            validateRequiredFields();
+            return new DrillContext(this);
+        }
+
+        private void validateRequiredFields() {
+            StringBuilder errors = new StringBuilder();
+
+            if (cfg == null) {
+                errors.append("cfg is required\n");
+            }
+            if (startTime == null) {
+                errors.append("startTime is required\n");
+            }
+            if (runDuration == null) {
+                errors.append("runDuration is required\n");
+            }
+            if (latencyRecorder == null) {
+                errors.append("latencyRecorder is required\n");
+            }
+            if (drillEventSink == null) {
+                errors.append("drillEventSink is required\n");
+            }
+            if (lifecycle == null) {
+                errors.append("lifecycle is required\n");
+            }
+            if (pacingController == null) {
+                errors.append("pacingController is required\n");
+            }
+            if (metrics == null) {
+                errors.append("metrics is required\n");
+            }
+            if (recoveryAnalyzer == null) {
+                errors.append("recoveryAnalyzer is required\n");
+            }
+            if (diagnosticsSampler == null) {
+                errors.append("diagnosticsSampler is required\n");
+            }
+            if (documentGenerator == null) {
+                errors.append("documentGenerator is required\n");
+            }
+            if (keySpace == null) {
+                errors.append("keySpace is required\n");
+            }
+
+            if (errors.length() > 0) {
+                throw new IllegalStateException("Invalid DrillContext state:\n" + errors.toString());
+            }
+        }
+    }
+}
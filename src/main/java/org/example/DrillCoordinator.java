@@ -0,0 +1,268 @@
+package org.example;
+
+import com.azure.cosmos.implementation.CosmosDaemonThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// Runs a drill across agentCount DrillAgents instead of running it itself. Once every agent has joined, each gets the
+// coordinator's own arguments and a start time coordinatedStartDelayInSeconds ahead, so all of them start together.
+// The coordinator listens on coordinatorHost only and accepts agents presenting its coordinatorSecret. Account
+// credentials and the secret are left out of the arguments sent, agents use their own.
+// The interval snapshots the agents stream back are merged into a GlobalTimeline, logged as the intervals complete
+// and written to ppaf_global_timeline_<drillId>_<startEpochMillis>.json in drillEventLogDirectory at the end.
+public class DrillCoordinator {
+
+    private static final Logger logger = LoggerFactory.getLogger(DrillCoordinator.class);
+
+    private static final Duration HELLO_TIMEOUT = Duration.ofSeconds(30);
+    private static final int ACCEPT_BACKLOG = 50;
+
+    // on top of the running time, drain timeout and start delay, for agents to set up and report their last interval
+    private static final Duration COMPLETION_GRACE_PERIOD = Duration.ofMinutes(5);
+
+    // never sent to agents
+    private static final Set<String> WITHHELD_PARAMETERS = Set.of("accountHost", "accountMasterKey", "coordinatorSecret");
+
+    private final Configuration cfg;
+    private final String[] drillArgs;
+    private final byte[] coordinatorSecret;
+
+    public DrillCoordinator(Configuration cfg, String[] drillArgs) {
+
+        if (cfg.getAgentCount() <= 0) {
+            throw new IllegalArgumentException("agentCount should be greater than 0");
+        }
+
+        if (cfg.getCoordinatorSecret().isEmpty()) {
+            throw new IllegalArgumentException("coordinatorSecret should be set, agents present it to join the drill");
+        }
+
+        this.cfg = cfg;
+        this.drillArgs = withoutWithheldParameters(drillArgs);
+        this.coordinatorSecret = cfg.getCoordinatorSecret().getBytes(StandardCharsets.UTF_8);
+    }
+
+    public void run() {
+
+        logger.info("Run Configurations : {}", cfg);
+
+        List<AgentConnection> agentConnections = new ArrayList<>();
+
+        try (ServerSocket serverSocket = new ServerSocket(cfg.getCoordinatorPort(), ACCEPT_BACKLOG, InetAddress.getByName(cfg.getCoordinatorHost()))) {
+
+            logger.info("Waiting for {} agents on {}", cfg.getAgentCount(), serverSocket.getLocalSocketAddress());
+
+            Set<String> agentNames = new HashSet<>();
+
+            while (agentConnections.size() < cfg.getAgentCount()) {
+
+                AgentConnection agentConnection = accept(serverSocket, agentNames);
+
+                if (agentConnection != null) {
+                    agentConnections.add(agentConnection);
+                    logger.info("Agent {} joined from {} ({}/{})",
+                            agentConnection.agentName, agentConnection.socket.getRemoteSocketAddress(), agentConnections.size(), cfg.getAgentCount());
+                }
+            }
+
+            long startEpochMillis = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(cfg.getCoordinatedStartDelayInSeconds());
+            GlobalTimeline globalTimeline = new GlobalTimeline(
+                    cfg.getDrillId(), startEpochMillis, TimeUnit.SECONDS.toMillis(cfg.getLatencyReportingIntervalInSeconds()));
+            CountDownLatch completedAgents = new CountDownLatch(agentConnections.size());
+
+            for (AgentConnection agentConnection : agentConnections) {
+                DrillProtocol.writeConfigure(agentConnection.out, drillArgs, startEpochMillis);
+            }
+
+            logger.info("Drill starts on {} agents at {}", agentConnections.size(), Instant.ofEpochMilli(startEpochMillis));
+
+            for (AgentConnection agentConnection : agentConnections) {
+                Thread reader = new Thread(() -> readSnapshots(agentConnection, globalTimeline, completedAgents), "DrillCoordinator-" + agentConnection.agentName);
+                reader.setDaemon(true);
+                reader.start();
+            }
+
+            ScheduledExecutorService intervalReportingExecutor = new ScheduledThreadPoolExecutor(1, new CosmosDaemonThreadFactory("GlobalTimelineReporter"));
+            long intervalMillis = TimeUnit.SECONDS.toMillis(cfg.getLatencyReportingIntervalInSeconds());
+
+            // an interval is logged once the agents have had another interval to report it
+            intervalReportingExecutor.scheduleAtFixedRate(
+                    () -> {
+                        try {
+                            globalTimeline.logIntervalsEndingBefore(System.currentTimeMillis() - intervalMillis);
+                        } catch (Exception e) {
+                            logger.error("Failed to report global intervals", e);
+                        }
+                    },
+                    intervalMillis,
+                    intervalMillis,
+                    TimeUnit.MILLISECONDS);
+
+            Duration completionTimeout = cfg.getRunningTime()
+                    .plusSeconds(cfg.getDrainTimeoutInSeconds())
+                    .plusSeconds(cfg.getCoordinatedStartDelayInSeconds())
+                    .plus(COMPLETION_GRACE_PERIOD);
+
+            try {
+                if (!completedAgents.await(completionTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                    logger.warn("{} agents didn't complete within {}, writing the timeline without them", completedAgents.getCount(), completionTimeout);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                intervalReportingExecutor.shutdownNow();
+            }
+
+            globalTimeline.logIntervalsEndingBefore(Long.MAX_VALUE / 2);
+            globalTimeline.writeReport(Paths.get(
+                    cfg.getDrillEventLogDirectory(),
+                    "ppaf_global_timeline_" + cfg.getDrillId() + "_" + startEpochMillis + ".json"));
+
+            logger.info("Coordinated drill complete!");
+
+        } catch (IOException e) {
+            throw new UncheckedIOException("Coordinating drill agents on port " + cfg.getCoordinatorPort() + " failed", e);
+        } finally {
+            for (AgentConnection agentConnection : agentConnections) {
+                agentConnection.close();
+            }
+        }
+    }
+
+    // Null if the connection didn't introduce itself as an agent in time
+    private AgentConnection accept(ServerSocket serverSocket, Set<String> agentNames) throws IOException {
+
+        Socket socket = serverSocket.accept();
+
+        try {
+            socket.setSoTimeout((int) HELLO_TIMEOUT.toMillis());
+
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+
+            if (DrillProtocol.readType(in) != DrillProtocol.HELLO) {
+                logger.warn("Connection from {} isn't a drill agent, closing it", socket.getRemoteSocketAddress());
+                socket.close();
+                return null;
+            }
+
+            DrillProtocol.Hello hello = DrillProtocol.readHello(in);
+
+            if (!MessageDigest.isEqual(coordinatorSecret, hello.getCoordinatorSecret().getBytes(StandardCharsets.UTF_8))) {
+                logger.warn("Connection from {} presented the wrong coordinator secret, closing it", socket.getRemoteSocketAddress());
+                socket.close();
+                return null;
+            }
+
+            String agentName = hello.getAgentName();
+
+            // keeps agents started with the same name apart in the timeline
+            for (int suffix = 2; !agentNames.add(agentName); suffix++) {
+                agentName = agentName.replaceFirst("#\\d+$", "") + "#" + suffix;
+            }
+
+            socket.setSoTimeout(0);
+
+            return new AgentConnection(agentName, socket, in, out);
+        } catch (IOException e) {
+            // timed out, closed or sent a malformed HELLO, none of which should stop the coordinator
+            logger.warn("Connection from {} didn't introduce itself as a drill agent, closing it", socket.getRemoteSocketAddress());
+            socket.close();
+            return null;
+        }
+    }
+
+    // Drops -name value and -name=value arguments (with one or two dashes) of the withheld parameters
+    static String[] withoutWithheldParameters(String[] args) {
+
+        List<String> keptArgs = new ArrayList<>();
+
+        for (int i = 0; i < args.length; i++) {
+
+            String name = args[i].replaceFirst("^--?", "");
+            int equals = name.indexOf('=');
+
+            if (args[i].startsWith("-") && WITHHELD_PARAMETERS.contains(equals >= 0 ? name.substring(0, equals) : name)) {
+                if (equals < 0) {
+                    i++;
+                }
+
+                continue;
+            }
+
+            keptArgs.add(args[i]);
+        }
+
+        return keptArgs.toArray(new String[0]);
+    }
+
+    private static void readSnapshots(AgentConnection agentConnection, GlobalTimeline globalTimeline, CountDownLatch completedAgents) {
+
+        try {
+            while (true) {
+
+                byte type = DrillProtocol.readType(agentConnection.in);
+
+                if (type == DrillProtocol.SNAPSHOT) {
+                    globalTimeline.onSnapshot(agentConnection.agentName, DrillProtocol.readSnapshot(agentConnection.in));
+                } else if (type == DrillProtocol.DONE) {
+                    logger.info("Agent {} completed the drill", agentConnection.agentName);
+                    return;
+                } else {
+                    logger.warn("Agent {} sent an unexpected frame of type {}, dropping it", agentConnection.agentName, type);
+                    return;
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Lost agent {} before it completed the drill", agentConnection.agentName, e);
+        } finally {
+            completedAgents.countDown();
+        }
+    }
+
+    private static class AgentConnection {
+
+        private final String agentName;
+        private final Socket socket;
+        private final DataInputStream in;
+        private final DataOutputStream out;
+
+        AgentConnection(String agentName, Socket socket, DataInputStream in, DataOutputStream out) {
+            this.agentName = agentName;
+            this.socket = socket;
+            this.in = in;
+            this.out = out;
+        }
+
+        void close() {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                logger.debug("Failed to close the connection of agent {}", agentName, e);
+            }
+        }
+    }
+}
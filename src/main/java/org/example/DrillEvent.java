@@ -0,0 +1,179 @@
+package org.example;
+
+import com.azure.cosmos.CosmosDiagnostics;
+import com.azure.cosmos.CosmosDiagnosticsContext;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+// A mutable per-operation event. Instances are preallocated by a DrillEventSink and reused,
+// so nothing here should be retained by the code filling them in.
+public class DrillEvent extends MpscRingBuffer.Slot {
+
+    private long timeOfResponseEpochMillis;
+
+    private String operationType;
+
+    private int threadId;
+
+    private boolean isSuccess;
+
+    private int successCountUntilNow;
+
+    private int failureCountUntilNow;
+
+    private int statusCode;
+
+    private int subStatusCode;
+
+    private long latencyMicros;
+
+    private String commaSeparatedContactedRegions;
+
+    private String errorMessage;
+
+    // only set when the full diagnostics are kept, see DiagnosticsSampler
+    private CosmosDiagnostics cosmosDiagnostics;
+
+    private String fullDiagnosticsReason;
+
+    // summary of the diagnostics of every operation served by the Cosmos DB SDK, -1 duration when there were none
+    private long diagnosticsDurationMicros = -1;
+
+    private int retryCount;
+
+    private double requestCharge;
+
+    private int maxRequestPayloadSizeInBytes;
+
+    // more than one request was sent by the availability strategy (hedging)
+    private boolean isHedged;
+
+    private long runTimeRemainingMillis;
+
+    private String latestRecordedSessionToken;
+
+    // null unless the drill runs a fault scenario
+    private String faultPhase;
+
+    public DrillEvent timeOfResponseEpochMillis(long timeOfResponseEpochMillis) {
+        this.timeOfResponseEpochMillis = timeOfResponseEpochMillis;
+        return this;
+    }
+
+    public DrillEvent operationType(String operationType) {
+        this.operationType = operationType;
+        return this;
+    }
+
+    public DrillEvent threadId(int threadId) {
+        this.threadId = threadId;
+        return this;
+    }
+
+    public DrillEvent withSuccessResponse(int statusCode) {
+        this.isSuccess = true;
+        this.statusCode = statusCode;
+        this.subStatusCode = 0;
+        this.errorMessage = null;
+        return this;
+    }
+
+    public DrillEvent withErrorResponse(int statusCode, int subStatusCode, String errorMessage) {
+        this.isSuccess = false;
+        this.statusCode = statusCode;
+        this.subStatusCode = subStatusCode;
+        this.errorMessage = errorMessage;
+        return this;
+    }
+
+    // Reads the summary off the diagnostics context without serializing it, the diagnostics themselves are only
+    // kept when there is a reason to keep them in full
+    public DrillEvent cosmosDiagnostics(CosmosDiagnostics cosmosDiagnostics, String fullDiagnosticsReason) {
+
+        CosmosDiagnosticsContext diagnosticsContext = cosmosDiagnostics != null ? cosmosDiagnostics.getDiagnosticsContext() : null;
+
+        if (diagnosticsContext != null) {
+
+            Duration duration = diagnosticsContext.getDuration();
+
+            this.diagnosticsDurationMicros = duration != null ? TimeUnit.NANOSECONDS.toMicros(duration.toNanos()) : 0;
+            this.retryCount = diagnosticsContext.getRetryCount();
+            this.requestCharge = diagnosticsContext.getTotalRequestCharge();
+            this.maxRequestPayloadSizeInBytes = diagnosticsContext.getMaxRequestPayloadSizeInBytes();
+            this.isHedged = diagnosticsContext.getDiagnostics().size() > 1;
+        } else {
+            this.diagnosticsDurationMicros = -1;
+        }
+
+        this.cosmosDiagnostics = fullDiagnosticsReason != null ? cosmosDiagnostics : null;
+        this.fullDiagnosticsReason = cosmosDiagnostics != null ? fullDiagnosticsReason : null;
+        return this;
+    }
+
+    public DrillEvent withCounts(int successCount, int failureCount) {
+        this.successCountUntilNow = successCount;
+        this.failureCountUntilNow = failureCount;
+        return this;
+    }
+
+    public DrillEvent latencyMicros(long latencyMicros) {
+        this.latencyMicros = latencyMicros;
+        return this;
+    }
+
+    public DrillEvent commaSeparatedContactedRegions(String commaSeparatedContactedRegions) {
+        this.commaSeparatedContactedRegions = commaSeparatedContactedRegions;
+        return this;
+    }
+
+    public DrillEvent runTimeRemainingMillis(long runTimeRemainingMillis) {
+        this.runTimeRemainingMillis = runTimeRemainingMillis;
+        return this;
+    }
+
+    public DrillEvent latestRecordedSessionToken(String latestRecordedSessionToken) {
+        this.latestRecordedSessionToken = latestRecordedSessionToken;
+        return this;
+    }
+
+    public DrillEvent faultPhase(String faultPhase) {
+        this.faultPhase = faultPhase;
+        return this;
+    }
+
+    // Drops references so a slot waiting for reuse doesn't keep diagnostics alive
+    void reset() {
+        this.operationType = null;
+        this.commaSeparatedContactedRegions = null;
+        this.errorMessage = null;
+        this.cosmosDiagnostics = null;
+        this.fullDiagnosticsReason = null;
+        this.diagnosticsDurationMicros = -1;
+        this.latestRecordedSessionToken = null;
+        this.faultPhase = null;
+    }
+
+    public long getTimeOfResponseEpochMillis() { return timeOfResponseEpochMillis; }
+    public String getOperationType() { return operationType; }
+    public int getThreadId() { return threadId; }
+    public boolean isSuccess() { return isSuccess; }
+    public int getSuccessCountUntilNow() { return successCountUntilNow; }
+    public int getFailureCountUntilNow() { return failureCountUntilNow; }
+    public int getStatusCode() { return statusCode; }
+    public int getSubStatusCode() { return subStatusCode; }
+    public long getLatencyMicros() { return latencyMicros; }
+    public String getCommaSeparatedContactedRegions() { return commaSeparatedContactedRegions; }
+    public String getErrorMessage() { return errorMessage; }
+    public CosmosDiagnostics getCosmosDiagnostics() { return cosmosDiagnostics; }
+    public String getFullDiagnosticsReason() { return fullDiagnosticsReason; }
+    public boolean hasDiagnosticsSummary() { return diagnosticsDurationMicros >= 0; }
+    public long getDiagnosticsDurationMicros() { return diagnosticsDurationMicros; }
+    public int getRetryCount() { return retryCount; }
+    public double getRequestCharge() { return requestCharge; }
+    public int getMaxRequestPayloadSizeInBytes() { return maxRequestPayloadSizeInBytes; }
+    public boolean isHedged() { return isHedged; }
+    public long getRunTimeRemainingMillis() { return runTimeRemainingMillis; }
+    public String getLatestRecordedSessionToken() { return latestRecordedSessionToken; }
+    public String getFaultPhase() { return faultPhase; }
+}
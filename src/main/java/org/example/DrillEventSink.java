@@ -0,0 +1,25 @@
+package org.example;
+
+import java.time.Duration;
+import java.time.Instant;
+
+// Receives one DrillEvent per operation. Callers claim an event, fill it in and publish it,
+// a null claim means the sink is saturated and the event should be skipped.
+public interface DrillEventSink extends AutoCloseable {
+
+    DrillEvent claim();
+
+    void publish(DrillEvent drillEvent);
+
+    @Override
+    void close();
+
+    static DrillEventSink create(Configuration cfg, Instant startTime, Duration runDuration) {
+
+        if (cfg.getDrillEventSinkType() == DrillEventSinkType.NDJSON) {
+            return new RingBufferDrillEventSink(cfg, startTime, runDuration);
+        }
+
+        return new LogDrillEventSink(cfg, runDuration);
+    }
+}
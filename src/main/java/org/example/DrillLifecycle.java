@@ -0,0 +1,229 @@
+package org.example;
+
+import com.azure.cosmos.implementation.CosmosDaemonThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.Disposable;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Drives a drill from start to a deterministic shutdown without polling. A scheduled deadline (or an early stop
+// such as a JVM shutdown) releases the latch the workload thread parks on, registered workers and open loop engines
+// then get the drain timeout to finish their in-flight operations before stragglers are cancelled, and the
+// registered flush actions run exactly once in registration order.
+public class DrillLifecycle implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(DrillLifecycle.class);
+
+    private final Duration runDuration;
+    private final Duration drainTimeout;
+
+    private final CountDownLatch stopLatch = new CountDownLatch(1);
+    private final CountDownLatch closedLatch = new CountDownLatch(1);
+    private final AtomicBoolean isStarted = new AtomicBoolean(false);
+    private final AtomicBoolean isDrained = new AtomicBoolean(false);
+    private final AtomicBoolean isClosed = new AtomicBoolean(false);
+    private final AtomicBoolean isStopRequested = new AtomicBoolean(false);
+
+    private final List<Future<?>> workers = new CopyOnWriteArrayList<>();
+    private final List<ExecutorService> workerExecutors = new CopyOnWriteArrayList<>();
+    private final List<OpenLoopLoadEngine> loadEngines = new CopyOnWriteArrayList<>();
+    private final List<Disposable> loadEngineSubscriptions = new CopyOnWriteArrayList<>();
+    private final List<Runnable> flushActions = new CopyOnWriteArrayList<>();
+
+    private final ScheduledExecutorService deadlineScheduler
+            = new ScheduledThreadPoolExecutor(1, new CosmosDaemonThreadFactory("DrillLifecycle"));
+    private final Thread shutdownHook = new Thread(this::onJvmShutdown, "DrillLifecycleShutdownHook");
+
+    public DrillLifecycle(Duration runDuration, Duration drainTimeout) {
+
+        if (runDuration == null || runDuration.isNegative()) {
+            throw new IllegalArgumentException("runDuration should be a non-negative duration");
+        }
+
+        if (drainTimeout == null || drainTimeout.isNegative()) {
+            throw new IllegalArgumentException("drainTimeout should be a non-negative duration");
+        }
+
+        this.runDuration = runDuration;
+        this.drainTimeout = drainTimeout;
+    }
+
+    public void start() {
+
+        if (!isStarted.compareAndSet(false, true)) {
+            return;
+        }
+
+        deadlineScheduler.schedule(
+                () -> requestStop("run duration of " + runDuration + " elapsed"),
+                runDuration.toNanos(),
+                TimeUnit.NANOSECONDS);
+
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    public void registerWorkers(ExecutorService executor, Future<?>[] futures) {
+
+        workerExecutors.add(executor);
+
+        for (Future<?> future : futures) {
+            if (future != null) {
+                workers.add(future);
+            }
+        }
+    }
+
+    public void registerLoadEngine(OpenLoopLoadEngine loadEngine, Disposable subscription) {
+        loadEngines.add(loadEngine);
+        loadEngineSubscriptions.add(subscription);
+    }
+
+    public void onClose(Runnable flushAction) {
+        flushActions.add(flushAction);
+    }
+
+    public boolean isStopRequested() {
+        return isStopRequested.get();
+    }
+
+    public void requestStop(String reason) {
+
+        if (!isStopRequested.compareAndSet(false, true)) {
+            return;
+        }
+
+        logger.info("Stopping drill : {}", reason);
+        stopLatch.countDown();
+    }
+
+    // Parks the calling thread until a stop is requested, then drains the registered work
+    public void awaitCompletion() {
+
+        try {
+            stopLatch.await();
+        } catch (InterruptedException e) {
+            requestStop("workload thread interrupted");
+            Thread.currentThread().interrupt();
+        }
+
+        drain();
+    }
+
+    @Override
+    public void close() {
+
+        if (!isClosed.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            requestStop("drill closed");
+            drain();
+
+            deadlineScheduler.shutdownNow();
+
+            for (Runnable flushAction : flushActions) {
+                try {
+                    flushAction.run();
+                } catch (RuntimeException e) {
+                    logger.error("Flush action failed", e);
+                }
+            }
+
+            try {
+                Runtime.getRuntime().removeShutdownHook(shutdownHook);
+            } catch (IllegalStateException | IllegalArgumentException e) {
+                // the JVM is already shutting down or start was never called
+            }
+        } finally {
+            closedLatch.countDown();
+        }
+    }
+
+    private void drain() {
+
+        if (!isDrained.compareAndSet(false, true)) {
+            return;
+        }
+
+        long drainStartNanos = System.nanoTime();
+        long drainDeadlineNanos = drainStartNanos + drainTimeout.toNanos();
+        int cancelledWorkerCount = 0;
+        int undrainedLoadEngineCount = 0;
+
+        try {
+            for (OpenLoopLoadEngine loadEngine : loadEngines) {
+                if (!loadEngine.awaitTermination(Duration.ofNanos(remainingNanos(drainDeadlineNanos)))) {
+                    undrainedLoadEngineCount++;
+                }
+            }
+
+            for (Future<?> worker : workers) {
+                try {
+                    worker.get(remainingNanos(drainDeadlineNanos), TimeUnit.NANOSECONDS);
+                } catch (TimeoutException e) {
+                    worker.cancel(true);
+                    cancelledWorkerCount++;
+                } catch (CancellationException e) {
+                    // already cancelled
+                } catch (ExecutionException e) {
+                    logger.error("Worker failed", e.getCause());
+                }
+            }
+
+            for (ExecutorService workerExecutor : workerExecutors) {
+                workerExecutor.shutdown();
+
+                if (!workerExecutor.awaitTermination(remainingNanos(drainDeadlineNanos), TimeUnit.NANOSECONDS)) {
+                    workerExecutor.shutdownNow();
+                }
+            }
+        } catch (InterruptedException e) {
+            logger.warn("Interrupted while draining, cancelling the remaining work");
+            workers.forEach(worker -> worker.cancel(true));
+            workerExecutors.forEach(ExecutorService::shutdownNow);
+            Thread.currentThread().interrupt();
+        }
+
+        loadEngineSubscriptions.forEach(Disposable::dispose);
+
+        logger.info(
+                "Drill drained in {} ms - workers : {}, cancelled workers : {}, load engines : {}, undrained load engines : {}",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - drainStartNanos),
+                workers.size(),
+                cancelledWorkerCount,
+                loadEngines.size(),
+                undrainedLoadEngineCount);
+    }
+
+    private void onJvmShutdown() {
+
+        requestStop("JVM shutdown");
+
+        // give the workload thread the chance to drain and flush before the JVM exits
+        try {
+            if (!closedLatch.await(drainTimeout.toMillis() + 5000, TimeUnit.MILLISECONDS)) {
+                logger.warn("Drill did not shut down within the drain timeout");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static long remainingNanos(long deadlineNanos) {
+        return Math.max(0, deadlineNanos - System.nanoTime());
+    }
+}
@@ -0,0 +1,368 @@
+package org.example;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Columnar, read-only view over the operations of a drill log. Each operation is a row spread over primitive
+// columns (time offset, operation, status, sub-status, contacted regions, thread, latency) and repeated strings
+// are dictionary encoded, so a multi-GB log collapses into a few bytes per operation and queries are tight loops
+// over arrays.
+public class DrillLogIndex {
+
+    private final long baseEpochMillis;
+    private final int rowCount;
+
+    private final int[] timeOffsetMillis;
+    private final byte[] operationTypeIds;
+    private final short[] statusCodes;
+    private final int[] subStatusCodes;
+    private final short[] regionSetIds;
+    private final int[] threadIds;
+    private final int[] latencyMicros;
+
+    private final String[] operationTypes;
+    private final String[] regions;
+    // region set id -> ids of the regions contacted by an operation
+    private final int[][] regionSets;
+
+    private DrillLogIndex(Builder builder) {
+        this.baseEpochMillis = builder.baseEpochMillis;
+        this.rowCount = builder.rowCount;
+        this.timeOffsetMillis = Arrays.copyOf(builder.timeOffsetMillis, builder.rowCount);
+        this.operationTypeIds = Arrays.copyOf(builder.operationTypeIds, builder.rowCount);
+        this.statusCodes = Arrays.copyOf(builder.statusCodes, builder.rowCount);
+        this.subStatusCodes = Arrays.copyOf(builder.subStatusCodes, builder.rowCount);
+        this.regionSetIds = Arrays.copyOf(builder.regionSetIds, builder.rowCount);
+        this.threadIds = Arrays.copyOf(builder.threadIds, builder.rowCount);
+        this.latencyMicros = Arrays.copyOf(builder.latencyMicros, builder.rowCount);
+        this.operationTypes = builder.operationTypes.toArray(new String[0]);
+        this.regions = builder.regions.toArray(new String[0]);
+        this.regionSets = builder.regionSets.toArray(new int[0][]);
+    }
+
+    public int size() { return rowCount; }
+    public long getTimeOfResponseEpochMillis(int row) { return baseEpochMillis + timeOffsetMillis[row]; }
+    public String getOperationType(int row) { return operationTypes[operationTypeIds[row]]; }
+    public int getStatusCode(int row) { return statusCodes[row]; }
+    public int getSubStatusCode(int row) { return subStatusCodes[row]; }
+    public int getThreadId(int row) { return threadIds[row]; }
+    public long getLatencyMicros(int row) { return latencyMicros[row]; }
+
+    public String getCommaSeparatedContactedRegions(int row) {
+
+        StringBuilder commaSeparatedContactedRegions = new StringBuilder();
+
+        for (int regionId : regionSets[regionSetIds[row]]) {
+            if (commaSeparatedContactedRegions.length() > 0) {
+                commaSeparatedContactedRegions.append(',');
+            }
+            commaSeparatedContactedRegions.append(regions[regionId]);
+        }
+
+        return commaSeparatedContactedRegions.toString();
+    }
+
+    // Error rate per contacted region and time bucket, an operation touching several regions counts for each of
+    // them. A null operation type aggregates over all operation types.
+    public List<RegionBucket> getErrorRatePerRegion(Duration bucketWidth, String operationType) {
+
+        long bucketMillis = bucketWidth.toMillis();
+
+        if (bucketMillis <= 0) {
+            throw new IllegalArgumentException("bucketWidth should be at least 1 millisecond");
+        }
+
+        if (rowCount == 0) {
+            return new ArrayList<>();
+        }
+
+        int operationTypeId = operationType == null ? -1 : Arrays.asList(operationTypes).indexOf(operationType);
+
+        if (operationType != null && operationTypeId < 0) {
+            return new ArrayList<>();
+        }
+
+        int minTimeOffset = Integer.MAX_VALUE;
+        int maxTimeOffset = Integer.MIN_VALUE;
+
+        for (int row = 0; row < rowCount; row++) {
+            minTimeOffset = Math.min(minTimeOffset, timeOffsetMillis[row]);
+            maxTimeOffset = Math.max(maxTimeOffset, timeOffsetMillis[row]);
+        }
+
+        long firstBucketStartEpochMillis = Math.floorDiv(baseEpochMillis + minTimeOffset, bucketMillis) * bucketMillis;
+        int firstBucketOffset = (int) (firstBucketStartEpochMillis - baseEpochMillis);
+        int bucketCount = (int) ((maxTimeOffset - firstBucketOffset) / bucketMillis) + 1;
+
+        long[][] operationCounts = new long[regions.length][bucketCount];
+        long[][] errorCounts = new long[regions.length][bucketCount];
+        long[][] availabilityFailureCounts = new long[regions.length][bucketCount];
+
+        for (int row = 0; row < rowCount; row++) {
+
+            if (operationTypeId >= 0 && operationTypeIds[row] != operationTypeId) {
+                continue;
+            }
+
+            int bucket = (int) ((timeOffsetMillis[row] - firstBucketOffset) / bucketMillis);
+            int statusCode = statusCodes[row];
+            boolean isError = statusCode < 200 || statusCode >= 300;
+            boolean isAvailabilityRelatedFailure = statusCode == 503 || statusCode == 408;
+
+            for (int regionId : regionSets[regionSetIds[row]]) {
+                operationCounts[regionId][bucket]++;
+
+                if (isError) {
+                    errorCounts[regionId][bucket]++;
+                }
+
+                if (isAvailabilityRelatedFailure) {
+                    availabilityFailureCounts[regionId][bucket]++;
+                }
+            }
+        }
+
+        List<RegionBucket> regionBuckets = new ArrayList<>();
+
+        for (int bucket = 0; bucket < bucketCount; bucket++) {
+            for (int regionId = 0; regionId < regions.length; regionId++) {
+                if (operationCounts[regionId][bucket] > 0) {
+                    regionBuckets.add(new RegionBucket(
+                            Instant.ofEpochMilli(firstBucketStartEpochMillis + bucket * bucketMillis),
+                            regions[regionId],
+                            operationCounts[regionId][bucket],
+                            errorCounts[regionId][bucket],
+                            availabilityFailureCounts[regionId][bucket]));
+                }
+            }
+        }
+
+        return regionBuckets;
+    }
+
+    // Operation count per operation type and status / sub-status code, keyed as "<operationType> <status>/<subStatus>"
+    public Map<String, Long> getStatusCounts() {
+
+        Map<Long, Long> countsByKey = new HashMap<>();
+
+        for (int row = 0; row < rowCount; row++) {
+            long key = ((long) operationTypeIds[row] << 48) | ((long) (statusCodes[row] & 0xFFFF) << 32) | (subStatusCodes[row] & 0xFFFFFFFFL);
+            countsByKey.merge(key, 1L, Long::sum);
+        }
+
+        Map<String, Long> statusCounts = new TreeMap<>();
+
+        for (Map.Entry<Long, Long> entry : countsByKey.entrySet()) {
+            long key = entry.getKey();
+            statusCounts.put(
+                    operationTypes[(int) (key >>> 48)] + " " + (short) (key >>> 32) + "/" + (int) key,
+                    entry.getValue());
+        }
+
+        return statusCounts;
+    }
+
+    public static class RegionBucket {
+
+        private final Instant bucketStart;
+        private final String region;
+        private final long operationCount;
+        private final long errorCount;
+        private final long availabilityFailureCount;
+
+        RegionBucket(Instant bucketStart, String region, long operationCount, long errorCount, long availabilityFailureCount) {
+            this.bucketStart = bucketStart;
+            this.region = region;
+            this.operationCount = operationCount;
+            this.errorCount = errorCount;
+            this.availabilityFailureCount = availabilityFailureCount;
+        }
+
+        public Instant getBucketStart() { return bucketStart; }
+        public String getRegion() { return region; }
+        public long getOperationCount() { return operationCount; }
+        public long getErrorCount() { return errorCount; }
+        public long getAvailabilityFailureCount() { return availabilityFailureCount; }
+
+        public double getErrorRate() {
+            return operationCount == 0 ? 0 : (double) errorCount / operationCount;
+        }
+    }
+
+    // Accumulates the rows of one slice of a log. Builders of adjacent slices are merged into one index, which
+    // re-encodes the dictionaries of the merged builder.
+    public static class Builder {
+
+        private long baseEpochMillis = Long.MIN_VALUE;
+        private int rowCount;
+
+        private int[] timeOffsetMillis = new int[1024];
+        private byte[] operationTypeIds = new byte[1024];
+        private short[] statusCodes = new short[1024];
+        private int[] subStatusCodes = new int[1024];
+        private short[] regionSetIds = new short[1024];
+        private int[] threadIds = new int[1024];
+        private int[] latencyMicros = new int[1024];
+
+        private final List<String> operationTypes = new ArrayList<>();
+        private final List<String> regions = new ArrayList<>();
+        private final List<int[]> regionSets = new ArrayList<>();
+
+        private final Map<String, Integer> operationTypeIdsByName = new HashMap<>();
+        private final Map<String, Integer> regionIdsByName = new HashMap<>();
+        private final Map<String, Integer> regionSetIdsByName = new HashMap<>();
+
+        public int operationTypeId(String operationType) {
+
+            Integer operationTypeId = operationTypeIdsByName.get(operationType);
+
+            if (operationTypeId == null) {
+                if (operationTypes.size() > Byte.MAX_VALUE) {
+                    throw new IllegalStateException("More than " + (Byte.MAX_VALUE + 1) + " distinct operation types");
+                }
+
+                operationTypeId = operationTypes.size();
+                operationTypes.add(operationType);
+                operationTypeIdsByName.put(operationType, operationTypeId);
+            }
+
+            return operationTypeId;
+        }
+
+        public int regionSetId(String commaSeparatedContactedRegions) {
+
+            Integer regionSetId = regionSetIdsByName.get(commaSeparatedContactedRegions);
+
+            if (regionSetId == null) {
+                if (regionSets.size() > Short.MAX_VALUE) {
+                    throw new IllegalStateException("More than " + (Short.MAX_VALUE + 1) + " distinct contacted region sets");
+                }
+
+                int[] regionIds = commaSeparatedContactedRegions.isEmpty()
+                        ? new int[0]
+                        : Arrays.stream(commaSeparatedContactedRegions.split(","))
+                            .map(String::trim)
+                            .mapToInt(this::regionId)
+                            .toArray();
+
+                regionSetId = regionSets.size();
+                regionSets.add(regionIds);
+                regionSetIdsByName.put(commaSeparatedContactedRegions, regionSetId);
+            }
+
+            return regionSetId;
+        }
+
+        private int regionId(String region) {
+            return regionIdsByName.computeIfAbsent(region, newRegion -> {
+                regions.add(newRegion);
+                return regions.size() - 1;
+            });
+        }
+
+        public void addRow(
+                long timeOfResponseEpochMillis,
+                int operationTypeId,
+                int statusCode,
+                int subStatusCode,
+                int regionSetId,
+                int threadId,
+                long latencyMicros) {
+
+            if (baseEpochMillis == Long.MIN_VALUE) {
+                baseEpochMillis = timeOfResponseEpochMillis;
+            }
+
+            long timeOffset = timeOfResponseEpochMillis - baseEpochMillis;
+
+            if (timeOffset > Integer.MAX_VALUE || timeOffset < Integer.MIN_VALUE) {
+                throw new IllegalArgumentException("Drill log spans more than " + Duration.ofMillis(Integer.MAX_VALUE));
+            }
+
+            ensureCapacity(rowCount + 1);
+
+            this.timeOffsetMillis[rowCount] = (int) timeOffset;
+            this.operationTypeIds[rowCount] = (byte) operationTypeId;
+            this.statusCodes[rowCount] = (short) statusCode;
+            this.subStatusCodes[rowCount] = subStatusCode;
+            this.regionSetIds[rowCount] = (short) regionSetId;
+            this.threadIds[rowCount] = threadId;
+            this.latencyMicros[rowCount] = (int) Math.min(latencyMicros, Integer.MAX_VALUE);
+            rowCount++;
+        }
+
+        // Appends the rows of a builder covering the slice of the log which follows this one
+        public Builder merge(Builder other) {
+
+            int[] operationTypeIdMapping = other.operationTypes.stream().mapToInt(this::operationTypeId).toArray();
+            int[] regionSetIdMapping = new int[other.regionSets.size()];
+
+            for (Map.Entry<String, Integer> regionSet : other.regionSetIdsByName.entrySet()) {
+                regionSetIdMapping[regionSet.getValue()] = regionSetId(regionSet.getKey());
+            }
+
+            if (other.rowCount == 0) {
+                return this;
+            }
+
+            if (baseEpochMillis == Long.MIN_VALUE) {
+                baseEpochMillis = other.baseEpochMillis;
+            }
+
+            long baseShift = other.baseEpochMillis - baseEpochMillis;
+
+            ensureCapacity(rowCount + other.rowCount);
+
+            for (int row = 0; row < other.rowCount; row++) {
+                long timeOffset = other.timeOffsetMillis[row] + baseShift;
+
+                if (timeOffset > Integer.MAX_VALUE || timeOffset < Integer.MIN_VALUE) {
+                    throw new IllegalArgumentException("Drill log spans more than " + Duration.ofMillis(Integer.MAX_VALUE));
+                }
+
+                timeOffsetMillis[rowCount + row] = (int) timeOffset;
+                operationTypeIds[rowCount + row] = (byte) operationTypeIdMapping[other.operationTypeIds[row]];
+                regionSetIds[rowCount + row] = (short) regionSetIdMapping[other.regionSetIds[row]];
+            }
+
+            System.arraycopy(other.statusCodes, 0, statusCodes, rowCount, other.rowCount);
+            System.arraycopy(other.subStatusCodes, 0, subStatusCodes, rowCount, other.rowCount);
+            System.arraycopy(other.threadIds, 0, threadIds, rowCount, other.rowCount);
+            System.arraycopy(other.latencyMicros, 0, latencyMicros, rowCount, other.rowCount);
+            rowCount += other.rowCount;
+
+            return this;
+        }
+
+        public int getRowCount() {
+            return rowCount;
+        }
+
+        public DrillLogIndex build() {
+            return new DrillLogIndex(this);
+        }
+
+        private void ensureCapacity(int capacity) {
+
+            if (capacity <= timeOffsetMillis.length) {
+                return;
+            }
+
+            int newCapacity = Math.max(capacity, timeOffsetMillis.length * 2);
+
+            timeOffsetMillis = Arrays.copyOf(timeOffsetMillis, newCapacity);
+            operationTypeIds = Arrays.copyOf(operationTypeIds, newCapacity);
+            statusCodes = Arrays.copyOf(statusCodes, newCapacity);
+            subStatusCodes = Arrays.copyOf(subStatusCodes, newCapacity);
+            regionSetIds = Arrays.copyOf(regionSetIds, newCapacity);
+            threadIds = Arrays.copyOf(threadIds, newCapacity);
+            latencyMicros = Arrays.copyOf(latencyMicros, newCapacity);
+        }
+    }
+}
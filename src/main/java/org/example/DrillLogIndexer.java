@@ -0,0 +1,488 @@
+package org.example;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+
+// Builds a DrillLogIndex from the RequestResponseInfo lines of a drill log. The log is memory mapped and split into
+// slices which a fork-join pool scans in parallel, each slice owns the lines starting inside it. The scanner reads
+// the fields straight from the mapped bytes, strings are only materialized the first time a dictionary value
+// (operation type, contacted regions) is seen in a slice.
+public class DrillLogIndexer {
+
+    private static final Logger logger = LoggerFactory.getLogger(DrillLogIndexer.class);
+
+    private static final long DEFAULT_SLICE_SIZE_IN_BYTES = 64L * 1024 * 1024;
+
+    private static final byte[] REQUEST_RESPONSE_INFO_MARKER = bytes("RequestResponseInfo [timeOfResponse=");
+    private static final byte[] OPERATION_TYPE_FIELD = bytes(", operationType=");
+    private static final byte[] THREAD_ID_FIELD = bytes(", threadId=");
+    private static final byte[] STATUS_CODE_FIELD = bytes(", statusCode=");
+    private static final byte[] SUB_STATUS_CODE_FIELD = bytes(", subStatusCode=");
+    private static final byte[] LATENCY_MICROS_FIELD = bytes(", latencyMicros=");
+    private static final byte[] CONTACTED_REGIONS_FIELD = bytes(", commaSeparatedContactedRegions=");
+    private static final byte[] DIAGNOSTICS_CONTEXT_FIELD = bytes(", cosmosDiagnosticsContext=");
+
+    private final long sliceSizeInBytes;
+    private final ForkJoinPool forkJoinPool;
+
+    public DrillLogIndexer(long sliceSizeInBytes, ForkJoinPool forkJoinPool) {
+
+        if (sliceSizeInBytes < 1024) {
+            throw new IllegalArgumentException("sliceSizeInBytes should be at least 1024");
+        }
+
+        this.sliceSizeInBytes = sliceSizeInBytes;
+        this.forkJoinPool = forkJoinPool;
+    }
+
+    public static void main(String[] args) {
+
+        if (args.length < 1) {
+            System.err.println("Usage: DrillLogIndexer <drill log> [bucket width in seconds] [operation type] [parallelism]");
+            System.exit(1);
+        }
+
+        Path drillLogPath = Paths.get(args[0]);
+        Duration bucketWidth = Duration.ofSeconds(args.length > 1 ? Long.parseLong(args[1]) : 10);
+        String operationType = args.length > 2 && !args[2].equals("*") ? args[2] : null;
+        int parallelism = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+
+        ForkJoinPool forkJoinPool = new ForkJoinPool(parallelism);
+
+        try {
+            long indexStartNanos = System.nanoTime();
+            DrillLogIndex drillLogIndex = new DrillLogIndexer(DEFAULT_SLICE_SIZE_IN_BYTES, forkJoinPool).index(drillLogPath);
+            long indexDurationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - indexStartNanos);
+
+            logger.info("Indexed {} operations from {} in {} ms", drillLogIndex.size(), drillLogPath, indexDurationMillis);
+
+            long queryStartNanos = System.nanoTime();
+            List<DrillLogIndex.RegionBucket> regionBuckets = drillLogIndex.getErrorRatePerRegion(bucketWidth, operationType);
+            long queryDurationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - queryStartNanos);
+
+            System.out.printf("%-26s %-24s %12s %12s %14s %10s%n",
+                    "bucketStart", "region", "operations", "errors", "availability", "errorRate");
+
+            for (DrillLogIndex.RegionBucket regionBucket : regionBuckets) {
+                System.out.printf("%-26s %-24s %12d %12d %14d %10.4f%n",
+                        regionBucket.getBucketStart(),
+                        regionBucket.getRegion(),
+                        regionBucket.getOperationCount(),
+                        regionBucket.getErrorCount(),
+                        regionBucket.getAvailabilityFailureCount(),
+                        regionBucket.getErrorRate());
+            }
+
+            System.out.println();
+
+            for (Map.Entry<String, Long> statusCount : drillLogIndex.getStatusCounts().entrySet()) {
+                System.out.printf("%-40s %12d%n", statusCount.getKey(), statusCount.getValue());
+            }
+
+            logger.info("Error rate per region per {} bucket computed in {} ms", bucketWidth, queryDurationMillis);
+        } finally {
+            forkJoinPool.shutdown();
+        }
+    }
+
+    public DrillLogIndex index(Path drillLogPath) {
+
+        try (FileChannel fileChannel = FileChannel.open(drillLogPath, StandardOpenOption.READ)) {
+            return forkJoinPool.invoke(new SliceTask(fileChannel, 0, fileChannel.size())).build();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to index drill log " + drillLogPath, e);
+        }
+    }
+
+    private class SliceTask extends RecursiveTask<DrillLogIndex.Builder> {
+
+        private final FileChannel fileChannel;
+        private final long sliceStart;
+        private final long sliceEnd;
+
+        SliceTask(FileChannel fileChannel, long sliceStart, long sliceEnd) {
+            this.fileChannel = fileChannel;
+            this.sliceStart = sliceStart;
+            this.sliceEnd = sliceEnd;
+        }
+
+        @Override
+        protected DrillLogIndex.Builder compute() {
+
+            if (sliceEnd - sliceStart > sliceSizeInBytes) {
+                long sliceMiddle = sliceStart + (sliceEnd - sliceStart) / 2;
+
+                SliceTask head = new SliceTask(fileChannel, sliceStart, sliceMiddle);
+                SliceTask tail = new SliceTask(fileChannel, sliceMiddle, sliceEnd);
+
+                tail.fork();
+                DrillLogIndex.Builder headBuilder = head.compute();
+
+                return headBuilder.merge(tail.join());
+            }
+
+            try {
+                return scan();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private DrillLogIndex.Builder scan() throws IOException {
+
+            // the mapping reaches past the end of the slice so that the last line owned by the slice can be read
+            // to its end, the pages past that line are never touched
+            long mappingStart = Math.max(0, sliceStart - 1);
+            long mappingLength = Math.min(fileChannel.size() - mappingStart, Integer.MAX_VALUE);
+            MappedByteBuffer buffer = fileChannel.map(FileChannel.MapMode.READ_ONLY, mappingStart, mappingLength);
+
+            int limit = buffer.limit();
+            int sliceLength = (int) (sliceEnd - mappingStart);
+            int position = 0;
+
+            // a line that started in the previous slice belongs to that slice
+            if (sliceStart > 0) {
+                position = buffer.get(0) == '\n' ? 1 : indexOf(buffer, (byte) '\n', 0, limit) + 1;
+
+                if (position == 0) {
+                    return new DrillLogIndex.Builder();
+                }
+            }
+
+            LineScanner lineScanner = new LineScanner(buffer);
+
+            while (position < sliceLength && position < limit) {
+                int lineEnd = indexOf(buffer, (byte) '\n', position, limit);
+
+                if (lineEnd < 0) {
+                    lineEnd = limit;
+                }
+
+                lineScanner.scan(position, lineEnd);
+                position = lineEnd + 1;
+            }
+
+            return lineScanner.builder;
+        }
+    }
+
+    // Parses RequestResponseInfo lines of one mapped slice into a builder
+    private static class LineScanner {
+
+        private final MappedByteBuffer buffer;
+        private final DrillLogIndex.Builder builder = new DrillLogIndex.Builder();
+        private final ByteSliceDictionary operationTypes = new ByteSliceDictionary();
+        private final ByteSliceDictionary regionSets = new ByteSliceDictionary();
+
+        LineScanner(MappedByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        void scan(int lineStart, int lineEnd) {
+
+            int position = indexOf(buffer, REQUEST_RESPONSE_INFO_MARKER, lineStart, lineEnd);
+
+            if (position < 0) {
+                return;
+            }
+
+            position += REQUEST_RESPONSE_INFO_MARKER.length;
+
+            int timeOfResponseEnd = indexOf(buffer, OPERATION_TYPE_FIELD, position, lineEnd);
+
+            if (timeOfResponseEnd < 0) {
+                return;
+            }
+
+            long timeOfResponseEpochMillis = parseInstantEpochMillis(buffer, position, timeOfResponseEnd);
+
+            if (timeOfResponseEpochMillis == Long.MIN_VALUE) {
+                return;
+            }
+
+            int operationTypeStart = timeOfResponseEnd + OPERATION_TYPE_FIELD.length;
+            int operationTypeEnd = indexOf(buffer, (byte) ',', operationTypeStart, lineEnd);
+            int threadIdStart = indexOf(buffer, THREAD_ID_FIELD, operationTypeStart, lineEnd);
+            int statusCodeStart = indexOf(buffer, STATUS_CODE_FIELD, operationTypeStart, lineEnd);
+            int subStatusCodeStart = indexOf(buffer, SUB_STATUS_CODE_FIELD, operationTypeStart, lineEnd);
+
+            if (operationTypeEnd < 0 || threadIdStart < 0 || statusCodeStart < 0 || subStatusCodeStart < 0) {
+                return;
+            }
+
+            int afterSubStatusCode = indexOf(buffer, (byte) ',', subStatusCodeStart + SUB_STATUS_CODE_FIELD.length, lineEnd);
+
+            if (afterSubStatusCode < 0) {
+                return;
+            }
+
+            long latencyMicros = 0;
+            int contactedRegionsStart = afterSubStatusCode;
+
+            // logs written before latencyMicros was added to RequestResponseInfo don't carry it
+            if (regionMatches(buffer, afterSubStatusCode, LATENCY_MICROS_FIELD, lineEnd)) {
+                int latencyMicrosStart = afterSubStatusCode + LATENCY_MICROS_FIELD.length;
+                contactedRegionsStart = indexOf(buffer, (byte) ',', latencyMicrosStart, lineEnd);
+
+                if (contactedRegionsStart < 0) {
+                    return;
+                }
+
+                latencyMicros = parseLong(buffer, latencyMicrosStart, contactedRegionsStart);
+            }
+
+            if (!regionMatches(buffer, contactedRegionsStart, CONTACTED_REGIONS_FIELD, lineEnd)) {
+                return;
+            }
+
+            contactedRegionsStart += CONTACTED_REGIONS_FIELD.length;
+            int contactedRegionsEnd = indexOf(buffer, DIAGNOSTICS_CONTEXT_FIELD, contactedRegionsStart, lineEnd);
+
+            if (contactedRegionsEnd < 0) {
+                return;
+            }
+
+            int operationTypeId = operationTypes.lookup(buffer, operationTypeStart, operationTypeEnd);
+
+            if (operationTypeId < 0) {
+                operationTypeId = operationTypes.put(
+                        buffer,
+                        operationTypeStart,
+                        operationTypeEnd,
+                        builder.operationTypeId(decode(buffer, operationTypeStart, operationTypeEnd)));
+            }
+
+            int regionSetId = regionSets.lookup(buffer, contactedRegionsStart, contactedRegionsEnd);
+
+            if (regionSetId < 0) {
+                regionSetId = regionSets.put(
+                        buffer,
+                        contactedRegionsStart,
+                        contactedRegionsEnd,
+                        builder.regionSetId(decode(buffer, contactedRegionsStart, contactedRegionsEnd)));
+            }
+
+            builder.addRow(
+                    timeOfResponseEpochMillis,
+                    operationTypeId,
+                    (int) parseLong(buffer, statusCodeStart + STATUS_CODE_FIELD.length, subStatusCodeStart),
+                    (int) parseLong(buffer, subStatusCodeStart + SUB_STATUS_CODE_FIELD.length, afterSubStatusCode),
+                    regionSetId,
+                    (int) parseLong(buffer, threadIdStart + THREAD_ID_FIELD.length, indexOf(buffer, (byte) ',', threadIdStart + THREAD_ID_FIELD.length, lineEnd)),
+                    latencyMicros);
+        }
+    }
+
+    // Open addressing map from byte ranges of the mapped log to dictionary ids, so that known values are resolved
+    // without decoding them into strings
+    private static class ByteSliceDictionary {
+
+        private byte[][] keys = new byte[64][];
+        private int[] values = new int[64];
+        private int size;
+
+        int lookup(MappedByteBuffer buffer, int start, int end) {
+
+            int mask = keys.length - 1;
+
+            for (int slot = hash(buffer, start, end) & mask; keys[slot] != null; slot = (slot + 1) & mask) {
+                if (equals(keys[slot], buffer, start, end)) {
+                    return values[slot];
+                }
+            }
+
+            return -1;
+        }
+
+        int put(MappedByteBuffer buffer, int start, int end, int value) {
+
+            if ((size + 1) * 2 > keys.length) {
+                resize();
+            }
+
+            byte[] key = new byte[end - start];
+            buffer.get(start, key);
+            insert(key, value);
+            size++;
+
+            return value;
+        }
+
+        private void insert(byte[] key, int value) {
+
+            int mask = keys.length - 1;
+            int slot = hash(key) & mask;
+
+            while (keys[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+
+            keys[slot] = key;
+            values[slot] = value;
+        }
+
+        private void resize() {
+
+            byte[][] oldKeys = keys;
+            int[] oldValues = values;
+
+            keys = new byte[oldKeys.length * 2][];
+            values = new int[oldKeys.length * 2];
+
+            for (int slot = 0; slot < oldKeys.length; slot++) {
+                if (oldKeys[slot] != null) {
+                    insert(oldKeys[slot], oldValues[slot]);
+                }
+            }
+        }
+
+        private static int hash(MappedByteBuffer buffer, int start, int end) {
+
+            int hash = 1;
+
+            for (int i = start; i < end; i++) {
+                hash = 31 * hash + buffer.get(i);
+            }
+
+            return hash ^ (hash >>> 16);
+        }
+
+        private static int hash(byte[] key) {
+            int hash = Arrays.hashCode(key);
+            return hash ^ (hash >>> 16);
+        }
+
+        private static boolean equals(byte[] key, MappedByteBuffer buffer, int start, int end) {
+
+            if (key.length != end - start) {
+                return false;
+            }
+
+            for (int i = 0; i < key.length; i++) {
+                if (key[i] != buffer.get(start + i)) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+    }
+
+    private static int indexOf(MappedByteBuffer buffer, byte value, int from, int to) {
+
+        for (int i = from; i < to; i++) {
+            if (buffer.get(i) == value) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    private static int indexOf(MappedByteBuffer buffer, byte[] pattern, int from, int to) {
+
+        byte first = pattern[0];
+        int last = to - pattern.length;
+
+        for (int i = from; i <= last; i++) {
+            if (buffer.get(i) == first && regionMatches(buffer, i, pattern, to)) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    private static boolean regionMatches(MappedByteBuffer buffer, int position, byte[] pattern, int to) {
+
+        if (position + pattern.length > to) {
+            return false;
+        }
+
+        for (int i = 0; i < pattern.length; i++) {
+            if (buffer.get(position + i) != pattern[i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static long parseLong(MappedByteBuffer buffer, int start, int end) {
+
+        boolean isNegative = start < end && buffer.get(start) == '-';
+        long value = 0;
+
+        for (int i = isNegative ? start + 1 : start; i < end; i++) {
+            byte digit = buffer.get(i);
+
+            if (digit < '0' || digit > '9') {
+                break;
+            }
+
+            value = value * 10 + (digit - '0');
+        }
+
+        return isNegative ? -value : value;
+    }
+
+    // Parses the ISO-8601 form Instant.toString() writes (yyyy-MM-ddTHH:mm:ss[.fraction]Z), returns
+    // Long.MIN_VALUE for anything else
+    private static long parseInstantEpochMillis(MappedByteBuffer buffer, int start, int end) {
+
+        if (end - start < 20 || buffer.get(start + 4) != '-' || buffer.get(start + 10) != 'T' || buffer.get(end - 1) != 'Z') {
+            return Long.MIN_VALUE;
+        }
+
+        long year = parseLong(buffer, start, start + 4);
+        long month = parseLong(buffer, start + 5, start + 7);
+        long day = parseLong(buffer, start + 8, start + 10);
+        long hour = parseLong(buffer, start + 11, start + 13);
+        long minute = parseLong(buffer, start + 14, start + 16);
+        long second = parseLong(buffer, start + 17, start + 19);
+        long millis = 0;
+
+        if (buffer.get(start + 19) == '.') {
+            for (int i = start + 20; i < start + 23; i++) {
+                byte digit = i < end - 1 ? buffer.get(i) : (byte) '0';
+                millis = millis * 10 + (digit - '0');
+            }
+        }
+
+        // days from civil, see java.time.LocalDate#toEpochDay
+        long adjustedYear = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(adjustedYear, 400);
+        long yearOfEra = adjustedYear - era * 400;
+        long dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        long epochDay = era * 146097 + dayOfEra - 719468;
+
+        return ((epochDay * 24 + hour) * 60 + minute) * 60_000 + second * 1000 + millis;
+    }
+
+    private static String decode(MappedByteBuffer buffer, int start, int end) {
+        byte[] bytes = new byte[end - start];
+        buffer.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
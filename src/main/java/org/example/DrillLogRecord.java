@@ -0,0 +1,115 @@
+package org.example;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// A single operation read back from a drill log, either a RequestResponseInfo line written by the
+// LOG sink or an event line written by the NDJSON sink
+public class DrillLogRecord {
+
+    private static final Pattern REQUEST_RESPONSE_INFO_PATTERN = Pattern.compile(
+            "RequestResponseInfo \\[timeOfResponse=([^,]+), operationType=([^,]*), .*?"
+                    + "statusCode=(-?\\d+), subStatusCode=(-?\\d+), (?:latencyMicros=(\\d+), )?"
+                    + "commaSeparatedContactedRegions=(.*?), cosmosDiagnosticsContext=");
+
+    private static final Pattern NDJSON_TIME_OF_RESPONSE_PATTERN = Pattern.compile("\"timeOfResponse\":(\\d+)");
+    private static final Pattern NDJSON_OPERATION_TYPE_PATTERN = Pattern.compile("\"operationType\":\"((?:[^\"\\\\]|\\\\.)*)\"");
+    private static final Pattern NDJSON_STATUS_CODE_PATTERN = Pattern.compile("\"statusCode\":(-?\\d+)");
+    private static final Pattern NDJSON_SUB_STATUS_CODE_PATTERN = Pattern.compile("\"subStatusCode\":(-?\\d+)");
+    private static final Pattern NDJSON_LATENCY_MICROS_PATTERN = Pattern.compile("\"latencyMicros\":(\\d+)");
+    private static final Pattern NDJSON_CONTACTED_REGIONS_PATTERN = Pattern.compile("\"contactedRegions\":\"((?:[^\"\\\\]|\\\\.)*)\"");
+
+    private static final String NDJSON_EVENT_PREFIX = "{\"type\":\"event\"";
+
+    private final long timeOfResponseEpochMillis;
+    private final String operationType;
+    private final int statusCode;
+    private final int subStatusCode;
+    private final long latencyMicros;
+    private final String commaSeparatedContactedRegions;
+
+    public DrillLogRecord(
+            long timeOfResponseEpochMillis,
+            String operationType,
+            int statusCode,
+            int subStatusCode,
+            long latencyMicros,
+            String commaSeparatedContactedRegions) {
+
+        this.timeOfResponseEpochMillis = timeOfResponseEpochMillis;
+        this.operationType = operationType;
+        this.statusCode = statusCode;
+        this.subStatusCode = subStatusCode;
+        this.latencyMicros = latencyMicros;
+        this.commaSeparatedContactedRegions = commaSeparatedContactedRegions;
+    }
+
+    public long getTimeOfResponseEpochMillis() { return timeOfResponseEpochMillis; }
+    public String getOperationType() { return operationType; }
+    public int getStatusCode() { return statusCode; }
+    public int getSubStatusCode() { return subStatusCode; }
+    public long getLatencyMicros() { return latencyMicros; }
+    public String getCommaSeparatedContactedRegions() { return commaSeparatedContactedRegions; }
+
+    // Returns null for lines which aren't operation events (run configuration, latency reports etc.)
+    public static DrillLogRecord parse(String line) {
+
+        if (line.startsWith(NDJSON_EVENT_PREFIX)) {
+            return parseNdjsonEvent(line);
+        }
+
+        int requestResponseInfoIndex = line.indexOf("RequestResponseInfo [");
+
+        if (requestResponseInfoIndex < 0) {
+            return null;
+        }
+
+        Matcher matcher = REQUEST_RESPONSE_INFO_PATTERN.matcher(line);
+
+        if (!matcher.find(requestResponseInfoIndex)) {
+            return null;
+        }
+
+        try {
+            return new DrillLogRecord(
+                    Instant.parse(matcher.group(1)).toEpochMilli(),
+                    matcher.group(2),
+                    Integer.parseInt(matcher.group(3)),
+                    Integer.parseInt(matcher.group(4)),
+                    matcher.group(5) != null ? Long.parseLong(matcher.group(5)) : 0,
+                    matcher.group(6));
+        } catch (DateTimeParseException | NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static DrillLogRecord parseNdjsonEvent(String line) {
+
+        String timeOfResponse = findFirst(NDJSON_TIME_OF_RESPONSE_PATTERN, line);
+        String operationType = findFirst(NDJSON_OPERATION_TYPE_PATTERN, line);
+        String statusCode = findFirst(NDJSON_STATUS_CODE_PATTERN, line);
+
+        if (timeOfResponse == null || operationType == null || statusCode == null) {
+            return null;
+        }
+
+        String subStatusCode = findFirst(NDJSON_SUB_STATUS_CODE_PATTERN, line);
+        String latencyMicros = findFirst(NDJSON_LATENCY_MICROS_PATTERN, line);
+        String contactedRegions = findFirst(NDJSON_CONTACTED_REGIONS_PATTERN, line);
+
+        return new DrillLogRecord(
+                Long.parseLong(timeOfResponse),
+                operationType,
+                Integer.parseInt(statusCode),
+                subStatusCode != null ? Integer.parseInt(subStatusCode) : 0,
+                latencyMicros != null ? Long.parseLong(latencyMicros) : 0,
+                contactedRegions != null ? contactedRegions : "");
+    }
+
+    private static String findFirst(Pattern pattern, String line) {
+        Matcher matcher = pattern.matcher(line);
+        return matcher.find() ? matcher.group(1) : null;
+    }
+}
@@ -0,0 +1,715 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+// Live drill metrics, recorded on the response path with LongAdders and rendered in the
+// OpenMetrics text format on every scrape of the MetricsServer. The counters and histograms an operation type records
+// into are resolved once and cached in its OperationHandles, so recording an operation renders no labels and allocates
+// nothing once its status codes, regions and partition key ranges have been seen.
+public class DrillMetrics {
+
+    private static final String METRIC_PREFIX = "ppaf_drill_";
+
+    private static final double[] LATENCY_BUCKET_UPPER_BOUNDS_SECONDS
+            = {0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30, 60};
+
+    private final Configuration cfg;
+
+    // keyed by the rendered label set, e.g. operation="create",status_code="201",sub_status_code="0"
+    private final Map<String, LongAdder> operationCounts = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> regionRequestCounts = new ConcurrentHashMap<>();
+    private final Map<String, DoubleAdder> requestUnits = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> writtenDocuments = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> writtenBytes = new ConcurrentHashMap<>();
+    private final Map<String, LatencyHistogram> latencyHistograms = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> partitionKeyRangeOperationCounts = new ConcurrentHashMap<>();
+    private final Map<String, LatencyHistogram> partitionKeyRangeLatencyHistograms = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> changeFeedDocumentCounts = new ConcurrentHashMap<>();
+    private final Map<String, LatencyHistogram> changeFeedLagHistograms = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> sessionConsistencyViolationCounts = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> queryCounts = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> queryPageCounts = new ConcurrentHashMap<>();
+    private final Map<String, DoubleAdder> queryPageRequestUnits = new ConcurrentHashMap<>();
+    private final Map<String, LatencyHistogram> queryPageLatencyHistograms = new ConcurrentHashMap<>();
+    private final Map<String, LatencyHistogram> queryTimeToFirstPageHistograms = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> readVariantCounts = new ConcurrentHashMap<>();
+    private final Map<String, DoubleAdder> readVariantHedgeRequestUnits = new ConcurrentHashMap<>();
+    private final Map<String, DoubleAdder> readVariantFailedRequestUnits = new ConcurrentHashMap<>();
+    private final Map<String, LatencyHistogram> readVariantLatencyHistograms = new ConcurrentHashMap<>();
+
+    // keyed by fleet client, replaced every reporting interval
+    private final Map<String, Double> fleetClientOpenConnections = new ConcurrentHashMap<>();
+    private final Map<String, Double> fleetClientEndpoints = new ConcurrentHashMap<>();
+    private final Map<String, Double> fleetClientAddressResolutions = new ConcurrentHashMap<>();
+    private final Map<String, Long> fleetClientOperations = new ConcurrentHashMap<>();
+    private final Map<String, Long> fleetClientHeapBytes = new ConcurrentHashMap<>();
+
+    // keyed by startup step labels, set once before the drill starts
+    private final Map<String, Double> startupSeconds = new ConcurrentHashMap<>();
+
+    // keyed by calibrated quantity, set once before the drill starts
+    private final Map<String, Double> calibratedValues = new ConcurrentHashMap<>();
+
+    // keyed by operation type
+    private final Map<String, AtomicInteger> inFlightCounts = new ConcurrentHashMap<>();
+    private final Map<String, SlidingWindowCounter> availabilityWindows = new ConcurrentHashMap<>();
+
+    // keyed by partition key range id
+    private final Map<String, SlidingWindowCounter> partitionKeyRangeAvailabilityWindows = new ConcurrentHashMap<>();
+
+    // keyed by operation type, handles into the label keyed maps above
+    private final Map<String, OperationHandles> operationHandles = new ConcurrentHashMap<>();
+
+    public DrillMetrics(Configuration cfg) {
+        this.cfg = cfg;
+    }
+
+    public void onOperationStarted(String operationType) {
+        inFlightCounts.computeIfAbsent(operationType, opType -> new AtomicInteger()).incrementAndGet();
+    }
+
+    public void onOperationFinished(String operationType) {
+        inFlightCounts.computeIfAbsent(operationType, opType -> new AtomicInteger()).decrementAndGet();
+    }
+
+    public void recordOperation(
+            String operationType,
+            int statusCode,
+            int subStatusCode,
+            Collection<String> contactedRegionNames,
+            String partitionKeyRangeId,
+            long latencyNanos,
+            boolean isSuccess,
+            boolean isAvailabilityRelatedFailure) {
+
+        OperationHandles handles = getOperationHandles(operationType);
+
+        handles.getOperationCount(statusCode, subStatusCode).increment();
+
+        for (String contactedRegionName : contactedRegionNames) {
+            handles.getRegionRequestCount(contactedRegionName).increment();
+        }
+
+        handles.getLatencyHistogram(isSuccess).record(latencyNanos);
+        handles.availabilityWindow.record(isAvailabilityRelatedFailure);
+
+        if (partitionKeyRangeId != null) {
+
+            PartitionKeyRangeHandles partitionKeyRangeHandles = handles.getPartitionKeyRangeHandles(partitionKeyRangeId);
+
+            partitionKeyRangeHandles.getOperationCount(isSuccess ? 0 : (isAvailabilityRelatedFailure ? 1 : 2)).increment();
+            partitionKeyRangeHandles.latencyHistogram.record(latencyNanos);
+            partitionKeyRangeHandles.availabilityWindow.record(isAvailabilityRelatedFailure);
+        }
+    }
+
+    public void recordRequestCharge(String operationType, double requestCharge) {
+        getOperationHandles(operationType).getRequestUnits().add(requestCharge);
+    }
+
+    public void recordDocumentsWritten(String operationType, int documentCount, long bytes) {
+
+        OperationHandles handles = getOperationHandles(operationType);
+
+        handles.getWrittenDocuments().add(documentCount);
+        handles.getWrittenBytes().add(bytes);
+    }
+
+    private OperationHandles getOperationHandles(String operationType) {
+
+        OperationHandles handles = operationHandles.get(operationType);
+
+        return handles != null ? handles : operationHandles.computeIfAbsent(operationType, OperationHandles::new);
+    }
+
+    public void recordChangeFeedDocument(String outcome) {
+        changeFeedDocumentCounts.computeIfAbsent("outcome=\"" + outcome + "\"", labels -> new LongAdder()).increment();
+    }
+
+    public void recordChangeFeedLag(String feedRangeId, long lagNanos) {
+        changeFeedLagHistograms
+                .computeIfAbsent("feed_range=\"" + escapeLabelValue(feedRangeId) + "\"", labels -> new LatencyHistogram())
+                .record(lagNanos);
+    }
+
+    public void recordSessionConsistencyViolation(String contactedRegionName) {
+        sessionConsistencyViolationCounts
+                .computeIfAbsent("region=\"" + escapeLabelValue(contactedRegionName) + "\"", labels -> new LongAdder())
+                .increment();
+    }
+
+    // The latency of a page is the time since the previous page, or since the query started for the first page
+    public void recordQueryPage(QueryShape queryShape, boolean isFirstPage, long pageLatencyNanos, double requestCharge) {
+
+        String labels = "shape=\"" + queryShape + "\"";
+
+        queryPageCounts.computeIfAbsent(labels, key -> new LongAdder()).increment();
+        queryPageRequestUnits.computeIfAbsent(labels, key -> new DoubleAdder()).add(requestCharge);
+        queryPageLatencyHistograms.computeIfAbsent(labels, key -> new LatencyHistogram()).record(pageLatencyNanos);
+
+        if (isFirstPage) {
+            queryTimeToFirstPageHistograms.computeIfAbsent(labels, key -> new LatencyHistogram()).record(pageLatencyNanos);
+        }
+    }
+
+    public void recordQuery(QueryShape queryShape, String outcome) {
+        queryCounts.computeIfAbsent("shape=\"" + queryShape + "\",outcome=\"" + outcome + "\"", labels -> new LongAdder()).increment();
+    }
+
+    public void recordReadVariant(String variant, String outcome, long latencyNanos, double hedgeRequestCharge, double failedRequestCharge) {
+
+        String labels = "variant=\"" + escapeLabelValue(variant) + "\"";
+
+        readVariantCounts.computeIfAbsent(labels + ",outcome=\"" + outcome + "\"", key -> new LongAdder()).increment();
+        readVariantHedgeRequestUnits.computeIfAbsent(labels, key -> new DoubleAdder()).add(hedgeRequestCharge);
+        readVariantFailedRequestUnits.computeIfAbsent(labels, key -> new DoubleAdder()).add(failedRequestCharge);
+        readVariantLatencyHistograms.computeIfAbsent(labels, key -> new LatencyHistogram()).record(latencyNanos);
+    }
+
+    public void recordFleetClient(
+            String clientName,
+            double openConnections,
+            double endpoints,
+            double addressResolutions,
+            long routedOperations,
+            long heapBytes) {
+
+        String labels = "client=\"" + escapeLabelValue(clientName) + "\"";
+
+        fleetClientOpenConnections.put(labels, openConnections);
+        fleetClientEndpoints.put(labels, endpoints);
+        fleetClientAddressResolutions.put(labels, addressResolutions);
+        fleetClientOperations.put(labels, routedOperations);
+        fleetClientHeapBytes.put(labels, heapBytes);
+    }
+
+    public void recordStartupStep(String step, long durationNanos) {
+        startupSeconds.put("step=\"" + step + "\"", durationNanos / 1e9);
+    }
+
+    // Fleet clients each report their own startup
+    public void recordStartupStep(String clientName, String step, long durationNanos) {
+        startupSeconds.put("client=\"" + escapeLabelValue(clientName) + "\",step=\"" + step + "\"", durationNanos / 1e9);
+    }
+
+    public void recordCalibration(String quantity, double value) {
+        calibratedValues.put(quantity, value);
+    }
+
+    public String toOpenMetricsText() {
+
+        StringBuilder output = new StringBuilder(4096);
+
+        output.append("# TYPE ").append(METRIC_PREFIX).append("info gauge\n");
+        output.append("# HELP ").append(METRIC_PREFIX).append("info Drill being run.\n");
+        output.append(METRIC_PREFIX).append("info{drill_id=\"").append(escapeLabelValue(cfg.getDrillId()))
+                .append("\",workload=\"").append(cfg.getDrillWorkloadType()).append("\"} 1\n");
+
+        if (!startupSeconds.isEmpty()) {
+
+            output.append("# TYPE ").append(METRIC_PREFIX).append("startup_seconds gauge\n");
+            output.append("# HELP ").append(METRIC_PREFIX).append("startup_seconds Time the client startup steps took before the drill started.\n");
+
+            for (Map.Entry<String, Double> entry : new TreeMap<>(startupSeconds).entrySet()) {
+                output.append(METRIC_PREFIX).append("startup_seconds{").append(entry.getKey()).append("} ")
+                        .append(entry.getValue()).append('\n');
+            }
+        }
+
+        if (!calibratedValues.isEmpty()) {
+
+            output.append("# TYPE ").append(METRIC_PREFIX).append("calibration gauge\n");
+            output.append("# HELP ").append(METRIC_PREFIX).append("calibration Create capacity calibrated before the drill started and the target rate set off it.\n");
+
+            for (Map.Entry<String, Double> entry : new TreeMap<>(calibratedValues).entrySet()) {
+                output.append(METRIC_PREFIX).append("calibration{quantity=\"").append(entry.getKey()).append("\"} ")
+                        .append(entry.getValue()).append('\n');
+            }
+        }
+
+        appendCounter(output, "operations", "Completed operations by status and sub-status code.", operationCounts);
+        appendCounter(output, "region_requests", "Completed operations by contacted region.", regionRequestCounts);
+        appendCounter(output, "request_units", "Request units charged by successful operations.", requestUnits);
+        appendCounter(output, "written_documents", "Documents successfully written, bulk and batch operations write several.", writtenDocuments);
+        appendCounter(output, "written_bytes", "Bytes of documents successfully written.", writtenBytes);
+
+        output.append("# TYPE ").append(METRIC_PREFIX).append("operation_latency_seconds histogram\n");
+        output.append("# HELP ").append(METRIC_PREFIX).append("operation_latency_seconds End to end latency of completed operations.\n");
+
+        for (Map.Entry<String, LatencyHistogram> entry : new TreeMap<>(latencyHistograms).entrySet()) {
+            entry.getValue().appendTo(output, METRIC_PREFIX + "operation_latency_seconds", entry.getKey());
+        }
+
+        output.append("# TYPE ").append(METRIC_PREFIX).append("in_flight_operations gauge\n");
+        output.append("# HELP ").append(METRIC_PREFIX).append("in_flight_operations Operations issued and not yet completed.\n");
+
+        for (Map.Entry<String, AtomicInteger> entry : new TreeMap<>(inFlightCounts).entrySet()) {
+            output.append(METRIC_PREFIX).append("in_flight_operations{operation=\"").append(entry.getKey()).append("\"} ")
+                    .append(entry.getValue().get()).append('\n');
+        }
+
+        output.append("# TYPE ").append(METRIC_PREFIX).append("availability_ratio gauge\n");
+        output.append("# HELP ").append(METRIC_PREFIX).append("availability_ratio Share of operations without an availability related failure (408 / 503) over the sliding window.\n");
+
+        Map<String, long[]> availabilitySnapshots = new TreeMap<>();
+
+        for (Map.Entry<String, SlidingWindowCounter> entry : availabilityWindows.entrySet()) {
+            availabilitySnapshots.put(entry.getKey(), entry.getValue().snapshot());
+        }
+
+        for (Map.Entry<String, long[]> entry : availabilitySnapshots.entrySet()) {
+            long total = entry.getValue()[0];
+            long failures = entry.getValue()[1];
+
+            output.append(METRIC_PREFIX).append("availability_ratio{operation=\"").append(entry.getKey()).append("\"} ")
+                    .append(total == 0 ? 1.0 : (double) (total - failures) / total).append('\n');
+        }
+
+        output.append("# TYPE ").append(METRIC_PREFIX).append("availability_window_operations gauge\n");
+        output.append("# HELP ").append(METRIC_PREFIX).append("availability_window_operations Operations the availability ratio is computed over.\n");
+
+        for (Map.Entry<String, long[]> entry : availabilitySnapshots.entrySet()) {
+            output.append(METRIC_PREFIX).append("availability_window_operations{operation=\"").append(entry.getKey()).append("\"} ")
+                    .append(entry.getValue()[0]).append('\n');
+        }
+
+        appendCounter(
+                output,
+                "partition_key_range_operations",
+                "Completed operations by partition key range and outcome.",
+                partitionKeyRangeOperationCounts);
+
+        output.append("# TYPE ").append(METRIC_PREFIX).append("partition_key_range_latency_seconds histogram\n");
+        output.append("# HELP ").append(METRIC_PREFIX).append("partition_key_range_latency_seconds End to end latency of completed operations by partition key range.\n");
+
+        for (Map.Entry<String, LatencyHistogram> entry : new TreeMap<>(partitionKeyRangeLatencyHistograms).entrySet()) {
+            entry.getValue().appendTo(output, METRIC_PREFIX + "partition_key_range_latency_seconds", entry.getKey());
+        }
+
+        output.append("# TYPE ").append(METRIC_PREFIX).append("partition_key_range_availability_ratio gauge\n");
+        output.append("# HELP ").append(METRIC_PREFIX).append("partition_key_range_availability_ratio Share of operations without an availability related failure (408 / 503) over the sliding window by partition key range.\n");
+
+        Map<String, long[]> partitionKeyRangeAvailabilitySnapshots = new TreeMap<>();
+
+        for (Map.Entry<String, SlidingWindowCounter> entry : partitionKeyRangeAvailabilityWindows.entrySet()) {
+            partitionKeyRangeAvailabilitySnapshots.put(entry.getKey(), entry.getValue().snapshot());
+        }
+
+        for (Map.Entry<String, long[]> entry : partitionKeyRangeAvailabilitySnapshots.entrySet()) {
+            long total = entry.getValue()[0];
+            long failures = entry.getValue()[1];
+
+            output.append(METRIC_PREFIX).append("partition_key_range_availability_ratio{partition_key_range=\"")
+                    .append(escapeLabelValue(entry.getKey())).append("\"} ")
+                    .append(total == 0 ? 1.0 : (double) (total - failures) / total).append('\n');
+        }
+
+        if (!changeFeedDocumentCounts.isEmpty()) {
+
+            appendCounter(
+                    output,
+                    "change_feed_documents",
+                    "Documents matched on the change feed by outcome (consumed, late, late_after_eviction, duplicate, missing, unexpected, persisted_failed_create).",
+                    changeFeedDocumentCounts);
+
+            output.append("# TYPE ").append(METRIC_PREFIX).append("change_feed_lag_seconds histogram\n");
+            output.append("# HELP ").append(METRIC_PREFIX).append("change_feed_lag_seconds Time from issuing a create to consuming its document from the change feed by feed range.\n");
+
+            for (Map.Entry<String, LatencyHistogram> entry : new TreeMap<>(changeFeedLagHistograms).entrySet()) {
+                entry.getValue().appendTo(output, METRIC_PREFIX + "change_feed_lag_seconds", entry.getKey());
+            }
+        }
+
+        if (!sessionConsistencyViolationCounts.isEmpty()) {
+            appendCounter(
+                    output,
+                    "session_consistency_violations",
+                    "Reads whose session token was behind one observed before they started by contacted region.",
+                    sessionConsistencyViolationCounts);
+        }
+
+        if (!queryCounts.isEmpty()) {
+
+            appendCounter(output, "queries", "Completed queries by shape and outcome (success, availability_failure, failure).", queryCounts);
+            appendCounter(output, "query_pages", "Query pages received by shape.", queryPageCounts);
+            appendCounter(output, "query_request_units", "Request units charged by query pages by shape.", queryPageRequestUnits);
+
+            output.append("# TYPE ").append(METRIC_PREFIX).append("query_page_latency_seconds histogram\n");
+            output.append("# HELP ").append(METRIC_PREFIX).append("query_page_latency_seconds Time from the previous page (or the start of the query) to a query page by shape.\n");
+
+            for (Map.Entry<String, LatencyHistogram> entry : new TreeMap<>(queryPageLatencyHistograms).entrySet()) {
+                entry.getValue().appendTo(output, METRIC_PREFIX + "query_page_latency_seconds", entry.getKey());
+            }
+
+            output.append("# TYPE ").append(METRIC_PREFIX).append("query_time_to_first_page_seconds histogram\n");
+            output.append("# HELP ").append(METRIC_PREFIX).append("query_time_to_first_page_seconds Time from the start of a query to its first page by shape.\n");
+
+            for (Map.Entry<String, LatencyHistogram> entry : new TreeMap<>(queryTimeToFirstPageHistograms).entrySet()) {
+                entry.getValue().appendTo(output, METRIC_PREFIX + "query_time_to_first_page_seconds", entry.getKey());
+            }
+        }
+
+        if (!readVariantCounts.isEmpty()) {
+
+            appendCounter(output, "read_variant_operations", "Completed reads by read variant and outcome (success, availability_failure, failure).", readVariantCounts);
+            appendCounter(output, "read_variant_hedge_request_units", "Request units charged by reads on top of the request charge of their responses by read variant.", readVariantHedgeRequestUnits);
+            appendCounter(output, "read_variant_failed_request_units", "Request units charged by failed reads by read variant.", readVariantFailedRequestUnits);
+
+            output.append("# TYPE ").append(METRIC_PREFIX).append("read_variant_latency_seconds histogram\n");
+            output.append("# HELP ").append(METRIC_PREFIX).append("read_variant_latency_seconds End to end latency of completed reads by read variant.\n");
+
+            for (Map.Entry<String, LatencyHistogram> entry : new TreeMap<>(readVariantLatencyHistograms).entrySet()) {
+                entry.getValue().appendTo(output, METRIC_PREFIX + "read_variant_latency_seconds", entry.getKey());
+            }
+        }
+
+        if (!fleetClientOperations.isEmpty()) {
+
+            appendGauge(output, "fleet_client_open_connections", "Connections a fleet client has open, channels its transport opened less those it closed.", fleetClientOpenConnections);
+            appendGauge(output, "fleet_client_endpoints", "Backend endpoints a fleet client's transport holds connections to.", fleetClientEndpoints);
+            appendCounter(output, "fleet_client_address_resolutions", "Address resolutions (address cache refreshes) of a fleet client.", fleetClientAddressResolutions);
+            appendCounter(output, "fleet_client_operations", "Operations routed to a fleet client.", fleetClientOperations);
+            appendGauge(output, "fleet_client_heap_bytes", "Heap a fleet client retained once started and warmed up.", fleetClientHeapBytes);
+        }
+
+        output.append("# EOF\n");
+
+        return output.toString();
+    }
+
+    private static void appendCounter(StringBuilder output, String name, String help, Map<String, ? extends Number> counts) {
+
+        output.append("# TYPE ").append(METRIC_PREFIX).append(name).append(" counter\n");
+        output.append("# HELP ").append(METRIC_PREFIX).append(name).append(' ').append(help).append('\n');
+
+        for (Map.Entry<String, ? extends Number> entry : new TreeMap<>(counts).entrySet()) {
+            output.append(METRIC_PREFIX).append(name).append("_total{").append(entry.getKey()).append("} ")
+                    .append(entry.getValue()).append('\n');
+        }
+    }
+
+    private static void appendGauge(StringBuilder output, String name, String help, Map<String, ? extends Number> values) {
+
+        output.append("# TYPE ").append(METRIC_PREFIX).append(name).append(" gauge\n");
+        output.append("# HELP ").append(METRIC_PREFIX).append(name).append(' ').append(help).append('\n');
+
+        for (Map.Entry<String, ? extends Number> entry : new TreeMap<>(values).entrySet()) {
+            output.append(METRIC_PREFIX).append(name).append('{').append(entry.getKey()).append("} ")
+                    .append(entry.getValue()).append('\n');
+        }
+    }
+
+    private static String escapeLabelValue(String value) {
+        if (value == null) {
+            return "";
+        }
+
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    // The handles of one operation type. Status codes and regions are few per operation type, they are kept in copy on
+    // write arrays scanned without allocating, a miss renders the labels and resolves the handle under the lock.
+    private final class OperationHandles {
+
+        private final String operationType;
+        private final String operationLabel;
+        private final SlidingWindowCounter availabilityWindow;
+
+        private volatile StatusHandle[] statusHandles = new StatusHandle[0];
+        private volatile RegionHandle[] regionHandles = new RegionHandle[0];
+        private final Map<String, PartitionKeyRangeHandles> partitionKeyRangeHandles = new ConcurrentHashMap<>();
+
+        // resolved on first use, so series only show up once recorded into
+        private volatile LatencyHistogram successLatencyHistogram;
+        private volatile LatencyHistogram failureLatencyHistogram;
+        private volatile DoubleAdder requestUnitsHandle;
+        private volatile LongAdder writtenDocumentsHandle;
+        private volatile LongAdder writtenBytesHandle;
+
+        private OperationHandles(String operationType) {
+            this.operationType = operationType;
+            this.operationLabel = "operation=\"" + operationType + "\"";
+            this.availabilityWindow = availabilityWindows.computeIfAbsent(
+                    operationType, opType -> new SlidingWindowCounter(cfg.getAvailabilityWindowInSeconds()));
+        }
+
+        private LongAdder getOperationCount(int statusCode, int subStatusCode) {
+
+            for (StatusHandle statusHandle : statusHandles) {
+                if (statusHandle.statusCode == statusCode && statusHandle.subStatusCode == subStatusCode) {
+                    return statusHandle.count;
+                }
+            }
+
+            synchronized (this) {
+
+                for (StatusHandle statusHandle : statusHandles) {
+                    if (statusHandle.statusCode == statusCode && statusHandle.subStatusCode == subStatusCode) {
+                        return statusHandle.count;
+                    }
+                }
+
+                LongAdder count = operationCounts.computeIfAbsent(
+                        operationLabel + ",status_code=\"" + statusCode + "\",sub_status_code=\"" + subStatusCode + "\"",
+                        labels -> new LongAdder());
+
+                StatusHandle[] updatedStatusHandles = Arrays.copyOf(statusHandles, statusHandles.length + 1);
+                updatedStatusHandles[statusHandles.length] = new StatusHandle(statusCode, subStatusCode, count);
+                statusHandles = updatedStatusHandles;
+
+                return count;
+            }
+        }
+
+        private LongAdder getRegionRequestCount(String regionName) {
+
+            for (RegionHandle regionHandle : regionHandles) {
+                if (regionHandle.regionName.equals(regionName)) {
+                    return regionHandle.count;
+                }
+            }
+
+            synchronized (this) {
+
+                for (RegionHandle regionHandle : regionHandles) {
+                    if (regionHandle.regionName.equals(regionName)) {
+                        return regionHandle.count;
+                    }
+                }
+
+                LongAdder count = regionRequestCounts.computeIfAbsent(
+                        operationLabel + ",region=\"" + escapeLabelValue(regionName) + "\"",
+                        labels -> new LongAdder());
+
+                RegionHandle[] updatedRegionHandles = Arrays.copyOf(regionHandles, regionHandles.length + 1);
+                updatedRegionHandles[regionHandles.length] = new RegionHandle(regionName, count);
+                regionHandles = updatedRegionHandles;
+
+                return count;
+            }
+        }
+
+        private LatencyHistogram getLatencyHistogram(boolean isSuccess) {
+
+            LatencyHistogram latencyHistogram = isSuccess ? successLatencyHistogram : failureLatencyHistogram;
+
+            if (latencyHistogram != null) {
+                return latencyHistogram;
+            }
+
+            latencyHistogram = latencyHistograms.computeIfAbsent(
+                    operationLabel + ",outcome=\"" + (isSuccess ? "success" : "failure") + "\"",
+                    labels -> new LatencyHistogram());
+
+            if (isSuccess) {
+                successLatencyHistogram = latencyHistogram;
+            } else {
+                failureLatencyHistogram = latencyHistogram;
+            }
+
+            return latencyHistogram;
+        }
+
+        private PartitionKeyRangeHandles getPartitionKeyRangeHandles(String partitionKeyRangeId) {
+
+            PartitionKeyRangeHandles handles = partitionKeyRangeHandles.get(partitionKeyRangeId);
+
+            return handles != null
+                    ? handles
+                    : partitionKeyRangeHandles.computeIfAbsent(partitionKeyRangeId, rangeId -> new PartitionKeyRangeHandles(operationType, rangeId));
+        }
+
+        private DoubleAdder getRequestUnits() {
+
+            DoubleAdder handle = requestUnitsHandle;
+
+            if (handle == null) {
+                handle = requestUnits.computeIfAbsent(operationLabel, labels -> new DoubleAdder());
+                requestUnitsHandle = handle;
+            }
+
+            return handle;
+        }
+
+        private LongAdder getWrittenDocuments() {
+
+            LongAdder handle = writtenDocumentsHandle;
+
+            if (handle == null) {
+                handle = writtenDocuments.computeIfAbsent(operationLabel, labels -> new LongAdder());
+                writtenDocumentsHandle = handle;
+            }
+
+            return handle;
+        }
+
+        private LongAdder getWrittenBytes() {
+
+            LongAdder handle = writtenBytesHandle;
+
+            if (handle == null) {
+                handle = writtenBytes.computeIfAbsent(operationLabel, labels -> new LongAdder());
+                writtenBytesHandle = handle;
+            }
+
+            return handle;
+        }
+    }
+
+    private final class PartitionKeyRangeHandles {
+
+        private static final String[] OUTCOMES = {"success", "availability_failure", "failure"};
+
+        private final String labels;
+        private final LatencyHistogram latencyHistogram;
+        private final SlidingWindowCounter availabilityWindow;
+
+        // indexed like OUTCOMES, resolved on first use
+        private final AtomicReferenceArray<LongAdder> operationCountHandles = new AtomicReferenceArray<>(OUTCOMES.length);
+
+        private PartitionKeyRangeHandles(String operationType, String partitionKeyRangeId) {
+            this.labels = "operation=\"" + operationType + "\",partition_key_range=\"" + escapeLabelValue(partitionKeyRangeId) + "\"";
+            this.latencyHistogram = partitionKeyRangeLatencyHistograms.computeIfAbsent(labels, key -> new LatencyHistogram());
+            this.availabilityWindow = partitionKeyRangeAvailabilityWindows.computeIfAbsent(
+                    partitionKeyRangeId, rangeId -> new SlidingWindowCounter(cfg.getAvailabilityWindowInSeconds()));
+        }
+
+        private LongAdder getOperationCount(int outcome) {
+
+            LongAdder count = operationCountHandles.get(outcome);
+
+            if (count == null) {
+                count = partitionKeyRangeOperationCounts.computeIfAbsent(labels + ",outcome=\"" + OUTCOMES[outcome] + "\"", key -> new LongAdder());
+                operationCountHandles.set(outcome, count);
+            }
+
+            return count;
+        }
+    }
+
+    private static class StatusHandle {
+
+        private final int statusCode;
+        private final int subStatusCode;
+        private final LongAdder count;
+
+        private StatusHandle(int statusCode, int subStatusCode, LongAdder count) {
+            this.statusCode = statusCode;
+            this.subStatusCode = subStatusCode;
+            this.count = count;
+        }
+    }
+
+    private static class RegionHandle {
+
+        private final String regionName;
+        private final LongAdder count;
+
+        private RegionHandle(String regionName, LongAdder count) {
+            this.regionName = regionName;
+            this.count = count;
+        }
+    }
+
+    private static class LatencyHistogram {
+
+        private final LongAdder[] bucketCounts = new LongAdder[LATENCY_BUCKET_UPPER_BOUNDS_SECONDS.length + 1];
+        private final LongAdder sumNanos = new LongAdder();
+
+        private LatencyHistogram() {
+            for (int i = 0; i < bucketCounts.length; i++) {
+                bucketCounts[i] = new LongAdder();
+            }
+        }
+
+        private void record(long latencyNanos) {
+
+            double latencySeconds = latencyNanos / 1e9;
+            int bucket = 0;
+
+            while (bucket < LATENCY_BUCKET_UPPER_BOUNDS_SECONDS.length && latencySeconds > LATENCY_BUCKET_UPPER_BOUNDS_SECONDS[bucket]) {
+                bucket++;
+            }
+
+            bucketCounts[bucket].increment();
+            sumNanos.add(latencyNanos);
+        }
+
+        private void appendTo(StringBuilder output, String name, String labels) {
+
+            long cumulativeCount = 0;
+
+            for (int i = 0; i < bucketCounts.length; i++) {
+                cumulativeCount += bucketCounts[i].sum();
+
+                output.append(name).append("_bucket{").append(labels).append(",le=\"")
+                        .append(i < LATENCY_BUCKET_UPPER_BOUNDS_SECONDS.length ? String.valueOf(LATENCY_BUCKET_UPPER_BOUNDS_SECONDS[i]) : "+Inf")
+                        .append("\"} ").append(cumulativeCount).append('\n');
+            }
+
+            output.append(name).append("_count{").append(labels).append("} ").append(cumulativeCount).append('\n');
+            output.append(name).append("_sum{").append(labels).append("} ").append(sumNanos.sum() / 1e9).append('\n');
+        }
+    }
+
+    // One bucket per second of the window, a bucket is reset by the first operation of a new second which
+    // can lose the odd concurrent increment - acceptable for a live gauge
+    private static class SlidingWindowCounter {
+
+        private final int windowSeconds;
+        private final AtomicLongArray bucketEpochSeconds;
+        private final AtomicLongArray totalCounts;
+        private final AtomicLongArray failureCounts;
+
+        private SlidingWindowCounter(int windowSeconds) {
+            this.windowSeconds = Math.max(1, windowSeconds);
+            this.bucketEpochSeconds = new AtomicLongArray(this.windowSeconds);
+            this.totalCounts = new AtomicLongArray(this.windowSeconds);
+            this.failureCounts = new AtomicLongArray(this.windowSeconds);
+        }
+
+        private void record(boolean isFailure) {
+
+            long epochSecond = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis());
+            int bucket = (int) (epochSecond % windowSeconds);
+            long bucketEpochSecond = bucketEpochSeconds.get(bucket);
+
+            if (bucketEpochSecond != epochSecond && bucketEpochSeconds.compareAndSet(bucket, bucketEpochSecond, epochSecond)) {
+                totalCounts.set(bucket, 0);
+                failureCounts.set(bucket, 0);
+            }
+
+            totalCounts.incrementAndGet(bucket);
+
+            if (isFailure) {
+                failureCounts.incrementAndGet(bucket);
+            }
+        }
+
+        // [0] - operations, [1] - failed operations within the window
+        private long[] snapshot() {
+
+            long epochSecond = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis());
+            long[] snapshot = new long[2];
+
+            for (int bucket = 0; bucket < windowSeconds; bucket++) {
+                if (epochSecond - bucketEpochSeconds.get(bucket) < windowSeconds) {
+                    snapshot[0] += totalCounts.get(bucket);
+                    snapshot[1] += failureCounts.get(bucket);
+                }
+            }
+
+            return snapshot;
+        }
+    }
+}
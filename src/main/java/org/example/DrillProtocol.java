@@ -0,0 +1,179 @@
+package org.example;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+
+// Frames exchanged between a DrillCoordinator and its DrillAgents over a plain TCP connection. Every frame is a type
+// byte followed by its fields as written by DataOutputStream:
+// - HELLO     agent -> coordinator  agent name and the coordinator secret
+// - CONFIGURE coordinator -> agent  drill arguments without account credentials, synchronized start time and the
+//                                   coordinator's clock, both in epoch millis
+// - SNAPSHOT  agent -> coordinator  interval end in epoch millis of the coordinator's clock, then per operation type,
+//                                   contacted regions and status / sub-status code the compressed interval histogram.
+//                                   Operation and availability failure counts are the histogram counts.
+// - DONE      agent -> coordinator  the drill finished on the agent
+public final class DrillProtocol {
+
+    public static final byte HELLO = 1;
+    public static final byte CONFIGURE = 2;
+    public static final byte SNAPSHOT = 3;
+    public static final byte DONE = 4;
+
+    private static final int MAX_HISTOGRAM_SIZE_IN_BYTES = 1 << 20;
+
+    private DrillProtocol() {}
+
+    public static void writeHello(DataOutputStream out, String agentName, String coordinatorSecret) throws IOException {
+        out.writeByte(HELLO);
+        out.writeUTF(agentName);
+        out.writeUTF(coordinatorSecret);
+        out.flush();
+    }
+
+    public static void writeConfigure(DataOutputStream out, String[] drillArgs, long startEpochMillis) throws IOException {
+
+        out.writeByte(CONFIGURE);
+        out.writeInt(drillArgs.length);
+
+        for (String drillArg : drillArgs) {
+            out.writeUTF(drillArg);
+        }
+
+        out.writeLong(startEpochMillis);
+        out.writeLong(System.currentTimeMillis());
+        out.flush();
+    }
+
+    public static void writeSnapshot(DataOutputStream out, long intervalEndEpochMillis, Map<LatencyKey, Histogram> intervalHistograms) throws IOException {
+
+        out.writeByte(SNAPSHOT);
+        out.writeLong(intervalEndEpochMillis);
+        out.writeInt(intervalHistograms.size());
+
+        for (Map.Entry<LatencyKey, Histogram> entry : intervalHistograms.entrySet()) {
+
+            LatencyKey latencyKey = entry.getKey();
+            Histogram histogram = entry.getValue();
+            ByteBuffer buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+            int length = histogram.encodeIntoCompressedByteBuffer(buffer);
+
+            out.writeUTF(latencyKey.getOperationType());
+            out.writeUTF(latencyKey.getCommaSeparatedContactedRegions());
+            out.writeInt(latencyKey.getStatusCode());
+            out.writeInt(latencyKey.getSubStatusCode());
+            out.writeInt(length);
+            out.write(buffer.array(), 0, length);
+        }
+
+        out.flush();
+    }
+
+    public static void writeDone(DataOutputStream out) throws IOException {
+        out.writeByte(DONE);
+        out.flush();
+    }
+
+    // The type of the next frame, throws EOFException once the peer closed the connection
+    public static byte readType(DataInputStream in) throws IOException {
+        return in.readByte();
+    }
+
+    public static Hello readHello(DataInputStream in) throws IOException {
+        return new Hello(in.readUTF(), in.readUTF());
+    }
+
+    public static Configure readConfigure(DataInputStream in) throws IOException {
+
+        String[] drillArgs = new String[in.readInt()];
+
+        for (int i = 0; i < drillArgs.length; i++) {
+            drillArgs[i] = in.readUTF();
+        }
+
+        long startEpochMillis = in.readLong();
+        long coordinatorEpochMillis = in.readLong();
+
+        return new Configure(drillArgs, startEpochMillis, coordinatorEpochMillis - System.currentTimeMillis());
+    }
+
+    public static Snapshot readSnapshot(DataInputStream in) throws IOException {
+
+        long intervalEndEpochMillis = in.readLong();
+        int entryCount = in.readInt();
+        Map<LatencyKey, Histogram> intervalHistograms = new HashMap<>();
+
+        for (int i = 0; i < entryCount; i++) {
+
+            LatencyKey latencyKey = new LatencyKey(in.readUTF(), in.readUTF(), null, in.readInt(), in.readInt());
+            int length = in.readInt();
+
+            if (length < 0 || length > MAX_HISTOGRAM_SIZE_IN_BYTES) {
+                throw new IOException("Histogram of " + length + " bytes in snapshot");
+            }
+
+            byte[] encodedHistogram = new byte[length];
+            in.readFully(encodedHistogram);
+
+            try {
+                intervalHistograms.put(latencyKey, Histogram.decodeFromCompressedByteBuffer(ByteBuffer.wrap(encodedHistogram), 0));
+            } catch (DataFormatException e) {
+                throw new IOException("Malformed histogram in snapshot", e);
+            }
+        }
+
+        return new Snapshot(intervalEndEpochMillis, intervalHistograms);
+    }
+
+    public static class Hello {
+
+        private final String agentName;
+        private final String coordinatorSecret;
+
+        Hello(String agentName, String coordinatorSecret) {
+            this.agentName = agentName;
+            this.coordinatorSecret = coordinatorSecret;
+        }
+
+        public String getAgentName() { return agentName; }
+        public String getCoordinatorSecret() { return coordinatorSecret; }
+    }
+
+    public static class Configure {
+
+        private final String[] drillArgs;
+        private final long startEpochMillis;
+        // added to the agent's clock to get the coordinator's, ignores the one-way network delay
+        private final long clockOffsetMillis;
+
+        Configure(String[] drillArgs, long startEpochMillis, long clockOffsetMillis) {
+            this.drillArgs = drillArgs;
+            this.startEpochMillis = startEpochMillis;
+            this.clockOffsetMillis = clockOffsetMillis;
+        }
+
+        public String[] getDrillArgs() { return drillArgs; }
+        public long getStartEpochMillis() { return startEpochMillis; }
+        public long getClockOffsetMillis() { return clockOffsetMillis; }
+    }
+
+    public static class Snapshot {
+
+        private final long intervalEndEpochMillis;
+        private final Map<LatencyKey, Histogram> intervalHistograms;
+
+        Snapshot(long intervalEndEpochMillis, Map<LatencyKey, Histogram> intervalHistograms) {
+            this.intervalEndEpochMillis = intervalEndEpochMillis;
+            this.intervalHistograms = intervalHistograms;
+        }
+
+        public long getIntervalEndEpochMillis() { return intervalEndEpochMillis; }
+        public Map<LatencyKey, Histogram> getIntervalHistograms() { return intervalHistograms; }
+    }
+}
@@ -0,0 +1,5 @@
+package org.example;
+
+public enum ExecutionMode {
+    CLOSED_LOOP, OPEN_LOOP, VIRTUAL_THREADS
+}
@@ -0,0 +1,414 @@
+package org.example;
+
+import com.azure.cosmos.models.FeedRange;
+import com.azure.cosmos.models.PartitionKey;
+import com.azure.cosmos.test.faultinjection.FaultInjectionConditionBuilder;
+import com.azure.cosmos.test.faultinjection.FaultInjectionConnectionErrorResultBuilder;
+import com.azure.cosmos.test.faultinjection.FaultInjectionConnectionErrorType;
+import com.azure.cosmos.test.faultinjection.FaultInjectionConnectionType;
+import com.azure.cosmos.test.faultinjection.FaultInjectionEndpointBuilder;
+import com.azure.cosmos.test.faultinjection.FaultInjectionOperationType;
+import com.azure.cosmos.test.faultinjection.FaultInjectionResultBuilders;
+import com.azure.cosmos.test.faultinjection.FaultInjectionRule;
+import com.azure.cosmos.test.faultinjection.FaultInjectionRuleBuilder;
+import com.azure.cosmos.test.faultinjection.FaultInjectionServerErrorResultBuilder;
+import com.azure.cosmos.test.faultinjection.FaultInjectionServerErrorType;
+import com.azure.cosmos.test.faultinjection.IFaultInjectionResult;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+// A timeline of fault phases, each injecting its faults from a time after the drill started for a while. Phases
+// don't overlap, whatever completes outside of them belongs to the baseline phase. The timeline is read from JSON:
+//
+// {"phases": [
+//   {"name": "east-us-brownout", "start": "PT5M", "duration": "PT10M", "faults": [
+//     {"type": "RESPONSE_DELAY", "delay": "PT11S", "suppressServiceRequests": true, "operationTypes": ["READ_ITEM"], "region": "East US"},
+//     {"type": "SERVICE_UNAVAILABLE", "operationTypes": ["CREATE_ITEM", "QUERY_ITEM"], "region": "East US"}]},
+//   {"name": "partition-gone", "start": "PT20M", "duration": "PT5M", "faults": [
+//     {"type": "GONE", "partitionKey": "pk-42", "times": 1, "hitLimit": 1000},
+//     {"type": "CONNECTION_CLOSE", "interval": "PT1S", "threshold": 0.5}]}]}
+//
+// The type of a fault is a FaultInjectionServerErrorType or FaultInjectionConnectionErrorType, faults without
+// operationTypes, region or partitionKey aren't narrowed down by them. Connection errors hit whole connections, they
+// can't be narrowed down to operation types.
+public class FaultScenario {
+
+    public static final String BASELINE_PHASE = "baseline";
+
+    private static final Duration DEFAULT_CONNECTION_ERROR_INTERVAL = Duration.ofSeconds(1);
+    private static final double DEFAULT_CONNECTION_ERROR_THRESHOLD = 1.0;
+
+    private final List<Phase> phases;
+
+    public FaultScenario(List<Phase> phases) {
+
+        List<Phase> sortedPhases = new ArrayList<>(phases);
+        sortedPhases.sort((phase, otherPhase) -> phase.start.compareTo(otherPhase.start));
+
+        Set<String> phaseNames = new HashSet<>();
+
+        for (int i = 0; i < sortedPhases.size(); i++) {
+
+            Phase phase = sortedPhases.get(i);
+
+            if (phase.name.equals(BASELINE_PHASE) || !phaseNames.add(phase.name)) {
+                throw new IllegalArgumentException("Fault phase names should be unique and not " + BASELINE_PHASE + ", got " + phase.name);
+            }
+
+            if (i > 0 && sortedPhases.get(i - 1).getEnd().compareTo(phase.start) > 0) {
+                throw new IllegalArgumentException("Fault phase " + phase.name + " starts before " + sortedPhases.get(i - 1).name + " ends");
+            }
+        }
+
+        this.phases = Collections.unmodifiableList(sortedPhases);
+    }
+
+    // Null when the drill injects no faults, a scenario file takes the place of the built-in response delay for reads
+    public static FaultScenario fromConfiguration(Configuration cfg) {
+
+        if (!cfg.getFaultScenarioFile().isEmpty()) {
+            return fromJsonFile(Paths.get(cfg.getFaultScenarioFile()));
+        }
+
+        if (cfg.shouldInjectResponseDelayForReads()) {
+            return responseDelayForReads();
+        }
+
+        return null;
+    }
+
+    public static FaultScenario fromJsonFile(Path scenarioPath) {
+
+        JsonNode scenarioNode;
+
+        try {
+            scenarioNode = new ObjectMapper().readTree(scenarioPath.toFile());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read fault scenario " + scenarioPath, e);
+        }
+
+        JsonNode phasesNode = scenarioNode == null ? null : scenarioNode.get("phases");
+
+        if (phasesNode == null || !phasesNode.isArray()) {
+            throw new IllegalArgumentException("Fault scenario " + scenarioPath + " should have a phases array");
+        }
+
+        List<Phase> phases = new ArrayList<>();
+
+        for (JsonNode phaseNode : phasesNode) {
+
+            String name = getRequiredText(phaseNode, "name", "of a phase");
+            List<Fault> faults = new ArrayList<>();
+            JsonNode faultsNode = phaseNode.get("faults");
+
+            if (faultsNode != null) {
+
+                if (!faultsNode.isArray()) {
+                    throw new IllegalArgumentException("faults of fault phase " + name + " should be an array");
+                }
+
+                for (JsonNode faultNode : faultsNode) {
+                    faults.add(parseFault(faultNode, name));
+                }
+            }
+
+            phases.add(new Phase(
+                    name,
+                    parseDuration(getRequiredText(phaseNode, "start", "of phase " + name), "start", name),
+                    parseDuration(getRequiredText(phaseNode, "duration", "of phase " + name), "duration", name),
+                    faults));
+        }
+
+        return new FaultScenario(phases);
+    }
+
+    // What -shouldInjectResponseDelayForReads always injected: reads in East US delayed by 11s for 20 minutes,
+    // 11 and 41 minutes into the drill
+    static FaultScenario responseDelayForReads() {
+
+        List<Phase> phases = new ArrayList<>();
+
+        for (int i = 0; i < 2; i++) {
+
+            Fault fault = new Fault(
+                    FaultInjectionServerErrorType.RESPONSE_DELAY,
+                    null,
+                    Duration.ofSeconds(11),
+                    null,
+                    true,
+                    null,
+                    null,
+                    List.of(FaultInjectionOperationType.READ_ITEM),
+                    "East US",
+                    null,
+                    null);
+
+            phases.add(new Phase("response-delay-" + (i + 1), Duration.ofMinutes(11 + i * 30L), Duration.ofMinutes(20), List.of(fault)));
+        }
+
+        return new FaultScenario(phases);
+    }
+
+    public List<Phase> getPhases() { return phases; }
+
+    private static Fault parseFault(JsonNode faultNode, String phaseName) {
+
+        String type = getRequiredText(faultNode, "type", "of a fault in phase " + phaseName).toUpperCase(Locale.ROOT);
+
+        FaultInjectionServerErrorType serverErrorType = null;
+        FaultInjectionConnectionErrorType connectionErrorType = null;
+
+        try {
+            serverErrorType = FaultInjectionServerErrorType.valueOf(type);
+        } catch (IllegalArgumentException e) {
+            try {
+                connectionErrorType = FaultInjectionConnectionErrorType.valueOf(type);
+            } catch (IllegalArgumentException ignored) {
+                throw new IllegalArgumentException("Unknown fault type " + type + " in fault phase " + phaseName);
+            }
+        }
+
+        List<FaultInjectionOperationType> operationTypes = new ArrayList<>();
+        JsonNode operationTypesNode = faultNode.get("operationTypes");
+
+        if (operationTypesNode != null) {
+            for (JsonNode operationTypeNode : operationTypesNode) {
+                try {
+                    operationTypes.add(FaultInjectionOperationType.valueOf(operationTypeNode.asText().toUpperCase(Locale.ROOT)));
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Unknown operation type " + operationTypeNode.asText() + " in fault phase " + phaseName);
+                }
+            }
+        }
+
+        if (connectionErrorType != null && !operationTypes.isEmpty()) {
+            throw new IllegalArgumentException("Connection errors can't be narrowed down to operation types, fault phase " + phaseName);
+        }
+
+        Duration delay = faultNode.has("delay") ? parseDuration(faultNode.get("delay").asText(), "delay", phaseName) : null;
+
+        if (delay == null && (serverErrorType == FaultInjectionServerErrorType.RESPONSE_DELAY || serverErrorType == FaultInjectionServerErrorType.CONNECTION_DELAY)) {
+            throw new IllegalArgumentException(type + " faults need a delay, fault phase " + phaseName);
+        }
+
+        return new Fault(
+                serverErrorType,
+                connectionErrorType,
+                delay,
+                faultNode.has("times") ? faultNode.get("times").asInt() : null,
+                faultNode.has("suppressServiceRequests") ? faultNode.get("suppressServiceRequests").asBoolean() : null,
+                faultNode.has("interval") ? parseDuration(faultNode.get("interval").asText(), "interval", phaseName) : null,
+                faultNode.has("threshold") ? faultNode.get("threshold").asDouble() : null,
+                operationTypes,
+                faultNode.has("region") ? faultNode.get("region").asText() : null,
+                faultNode.has("partitionKey") ? faultNode.get("partitionKey").asText() : null,
+                faultNode.has("hitLimit") ? faultNode.get("hitLimit").asInt() : null);
+    }
+
+    private static String getRequiredText(JsonNode node, String field, String location) {
+
+        JsonNode fieldNode = node.get(field);
+
+        if (fieldNode == null || fieldNode.isNull() || fieldNode.asText().isEmpty()) {
+            throw new IllegalArgumentException("Fault scenario is missing the " + field + " " + location);
+        }
+
+        return fieldNode.asText();
+    }
+
+    private static Duration parseDuration(String value, String field, String phaseName) {
+
+        try {
+            Duration duration = Duration.parse(value);
+
+            if (duration.isNegative()) {
+                throw new IllegalArgumentException(field + " of fault phase " + phaseName + " should not be negative, got " + value);
+            }
+
+            return duration;
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException(field + " of fault phase " + phaseName + " should be an ISO-8601 duration, got " + value);
+        }
+    }
+
+    public static class Phase {
+
+        private final String name;
+        private final Duration start;
+        private final Duration duration;
+        private final List<Fault> faults;
+
+        public Phase(String name, Duration start, Duration duration, List<Fault> faults) {
+
+            if (duration.isZero() || duration.isNegative()) {
+                throw new IllegalArgumentException("duration of fault phase " + name + " should be positive");
+            }
+
+            this.name = name;
+            this.start = start;
+            this.duration = duration;
+            this.faults = List.copyOf(faults);
+        }
+
+        public String getName() { return name; }
+        public Duration getStart() { return start; }
+        public Duration getDuration() { return duration; }
+        public Duration getEnd() { return start.plus(duration); }
+        public List<Fault> getFaults() { return faults; }
+
+        // The SDK ends the rules after the phase duration on its own as well, in case they aren't disabled in time
+        public List<FaultInjectionRule> toRules(FaultInjectionConnectionType connectionType) {
+
+            List<FaultInjectionRule> rules = new ArrayList<>();
+
+            for (int i = 0; i < faults.size(); i++) {
+                rules.addAll(faults.get(i).toRules(name + "-" + i, connectionType, duration));
+            }
+
+            return rules;
+        }
+    }
+
+    public static class Fault {
+
+        // exactly one of them is set
+        private final FaultInjectionServerErrorType serverErrorType;
+        private final FaultInjectionConnectionErrorType connectionErrorType;
+
+        // null when left to the SDK default
+        private final Duration delay;
+        private final Integer times;
+        private final Boolean suppressServiceRequests;
+        private final Duration interval;
+        private final Double threshold;
+        private final Integer hitLimit;
+
+        // scope, empty or null when not narrowed down
+        private final List<FaultInjectionOperationType> operationTypes;
+        private final String region;
+        private final String partitionKey;
+
+        Fault(
+                FaultInjectionServerErrorType serverErrorType,
+                FaultInjectionConnectionErrorType connectionErrorType,
+                Duration delay,
+                Integer times,
+                Boolean suppressServiceRequests,
+                Duration interval,
+                Double threshold,
+                List<FaultInjectionOperationType> operationTypes,
+                String region,
+                String partitionKey,
+                Integer hitLimit) {
+
+            this.serverErrorType = serverErrorType;
+            this.connectionErrorType = connectionErrorType;
+            this.delay = delay;
+            this.times = times;
+            this.suppressServiceRequests = suppressServiceRequests;
+            this.interval = interval;
+            this.threshold = threshold;
+            this.operationTypes = List.copyOf(operationTypes);
+            this.region = region;
+            this.partitionKey = partitionKey;
+            this.hitLimit = hitLimit;
+        }
+
+        public boolean isConnectionError() {
+            return connectionErrorType != null;
+        }
+
+        // One rule per operation type, a condition only takes one
+        List<FaultInjectionRule> toRules(String ruleIdPrefix, FaultInjectionConnectionType connectionType, Duration duration) {
+
+            if (isConnectionError() && connectionType != FaultInjectionConnectionType.DIRECT) {
+                throw new IllegalArgumentException(connectionErrorType + " faults need the DIRECT connection mode");
+            }
+
+            IFaultInjectionResult result = toResult();
+            List<FaultInjectionOperationType> scopedOperationTypes = operationTypes.isEmpty() ? Collections.singletonList(null) : operationTypes;
+            List<FaultInjectionRule> rules = new ArrayList<>();
+
+            for (FaultInjectionOperationType operationType : scopedOperationTypes) {
+
+                FaultInjectionConditionBuilder conditionBuilder = new FaultInjectionConditionBuilder().connectionType(connectionType);
+
+                if (operationType != null) {
+                    conditionBuilder = conditionBuilder.operationType(operationType);
+                }
+
+                if (region != null) {
+                    conditionBuilder = conditionBuilder.region(region);
+                }
+
+                if (partitionKey != null) {
+                    conditionBuilder = conditionBuilder.endpoints(
+                            new FaultInjectionEndpointBuilder(FeedRange.forLogicalPartition(new PartitionKey(partitionKey))).build());
+                }
+
+                FaultInjectionRuleBuilder ruleBuilder = new FaultInjectionRuleBuilder(
+                        ruleIdPrefix + "-" + (operationType != null ? operationType.name().toLowerCase(Locale.ROOT) : "all"))
+                        .condition(conditionBuilder.build())
+                        .result(result)
+                        .duration(duration);
+
+                if (hitLimit != null) {
+                    ruleBuilder = ruleBuilder.hitLimit(hitLimit);
+                }
+
+                rules.add(ruleBuilder.build());
+            }
+
+            return rules;
+        }
+
+        private IFaultInjectionResult toResult() {
+
+            if (isConnectionError()) {
+                FaultInjectionConnectionErrorResultBuilder resultBuilder = FaultInjectionResultBuilders
+                        .getResultBuilder(connectionErrorType)
+                        .interval(interval != null ? interval : DEFAULT_CONNECTION_ERROR_INTERVAL)
+                        .threshold(threshold != null ? threshold : DEFAULT_CONNECTION_ERROR_THRESHOLD);
+
+                return resultBuilder.build();
+            }
+
+            FaultInjectionServerErrorResultBuilder resultBuilder = FaultInjectionResultBuilders.getResultBuilder(serverErrorType);
+
+            if (delay != null) {
+                resultBuilder = resultBuilder.delay(delay);
+            }
+
+            if (times != null) {
+                resultBuilder = resultBuilder.times(times);
+            }
+
+            if (suppressServiceRequests != null) {
+                resultBuilder = resultBuilder.suppressServiceRequests(suppressServiceRequests);
+            }
+
+            return resultBuilder.build();
+        }
+
+        @Override
+        public String toString() {
+            return (isConnectionError() ? connectionErrorType.name() : serverErrorType.name()) +
+                    (operationTypes.isEmpty() ? "" : " on " + operationTypes) +
+                    (region != null ? " in " + region : "") +
+                    (partitionKey != null ? " for partition key " + partitionKey : "");
+        }
+    }
+}
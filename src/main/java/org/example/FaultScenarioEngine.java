@@ -0,0 +1,234 @@
+package org.example;
+
+import com.azure.cosmos.ConnectionMode;
+import com.azure.cosmos.CosmosAsyncContainer;
+import com.azure.cosmos.implementation.CosmosDaemonThreadFactory;
+import com.azure.cosmos.test.faultinjection.CosmosFaultInjectionHelper;
+import com.azure.cosmos.test.faultinjection.FaultInjectionConnectionType;
+import com.azure.cosmos.test.faultinjection.FaultInjectionRule;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Runs a FaultScenario against the drill: the rules of a phase are configured on the container when the phase starts
+// and disabled when it ends, and every operation is attributed to the phase active when it completed. Latency and
+// availability are summarized per phase and operation type at the end, so one drill compares the baseline with each
+// fault it went through.
+//
+// The rules are configured on the container of every client of a fleet. Without a container (the simulator) the
+// phases are only tracked, the simulator fails requests through its -simulatorOutage* options.
+public class FaultScenarioEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(FaultScenarioEngine.class);
+
+    private static final int NUMBER_OF_SIGNIFICANT_VALUE_DIGITS = 3;
+
+    private final FaultScenario scenario;
+    private final List<CosmosAsyncContainer> containers;
+    private final FaultInjectionConnectionType connectionType;
+
+    // baseline first, then the phases in timeline order, fixed after construction
+    private final Map<String, PhaseStats> phaseStats = new LinkedHashMap<>();
+    private final PhaseStats baselinePhaseStats;
+    private volatile PhaseStats activePhaseStats;
+
+    // guarded by this
+    private final List<FaultInjectionRule> activeRules = new ArrayList<>();
+    private ScheduledExecutorService phaseExecutor;
+
+    public FaultScenarioEngine(FaultScenario scenario, List<CosmosAsyncContainer> containers, FaultInjectionConnectionType connectionType) {
+
+        for (FaultScenario.Phase phase : scenario.getPhases()) {
+            for (FaultScenario.Fault fault : phase.getFaults()) {
+                if (fault.isConnectionError() && connectionType != FaultInjectionConnectionType.DIRECT) {
+                    throw new IllegalArgumentException("Fault phase " + phase.getName() + " injects " + fault + ", connection errors need the DIRECT connection mode");
+                }
+            }
+        }
+
+        this.scenario = scenario;
+        this.containers = List.copyOf(containers);
+        this.connectionType = connectionType;
+        this.baselinePhaseStats = new PhaseStats(FaultScenario.BASELINE_PHASE);
+        this.activePhaseStats = baselinePhaseStats;
+
+        phaseStats.put(FaultScenario.BASELINE_PHASE, baselinePhaseStats);
+
+        for (FaultScenario.Phase phase : scenario.getPhases()) {
+            phaseStats.put(phase.getName(), new PhaseStats(phase.getName()));
+        }
+    }
+
+    // Null when the drill injects no faults, containers is empty for the simulator
+    public static FaultScenarioEngine fromConfiguration(Configuration cfg, List<CosmosAsyncContainer> containers) {
+
+        FaultScenario scenario = FaultScenario.fromConfiguration(cfg);
+
+        if (scenario == null) {
+            return null;
+        }
+
+        return new FaultScenarioEngine(
+                scenario,
+                containers,
+                cfg.getConnectionMode() == ConnectionMode.DIRECT ? FaultInjectionConnectionType.DIRECT : FaultInjectionConnectionType.GATEWAY);
+    }
+
+    // Phase times count from here, call it as the drill starts
+    public synchronized void start() {
+
+        if (phaseExecutor != null) {
+            return;
+        }
+
+        if (containers.isEmpty() && !scenario.getPhases().isEmpty()) {
+            logger.warn("Fault injection needs the COSMOS data plane, fault phases are only tracked, the simulator injects failures through -simulatorOutage*");
+        }
+
+        phaseExecutor = new ScheduledThreadPoolExecutor(1, new CosmosDaemonThreadFactory("FaultScenarioEngine"));
+
+        // a phase ending when the next one starts is ended first, tasks due at the same time run in submission order
+        for (FaultScenario.Phase phase : scenario.getPhases()) {
+            phaseExecutor.schedule(() -> startPhase(phase), phase.getStart().toMillis(), TimeUnit.MILLISECONDS);
+            phaseExecutor.schedule(() -> endPhase(phase.getName()), phase.getEnd().toMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        for (FaultScenario.Phase phase : scenario.getPhases()) {
+            logger.info("FaultPhaseScheduled [phase={}, start={}, duration={}, faults={}]", phase.getName(), phase.getStart(), phase.getDuration(), phase.getFaults());
+        }
+    }
+
+    // Disables whatever is still injected once the drill is over, the container may be used after it
+    public synchronized void stop() {
+
+        if (phaseExecutor != null) {
+            phaseExecutor.shutdownNow();
+            phaseExecutor = null;
+        }
+
+        if (activePhaseStats != baselinePhaseStats) {
+            endPhase(activePhaseStats.name);
+        }
+    }
+
+    // Returns the phase the operation was attributed to
+    public String recordOperation(String operationType, long latencyNanos, boolean isAvailabilityRelatedFailure) {
+
+        PhaseStats phase = activePhaseStats;
+
+        phase.operationStats
+                .computeIfAbsent(operationType, key -> new OperationStats())
+                .record(latencyNanos, isAvailabilityRelatedFailure);
+
+        return phase.name;
+    }
+
+    public synchronized void logSummary() {
+
+        for (PhaseStats phase : phaseStats.values()) {
+            for (Map.Entry<String, OperationStats> entry : new TreeMap<>(phase.operationStats).entrySet()) {
+
+                OperationStats operationStats = entry.getValue();
+                long operationCount = operationStats.operationCount.sum();
+                long availabilityFailureCount = operationStats.availabilityFailureCount.sum();
+
+                operationStats.cumulativeLatencyHistogram.add(operationStats.latencyRecorder.getIntervalHistogram());
+
+                logger.info(
+                        "FaultPhaseSummary [phase={}, operationType={}, operations={}, availabilityFailures={}, availability={}, {}]",
+                        phase.name,
+                        entry.getKey(),
+                        operationCount,
+                        availabilityFailureCount,
+                        String.format(Locale.ROOT, "%.5f", operationCount == 0 ? 1.0 : (double) (operationCount - availabilityFailureCount) / operationCount),
+                        LatencyRecorder.toPercentileString(operationStats.cumulativeLatencyHistogram));
+            }
+        }
+    }
+
+    private synchronized void startPhase(FaultScenario.Phase phase) {
+
+        if (phaseExecutor == null) {
+            return;
+        }
+
+        if (!phase.getFaults().isEmpty()) {
+            for (CosmosAsyncContainer container : containers) {
+                try {
+                    // a rule is configured on a single container
+                    List<FaultInjectionRule> rules = phase.toRules(connectionType);
+
+                    CosmosFaultInjectionHelper.configureFaultInjectionRules(container, rules).block();
+                    activeRules.addAll(rules);
+                } catch (Exception e) {
+                    logger.error("Failed to configure the fault injection rules of phase {} on a container, the phase runs without them there", phase.getName(), e);
+                }
+            }
+        }
+
+        activePhaseStats = phaseStats.get(phase.getName());
+
+        logger.info("FaultPhaseStarted [phase={}, rules={}]", phase.getName(), activeRules.size());
+    }
+
+    private synchronized void endPhase(String phaseName) {
+
+        // already ended by stop
+        if (!activePhaseStats.name.equals(phaseName)) {
+            return;
+        }
+
+        activePhaseStats = baselinePhaseStats;
+
+        long hitCount = 0;
+
+        for (FaultInjectionRule rule : activeRules) {
+            hitCount += rule.getHitCount();
+            rule.disable();
+        }
+
+        logger.info("FaultPhaseEnded [phase={}, rules={}, ruleHits={}]", phaseName, activeRules.size(), hitCount);
+        activeRules.clear();
+    }
+
+    private static class PhaseStats {
+
+        private final String name;
+        private final ConcurrentHashMap<String, OperationStats> operationStats = new ConcurrentHashMap<>();
+
+        PhaseStats(String name) {
+            this.name = name;
+        }
+    }
+
+    private static class OperationStats {
+
+        private final Recorder latencyRecorder = new Recorder(NUMBER_OF_SIGNIFICANT_VALUE_DIGITS);
+        private final Histogram cumulativeLatencyHistogram = new Histogram(NUMBER_OF_SIGNIFICANT_VALUE_DIGITS);
+        private final LongAdder operationCount = new LongAdder();
+        private final LongAdder availabilityFailureCount = new LongAdder();
+
+        void record(long latencyNanos, boolean isAvailabilityRelatedFailure) {
+
+            latencyRecorder.recordValue(Math.max(0, TimeUnit.NANOSECONDS.toMicros(latencyNanos)));
+            operationCount.increment();
+
+            if (isAvailabilityRelatedFailure) {
+                availabilityFailureCount.increment();
+            }
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package org.example;
+
+import com.azure.cosmos.models.CosmosItemRequestOptions;
+import com.azure.cosmos.models.SqlQuerySpec;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Spreads the operations of a drill across the data planes of a fleet of clients. Point operations go to the client the
+// document id hashes to, so a document is created and read through the same client and its session token. Batches and
+// single partition queries go to the client their partition key value hashes to, cross partition queries are spread
+// round robin. Metadata lookups go to the first client.
+public class FleetDataPlane implements DataPlane {
+
+    private final List<DataPlane> members;
+    private final LongAdder[] routedOperationCounts;
+    private final AtomicLong roundRobinCount = new AtomicLong(0);
+
+    public FleetDataPlane(List<DataPlane> members) {
+
+        if (members.isEmpty()) {
+            throw new IllegalArgumentException("A fleet needs at least one client");
+        }
+
+        this.members = List.copyOf(members);
+        this.routedOperationCounts = new LongAdder[members.size()];
+
+        for (int i = 0; i < routedOperationCounts.length; i++) {
+            routedOperationCounts[i] = new LongAdder();
+        }
+    }
+
+    // The no. of operations routed to the client at the index so far, bulk creates count per document
+    public long getRoutedOperationCount(int memberIndex) {
+        return routedOperationCounts[memberIndex].sum();
+    }
+
+    @Override
+    public Mono<DataPlaneResponse> createItem(GeneratedDocument document, CosmosItemRequestOptions requestOptions) {
+        return route(document.getId()).createItem(document, requestOptions);
+    }
+
+    @Override
+    public Mono<DataPlaneResponse> upsertItem(Book book) {
+        return route(book.getId()).upsertItem(book);
+    }
+
+    @Override
+    public Flux<BulkOperationResult> executeBulkCreates(Flux<GeneratedDocument> documents, int maxMicroBatchSize, int maxMicroBatchConcurrency) {
+        return documents
+                .groupBy(document -> memberIndex(document.getId()))
+                .flatMap(
+                        memberDocuments -> members
+                                .get(memberDocuments.key())
+                                .executeBulkCreates(
+                                        memberDocuments.doOnNext(document -> routedOperationCounts[memberDocuments.key()].increment()),
+                                        maxMicroBatchSize,
+                                        maxMicroBatchConcurrency),
+                        members.size());
+    }
+
+    @Override
+    public Mono<DataPlaneResponse> executeTransactionalBatchCreates(String partitionKeyValue, List<GeneratedDocument> documents) {
+        return route(partitionKeyValue).executeTransactionalBatchCreates(partitionKeyValue, documents);
+    }
+
+    @Override
+    public Mono<DataPlaneResponse> readItem(String id, String partitionKeyValue, CosmosItemRequestOptions requestOptions) {
+        return route(id).readItem(id, partitionKeyValue, requestOptions);
+    }
+
+    @Override
+    public Flux<QueryPage> queryItems(SqlQuerySpec querySpec, String partitionKeyValue, String continuationToken, int pageSize) {
+
+        if (partitionKeyValue != null) {
+            return route(partitionKeyValue).queryItems(querySpec, partitionKeyValue, continuationToken, pageSize);
+        }
+
+        int memberIndex = (int) Math.floorMod(roundRobinCount.getAndIncrement(), (long) members.size());
+
+        routedOperationCounts[memberIndex].increment();
+
+        return members.get(memberIndex).queryItems(querySpec, null, continuationToken, pageSize);
+    }
+
+    @Override
+    public Mono<List<String>> getFeedRanges() {
+        return members.get(0).getFeedRanges();
+    }
+
+    // A feed range is always consumed through the same client
+    @Override
+    public Flux<ChangeFeedPage> readChangeFeed(String feedRange, String continuationToken) {
+        return route(feedRange).readChangeFeed(feedRange, continuationToken);
+    }
+
+    private DataPlane route(String key) {
+
+        int memberIndex = memberIndex(key);
+
+        routedOperationCounts[memberIndex].increment();
+
+        return members.get(memberIndex);
+    }
+
+    private int memberIndex(String key) {
+        return Math.floorMod(key.hashCode(), members.size());
+    }
+}
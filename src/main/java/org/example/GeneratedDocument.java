@@ -0,0 +1,51 @@
+package org.example;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+
+import java.nio.charset.StandardCharsets;
+
+// A document written by the create operations. The payload is a pre-rendered JSON object shared with the other
+// documents drawn from the same pool entry, Jackson writes it verbatim so only id and pk are serialized per create.
+public class GeneratedDocument {
+
+    // {"id":"","pk":"","payload":}
+    private static final int ENVELOPE_SIZE_IN_BYTES = 28;
+
+    private final String id;
+
+    private final String pk;
+
+    private final String payload;
+
+    private final int serializedSizeInBytes;
+
+    GeneratedDocument(String id, String pk, String payload, int payloadSizeInBytes) {
+        this.id = id;
+        this.pk = pk;
+        this.payload = payload;
+        this.serializedSizeInBytes = ENVELOPE_SIZE_IN_BYTES
+                + id.getBytes(StandardCharsets.UTF_8).length
+                + pk.getBytes(StandardCharsets.UTF_8).length
+                + payloadSizeInBytes;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getPk() {
+        return pk;
+    }
+
+    @JsonRawValue
+    public String getPayload() {
+        return payload;
+    }
+
+    // Size of the document as sent, excluding the system properties Cosmos DB adds
+    @JsonIgnore
+    public int getSerializedSizeInBytes() {
+        return serializedSizeInBytes;
+    }
+}
@@ -0,0 +1,218 @@
+package org.example;
+
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+// The availability and latency of every region over the run, merged from the interval snapshots of all drill agents.
+// Snapshots are bucketed by the interval of the coordinator's timeline their end falls into, and an operation counts
+// towards each region it contacted. Operations without contacted regions are kept under "none".
+public class GlobalTimeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(GlobalTimeline.class);
+
+    private static final int NUMBER_OF_SIGNIFICANT_VALUE_DIGITS = 3;
+    private static final double MICROS_PER_MILLI = 1000.0;
+    private static final String NO_REGION = "none";
+
+    private final String drillId;
+    private final long startEpochMillis;
+    private final long intervalMillis;
+
+    // region -> operation type -> interval index, guarded by this
+    private final Map<String, Map<String, Map<Long, IntervalStats>>> regions = new TreeMap<>();
+    private long loggedIntervalCount;
+
+    public GlobalTimeline(String drillId, long startEpochMillis, long intervalMillis) {
+
+        if (intervalMillis <= 0) {
+            throw new IllegalArgumentException("intervalMillis should be greater than 0");
+        }
+
+        this.drillId = drillId;
+        this.startEpochMillis = startEpochMillis;
+        this.intervalMillis = intervalMillis;
+    }
+
+    public synchronized void onSnapshot(String agentName, DrillProtocol.Snapshot snapshot) {
+
+        // an interval ending right on a boundary belongs to the interval before it
+        long intervalIndex = Math.max(0, Math.floorDiv(snapshot.getIntervalEndEpochMillis() - startEpochMillis - 1, intervalMillis));
+
+        for (Map.Entry<LatencyKey, Histogram> entry : snapshot.getIntervalHistograms().entrySet()) {
+
+            LatencyKey latencyKey = entry.getKey();
+            Histogram histogram = entry.getValue();
+            boolean isAvailabilityRelatedFailure = latencyKey.getStatusCode() == 503 || latencyKey.getStatusCode() == 408;
+
+            for (String region : toRegionSet(latencyKey.getCommaSeparatedContactedRegions())) {
+
+                IntervalStats intervalStats = regions
+                        .computeIfAbsent(region, key -> new TreeMap<>())
+                        .computeIfAbsent(latencyKey.getOperationType(), key -> new TreeMap<>())
+                        .computeIfAbsent(intervalIndex, key -> new IntervalStats());
+
+                intervalStats.latencyHistogram.add(histogram);
+                intervalStats.operationCount += histogram.getTotalCount();
+                intervalStats.agentNames.add(agentName);
+
+                if (isAvailabilityRelatedFailure) {
+                    intervalStats.availabilityFailureCount += histogram.getTotalCount();
+                }
+            }
+        }
+    }
+
+    // Logs a GlobalInterval line per region and operation type for the intervals ending before the given time which
+    // weren't logged yet, snapshots arriving for them later only make it into the report
+    public synchronized void logIntervalsEndingBefore(long epochMillis) {
+
+        long intervalCount = Math.max(0, Math.floorDiv(epochMillis - startEpochMillis, intervalMillis));
+
+        for (Map.Entry<String, Map<String, Map<Long, IntervalStats>>> regionEntry : regions.entrySet()) {
+            for (Map.Entry<String, Map<Long, IntervalStats>> operationEntry : regionEntry.getValue().entrySet()) {
+                for (Map.Entry<Long, IntervalStats> intervalEntry : operationEntry.getValue().entrySet()) {
+
+                    long intervalIndex = intervalEntry.getKey();
+
+                    if (intervalIndex < loggedIntervalCount || intervalIndex >= intervalCount) {
+                        continue;
+                    }
+
+                    IntervalStats intervalStats = intervalEntry.getValue();
+
+                    logger.info(
+                            "GlobalInterval [intervalStart={}, region={}, operationType={}, agents={}, operations={}, availabilityFailures={}, availability={}, {}]",
+                            Instant.ofEpochMilli(startEpochMillis + intervalIndex * intervalMillis),
+                            regionEntry.getKey(),
+                            operationEntry.getKey(),
+                            intervalStats.agentNames.size(),
+                            intervalStats.operationCount,
+                            intervalStats.availabilityFailureCount,
+                            String.format(Locale.ROOT, "%.5f", intervalStats.getAvailability()),
+                            LatencyRecorder.toPercentileString(intervalStats.latencyHistogram));
+                }
+            }
+        }
+
+        loggedIntervalCount = Math.max(loggedIntervalCount, intervalCount);
+    }
+
+    public void writeReport(Path reportPath) {
+
+        String report = toJson();
+
+        try {
+            if (reportPath.getParent() != null) {
+                Files.createDirectories(reportPath.getParent());
+            }
+
+            Files.write(reportPath, report.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to write global timeline " + reportPath, e);
+        }
+
+        logger.info("GlobalTimeline written to {}", reportPath);
+    }
+
+    public synchronized String toJson() {
+
+        StringBuilder json = new StringBuilder(4096);
+
+        json.append("{\"drillId\":");
+        JsonStrings.appendQuoted(json, drillId);
+        json.append(",\"startTime\":\"").append(Instant.ofEpochMilli(startEpochMillis)).append('"');
+        json.append(",\"intervalMillis\":").append(intervalMillis);
+        json.append(",\"regions\":[");
+
+        boolean isFirstRegion = true;
+
+        for (Map.Entry<String, Map<String, Map<Long, IntervalStats>>> regionEntry : regions.entrySet()) {
+
+            json.append(isFirstRegion ? "" : ",").append("{\"region\":");
+            JsonStrings.appendQuoted(json, regionEntry.getKey());
+            json.append(",\"operations\":[");
+            isFirstRegion = false;
+
+            boolean isFirstOperation = true;
+
+            for (Map.Entry<String, Map<Long, IntervalStats>> operationEntry : regionEntry.getValue().entrySet()) {
+
+                json.append(isFirstOperation ? "" : ",").append("{\"operationType\":");
+                JsonStrings.appendQuoted(json, operationEntry.getKey());
+                json.append(",\"intervals\":[");
+                isFirstOperation = false;
+
+                boolean isFirstInterval = true;
+
+                for (Map.Entry<Long, IntervalStats> intervalEntry : operationEntry.getValue().entrySet()) {
+
+                    IntervalStats intervalStats = intervalEntry.getValue();
+                    Histogram histogram = intervalStats.latencyHistogram;
+
+                    json.append(isFirstInterval ? "" : ",").append('{');
+                    json.append("\"offsetMillis\":").append(intervalEntry.getKey() * intervalMillis);
+                    json.append(",\"agents\":").append(intervalStats.agentNames.size());
+                    json.append(",\"operations\":").append(intervalStats.operationCount);
+                    json.append(",\"availabilityFailures\":").append(intervalStats.availabilityFailureCount);
+                    json.append(",\"availability\":").append(String.format(Locale.ROOT, "%.5f", intervalStats.getAvailability()));
+                    json.append(",\"p50LatencyMillis\":").append(histogram.getValueAtPercentile(50) / MICROS_PER_MILLI);
+                    json.append(",\"p99LatencyMillis\":").append(histogram.getValueAtPercentile(99) / MICROS_PER_MILLI);
+                    json.append(",\"p999LatencyMillis\":").append(histogram.getValueAtPercentile(99.9) / MICROS_PER_MILLI);
+                    json.append(",\"maxLatencyMillis\":").append(histogram.getMaxValue() / MICROS_PER_MILLI);
+                    json.append('}');
+                    isFirstInterval = false;
+                }
+
+                json.append("]}");
+            }
+
+            json.append("]}");
+        }
+
+        json.append("]}");
+
+        return json.toString();
+    }
+
+    private static Set<String> toRegionSet(String commaSeparatedContactedRegions) {
+
+        Set<String> regionSet = new TreeSet<>();
+
+        for (String region : commaSeparatedContactedRegions.split(",")) {
+            if (!region.trim().isEmpty()) {
+                regionSet.add(region.trim());
+            }
+        }
+
+        if (regionSet.isEmpty()) {
+            regionSet.add(NO_REGION);
+        }
+
+        return regionSet;
+    }
+
+    private static class IntervalStats {
+
+        private final Histogram latencyHistogram = new Histogram(NUMBER_OF_SIGNIFICANT_VALUE_DIGITS);
+        private final Set<String> agentNames = new TreeSet<>();
+        private long operationCount;
+        private long availabilityFailureCount;
+
+        double getAvailability() {
+            return operationCount == 0 ? 1.0 : (double) (operationCount - availabilityFailureCount) / operationCount;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package org.example;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Bounded reservoir of recently persisted ids. Writes land in one of several striped rings
+// (overwriting the oldest id of that ring once full) and samples are drawn without locks,
+// so readers and writers never contend on anything but a per-stripe cursor.
+public class IdReservoir {
+
+    // exponent applied to a uniform draw of the age of a sampled id, higher values favour recently written ids
+    private static final double RECENCY_BIAS_EXPONENT = 3.0;
+
+    // a slot can be claimed by a writer but not yet filled, a few retries skip past it
+    private static final int MAX_SAMPLE_ATTEMPTS = 4;
+
+    private final Stripe[] stripes;
+    private final int stripeMask;
+    private final IdSamplingStrategy samplingStrategy;
+
+    public IdReservoir(int capacity, IdSamplingStrategy samplingStrategy) {
+
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity should be greater than 0");
+        }
+
+        // both are rounded up, so the stripes together hold at least the capacity
+        int stripeCount = toPowerOfTwo(Math.min(Runtime.getRuntime().availableProcessors(), capacity));
+        int stripeCapacity = toPowerOfTwo(Math.ceilDiv(capacity, stripeCount));
+
+        this.stripes = new Stripe[stripeCount];
+        this.stripeMask = stripeCount - 1;
+        this.samplingStrategy = samplingStrategy;
+
+        for (int i = 0; i < stripeCount; i++) {
+            this.stripes[i] = new Stripe(stripeCapacity);
+        }
+    }
+
+    public void add(String id) {
+        stripes[ThreadLocalRandom.current().nextInt() & stripeMask].add(id);
+    }
+
+    // Returns null when nothing has been added yet
+    public String sample() {
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int firstStripe = random.nextInt() & stripeMask;
+
+        for (int i = 0; i < stripes.length; i++) {
+
+            String id = stripes[(firstStripe + i) & stripeMask].sample(random, samplingStrategy);
+
+            if (id != null) {
+                return id;
+            }
+        }
+
+        return null;
+    }
+
+    public boolean isEmpty() {
+
+        for (Stripe stripe : stripes) {
+            if (stripe.writeCursor.get() > 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    public long size() {
+
+        long size = 0;
+
+        for (Stripe stripe : stripes) {
+            size += Math.min(stripe.writeCursor.get(), stripe.slots.length());
+        }
+
+        return size;
+    }
+
+    private static int toPowerOfTwo(int value) {
+        return value <= 1 ? 1 : Integer.highestOneBit(value - 1) << 1;
+    }
+
+    private static class Stripe {
+
+        private final AtomicReferenceArray<String> slots;
+        private final int mask;
+        private final AtomicLong writeCursor = new AtomicLong(0);
+
+        private Stripe(int capacity) {
+            this.slots = new AtomicReferenceArray<>(capacity);
+            this.mask = capacity - 1;
+        }
+
+        private void add(String id) {
+            long sequence = writeCursor.getAndIncrement();
+            slots.lazySet((int) (sequence & mask), id);
+        }
+
+        private String sample(ThreadLocalRandom random, IdSamplingStrategy samplingStrategy) {
+
+            for (int attempt = 0; attempt < MAX_SAMPLE_ATTEMPTS; attempt++) {
+
+                long writtenCount = writeCursor.get();
+
+                if (writtenCount == 0) {
+                    return null;
+                }
+
+                long populatedCount = Math.min(writtenCount, slots.length());
+                long age;
+
+                if (samplingStrategy == IdSamplingStrategy.RECENCY_BIASED) {
+                    age = (long) (populatedCount * Math.pow(random.nextDouble(), RECENCY_BIAS_EXPONENT));
+                } else {
+                    age = random.nextLong(populatedCount);
+                }
+
+                String id = slots.get((int) ((writtenCount - 1 - age) & mask));
+
+                if (id != null) {
+                    return id;
+                }
+            }
+
+            return null;
+        }
+    }
+}
@@ -0,0 +1,5 @@
+package org.example;
+
+public enum IdSamplingStrategy {
+    UNIFORM, RECENCY_BIASED
+}
@@ -0,0 +1,51 @@
+package org.example;
+
+// Appends strings as JSON string literals, for the reports and logs written without a JSON library
+public final class JsonStrings {
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private JsonStrings() {}
+
+    // Appends null for a null value
+    public static void appendQuoted(StringBuilder builder, String value) {
+
+        if (value == null) {
+            builder.append("null");
+            return;
+        }
+
+        builder.append('"');
+
+        for (int i = 0; i < value.length(); i++) {
+
+            char c = value.charAt(i);
+
+            switch (c) {
+                case '"':
+                    builder.append("\\\"");
+                    break;
+                case '\\':
+                    builder.append("\\\\");
+                    break;
+                case '\n':
+                    builder.append("\\n");
+                    break;
+                case '\r':
+                    builder.append("\\r");
+                    break;
+                case '\t':
+                    builder.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        builder.append("\\u00").append(HEX_DIGITS[c >> 4]).append(HEX_DIGITS[c & 0xf]);
+                    } else {
+                        builder.append(c);
+                    }
+            }
+        }
+
+        builder.append('"');
+    }
+}
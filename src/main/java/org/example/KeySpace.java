@@ -0,0 +1,112 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+// The logical partition key values created documents are spread over. Values are picked uniformly or with a Zipfian
+// skew towards the lowest ranked ones, so a few hot partition keys (and the ranges they map to) take most of the
+// writes. Ids are prefixed with their partition key value, which lets reads and queries of a persisted id address its
+// partition without keeping the value around.
+//
+// With no partition key values every document gets its own partition key, equal to its id, except for the documents
+// of a transactional batch which share a random partition key value.
+public class KeySpace {
+
+    private static final char ID_SEPARATOR = '_';
+
+    private final String[] partitionKeyValues;
+
+    // cumulative weight of the values up to each rank, only for ZIPFIAN
+    private final double[] cumulativeWeights;
+
+    public KeySpace(int partitionKeyCount, PartitionKeyDistribution distribution, double zipfianExponent) {
+
+        if (partitionKeyCount < 0) {
+            throw new IllegalArgumentException("partitionKeyCount should not be negative");
+        }
+
+        if (distribution == PartitionKeyDistribution.ZIPFIAN && zipfianExponent <= 0) {
+            throw new IllegalArgumentException("zipfianExponent should be greater than 0");
+        }
+
+        this.partitionKeyValues = new String[partitionKeyCount];
+
+        for (int rank = 0; rank < partitionKeyCount; rank++) {
+            this.partitionKeyValues[rank] = "pk-" + rank;
+        }
+
+        if (distribution == PartitionKeyDistribution.ZIPFIAN && partitionKeyCount > 0) {
+
+            this.cumulativeWeights = new double[partitionKeyCount];
+
+            double cumulativeWeight = 0;
+
+            for (int rank = 0; rank < partitionKeyCount; rank++) {
+                cumulativeWeight += 1.0 / Math.pow(rank + 1, zipfianExponent);
+                this.cumulativeWeights[rank] = cumulativeWeight;
+            }
+        } else {
+            this.cumulativeWeights = null;
+        }
+    }
+
+    public static KeySpace fromConfiguration(Configuration cfg) {
+
+        // partition key values other than the id are written to the pk property
+        if (cfg.getPartitionKeyCount() > 0 && !"/pk".equals(cfg.getPartitionKeyPath())) {
+            throw new IllegalArgumentException("partitionKeyCount needs partitionKeyPath /pk, got " + cfg.getPartitionKeyPath());
+        }
+
+        // the documents of a transactional batch share their partition key value but not their id
+        if (cfg.getDrillWorkloadType() == WorkloadType.PPAFTransactionalBatchWorkload && !"/pk".equals(cfg.getPartitionKeyPath())) {
+            throw new IllegalArgumentException("PPAFTransactionalBatchWorkload needs partitionKeyPath /pk, got " + cfg.getPartitionKeyPath());
+        }
+
+        return new KeySpace(cfg.getPartitionKeyCount(), cfg.getPartitionKeyDistribution(), cfg.getZipfianExponent());
+    }
+
+    public String nextId() {
+
+        if (partitionKeyValues.length == 0) {
+            return UUID.randomUUID().toString();
+        }
+
+        return nextId(nextPartitionKeyValue());
+    }
+
+    // An id living under the given partition key value, for documents created together with others of that value
+    public String nextId(String partitionKeyValue) {
+        return partitionKeyValue + ID_SEPARATOR + UUID.randomUUID();
+    }
+
+    // A random value outside of the key space when there are no partition key values
+    public String nextPartitionKeyValue() {
+
+        if (partitionKeyValues.length == 0) {
+            return UUID.randomUUID().toString();
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        if (cumulativeWeights == null) {
+            return partitionKeyValues[random.nextInt(partitionKeyValues.length)];
+        }
+
+        double weight = random.nextDouble() * cumulativeWeights[cumulativeWeights.length - 1];
+        int rank = Arrays.binarySearch(cumulativeWeights, weight);
+
+        return partitionKeyValues[Math.min(rank < 0 ? -rank - 1 : rank, partitionKeyValues.length - 1)];
+    }
+
+    public int getPartitionKeyCount() {
+        return partitionKeyValues.length;
+    }
+
+    public String getPartitionKeyValue(String id) {
+
+        int separatorIndex = id.lastIndexOf(ID_SEPARATOR);
+
+        return separatorIndex < 0 ? id : id.substring(0, separatorIndex);
+    }
+}
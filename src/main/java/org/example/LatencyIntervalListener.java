@@ -0,0 +1,12 @@
+package org.example;
+
+import org.HdrHistogram.Histogram;
+
+import java.util.Map;
+
+// Receives the interval histograms of a LatencyRecorder each time it reports them, on the reporting thread
+@FunctionalInterface
+public interface LatencyIntervalListener {
+
+    void onInterval(long intervalEndEpochMillis, Map<LatencyKey, Histogram> intervalHistograms);
+}
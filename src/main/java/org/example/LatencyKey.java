@@ -0,0 +1,64 @@
+package org.example;
+
+import java.util.Objects;
+
+public class LatencyKey {
+
+    private final String operationType;
+
+    private final String commaSeparatedContactedRegions;
+
+    // null when the partition key range of the operation isn't known
+    private final String partitionKeyRangeId;
+
+    private final int statusCode;
+
+    private final int subStatusCode;
+
+    public LatencyKey(String operationType, String commaSeparatedContactedRegions, String partitionKeyRangeId, int statusCode, int subStatusCode) {
+        this.operationType = operationType;
+        this.commaSeparatedContactedRegions = commaSeparatedContactedRegions;
+        this.partitionKeyRangeId = partitionKeyRangeId;
+        this.statusCode = statusCode;
+        this.subStatusCode = subStatusCode;
+    }
+
+    public String getOperationType() { return operationType; }
+    public String getCommaSeparatedContactedRegions() { return commaSeparatedContactedRegions; }
+    public String getPartitionKeyRangeId() { return partitionKeyRangeId; }
+    public int getStatusCode() { return statusCode; }
+    public int getSubStatusCode() { return subStatusCode; }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        LatencyKey that = (LatencyKey) o;
+
+        return statusCode == that.statusCode
+                && subStatusCode == that.subStatusCode
+                && Objects.equals(operationType, that.operationType)
+                && Objects.equals(commaSeparatedContactedRegions, that.commaSeparatedContactedRegions)
+                && Objects.equals(partitionKeyRangeId, that.partitionKeyRangeId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(operationType, commaSeparatedContactedRegions, partitionKeyRangeId, statusCode, subStatusCode);
+    }
+
+    @Override
+    public String toString() {
+        return "operationType=" + operationType + ", " +
+                "commaSeparatedContactedRegions=" + commaSeparatedContactedRegions + ", " +
+                (partitionKeyRangeId != null ? "partitionKeyRangeId=" + partitionKeyRangeId + ", " : "") +
+                "statusCode=" + statusCode + ", " +
+                "subStatusCode=" + subStatusCode;
+    }
+}
@@ -0,0 +1,161 @@
+package org.example;
+
+import com.azure.cosmos.implementation.CosmosDaemonThreadFactory;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// Records latencies in microseconds keyed by operation type, contacted regions, partition key range and
+// status / sub-status code. Writers only touch a wait-free HdrHistogram Recorder, interval histograms are
+// swapped out and folded into the cumulative histograms by whoever asks for them.
+public class LatencyRecorder {
+
+    private static final Logger logger = LoggerFactory.getLogger(LatencyRecorder.class);
+
+    private static final int NUMBER_OF_SIGNIFICANT_VALUE_DIGITS = 3;
+    private static final double MICROS_PER_MILLI = 1000.0;
+
+    private final ConcurrentHashMap<LatencyKey, Recorder> recorders = new ConcurrentHashMap<>();
+    private final Map<LatencyKey, Histogram> cumulativeHistograms = new HashMap<>();
+    private final List<LatencyIntervalListener> intervalListeners = new CopyOnWriteArrayList<>();
+
+    private ScheduledExecutorService intervalReportingExecutor;
+
+    public void recordLatency(
+            String operationType,
+            String commaSeparatedContactedRegions,
+            String partitionKeyRangeId,
+            int statusCode,
+            int subStatusCode,
+            long latencyNanos) {
+
+        LatencyKey latencyKey = new LatencyKey(operationType, commaSeparatedContactedRegions, partitionKeyRangeId, statusCode, subStatusCode);
+
+        recorders
+                .computeIfAbsent(latencyKey, key -> new Recorder(NUMBER_OF_SIGNIFICANT_VALUE_DIGITS))
+                .recordValue(Math.max(0, TimeUnit.NANOSECONDS.toMicros(latencyNanos)));
+    }
+
+    // Returns what was recorded since the previous call and folds it into the cumulative histograms
+    public synchronized Map<LatencyKey, Histogram> getIntervalHistograms() {
+
+        Map<LatencyKey, Histogram> intervalHistograms = new HashMap<>();
+
+        for (Map.Entry<LatencyKey, Recorder> entry : recorders.entrySet()) {
+
+            Histogram intervalHistogram = entry.getValue().getIntervalHistogram();
+
+            cumulativeHistograms
+                    .computeIfAbsent(entry.getKey(), key -> new Histogram(NUMBER_OF_SIGNIFICANT_VALUE_DIGITS))
+                    .add(intervalHistogram);
+
+            if (intervalHistogram.getTotalCount() > 0) {
+                intervalHistograms.put(entry.getKey(), intervalHistogram);
+            }
+        }
+
+        return intervalHistograms;
+    }
+
+    public synchronized Map<LatencyKey, Histogram> getCumulativeHistograms() {
+
+        getIntervalHistograms();
+
+        Map<LatencyKey, Histogram> snapshot = new HashMap<>();
+
+        for (Map.Entry<LatencyKey, Histogram> entry : cumulativeHistograms.entrySet()) {
+            snapshot.put(entry.getKey(), entry.getValue().copy());
+        }
+
+        return snapshot;
+    }
+
+    public void addIntervalListener(LatencyIntervalListener intervalListener) {
+        intervalListeners.add(intervalListener);
+    }
+
+    public synchronized void startIntervalReporting(Duration reportingInterval) {
+
+        if (intervalReportingExecutor != null) {
+            return;
+        }
+
+        intervalReportingExecutor = new ScheduledThreadPoolExecutor(1, new CosmosDaemonThreadFactory("LatencyReporter"));
+        intervalReportingExecutor.scheduleAtFixedRate(
+                this::logIntervalHistograms,
+                reportingInterval.toMillis(),
+                reportingInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stopIntervalReporting() {
+
+        if (intervalReportingExecutor != null) {
+            intervalReportingExecutor.shutdownNow();
+            intervalReportingExecutor = null;
+
+            // listeners get the partial interval since the last report, the summary only folds it in
+            if (!intervalListeners.isEmpty()) {
+                logIntervalHistograms();
+            }
+        }
+    }
+
+    public void logSummary() {
+
+        for (Map.Entry<LatencyKey, Histogram> entry : getCumulativeHistograms().entrySet()) {
+
+            Histogram histogram = entry.getValue();
+
+            logger.info("LatencySummary [{}, {}]", entry.getKey(), toPercentileString(histogram));
+
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+            try (PrintStream printStream = new PrintStream(outputStream, true, StandardCharsets.UTF_8)) {
+                histogram.outputPercentileDistribution(printStream, MICROS_PER_MILLI);
+            }
+
+            logger.info("LatencyDistribution (ms) [{}]\n{}", entry.getKey(), outputStream.toString(StandardCharsets.UTF_8));
+        }
+    }
+
+    private void logIntervalHistograms() {
+        try {
+            long intervalEndEpochMillis = System.currentTimeMillis();
+            Map<LatencyKey, Histogram> intervalHistograms = getIntervalHistograms();
+
+            for (Map.Entry<LatencyKey, Histogram> entry : intervalHistograms.entrySet()) {
+                logger.info("LatencyInterval [{}, {}]", entry.getKey(), toPercentileString(entry.getValue()));
+            }
+
+            for (LatencyIntervalListener intervalListener : intervalListeners) {
+                intervalListener.onInterval(intervalEndEpochMillis, intervalHistograms);
+            }
+        } catch (Exception e) {
+            logger.error("Failed to report interval latencies", e);
+        }
+    }
+
+    static String toPercentileString(Histogram histogram) {
+        return "count=" + histogram.getTotalCount() + ", " +
+                "p50Ms=" + histogram.getValueAtPercentile(50) / MICROS_PER_MILLI + ", " +
+                "p90Ms=" + histogram.getValueAtPercentile(90) / MICROS_PER_MILLI + ", " +
+                "p99Ms=" + histogram.getValueAtPercentile(99) / MICROS_PER_MILLI + ", " +
+                "p999Ms=" + histogram.getValueAtPercentile(99.9) / MICROS_PER_MILLI + ", " +
+                "maxMs=" + histogram.getMaxValue() / MICROS_PER_MILLI;
+    }
+}
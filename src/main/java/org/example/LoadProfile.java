@@ -0,0 +1,182 @@
+package org.example;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+// Target rate of an operation type as a function of the time elapsed since the start of the drill.
+// Pacing works off the expected no. of operations (the integral of the rate) so that permits stay exact
+// while the rate changes, the n-th operation is due at the elapsed time where n operations are expected.
+public class LoadProfile {
+
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final LoadProfileType loadProfileType;
+    private final double targetOperationsPerSecond;
+    private final long rampUpDurationNanos;
+    private final long stepDurationNanos;
+    private final int stepCount;
+    private final long periodNanos;
+    private final double amplitude;
+
+    private LoadProfile(
+            LoadProfileType loadProfileType,
+            double targetOperationsPerSecond,
+            Duration rampUpDuration,
+            Duration stepDuration,
+            int stepCount,
+            Duration period,
+            double amplitude) {
+
+        if (targetOperationsPerSecond <= 0) {
+            throw new IllegalArgumentException("targetOperationsPerSecond should be greater than 0");
+        }
+
+        if (rampUpDuration.isNegative() || rampUpDuration.isZero()) {
+            throw new IllegalArgumentException("rampUpDuration should be greater than 0");
+        }
+
+        if (stepDuration.isNegative() || stepDuration.isZero() || stepCount <= 0) {
+            throw new IllegalArgumentException("stepDuration and stepCount should be greater than 0");
+        }
+
+        if (period.isNegative() || period.isZero()) {
+            throw new IllegalArgumentException("period should be greater than 0");
+        }
+
+        if (amplitude < 0 || amplitude > 1) {
+            throw new IllegalArgumentException("amplitude should be between 0 and 1");
+        }
+
+        this.loadProfileType = loadProfileType;
+        this.targetOperationsPerSecond = targetOperationsPerSecond;
+        this.rampUpDurationNanos = rampUpDuration.toNanos();
+        this.stepDurationNanos = stepDuration.toNanos();
+        this.stepCount = stepCount;
+        this.periodNanos = period.toNanos();
+        this.amplitude = amplitude;
+    }
+
+    public static LoadProfile constant(double targetOperationsPerSecond) {
+        return new LoadProfile(
+                LoadProfileType.CONSTANT, targetOperationsPerSecond, Duration.ofSeconds(1), Duration.ofSeconds(1), 1, Duration.ofSeconds(1), 0);
+    }
+
+    public static LoadProfile fromConfiguration(Configuration cfg, String operationType) {
+        return new LoadProfile(
+                cfg.getLoadProfileType(),
+                cfg.getTargetOperationsPerSecond(operationType),
+                cfg.getRampUpDuration(),
+                cfg.getLoadProfileStepDuration(),
+                cfg.getLoadProfileStepCount(),
+                cfg.getLoadProfilePeriod(),
+                cfg.getLoadProfileAmplitude());
+    }
+
+    public LoadProfileType getLoadProfileType() {
+        return loadProfileType;
+    }
+
+    public double getPeakOperationsPerSecond() {
+        return loadProfileType == LoadProfileType.SINUSOIDAL
+                ? targetOperationsPerSecond * (1 + amplitude)
+                : targetOperationsPerSecond;
+    }
+
+    public double getOperationsPerSecond(long elapsedNanos) {
+
+        elapsedNanos = Math.max(0, elapsedNanos);
+
+        switch (loadProfileType) {
+            case RAMP:
+                return targetOperationsPerSecond * Math.min(1.0, (double) elapsedNanos / rampUpDurationNanos);
+            case STEP:
+                return targetOperationsPerSecond * Math.min(stepCount, elapsedNanos / stepDurationNanos + 1) / stepCount;
+            case SINUSOIDAL:
+                return targetOperationsPerSecond * (1 + amplitude * Math.sin(2 * Math.PI * elapsedNanos / periodNanos));
+            default:
+                return targetOperationsPerSecond;
+        }
+    }
+
+    // The no. of operations expected between the start of the drill and the elapsed time
+    public double getExpectedOperations(long elapsedNanos) {
+
+        double elapsedSeconds = Math.max(0, elapsedNanos) / NANOS_PER_SECOND;
+
+        switch (loadProfileType) {
+            case RAMP: {
+                double rampUpSeconds = rampUpDurationNanos / NANOS_PER_SECOND;
+
+                if (elapsedSeconds < rampUpSeconds) {
+                    return targetOperationsPerSecond * elapsedSeconds * elapsedSeconds / (2 * rampUpSeconds);
+                }
+
+                return targetOperationsPerSecond * (rampUpSeconds / 2 + (elapsedSeconds - rampUpSeconds));
+            }
+            case STEP: {
+                double stepSeconds = stepDurationNanos / NANOS_PER_SECOND;
+                long completedSteps = Math.min(stepCount - 1, (long) (elapsedSeconds / stepSeconds));
+
+                // steps 1..completedSteps ran at k / stepCount of the target rate
+                double expectedOperations = targetOperationsPerSecond * stepSeconds * completedSteps * (completedSteps + 1) / (2.0 * stepCount);
+
+                return expectedOperations
+                        + targetOperationsPerSecond * (completedSteps + 1) / stepCount * (elapsedSeconds - completedSteps * stepSeconds);
+            }
+            case SINUSOIDAL: {
+                double periodSeconds = periodNanos / NANOS_PER_SECOND;
+
+                return targetOperationsPerSecond * (elapsedSeconds
+                        + amplitude * periodSeconds / (2 * Math.PI) * (1 - Math.cos(2 * Math.PI * elapsedSeconds / periodSeconds)));
+            }
+            default:
+                return targetOperationsPerSecond * elapsedSeconds;
+        }
+    }
+
+    // Inverse of getExpectedOperations - the elapsed time at which the given no. of operations are due
+    public long getElapsedNanosForOperations(double operations) {
+
+        if (operations <= 0) {
+            return 0;
+        }
+
+        if (loadProfileType == LoadProfileType.CONSTANT) {
+            return (long) (operations / targetOperationsPerSecond * NANOS_PER_SECOND);
+        }
+
+        // the expected no. of operations only ever grows, so it can be searched
+        long low = 0;
+        long high = Math.max(1, (long) (operations / getPeakOperationsPerSecond() * NANOS_PER_SECOND));
+
+        while (getExpectedOperations(high) < operations) {
+            low = high;
+            high *= 2;
+        }
+
+        while (high - low > 1000) {
+            long middle = low + (high - low) / 2;
+
+            if (getExpectedOperations(middle) < operations) {
+                low = middle;
+            } else {
+                high = middle;
+            }
+        }
+
+        return high;
+    }
+
+    @Override
+    public String toString() {
+        return "LoadProfile{" +
+                "loadProfileType=" + loadProfileType +
+                ", targetOperationsPerSecond=" + targetOperationsPerSecond +
+                ", rampUpDurationNanos=" + rampUpDurationNanos +
+                ", stepDurationNanos=" + stepDurationNanos +
+                ", stepCount=" + stepCount +
+                ", periodNanos=" + periodNanos +
+                ", amplitude=" + amplitude +
+                '}';
+    }
+}
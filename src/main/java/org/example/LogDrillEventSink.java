@@ -0,0 +1,81 @@
+package org.example;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+
+// Writes each event synchronously as a RequestResponseInfo line through log4j
+public class LogDrillEventSink implements DrillEventSink {
+
+    // keeps the logger name which existing drill log tooling greps for
+    private static final Logger logger = LoggerFactory.getLogger(WorkloadUtils.class);
+
+    private final Configuration cfg;
+
+    private final boolean possiblyColdStartClient;
+
+    private final ThreadLocal<DrillEvent> drillEvents = ThreadLocal.withInitial(DrillEvent::new);
+
+    public LogDrillEventSink(Configuration cfg, Duration runDuration) {
+        this.cfg = cfg;
+        this.possiblyColdStartClient = runDuration.compareTo(Duration.ofHours(1)) < 0;
+    }
+
+    @Override
+    public DrillEvent claim() {
+        return drillEvents.get();
+    }
+
+    @Override
+    public void publish(DrillEvent drillEvent) {
+
+        RequestResponseInfo.Builder requestResponseInfoBuilder = RequestResponseInfo.builder()
+                .timeOfResponse(Instant.ofEpochMilli(drillEvent.getTimeOfResponseEpochMillis()))
+                .operationType(drillEvent.getOperationType())
+                .drillId(cfg.getDrillId())
+                .withCounts(drillEvent.getSuccessCountUntilNow(), drillEvent.getFailureCountUntilNow())
+                .threadId(drillEvent.getThreadId())
+                .latencyMicros(drillEvent.getLatencyMicros())
+                .commaSeparatedContactedRegions(drillEvent.getCommaSeparatedContactedRegions())
+                .connectionModeAsStr(cfg.getConnectionMode().name())
+                .containerName(cfg.getContainerName())
+                .accountName(cfg.getAccountHost())
+                .possiblyColdStartClient(possiblyColdStartClient)
+                .databaseName(cfg.getDatabaseName())
+                .runTimeRemaining(Duration.ofMillis(drillEvent.getRunTimeRemainingMillis()))
+                .latestRecordedSessionToken(drillEvent.getLatestRecordedSessionToken())
+                .faultPhase(drillEvent.getFaultPhase())
+                .fullDiagnosticsReason(drillEvent.getFullDiagnosticsReason());
+
+        if (drillEvent.hasDiagnosticsSummary()) {
+            requestResponseInfoBuilder.withDiagnosticsSummary(
+                    drillEvent.getDiagnosticsDurationMicros(),
+                    drillEvent.getRetryCount(),
+                    drillEvent.getRequestCharge(),
+                    drillEvent.getMaxRequestPayloadSizeInBytes(),
+                    drillEvent.isHedged());
+        }
+
+        String cosmosDiagnosticsAsString = drillEvent.getCosmosDiagnostics() != null ? drillEvent.getCosmosDiagnostics().toString() : "";
+
+        if (drillEvent.isSuccess()) {
+            logger.info(requestResponseInfoBuilder
+                    .withSuccessResponse(drillEvent.getStatusCode(), cosmosDiagnosticsAsString)
+                    .build()
+                    .toString());
+        } else {
+            logger.error(requestResponseInfoBuilder
+                    .withErrorResponse(drillEvent.getStatusCode(), drillEvent.getSubStatusCode(), drillEvent.getErrorMessage(), cosmosDiagnosticsAsString)
+                    .build()
+                    .toString());
+        }
+
+        drillEvent.reset();
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,80 @@
+package org.example;
+
+import com.azure.cosmos.implementation.CosmosDaemonThreadFactory;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Serves DrillMetrics on /metrics in the OpenMetrics text format
+public class MetricsServer implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(MetricsServer.class);
+
+    private static final String OPEN_METRICS_CONTENT_TYPE = "application/openmetrics-text; version=1.0.0; charset=utf-8";
+
+    private final HttpServer httpServer;
+    private final ExecutorService executor;
+
+    private MetricsServer(HttpServer httpServer, ExecutorService executor) {
+        this.httpServer = httpServer;
+        this.executor = executor;
+    }
+
+    public static MetricsServer start(int port, DrillMetrics drillMetrics) {
+
+        HttpServer httpServer;
+
+        try {
+            httpServer = HttpServer.create(new InetSocketAddress(port), 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to serve drill metrics on port " + port, e);
+        }
+
+        ExecutorService executor = Executors.newSingleThreadExecutor(new CosmosDaemonThreadFactory("MetricsServer"));
+
+        httpServer.createContext("/metrics", exchange -> handleScrape(exchange, drillMetrics));
+        httpServer.setExecutor(executor);
+        httpServer.start();
+
+        logger.info("Serving drill metrics on http://{}:{}/metrics", httpServer.getAddress().getHostString(), httpServer.getAddress().getPort());
+
+        return new MetricsServer(httpServer, executor);
+    }
+
+    @Override
+    public void close() {
+        httpServer.stop(0);
+        executor.shutdownNow();
+    }
+
+    private static void handleScrape(HttpExchange exchange, DrillMetrics drillMetrics) throws IOException {
+
+        try (exchange) {
+
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+
+            byte[] body = drillMetrics.toOpenMetricsText().getBytes(StandardCharsets.UTF_8);
+
+            exchange.getResponseHeaders().set("Content-Type", OPEN_METRICS_CONTENT_TYPE);
+            exchange.sendResponseHeaders(200, body.length);
+
+            try (OutputStream responseBody = exchange.getResponseBody()) {
+                responseBody.write(body);
+            }
+        } catch (RuntimeException e) {
+            logger.error("Failed to serve drill metrics", e);
+        }
+    }
+}
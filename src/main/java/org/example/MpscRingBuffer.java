@@ -0,0 +1,144 @@
+package org.example;
+
+import com.azure.cosmos.implementation.CosmosDaemonThreadFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+// Multi-producer / single-consumer ring of preallocated slots drained by one background thread. Producers claim a
+// slot, fill it in and publish it, and never block - claims which find the consumer a full ring behind return null
+// and are counted as dropped.
+public class MpscRingBuffer<T extends MpscRingBuffer.Slot> {
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final Slot[] slots;
+    private final int mask;
+
+    private final AtomicLong claimSequence = new AtomicLong(-1);
+    private final AtomicLong consumedSequence = new AtomicLong(-1);
+    private final AtomicLong droppedCount = new AtomicLong(0);
+
+    private Thread consumerThread;
+
+    private volatile boolean isRunning = true;
+
+    // size is rounded up to a power of 2, of at least 4
+    public MpscRingBuffer(int size, Supplier<T> slotFactory) {
+
+        if (size <= 0) {
+            throw new IllegalArgumentException("size should be greater than 0");
+        }
+
+        int capacity = Integer.highestOneBit(Math.max(2, size - 1)) << 1;
+
+        this.slots = new Slot[capacity];
+        this.mask = capacity - 1;
+
+        for (int i = 0; i < capacity; i++) {
+            this.slots[i] = slotFactory.get();
+        }
+    }
+
+    // The consumer sees every published slot in claim order. onIdle runs on the consumer thread whenever it has caught up.
+    public synchronized void start(String threadName, Consumer<T> consumer, Runnable onIdle) {
+
+        if (consumerThread != null) {
+            throw new IllegalStateException("The ring buffer is already drained by " + consumerThread.getName());
+        }
+
+        consumerThread = new CosmosDaemonThreadFactory(threadName).newThread(() -> drain(consumer, onIdle));
+        consumerThread.start();
+    }
+
+    public T claim() {
+
+        while (true) {
+
+            long current = claimSequence.get();
+            long next = current + 1;
+
+            if (next - consumedSequence.get() > slots.length) {
+                droppedCount.incrementAndGet();
+                return null;
+            }
+
+            if (claimSequence.compareAndSet(current, next)) {
+                T slot = slotAt(next);
+                slot.claimedSequence = next;
+                return slot;
+            }
+        }
+    }
+
+    public void publish(T slot) {
+        slot.publishedSequence = slot.claimedSequence;
+    }
+
+    // Stops the consumer thread once every slot claimed so far has been consumed
+    public synchronized void close() {
+
+        isRunning = false;
+
+        if (consumerThread == null) {
+            return;
+        }
+
+        try {
+            consumerThread.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public int getCapacity() {
+        return slots.length;
+    }
+
+    public long getConsumedCount() {
+        return consumedSequence.get() + 1;
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    private void drain(Consumer<T> consumer, Runnable onIdle) {
+
+        while (true) {
+
+            long nextSequence = consumedSequence.get() + 1;
+            T slot = slotAt(nextSequence);
+
+            if (slot.publishedSequence == nextSequence) {
+                consumer.accept(slot);
+                consumedSequence.lazySet(nextSequence);
+                continue;
+            }
+
+            // a claimed but not yet published slot is still in flight, only stop once everything claimed is consumed
+            if (!isRunning && claimSequence.get() < nextSequence) {
+                break;
+            }
+
+            onIdle.run();
+            LockSupport.parkNanos(IDLE_PARK_NANOS);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private T slotAt(long sequence) {
+        return (T) slots[(int) (sequence & mask)];
+    }
+
+    // Base class of the slots, the sequences are only touched by the ring buffer
+    public static class Slot {
+
+        // sequence assigned when the slot was claimed, published with a volatile write once the slot is filled
+        long claimedSequence = -1;
+        volatile long publishedSequence = -1;
+    }
+}
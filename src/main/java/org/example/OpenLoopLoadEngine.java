@@ -0,0 +1,165 @@
+package org.example;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongFunction;
+
+// Dispatches operations at the target rate of the pacer's load profile irrespective of how long earlier operations take.
+// In-flight operations are capped, dispatches which find the cap exhausted are dropped and counted
+// instead of being silently delayed so that a slow region never lowers the offered load unnoticed.
+public class OpenLoopLoadEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(OpenLoopLoadEngine.class);
+
+    // Flux.interval can't tick reliably faster than this - higher rates dispatch several operations per tick
+    private static final long MIN_TICK_PERIOD_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final OperationPacer pacer;
+    private final String operationType;
+    private final LoadProfile loadProfile;
+    private final int maxInFlightOperations;
+    private final long tickPeriodNanos;
+
+    private final AtomicLong dispatchedCount = new AtomicLong(0);
+    private final AtomicLong droppedCount = new AtomicLong(0);
+    private final AtomicInteger inFlightCount = new AtomicInteger(0);
+    private final CountDownLatch terminatedLatch = new CountDownLatch(1);
+
+    public OpenLoopLoadEngine(OperationPacer pacer, int maxInFlightOperations) {
+
+        if (maxInFlightOperations <= 0) {
+            throw new IllegalArgumentException("maxInFlightOperations should be greater than 0");
+        }
+
+        this.pacer = pacer;
+        this.operationType = pacer.getOperationType();
+        this.loadProfile = pacer.getLoadProfile();
+        this.maxInFlightOperations = maxInFlightOperations;
+        this.tickPeriodNanos = Math.max(
+                MIN_TICK_PERIOD_NANOS,
+                (long) (TimeUnit.SECONDS.toNanos(1) / loadProfile.getPeakOperationsPerSecond()));
+    }
+
+    public Disposable start(LongFunction<Mono<Void>> operation, Duration runDuration) {
+        return start(operation, runDuration, () -> false);
+    }
+
+    // The operation receives the intended start time (System.nanoTime() based) of the dispatch, latency
+    // measured from that instant includes any time the dispatch spent waiting on the scheduler
+    public Disposable start(LongFunction<Mono<Void>> operation, Duration runDuration, BooleanSupplier shouldStop) {
+
+        long startNanos = System.nanoTime();
+
+        logger.info(
+                "Starting open loop engine for {} - {}, max in-flight operations : {}, tick period : {} ns",
+                operationType,
+                loadProfile,
+                maxInFlightOperations,
+                tickPeriodNanos);
+
+        return Flux
+                .interval(Duration.ofNanos(tickPeriodNanos))
+                .take(runDuration)
+                .takeWhile(tick -> !shouldStop.getAsBoolean())
+                .flatMapIterable(tick -> getIntendedStartTimes(startNanos, tick))
+                .filter(intendedStartNanos -> tryAcquireInFlightSlot())
+                // the in-flight gate is what caps concurrency, bounding flatMap as well would make it request (and
+                // so buffer) dispatches in batches rather than one per completed operation
+                .flatMap(intendedStartNanos -> {
+
+                    dispatchedCount.incrementAndGet();
+                    pacer.onDispatched();
+
+                    // deferred so that an operation throwing while it builds its Mono gives back its slot like
+                    // one which errors, instead of terminating the engine
+                    return Mono
+                            .defer(() -> operation.apply(intendedStartNanos))
+                            .doFinally(signalType -> inFlightCount.decrementAndGet())
+                            .onErrorResume(throwable -> {
+                                logger.error("Unexpected error for {} operation", operationType, throwable);
+                                return Mono.empty();
+                            });
+                }, Integer.MAX_VALUE)
+                .doFinally(signalType -> {
+                    logger.info(
+                            "Open loop engine for {} stopped - dispatched : {}, dropped : {}, in-flight : {}",
+                            operationType,
+                            dispatchedCount.get(),
+                            droppedCount.get(),
+                            inFlightCount.get());
+                    terminatedLatch.countDown();
+                })
+                .subscribe(
+                        ignored -> {},
+                        throwable -> logger.error("Open loop engine for {} failed", operationType, throwable));
+    }
+
+    // Dispatching stops at the end of the run duration (or once shouldStop holds), the engine terminates
+    // once every operation dispatched before that has completed
+    public boolean awaitTermination(Duration timeout) throws InterruptedException {
+        return terminatedLatch.await(timeout.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    public String getOperationType() {
+        return operationType;
+    }
+
+    public long getDispatchedCount() {
+        return dispatchedCount.get();
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    public int getInFlightCount() {
+        return inFlightCount.get();
+    }
+
+    // A slot is taken on dispatch and given back once the operation terminates, so a dispatch is dropped exactly when
+    // maxInFlightOperations are in flight
+    private boolean tryAcquireInFlightSlot() {
+
+        while (true) {
+
+            int inFlight = inFlightCount.get();
+
+            if (inFlight >= maxInFlightOperations) {
+                droppedCount.incrementAndGet();
+                return false;
+            }
+
+            if (inFlightCount.compareAndSet(inFlight, inFlight + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private Iterable<Long> getIntendedStartTimes(long startNanos, long tick) {
+
+        // the k-th operation is due once k operations are expected by the load profile, which spreads
+        // fractional rates across ticks, e.g. 0.4 operations per tick dispatches on 2 out of 5 ticks
+        long tickStartElapsedNanos = startNanos + tick * tickPeriodNanos - pacer.getStartNanos();
+        long firstOperation = (long) Math.ceil(loadProfile.getExpectedOperations(tickStartElapsedNanos));
+        long endOperation = (long) Math.ceil(loadProfile.getExpectedOperations(tickStartElapsedNanos + tickPeriodNanos));
+
+        Long[] intendedStartTimes = new Long[(int) (endOperation - firstOperation)];
+
+        for (int i = 0; i < intendedStartTimes.length; i++) {
+            intendedStartTimes[i] = pacer.getStartNanos() + loadProfile.getElapsedNanosForOperations(firstOperation + i);
+        }
+
+        return Arrays.asList(intendedStartTimes);
+    }
+}
@@ -0,0 +1,138 @@
+package org.example;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+
+// Token bucket shared by every worker of an operation type. Workers reserve the next permit and park until it is
+// due, so the achieved rate follows the load profile rather than the latency of the operations. Permits not taken
+// while workers are blocked accumulate up to a second's worth at the current rate, which lets the workers catch up
+// after a latency spike (e.g. a failover) without bursting the whole backlog at once.
+public class OperationPacer {
+
+    private static final double MAX_BURST_SECONDS = 1.0;
+
+    // bounds how long a stop request can go unnoticed by a parked worker
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final String operationType;
+    private final LoadProfile loadProfile;
+    private final long startNanos;
+
+    private final LongAdder grantedCount = new LongAdder();
+
+    // outcome of the operations, reported once they complete
+    private final LongAdder completedCount = new LongAdder();
+    private final LongAdder failedCount = new LongAdder();
+    private final DoubleAdder requestCharge = new DoubleAdder();
+    private final LongAdder writtenDocuments = new LongAdder();
+    private final LongAdder writtenBytes = new LongAdder();
+
+    // guarded by this
+    private double nextPermit = 0;
+
+    public OperationPacer(String operationType, LoadProfile loadProfile, long startNanos) {
+        this.operationType = operationType;
+        this.loadProfile = loadProfile;
+        this.startNanos = startNanos;
+    }
+
+    // Returns false without granting a permit if shouldStop holds before the permit is due
+    public boolean acquire(BooleanSupplier shouldStop) throws InterruptedException {
+
+        long dueNanos = reserve();
+
+        while (!shouldStop.getAsBoolean()) {
+
+            long waitNanos = dueNanos - System.nanoTime();
+
+            if (waitNanos <= 0) {
+                grantedCount.increment();
+                return true;
+            }
+
+            TimeUnit.NANOSECONDS.sleep(Math.min(waitNanos, MAX_PARK_NANOS));
+        }
+
+        return false;
+    }
+
+    // Open loop engines schedule their own dispatches off the load profile and only report them here
+    public void onDispatched() {
+        grantedCount.increment();
+    }
+
+    public void onCompleted(boolean isSuccess, double requestChargeOfOperation) {
+
+        completedCount.increment();
+        requestCharge.add(requestChargeOfOperation);
+
+        if (!isSuccess) {
+            failedCount.increment();
+        }
+    }
+
+    // Reported by operations writing documents once the write succeeded, bulk and batch operations write several
+    public void onDocumentsWritten(int documentCount, long bytes) {
+        writtenDocuments.add(documentCount);
+        writtenBytes.add(bytes);
+    }
+
+    public String getOperationType() {
+        return operationType;
+    }
+
+    public LoadProfile getLoadProfile() {
+        return loadProfile;
+    }
+
+    public long getStartNanos() {
+        return startNanos;
+    }
+
+    public long getGrantedCount() {
+        return grantedCount.sum();
+    }
+
+    public long getCompletedCount() {
+        return completedCount.sum();
+    }
+
+    public long getFailedCount() {
+        return failedCount.sum();
+    }
+
+    public double getRequestCharge() {
+        return requestCharge.sum();
+    }
+
+    public long getWrittenDocuments() {
+        return writtenDocuments.sum();
+    }
+
+    public long getWrittenBytes() {
+        return writtenBytes.sum();
+    }
+
+    public double getExpectedOperations(long nanoTime) {
+        return loadProfile.getExpectedOperations(nanoTime - startNanos);
+    }
+
+    private long reserve() {
+
+        long nowNanos = System.nanoTime();
+        long elapsedNanos = nowNanos - startNanos;
+        double permit;
+
+        synchronized (this) {
+            double burstPermits = Math.max(1.0, loadProfile.getOperationsPerSecond(elapsedNanos) * MAX_BURST_SECONDS);
+
+            nextPermit = Math.max(nextPermit, loadProfile.getExpectedOperations(elapsedNanos) - burstPermits);
+            permit = nextPermit;
+            nextPermit += 1;
+        }
+
+        return startNanos + loadProfile.getElapsedNanosForOperations(permit);
+    }
+}
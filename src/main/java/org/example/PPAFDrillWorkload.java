@@ -3,36 +3,20 @@ package org.example;
 import com.azure.cosmos.ConnectionMode;
 import com.azure.cosmos.CosmosAsyncClient;
 import com.azure.cosmos.CosmosAsyncContainer;
-import com.azure.cosmos.CosmosAsyncDatabase;
 import com.azure.cosmos.CosmosClientBuilder;
-import com.azure.cosmos.implementation.CosmosDaemonThreadFactory;
 import com.azure.cosmos.implementation.TestConfigurations;
-import com.azure.cosmos.models.CosmosContainerProperties;
-import com.azure.cosmos.models.ThroughputProperties;
-import com.azure.cosmos.test.faultinjection.CosmosFaultInjectionHelper;
-import com.azure.cosmos.test.faultinjection.FaultInjectionCondition;
-import com.azure.cosmos.test.faultinjection.FaultInjectionConditionBuilder;
-import com.azure.cosmos.test.faultinjection.FaultInjectionConnectionType;
-import com.azure.cosmos.test.faultinjection.FaultInjectionOperationType;
-import com.azure.cosmos.test.faultinjection.FaultInjectionResultBuilders;
-import com.azure.cosmos.test.faultinjection.FaultInjectionRule;
-import com.azure.cosmos.test.faultinjection.FaultInjectionRuleBuilder;
-import com.azure.cosmos.test.faultinjection.FaultInjectionServerErrorResult;
-import com.azure.cosmos.test.faultinjection.FaultInjectionServerErrorType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import reactor.core.publisher.Mono;
 
+import java.nio.file.Paths;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.UUID;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.Locale;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
-import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -50,229 +34,513 @@ public class PPAFDrillWorkload implements Workload {
             "COSMOS.HTTP2_ENABLED" // Implicitly set when COSMOS.THINCLIENT_ENABLED is set to true
     );
 
-    @Override
-    public void execute(Configuration cfg) {
-        Object lock = new Object();
+    // the variant of the generic drill, bulk ingest and transactional batch drills replace the point creates, change
+    // feed drills consume them, reads and queries run alongside
+    private final WorkloadType workloadType;
+
+    public PPAFDrillWorkload(WorkloadType workloadType) {
+
+        if (workloadType == WorkloadType.PPAFForSessionConsistencyWorkload) {
+            throw new IllegalArgumentException("PPAFForSessionConsistencyWorkload isn't a variant of the generic drill");
+        }
+
+        this.workloadType = workloadType;
+    }
+
+    private static CosmosClientBuilder createCosmosClientBuilder(Configuration cfg, String userAgentSuffix) {
+        String documentEndpoint = cfg.getAccountHost().isEmpty() ? TestConfigurations.HOST : cfg.getAccountHost();
+        String masterKey = cfg.getAccountMasterKey().isEmpty() ? TestConfigurations.MASTER_KEY : cfg.getAccountMasterKey();
+
+        CosmosClientBuilder clientBuilder = new CosmosClientBuilder()
+                .endpoint(documentEndpoint)
+                .key(masterKey)
+                .userAgentSuffix(userAgentSuffix)
+                .sessionRetryOptions(WorkloadUtils.REMOTE_REGION_PREFERRED_SESSION_RETRY_OPTIONS);
+
+        // thin client traffic goes through the gateway
+        if (cfg.getConnectionMode() == ConnectionMode.DIRECT && !cfg.isThinClientEnabled()) {
+            clientBuilder = clientBuilder.directMode();
+        } else {
+            clientBuilder = clientBuilder.gatewayMode();
+        }
+
+        return clientBuilder;
+    }
 
+    @Override
+    public void execute(Configuration cfg, LatencyIntervalListener latencyIntervalListener) {
         AtomicInteger createSuccessCount = new AtomicInteger(0);
         AtomicInteger createFailureCount = new AtomicInteger(0);
         AtomicInteger readSuccessCount = new AtomicInteger(0);
         AtomicInteger readFailureCount = new AtomicInteger(0);
         AtomicInteger querySuccessCount = new AtomicInteger(0);
         AtomicInteger queryFailureCount = new AtomicInteger(0);
+        AtomicInteger changeFeedSuccessCount = new AtomicInteger(0);
+        AtomicInteger changeFeedFailureCount = new AtomicInteger(0);
 
-        CopyOnWriteArrayList<String> successfullyPersistedIds = new CopyOnWriteArrayList<>();
-        ThreadLocalRandom random = ThreadLocalRandom.current();
+        IdReservoir successfullyPersistedIds = new IdReservoir(cfg.getIdReservoirCapacity(), cfg.getIdSamplingStrategy());
 
         Duration runDuration = cfg.getRunningTime();
 
-        List<String> preferredRegions = Utils.getPreferredRegions(cfg);
-
         int parallelism = cfg.getNumberOfThreads();
 
-        ScheduledThreadPoolExecutor scheduledThreadPoolExecutor = new ScheduledThreadPoolExecutor(2 * parallelism, new CosmosDaemonThreadFactory("CosmosCreateExecutor"));
+        ScheduledThreadPoolExecutor scheduledThreadPoolExecutor = new ScheduledThreadPoolExecutor(2 * parallelism, WorkloadUtils.createWorkerThreadFactory(cfg, "CosmosCreateExecutor"));
 
         ScheduledFuture<?>[] scheduledFutures = new ScheduledFuture[2 * parallelism];
 
-        String documentEndpoint = cfg.getAccountHost().isEmpty() ? TestConfigurations.HOST : cfg.getAccountHost();
-        String masterKey = cfg.getAccountMasterKey().isEmpty() ? TestConfigurations.MASTER_KEY : cfg.getAccountMasterKey();
         String drillId = cfg.getDrillId();
 
         boolean shouldIncludeReadWorkload = cfg.shouldExecuteReadWorkload();
         boolean shouldIncludeQueryWorkload = cfg.shouldExecuteQueryWorkload();
 
-        ConnectionMode connectionMode = cfg.getConnectionMode();
+        if (workloadType == WorkloadType.PPAFTransactionalBatchWorkload && (cfg.getBatchSize() < 1 || cfg.getBatchSize() > 100)) {
+            throw new IllegalArgumentException("batchSize should be between 1 and 100, got " + cfg.getBatchSize());
+        }
 
         logger.info("Run Configurations : {}", cfg);
 
         CosmosAsyncClient cosmosAsyncClient = null;
+        ClientFleet clientFleet = null;
+        LatencyRecorder latencyRecorder = new LatencyRecorder();
+
+        if (latencyIntervalListener != null) {
+            latencyRecorder.addIntervalListener(latencyIntervalListener);
+        }
+
+        DrillMetrics drillMetrics = new DrillMetrics(cfg);
+        KeySpace keySpace = KeySpace.fromConfiguration(cfg);
+        DrillLifecycle lifecycle = new DrillLifecycle(runDuration, Duration.ofSeconds(cfg.getDrainTimeoutInSeconds()));
+
+        lifecycle.onClose(() -> {
+            latencyRecorder.stopIntervalReporting();
+            latencyRecorder.logSummary();
+        });
 
         try {
 
-            CosmosClientBuilder clientBuilder = new CosmosClientBuilder()
-                    .endpoint(documentEndpoint)
-                    .key(masterKey)
-                    .preferredRegions(preferredRegions)
-                    .userAgentSuffix(drillId)
-                    .connectionSharingAcrossClientsEnabled(true)
-                    .sessionRetryOptions(WorkloadUtils.REMOTE_REGION_PREFERRED_SESSION_RETRY_OPTIONS);
+            List<CosmosAsyncContainer> cosmosAsyncContainers = List.of();
+            CosmosClientBootstrap cosmosClientBootstrap = null;
+            DataPlane dataPlane;
 
-            if (connectionMode == ConnectionMode.DIRECT) {
-                clientBuilder = clientBuilder.directMode();
+            if (cfg.getDataPlaneType() == DataPlaneType.SIMULATOR) {
+                dataPlane = SimulatedDataPlane.fromConfiguration(cfg);
             } else {
-                clientBuilder = clientBuilder.gatewayMode();
+                System.setProperty("COSMOS.IS_SESSION_TOKEN_FALSE_PROGRESS_MERGE_ENABLED", "true");
+                System.setProperty("COSMOS.E2E_TIMEOUT_ERROR_HIT_THRESHOLD_FOR_PPAF", "5");
+                System.setProperty("COSMOS.E2E_TIMEOUT_ERROR_HIT_TIME_WINDOW_IN_SECONDS_FOR_PPAF", "120");
+                System.setProperty("COSMOS.STALE_PARTITION_UNAVAILABILITY_REFRESH_INTERVAL_IN_SECONDS", "60");
+                System.setProperty("COSMOS.ALLOWED_PARTITION_UNAVAILABILITY_DURATION_IN_SECONDS", "30");
+
+                if (cfg.isThinClientEnabled()) {
+                    System.setProperty("COSMOS.THINCLIENT_ENABLED", "true");
+                    System.setProperty("COSMOS.HTTP2_ENABLED", "true");
+
+                    if (cfg.getConnectionMode() == ConnectionMode.DIRECT) {
+                        throw new IllegalArgumentException("Thin Client is not supported in Direct Connection Mode");
+                    }
+                }
+
+                if (cfg.getFleetClientCount() > 1) {
+                    // the clients of a fleet start one after the other and are ready once started
+                    clientFleet = ClientFleet.start(cfg, userAgentSuffix -> createCosmosClientBuilder(cfg, userAgentSuffix), drillMetrics);
+                    cosmosAsyncContainers = clientFleet.getContainers();
+                    dataPlane = clientFleet.getDataPlane();
+                } else {
+                    cosmosClientBootstrap = CosmosClientBootstrap.start(
+                            cfg,
+                            createCosmosClientBuilder(cfg, drillId).connectionSharingAcrossClientsEnabled(true),
+                            drillMetrics);
+                    cosmosAsyncClient = cosmosClientBootstrap.getClient();
+                    cosmosAsyncContainers = List.of(cosmosClientBootstrap.getContainer());
+                    dataPlane = new CosmosDataPlane(cosmosClientBootstrap.getContainer());
+                }
+            }
+
+            // payloads are rendered before the run starts, while the container is provisioned and warmed up
+            DocumentGenerator documentGenerator = DocumentGenerator.fromConfiguration(cfg);
+
+            if (cosmosClientBootstrap != null) {
+                cosmosClientBootstrap.awaitReady();
             }
 
-            System.setProperty("COSMOS.IS_SESSION_TOKEN_FALSE_PROGRESS_MERGE_ENABLED", "true");
-            System.setProperty("COSMOS.E2E_TIMEOUT_ERROR_HIT_THRESHOLD_FOR_PPAF", "5");
-            System.setProperty("COSMOS.E2E_TIMEOUT_ERROR_HIT_TIME_WINDOW_IN_SECONDS_FOR_PPAF", "120");
-            System.setProperty("COSMOS.STALE_PARTITION_UNAVAILABILITY_REFRESH_INTERVAL_IN_SECONDS", "60");
-            System.setProperty("COSMOS.ALLOWED_PARTITION_UNAVAILABILITY_DURATION_IN_SECONDS", "30");
+            // the target rate is set off the calibrated capacity before the pacers are built from it, and before
+            // change feed consumers start so the calibration creates aren't consumed
+            if (cfg.shouldCalibrate()) {
 
-            if (cfg.isThinClientEnabled()) {
-                System.setProperty("COSMOS.THINCLIENT_ENABLED", "true");
-                System.setProperty("COSMOS.HTTP2_ENABLED", "true");
+                CapacityCalibrator.Calibration calibration;
 
-                if (cfg.getConnectionMode() == ConnectionMode.DIRECT) {
-                    throw new IllegalArgumentException("Thin Client is not supported in Direct Connection Mode");
+                try {
+                    calibration = CapacityCalibrator
+                            .fromConfiguration(cfg, dataPlane, keySpace, documentGenerator, successfullyPersistedIds)
+                            .calibrate();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while calibrating the create capacity", e);
                 }
 
-                clientBuilder = clientBuilder.gatewayMode();
+                int pacedOperationTypeCount = 1 + (shouldIncludeReadWorkload ? 1 : 0) + (shouldIncludeQueryWorkload ? 1 : 0);
+                int pinnedOperationsPerSecond = CapacityCalibrator.pinLoad(cfg, calibration, pacedOperationTypeCount);
+
+                drillMetrics.recordCalibration("capacity_operations_per_second", calibration.getOperationsPerSecond());
+                drillMetrics.recordCalibration("capacity_request_units_per_second", calibration.getRequestUnitsPerSecond());
+                drillMetrics.recordCalibration("concurrency_limit", calibration.getConcurrencyLimit());
+                drillMetrics.recordCalibration("target_operations_per_second", pinnedOperationsPerSecond);
+
+                String calibrationSummary = String.format(
+                        Locale.ROOT,
+                        "CalibrationSummary [%s, windows=%d, congestedWindows=%d, durationMs=%d, loadFraction=%.2f, targetOpsPerSec=%d, maxInFlightOperations=%d]",
+                        calibration.toSummaryString(),
+                        calibration.getWindowCount(),
+                        calibration.getCongestedWindowCount(),
+                        calibration.getDuration().toMillis(),
+                        cfg.getCalibrationLoadFraction(),
+                        pinnedOperationsPerSecond,
+                        cfg.getMaxInFlightOperations());
+
+                logger.info(calibrationSummary);
+                lifecycle.onClose(() -> logger.info(calibrationSummary));
             }
 
-            boolean isSharedThroughput = cfg.isSharedThroughput();
+            // change feed consumers start from the current end of each feed range, before the first create is issued
+            List<String> feedRanges = List.of();
+            List<String> initialContinuationTokens = new ArrayList<>();
+            ChangeFeedTracker changeFeedTracker = null;
 
-            cosmosAsyncClient = clientBuilder.buildAsyncClient();
+            if (workloadType == WorkloadType.PPAFChangeFeedWorkload) {
 
-            if (isSharedThroughput) {
-                cosmosAsyncClient.createDatabaseIfNotExists(
-                                cfg.getDatabaseName(),
-                                ThroughputProperties.createManualThroughput(cfg.getProvisionedThroughput()))
-                        .onErrorResume(throwable -> Mono.empty())
-                        .block();
+                feedRanges = dataPlane.getFeedRanges().block();
 
-                CosmosAsyncDatabase cosmosAsyncDatabase = cosmosAsyncClient.getDatabase(cfg.getDatabaseName());
+                for (String feedRange : feedRanges) {
+                    initialContinuationTokens.add(dataPlane
+                            .readChangeFeed(feedRange, null)
+                            .map(ChangeFeedPage::getContinuationToken)
+                            .blockLast());
+                }
 
-                CosmosContainerProperties cosmosContainerProperties = new CosmosContainerProperties(cfg.getContainerName(), cfg.getPartitionKeyPath());
-                cosmosAsyncDatabase
-                        .createContainerIfNotExists(cosmosContainerProperties)
-                        .onErrorResume(throwable -> Mono.empty())
-                        .block();
-            } else {
-                cosmosAsyncClient
-                        .createDatabaseIfNotExists(cfg.getDatabaseName())
-                        .onErrorResume(throwable -> Mono.empty())
-                        .block();
-
-                CosmosAsyncDatabase cosmosAsyncDatabase = cosmosAsyncClient.getDatabase(cfg.getDatabaseName());
-
-                CosmosContainerProperties cosmosContainerProperties = new CosmosContainerProperties(cfg.getContainerName(), cfg.getPartitionKeyPath());
-                cosmosAsyncDatabase
-                        .createContainerIfNotExists(cosmosContainerProperties, ThroughputProperties.createManualThroughput(cfg.getProvisionedThroughput()))
-                        .onErrorResume(throwable -> Mono.empty())
-                        .block();
+                changeFeedTracker = new ChangeFeedTracker(Duration.ofSeconds(cfg.getChangeFeedMissingThresholdInSeconds()), drillMetrics);
             }
 
-            CosmosAsyncDatabase cosmosAsyncDatabase = cosmosAsyncClient.getDatabase(cfg.getDatabaseName());
-            CosmosAsyncContainer cosmosAsyncContainer = cosmosAsyncDatabase.getContainer(cfg.getContainerName());
-
             Instant startTime = Instant.now();
+            lifecycle.start();
 
-            // Fault Injection Setup for Reads
-            // Inject Response Delay of 5s (keep injecting for 10 minutes)
-            // Start injecting 3 minutes after workload has started
-            // Run workload for 15 minutes
-            FaultInjectionServerErrorResult faultInjectionServerErrorResult = FaultInjectionResultBuilders
-                    .getResultBuilder(FaultInjectionServerErrorType.RESPONSE_DELAY)
-                    .delay(Duration.ofSeconds(11))
-                    .suppressServiceRequests(true)
-                    .build();
+            DrillEventSink drillEventSink = DrillEventSink.create(cfg, startTime, runDuration);
+            lifecycle.onClose(drillEventSink::close);
+
+            PacingController pacingController = new PacingController(cfg);
+            lifecycle.onClose(() -> {
+                pacingController.stopIntervalReporting();
+                pacingController.logSummary();
+            });
+
+            DiagnosticsSampler diagnosticsSampler = DiagnosticsSampler.fromConfiguration(cfg);
+            lifecycle.onClose(diagnosticsSampler::logSummary);
 
-            FaultInjectionCondition faultInjectionCondition = new FaultInjectionConditionBuilder()
-                    .connectionType(cfg.getConnectionMode() == ConnectionMode.DIRECT ? FaultInjectionConnectionType.DIRECT : FaultInjectionConnectionType.GATEWAY)
-                    .operationType(FaultInjectionOperationType.READ_ITEM)
-                    .region("East US")
+            RecoveryAnalyzer recoveryAnalyzer = RecoveryAnalyzer.fromConfiguration(cfg);
+            lifecycle.onClose(() -> recoveryAnalyzer.writeReport(Paths.get(
+                    cfg.getDrillEventLogDirectory(),
+                    "ppaf_recovery_" + cfg.getDrillId() + "_" + startTime.toEpochMilli() + ".json")));
+
+            SessionConsistencyChecker sessionConsistencyChecker = null;
+
+            if (cfg.shouldCheckSessionConsistency()) {
+                sessionConsistencyChecker = SessionConsistencyChecker.fromConfiguration(cfg, drillMetrics, lifecycle);
+                lifecycle.onClose(sessionConsistencyChecker::logSummary);
+            }
+
+            FaultScenarioEngine faultScenarioEngine = FaultScenarioEngine.fromConfiguration(cfg, cosmosAsyncContainers);
+            QueryEngine queryEngine = shouldIncludeQueryWorkload ? QueryEngine.fromConfiguration(cfg, drillMetrics) : null;
+            AvailabilityStrategyExperiment availabilityStrategyExperiment = shouldIncludeReadWorkload
+                    ? AvailabilityStrategyExperiment.fromConfiguration(cfg, drillMetrics)
+                    : null;
+
+            DrillContext drillContext = DrillContext.builder()
+                    .cfg(cfg)
+                    .startTime(startTime)
+                    .runDuration(runDuration)
+                    .latencyRecorder(latencyRecorder)
+                    .drillEventSink(drillEventSink)
+                    .lifecycle(lifecycle)
+                    .pacingController(pacingController)
+                    .metrics(drillMetrics)
+                    .recoveryAnalyzer(recoveryAnalyzer)
+                    .diagnosticsSampler(diagnosticsSampler)
+                    .documentGenerator(documentGenerator)
+                    .keySpace(keySpace)
+                    .sessionConsistencyChecker(sessionConsistencyChecker)
+                    .changeFeedTracker(changeFeedTracker)
+                    .faultScenarioEngine(faultScenarioEngine)
+                    .queryEngine(queryEngine)
+                    .availabilityStrategyExperiment(availabilityStrategyExperiment)
                     .build();
 
-            List<FaultInjectionRule> faultInjectionRules = new ArrayList<>();
+            latencyRecorder.startIntervalReporting(Duration.ofSeconds(cfg.getLatencyReportingIntervalInSeconds()));
+            pacingController.startIntervalReporting(Duration.ofSeconds(cfg.getLatencyReportingIntervalInSeconds()));
 
-            if (cfg.shouldInjectResponseDelayForReads()) {
-                for (int i = 0; i < 2; i++) {
-                    FaultInjectionRule faultInjectionRule = new FaultInjectionRuleBuilder("response-delay-" + UUID.randomUUID().toString())
-                            .condition(faultInjectionCondition)
-                            .startDelay(Duration.ofMinutes(11 + ((i) * 30)))
-                            .result(faultInjectionServerErrorResult)
-                            .duration(Duration.ofMinutes(20))
-                            .build();
+            if (changeFeedTracker != null) {
 
-                    faultInjectionRules.add(faultInjectionRule);
-                }
+                ChangeFeedTracker finalChangeFeedTracker = changeFeedTracker;
+
+                finalChangeFeedTracker.startIntervalReporting(Duration.ofSeconds(cfg.getLatencyReportingIntervalInSeconds()));
+                lifecycle.onClose(() -> {
+                    finalChangeFeedTracker.stopIntervalReporting();
+                    finalChangeFeedTracker.logSummary();
+                });
+            }
+
+            if (queryEngine != null) {
+                queryEngine.startIntervalReporting(Duration.ofSeconds(cfg.getLatencyReportingIntervalInSeconds()));
+                lifecycle.onClose(() -> {
+                    queryEngine.stopIntervalReporting();
+                    queryEngine.logSummary();
+                });
+            }
+
+            if (availabilityStrategyExperiment != null) {
+                availabilityStrategyExperiment.startIntervalReporting(Duration.ofSeconds(cfg.getLatencyReportingIntervalInSeconds()));
+                lifecycle.onClose(() -> {
+                    availabilityStrategyExperiment.stopIntervalReporting();
+                    availabilityStrategyExperiment.logSummary();
+                });
             }
 
-            CosmosFaultInjectionHelper
-                    .configureFaultInjectionRules(cosmosAsyncContainer, faultInjectionRules)
-                    .block();
+            // fault phases are timed from the drill start, the last one still running ends with the drill
+            if (faultScenarioEngine != null) {
+                faultScenarioEngine.start();
+                lifecycle.onClose(() -> {
+                    faultScenarioEngine.stop();
+                    faultScenarioEngine.logSummary();
+                });
+            }
 
-            for (int i = 0; i < scheduledFutures.length; i++) {
+            if (clientFleet != null) {
 
-                final int finalI = i;
+                ClientFleet finalClientFleet = clientFleet;
 
-                if (i % 3 == 0) {
-                    scheduledFutures[i] = scheduledThreadPoolExecutor.schedule(() -> {
-                        try {
-                            WorkloadUtils.onCreate(
-                                    cosmosAsyncContainer,
-                                    cfg,
-                                    startTime,
-                                    runDuration,
-                                    finalI,
+                finalClientFleet.startIntervalReporting(Duration.ofSeconds(cfg.getLatencyReportingIntervalInSeconds()));
+                lifecycle.onClose(() -> {
+                    finalClientFleet.stopIntervalReporting();
+                    finalClientFleet.logSummary();
+                });
+            }
+
+            if (cfg.getMetricsPort() > 0) {
+                MetricsServer metricsServer = MetricsServer.start(cfg.getMetricsPort(), drillMetrics);
+                lifecycle.onClose(metricsServer::close);
+            }
+
+            if (cfg.getExecutionMode() == ExecutionMode.OPEN_LOOP) {
+
+                if (workloadType == WorkloadType.PPAFBulkIngestWorkload) {
+                    // the bulk pipeline is paced per document and already asynchronous, it runs the same in both modes
+                    scheduledFutures[0] = scheduledThreadPoolExecutor.schedule(() -> WorkloadUtils.onBulkCreate(
+                            dataPlane,
+                            drillContext,
+                            0,
+                            createSuccessCount,
+                            createFailureCount,
+                            successfullyPersistedIds), 10, TimeUnit.MILLISECONDS);
+                } else if (workloadType == WorkloadType.PPAFTransactionalBatchWorkload) {
+
+                    OpenLoopLoadEngine batchLoadEngine = new OpenLoopLoadEngine(
+                            drillContext.getPacingController().getPacer(WorkloadUtils.BATCH_OP), cfg.getMaxInFlightOperations());
+
+                    lifecycle.registerLoadEngine(batchLoadEngine, batchLoadEngine.start(
+                            intendedStartNanos -> WorkloadUtils.batchCreateOperation(
+                                    dataPlane,
+                                    drillContext,
+                                    0,
                                     createSuccessCount,
                                     createFailureCount,
                                     successfullyPersistedIds,
-                                    lock);
-                        } catch (InterruptedException e) {
-                            throw new RuntimeException(e);
-                        }
-                    }, 10, TimeUnit.MILLISECONDS);
-                } else if (i % 3 == 1) {
-                    if (shouldIncludeReadWorkload) {
-                        scheduledFutures[i] = scheduledThreadPoolExecutor.schedule(() -> {
-                            try {
-                                WorkloadUtils.onRead(
-                                        cosmosAsyncContainer,
-                                        cfg,
-                                        startTime,
-                                        runDuration,
-                                        finalI,
-                                        readSuccessCount,
-                                        readFailureCount,
-                                        successfullyPersistedIds,
-                                        random,
-                                        lock);
-                            } catch (InterruptedException e) {
-                                throw new RuntimeException(e);
-                            }
-                        }, 10, TimeUnit.MILLISECONDS);
-                    }
+                                    intendedStartNanos),
+                            runDuration,
+                            lifecycle::isStopRequested));
                 } else {
-                    if (shouldIncludeQueryWorkload) {
-                        scheduledFutures[i] = scheduledThreadPoolExecutor.schedule(() -> {
-                            try {
-                                WorkloadUtils.onQuery(
-                                        cosmosAsyncContainer,
-                                        cfg,
-                                        startTime,
-                                        runDuration,
+
+                    OpenLoopLoadEngine createLoadEngine = new OpenLoopLoadEngine(
+                            drillContext.getPacingController().getPacer(WorkloadUtils.CREATE_OP), cfg.getMaxInFlightOperations());
+
+                    lifecycle.registerLoadEngine(createLoadEngine, createLoadEngine.start(
+                            intendedStartNanos -> WorkloadUtils.createItemOperation(
+                                    dataPlane,
+                                    drillContext,
+                                    0,
+                                    createSuccessCount,
+                                    createFailureCount,
+                                    successfullyPersistedIds,
+                                    intendedStartNanos),
+                            runDuration,
+                            lifecycle::isStopRequested));
+                }
+
+                if (shouldIncludeReadWorkload) {
+
+                    OpenLoopLoadEngine readLoadEngine = new OpenLoopLoadEngine(
+                            drillContext.getPacingController().getPacer(WorkloadUtils.READ_OP), cfg.getMaxInFlightOperations());
+
+                    lifecycle.registerLoadEngine(readLoadEngine, readLoadEngine.start(
+                            intendedStartNanos -> WorkloadUtils.readItemOperation(
+                                    dataPlane,
+                                    drillContext,
+                                    1,
+                                    readSuccessCount,
+                                    readFailureCount,
+                                    successfullyPersistedIds,
+                                    intendedStartNanos),
+                            runDuration,
+                            lifecycle::isStopRequested));
+                }
+
+                if (shouldIncludeQueryWorkload) {
+
+                    OpenLoopLoadEngine queryLoadEngine = new OpenLoopLoadEngine(
+                            drillContext.getPacingController().getPacer(WorkloadUtils.QUERY_OP), cfg.getMaxInFlightQueries());
+
+                    lifecycle.registerLoadEngine(queryLoadEngine, queryLoadEngine.start(
+                            intendedStartNanos -> WorkloadUtils.queryItemOperation(
+                                    dataPlane,
+                                    drillContext,
+                                    2,
+                                    querySuccessCount,
+                                    queryFailureCount,
+                                    successfullyPersistedIds,
+                                    intendedStartNanos),
+                            runDuration,
+                            lifecycle::isStopRequested));
+                }
+            } else {
+                for (int i = 0; i < scheduledFutures.length; i++) {
+
+                    final int finalI = i;
+
+                    if (i % 3 == 0) {
+                        if (workloadType == WorkloadType.PPAFBulkIngestWorkload) {
+                            // one pipeline takes all the creates, its concurrency is -bulkMaxMicroBatchConcurrency
+                            if (i == 0) {
+                                scheduledFutures[i] = scheduledThreadPoolExecutor.schedule(() -> WorkloadUtils.onBulkCreate(
+                                        dataPlane,
+                                        drillContext,
                                         finalI,
-                                        querySuccessCount,
-                                        queryFailureCount,
-                                        successfullyPersistedIds,
-                                        random,
-                                        lock);
-                            } catch (InterruptedException e) {
-                                throw new RuntimeException(e);
+                                        createSuccessCount,
+                                        createFailureCount,
+                                        successfullyPersistedIds), 10, TimeUnit.MILLISECONDS);
                             }
-                        }, 10, TimeUnit.MILLISECONDS);
+                        } else if (workloadType == WorkloadType.PPAFTransactionalBatchWorkload) {
+                            scheduledFutures[i] = scheduledThreadPoolExecutor.schedule(() -> {
+                                try {
+                                    WorkloadUtils.onBatchCreate(
+                                            dataPlane,
+                                            drillContext,
+                                            finalI,
+                                            createSuccessCount,
+                                            createFailureCount,
+                                            successfullyPersistedIds);
+                                } catch (InterruptedException e) {
+                                    throw new RuntimeException(e);
+                                }
+                            }, 10, TimeUnit.MILLISECONDS);
+                        } else {
+                            scheduledFutures[i] = scheduledThreadPoolExecutor.schedule(() -> {
+                                try {
+                                    WorkloadUtils.onCreate(
+                                            dataPlane,
+                                            drillContext,
+                                            finalI,
+                                            createSuccessCount,
+                                            createFailureCount,
+                                            successfullyPersistedIds);
+                                } catch (InterruptedException e) {
+                                    throw new RuntimeException(e);
+                                }
+                            }, 10, TimeUnit.MILLISECONDS);
+                        }
+                    } else if (i % 3 == 1) {
+                        if (shouldIncludeReadWorkload) {
+                            scheduledFutures[i] = scheduledThreadPoolExecutor.schedule(() -> {
+                                try {
+                                    WorkloadUtils.onRead(
+                                            dataPlane,
+                                            drillContext,
+                                            finalI,
+                                            readSuccessCount,
+                                            readFailureCount,
+                                            successfullyPersistedIds);
+                                } catch (InterruptedException e) {
+                                    throw new RuntimeException(e);
+                                }
+                            }, 10, TimeUnit.MILLISECONDS);
+                        }
+                    } else {
+                        if (shouldIncludeQueryWorkload) {
+                            scheduledFutures[i] = scheduledThreadPoolExecutor.schedule(() -> {
+                                try {
+                                    WorkloadUtils.onQuery(
+                                            dataPlane,
+                                            drillContext,
+                                            finalI,
+                                            querySuccessCount,
+                                            queryFailureCount,
+                                            successfullyPersistedIds);
+                                } catch (InterruptedException e) {
+                                    throw new RuntimeException(e);
+                                }
+                            }, 10, TimeUnit.MILLISECONDS);
+                        }
                     }
                 }
             }
 
-            while (!Instant.now().minus(runDuration).isAfter(startTime)) {
-            }
+            lifecycle.registerWorkers(scheduledThreadPoolExecutor, scheduledFutures);
 
-            logger.info("Workload complete!");
+            if (changeFeedTracker != null) {
+
+                // one pull model consumer per feed range, alongside the creates of either execution mode
+                ScheduledThreadPoolExecutor changeFeedExecutor = new ScheduledThreadPoolExecutor(
+                        feedRanges.size(), WorkloadUtils.createWorkerThreadFactory(cfg, "CosmosChangeFeedExecutor"));
+
+                ScheduledFuture<?>[] changeFeedFutures = new ScheduledFuture[feedRanges.size()];
 
-            for (ScheduledFuture<?> scheduledFuture : scheduledFutures) {
-                scheduledFuture.cancel(true);
+                for (int i = 0; i < feedRanges.size(); i++) {
+
+                    final int finalI = i;
+                    final String feedRange = feedRanges.get(i);
+
+                    changeFeedFutures[i] = changeFeedExecutor.schedule(() -> {
+                        try {
+                            WorkloadUtils.onChangeFeed(
+                                    dataPlane,
+                                    drillContext,
+                                    finalI,
+                                    changeFeedSuccessCount,
+                                    changeFeedFailureCount,
+                                    feedRange,
+                                    String.valueOf(finalI),
+                                    initialContinuationTokens.get(finalI));
+                        } catch (InterruptedException e) {
+                            throw new RuntimeException(e);
+                        }
+                    }, 10, TimeUnit.MILLISECONDS);
+                }
+
+                lifecycle.registerWorkers(changeFeedExecutor, changeFeedFutures);
             }
+            lifecycle.awaitCompletion();
+
+            logger.info("Workload complete!");
 
         } finally {
 
+            lifecycle.close();
+
             WorkloadUtils.cleanUpSystemProperties(CONFIGURED_SYSTEM_PROPERTIES);
 
             if (cosmosAsyncClient != null) {
                 cosmosAsyncClient.close();
             }
+
+            if (clientFleet != null) {
+                clientFleet.close();
+            }
         }
     }
 }
@@ -2,17 +2,12 @@ package org.example;
 
 import com.azure.cosmos.ConnectionMode;
 import com.azure.cosmos.CosmosAsyncClient;
-import com.azure.cosmos.CosmosAsyncContainer;
-import com.azure.cosmos.CosmosAsyncDatabase;
 import com.azure.cosmos.CosmosClientBuilder;
-import com.azure.cosmos.implementation.CosmosDaemonThreadFactory;
 import com.azure.cosmos.implementation.TestConfigurations;
-import com.azure.cosmos.models.CosmosContainerProperties;
-import com.azure.cosmos.models.ThroughputProperties;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import reactor.core.publisher.Mono;
 
+import java.nio.file.Paths;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.Arrays;
@@ -55,7 +50,7 @@ public class PPAFForSessionConsistencyWorkload implements Workload {
                         + "}");
     }
 
-    private CosmosAsyncClient buildCosmosClient(Configuration cfg, List<String> preferredRegions) {
+    private CosmosClientBuilder createCosmosClientBuilder(Configuration cfg) {
         String documentEndpoint = cfg.getAccountHost().isEmpty() ? TestConfigurations.HOST : cfg.getAccountHost();
         String masterKey = cfg.getAccountMasterKey().isEmpty() ? TestConfigurations.MASTER_KEY : cfg.getAccountMasterKey();
         String drillId = cfg.getDrillId();
@@ -64,7 +59,6 @@ public class PPAFForSessionConsistencyWorkload implements Workload {
         CosmosClientBuilder clientBuilder = new CosmosClientBuilder()
                 .endpoint(documentEndpoint)
                 .key(masterKey)
-                .preferredRegions(preferredRegions)
                 .userAgentSuffix(drillId)
                 .sessionRetryOptions(WorkloadUtils.LOCAL_REGION_PREFERRED_SESSION_RETRY_OPTIONS);
 
@@ -74,41 +68,14 @@ public class PPAFForSessionConsistencyWorkload implements Workload {
             clientBuilder = clientBuilder.gatewayMode();
         }
 
-        return clientBuilder.buildAsyncClient();
-    }
-
-    private CosmosAsyncContainer setupCosmosContainer(CosmosAsyncClient cosmosAsyncClient, Configuration cfg) {
-        cosmosAsyncClient
-                .createDatabaseIfNotExists(cfg.getDatabaseName())
-                .onErrorResume(throwable -> Mono.empty())
-                .block();
-
-        CosmosAsyncDatabase cosmosAsyncDatabase = cosmosAsyncClient.getDatabase(cfg.getDatabaseName());
-
-        CosmosContainerProperties cosmosContainerProperties = new CosmosContainerProperties(
-                cfg.getContainerName(), 
-                cfg.getPartitionKeyPath()
-        );
-
-        cosmosAsyncDatabase
-                .createContainerIfNotExists(
-                        cosmosContainerProperties, 
-                        ThroughputProperties.createManualThroughput(cfg.getProvisionedThroughput())
-                )
-                .onErrorResume(throwable -> Mono.empty())
-                .block();
-
-        CosmosAsyncContainer container = cosmosAsyncDatabase.getContainer(cfg.getContainerName());
-        container.upsertItem(DESIGNATED_BOOK).block();
-        return container;
+        return clientBuilder;
     }
 
     private void scheduleWorkloads(
             ScheduledThreadPoolExecutor executor,
             ScheduledFuture<?>[] futures,
-            CosmosAsyncContainer container,
-            Configuration cfg,
-            Instant startTime,
+            DataPlane dataPlane,
+            DrillContext drillContext,
             AtomicInteger createSuccessCount,
             AtomicInteger createFailureCount,
             AtomicInteger readSuccessCount,
@@ -116,17 +83,19 @@ public class PPAFForSessionConsistencyWorkload implements Workload {
             AtomicBoolean isFailureDetectedOnCreate,
             AtomicReference<String> latestRecordedSessionTokenFromLatestCreate) {
 
+        Configuration cfg = drillContext.getCfg();
+
         for (int i = 0; i < futures.length; i++) {
             final int finalI = i;
             if (i % 2 == 0) {
                 futures[i] = scheduleCreateOperation(
-                        executor, container, cfg, startTime, finalI,
+                        executor, dataPlane, drillContext, finalI,
                         createSuccessCount, createFailureCount,
                         isFailureDetectedOnCreate, latestRecordedSessionTokenFromLatestCreate
                 );
             } else if (cfg.shouldExecuteReadWorkload()) {
                 futures[i] = scheduleReadOperation(
-                        executor, container, cfg, startTime, finalI,
+                        executor, dataPlane, drillContext, finalI,
                         readSuccessCount, readFailureCount,
                         latestRecordedSessionTokenFromLatestCreate
                 );
@@ -134,11 +103,51 @@ public class PPAFForSessionConsistencyWorkload implements Workload {
         }
     }
 
+    private void startOpenLoopWorkloads(
+            DataPlane dataPlane,
+            DrillContext drillContext,
+            AtomicInteger createSuccessCount,
+            AtomicInteger createFailureCount,
+            AtomicInteger readSuccessCount,
+            AtomicInteger readFailureCount,
+            AtomicBoolean isFailureDetectedOnCreate,
+            AtomicReference<String> latestRecordedSessionTokenFromLatestCreate) {
+
+        Configuration cfg = drillContext.getCfg();
+        DrillLifecycle lifecycle = drillContext.getLifecycle();
+
+        OpenLoopLoadEngine createLoadEngine = new OpenLoopLoadEngine(
+                drillContext.getPacingController().getPacer(WorkloadUtils.CREATE_OP), cfg.getMaxInFlightOperations());
+
+        lifecycle.registerLoadEngine(createLoadEngine, createLoadEngine.start(
+                intendedStartNanos -> WorkloadUtils.createItemStopOnFirstFailureOperation(
+                        dataPlane, drillContext,
+                        0, createSuccessCount, createFailureCount,
+                        isFailureDetectedOnCreate, latestRecordedSessionTokenFromLatestCreate,
+                        intendedStartNanos),
+                cfg.getRunningTime(),
+                () -> isFailureDetectedOnCreate.get() || lifecycle.isStopRequested()));
+
+        if (cfg.shouldExecuteReadWorkload()) {
+
+            OpenLoopLoadEngine readLoadEngine = new OpenLoopLoadEngine(
+                    drillContext.getPacingController().getPacer(WorkloadUtils.READ_OP), cfg.getMaxInFlightOperations());
+
+            lifecycle.registerLoadEngine(readLoadEngine, readLoadEngine.start(
+                    intendedStartNanos -> WorkloadUtils.sessionReadItemOperation(
+                            dataPlane, drillContext,
+                            1, readSuccessCount, readFailureCount,
+                            DESIGNATED_BOOK.getId(), latestRecordedSessionTokenFromLatestCreate,
+                            intendedStartNanos),
+                    cfg.getRunningTime(),
+                    lifecycle::isStopRequested));
+        }
+    }
+
     private ScheduledFuture<?> scheduleCreateOperation(
             ScheduledThreadPoolExecutor executor,
-            CosmosAsyncContainer container,
-            Configuration cfg,
-            Instant startTime,
+            DataPlane dataPlane,
+            DrillContext drillContext,
             int workerId,
             AtomicInteger successCount,
             AtomicInteger failureCount,
@@ -148,7 +157,7 @@ public class PPAFForSessionConsistencyWorkload implements Workload {
         return executor.schedule(() -> {
             try {
                 WorkloadUtils.onCreateStopOnFirstFailure(
-                        container, cfg, startTime, cfg.getRunningTime(),
+                        dataPlane, drillContext,
                         workerId, successCount, failureCount,
                         isFailureDetected, sessionToken);
             } catch (InterruptedException e) {
@@ -159,9 +168,8 @@ public class PPAFForSessionConsistencyWorkload implements Workload {
 
     private ScheduledFuture<?> scheduleReadOperation(
             ScheduledThreadPoolExecutor executor,
-            CosmosAsyncContainer container,
-            Configuration cfg,
-            Instant startTime,
+            DataPlane dataPlane,
+            DrillContext drillContext,
             int workerId,
             AtomicInteger successCount,
             AtomicInteger failureCount,
@@ -170,7 +178,7 @@ public class PPAFForSessionConsistencyWorkload implements Workload {
         return executor.schedule(() -> {
             try {
                 WorkloadUtils.onSessionRead(
-                        container, cfg, startTime, cfg.getRunningTime(),
+                        dataPlane, drillContext,
                         workerId, successCount, failureCount,
                         "1", sessionToken);
             } catch (InterruptedException e) {
@@ -179,33 +187,8 @@ public class PPAFForSessionConsistencyWorkload implements Workload {
         }, 10, TimeUnit.MILLISECONDS);
     }
 
-    private void waitForCompletion(
-            ScheduledThreadPoolExecutor executor,
-            ScheduledFuture<?>[] futures,
-            Duration runDuration) {
-        try {
-            // Schedule shutdown task
-            executor.schedule(() -> {
-                logger.info("Workload duration completed, shutting down...");
-                for (ScheduledFuture<?> future : futures) {
-                    future.cancel(true);
-                }
-                executor.shutdown();
-            }, runDuration.toMillis(), TimeUnit.MILLISECONDS);
-
-            // Wait for completion
-            if (!executor.awaitTermination(runDuration.toMillis() + 5000, TimeUnit.MILLISECONDS)) {
-                logger.warn("Some tasks did not complete before the timeout. Force shutting down...");
-                executor.shutdownNow();
-            }
-        } catch (InterruptedException e) {
-            logger.error("Workload was interrupted", e);
-            Thread.currentThread().interrupt();
-        }
-    }
-
     @Override
-    public void execute(Configuration cfg) {
+    public void execute(Configuration cfg, LatencyIntervalListener latencyIntervalListener) {
         AtomicInteger createSuccessCount = new AtomicInteger(0);
         AtomicInteger createFailureCount = new AtomicInteger(0);
         AtomicInteger readSuccessCount = new AtomicInteger(0);
@@ -216,31 +199,117 @@ public class PPAFForSessionConsistencyWorkload implements Workload {
         int parallelism = cfg.getNumberOfThreads();
         ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(
                 2 * parallelism,
-                new CosmosDaemonThreadFactory("CosmosCreateExecutor")
+                WorkloadUtils.createWorkerThreadFactory(cfg, "CosmosCreateExecutor")
         );
         ScheduledFuture<?>[] futures = new ScheduledFuture[2 * parallelism];
 
         logger.info("Run Configurations : {}", cfg);
         CosmosAsyncClient cosmosAsyncClient = null;
+        LatencyRecorder latencyRecorder = new LatencyRecorder();
+
+        if (latencyIntervalListener != null) {
+            latencyRecorder.addIntervalListener(latencyIntervalListener);
+        }
+
+        DrillMetrics drillMetrics = new DrillMetrics(cfg);
+        KeySpace keySpace = KeySpace.fromConfiguration(cfg);
+        DrillLifecycle lifecycle = new DrillLifecycle(cfg.getRunningTime(), Duration.ofSeconds(cfg.getDrainTimeoutInSeconds()));
+        lifecycle.onClose(() -> {
+            latencyRecorder.stopIntervalReporting();
+            latencyRecorder.logSummary();
+        });
 
         try {
-            configureSystemProperties();
-            List<String> preferredRegions = Utils.getPreferredRegions(cfg);
-            cosmosAsyncClient = buildCosmosClient(cfg, preferredRegions);
-            CosmosAsyncContainer container = setupCosmosContainer(cosmosAsyncClient, cfg);
+            CosmosClientBootstrap cosmosClientBootstrap = null;
+            DataPlane dataPlane;
+
+            if (cfg.getDataPlaneType() == DataPlaneType.SIMULATOR) {
+                dataPlane = SimulatedDataPlane.fromConfiguration(cfg);
+            } else {
+                configureSystemProperties();
+                cosmosClientBootstrap = CosmosClientBootstrap.start(cfg, createCosmosClientBuilder(cfg), drillMetrics);
+                cosmosAsyncClient = cosmosClientBootstrap.getClient();
+                dataPlane = new CosmosDataPlane(cosmosClientBootstrap.getContainer());
+            }
+
+            // payloads are rendered before the run starts, while the container is provisioned and warmed up
+            DocumentGenerator documentGenerator = DocumentGenerator.fromConfiguration(cfg);
+
+            if (cosmosClientBootstrap != null) {
+                cosmosClientBootstrap.awaitReady();
+            }
+
+            dataPlane.upsertItem(DESIGNATED_BOOK).block();
 
             Instant startTime = Instant.now();
-            scheduleWorkloads(
-                    executor, futures, container, cfg, startTime,
-                    createSuccessCount, createFailureCount,
-                    readSuccessCount, readFailureCount,
-                    isFailureDetectedOnCreate, latestRecordedSessionTokenFromLatestCreate
-            );
-
-            waitForCompletion(executor, futures, cfg.getRunningTime());
+            lifecycle.start();
+            DrillEventSink drillEventSink = DrillEventSink.create(cfg, startTime, cfg.getRunningTime());
+            lifecycle.onClose(drillEventSink::close);
+            PacingController pacingController = new PacingController(cfg);
+            lifecycle.onClose(() -> {
+                pacingController.stopIntervalReporting();
+                pacingController.logSummary();
+            });
+            DiagnosticsSampler diagnosticsSampler = DiagnosticsSampler.fromConfiguration(cfg);
+            lifecycle.onClose(diagnosticsSampler::logSummary);
+
+            RecoveryAnalyzer recoveryAnalyzer = RecoveryAnalyzer.fromConfiguration(cfg);
+            lifecycle.onClose(() -> recoveryAnalyzer.writeReport(Paths.get(
+                    cfg.getDrillEventLogDirectory(),
+                    "ppaf_recovery_" + cfg.getDrillId() + "_" + startTime.toEpochMilli() + ".json")));
+            SessionConsistencyChecker sessionConsistencyChecker = null;
+
+            if (cfg.shouldCheckSessionConsistency()) {
+                sessionConsistencyChecker = SessionConsistencyChecker.fromConfiguration(cfg, drillMetrics, lifecycle);
+                lifecycle.onClose(sessionConsistencyChecker::logSummary);
+            }
+
+            DrillContext drillContext = DrillContext.builder()
+                    .cfg(cfg)
+                    .startTime(startTime)
+                    .runDuration(cfg.getRunningTime())
+                    .latencyRecorder(latencyRecorder)
+                    .drillEventSink(drillEventSink)
+                    .lifecycle(lifecycle)
+                    .pacingController(pacingController)
+                    .metrics(drillMetrics)
+                    .recoveryAnalyzer(recoveryAnalyzer)
+                    .diagnosticsSampler(diagnosticsSampler)
+                    .documentGenerator(documentGenerator)
+                    .keySpace(keySpace)
+                    .sessionConsistencyChecker(sessionConsistencyChecker)
+                    .build();
+
+            latencyRecorder.startIntervalReporting(Duration.ofSeconds(cfg.getLatencyReportingIntervalInSeconds()));
+            pacingController.startIntervalReporting(Duration.ofSeconds(cfg.getLatencyReportingIntervalInSeconds()));
+
+            if (cfg.getMetricsPort() > 0) {
+                MetricsServer metricsServer = MetricsServer.start(cfg.getMetricsPort(), drillMetrics);
+                lifecycle.onClose(metricsServer::close);
+            }
+
+            if (cfg.getExecutionMode() == ExecutionMode.OPEN_LOOP) {
+                startOpenLoopWorkloads(
+                        dataPlane, drillContext,
+                        createSuccessCount, createFailureCount,
+                        readSuccessCount, readFailureCount,
+                        isFailureDetectedOnCreate, latestRecordedSessionTokenFromLatestCreate
+                );
+            } else {
+                scheduleWorkloads(
+                        executor, futures, dataPlane, drillContext,
+                        createSuccessCount, createFailureCount,
+                        readSuccessCount, readFailureCount,
+                        isFailureDetectedOnCreate, latestRecordedSessionTokenFromLatestCreate
+                );
+            }
+
+            lifecycle.registerWorkers(executor, futures);
+            lifecycle.awaitCompletion();
             logger.info("Workload complete!");
 
         } finally {
+            lifecycle.close();
             WorkloadUtils.cleanUpSystemProperties(CONFIGURED_SYSTEM_PROPERTIES);
             if (cosmosAsyncClient != null) {
                 cosmosAsyncClient.close();
@@ -0,0 +1,156 @@
+package org.example;
+
+import com.azure.cosmos.implementation.CosmosDaemonThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// Owns one OperationPacer per operation type and reports the achieved against the target rate of each
+public class PacingController {
+
+    private static final Logger logger = LoggerFactory.getLogger(PacingController.class);
+
+    private final Configuration cfg;
+    private final long startNanos;
+    private final Map<String, OperationPacer> pacers = new ConcurrentHashMap<>();
+    private final Map<String, PacerSnapshot> lastReportedSnapshots = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService intervalReportingExecutor;
+    private long lastReportNanos;
+
+    public PacingController(Configuration cfg) {
+        this.cfg = cfg;
+        this.startNanos = System.nanoTime();
+        this.lastReportNanos = this.startNanos;
+    }
+
+    public OperationPacer getPacer(String operationType) {
+        return pacers.computeIfAbsent(
+                operationType,
+                opType -> new OperationPacer(opType, LoadProfile.fromConfiguration(cfg, opType), startNanos));
+    }
+
+    // Operations which aren't paced, such as change feed reads, have no pacer to report their outcome to
+    public void onCompleted(String operationType, boolean isSuccess, double requestCharge) {
+
+        OperationPacer pacer = pacers.get(operationType);
+
+        if (pacer != null) {
+            pacer.onCompleted(isSuccess, requestCharge);
+        }
+    }
+
+    public synchronized void startIntervalReporting(Duration reportingInterval) {
+
+        if (intervalReportingExecutor != null) {
+            return;
+        }
+
+        intervalReportingExecutor = new ScheduledThreadPoolExecutor(1, new CosmosDaemonThreadFactory("PacingReporter"));
+        intervalReportingExecutor.scheduleAtFixedRate(
+                this::logIntervalRates,
+                reportingInterval.toMillis(),
+                reportingInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stopIntervalReporting() {
+
+        if (intervalReportingExecutor != null) {
+            intervalReportingExecutor.shutdownNow();
+            intervalReportingExecutor = null;
+        }
+    }
+
+    public void logSummary() {
+
+        long nowNanos = System.nanoTime();
+        double elapsedSeconds = (nowNanos - startNanos) / 1e9;
+
+        for (OperationPacer pacer : pacers.values()) {
+            logger.info(
+                    "PacingSummary [operationType={}, loadProfile={}, {}]",
+                    pacer.getOperationType(),
+                    pacer.getLoadProfile().getLoadProfileType(),
+                    toRateString(PacerSnapshot.of(pacer, nowNanos), new PacerSnapshot(), elapsedSeconds));
+        }
+    }
+
+    private synchronized void logIntervalRates() {
+        try {
+            long nowNanos = System.nanoTime();
+            double intervalSeconds = (nowNanos - lastReportNanos) / 1e9;
+
+            for (OperationPacer pacer : pacers.values()) {
+
+                PacerSnapshot lastReported = lastReportedSnapshots.getOrDefault(pacer.getOperationType(), new PacerSnapshot());
+                PacerSnapshot current = PacerSnapshot.of(pacer, nowNanos);
+
+                logger.info(
+                        "PacingInterval [operationType={}, targetOpsPerSecNow={}, {}]",
+                        pacer.getOperationType(),
+                        String.format(Locale.ROOT, "%.1f", pacer.getLoadProfile().getOperationsPerSecond(nowNanos - startNanos)),
+                        toRateString(current, lastReported, intervalSeconds));
+
+                lastReportedSnapshots.put(pacer.getOperationType(), current);
+            }
+
+            lastReportNanos = nowNanos;
+        } catch (Exception e) {
+            logger.error("Failed to report interval rates", e);
+        }
+    }
+
+    private static String toRateString(PacerSnapshot current, PacerSnapshot previous, double seconds) {
+
+        double targetOpsPerSec = perSecond(current.expectedOperations - previous.expectedOperations, seconds);
+        double achievedOpsPerSec = perSecond(current.grantedCount - previous.grantedCount, seconds);
+        long completedCount = current.completedCount - previous.completedCount;
+        long failedCount = current.failedCount - previous.failedCount;
+
+        return "targetOpsPerSec=" + String.format(Locale.ROOT, "%.1f", targetOpsPerSec) + ", " +
+                "achievedOpsPerSec=" + String.format(Locale.ROOT, "%.1f", achievedOpsPerSec) + ", " +
+                "achievedToTargetRatio=" + (targetOpsPerSec > 0 ? String.format(Locale.ROOT, "%.3f", achievedOpsPerSec / targetOpsPerSec) : "n/a") + ", " +
+                "failureRatio=" + (completedCount > 0 ? String.format(Locale.ROOT, "%.4f", (double) failedCount / completedCount) : "n/a") + ", " +
+                "requestUnitsPerSec=" + String.format(Locale.ROOT, "%.1f", perSecond(current.requestCharge - previous.requestCharge, seconds)) + ", " +
+                "writtenDocsPerSec=" + String.format(Locale.ROOT, "%.1f", perSecond(current.writtenDocuments - previous.writtenDocuments, seconds)) + ", " +
+                "writtenBytesPerSec=" + String.format(Locale.ROOT, "%.0f", perSecond(current.writtenBytes - previous.writtenBytes, seconds));
+    }
+
+    private static double perSecond(double count, double seconds) {
+        return seconds > 0 ? count / seconds : 0;
+    }
+
+    private static class PacerSnapshot {
+
+        private long grantedCount = 0;
+        private double expectedOperations = 0;
+        private long completedCount = 0;
+        private long failedCount = 0;
+        private double requestCharge = 0;
+        private long writtenDocuments = 0;
+        private long writtenBytes = 0;
+
+        private static PacerSnapshot of(OperationPacer pacer, long nanoTime) {
+
+            PacerSnapshot snapshot = new PacerSnapshot();
+
+            snapshot.grantedCount = pacer.getGrantedCount();
+            snapshot.expectedOperations = pacer.getExpectedOperations(nanoTime);
+            snapshot.completedCount = pacer.getCompletedCount();
+            snapshot.failedCount = pacer.getFailedCount();
+            snapshot.requestCharge = pacer.getRequestCharge();
+            snapshot.writtenDocuments = pacer.getWrittenDocuments();
+            snapshot.writtenBytes = pacer.getWrittenBytes();
+
+            return snapshot;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package org.example;
+
+import com.azure.cosmos.CosmosDiagnostics;
+import com.azure.cosmos.CosmosDiagnosticsContext;
+import com.azure.cosmos.CosmosDiagnosticsRequestInfo;
+
+import java.util.Collection;
+
+// Takes the id of the partition key range (physical partition) that served an operation from what the operation
+// returned. Ids are the ones the service assigns, so they match the ones in diagnostics and session tokens and
+// follow splits.
+public final class PartitionKeyRangeIds {
+
+    // ids below this are interned so the lookup doesn't allocate per operation
+    private static final int CACHED_ID_COUNT = 1024;
+    // benign races, at worst an id is created more than once
+    private static final String[] CACHED_IDS = new String[CACHED_ID_COUNT];
+
+    private PartitionKeyRangeIds() {}
+
+    // A session token of a single partition key range starts with "<partitionKeyRangeId>:". Null without a token
+    // and for tokens of several ranges, which only cross partition operations return.
+    public static String fromSessionToken(String sessionToken) {
+
+        if (sessionToken == null || sessionToken.indexOf(',') >= 0) {
+            return null;
+        }
+
+        int separator = sessionToken.indexOf(':');
+
+        if (separator <= 0 || separator > 9) {
+            return null;
+        }
+
+        int partitionKeyRangeId = 0;
+
+        for (int i = 0; i < separator; i++) {
+
+            char c = sessionToken.charAt(i);
+
+            if (c < '0' || c > '9') {
+                return null;
+            }
+
+            partitionKeyRangeId = partitionKeyRangeId * 10 + (c - '0');
+        }
+
+        if (partitionKeyRangeId >= CACHED_ID_COUNT) {
+            return sessionToken.substring(0, separator);
+        }
+
+        String id = CACHED_IDS[partitionKeyRangeId];
+
+        if (id == null) {
+            id = String.valueOf(partitionKeyRangeId);
+            CACHED_IDS[partitionKeyRangeId] = id;
+        }
+
+        return id;
+    }
+
+    // The range of the last request the SDK sent, which is the one that served the operation after any retries.
+    // Null without diagnostics or when no request got to a range.
+    public static String fromDiagnostics(CosmosDiagnostics cosmosDiagnostics) {
+
+        CosmosDiagnosticsContext diagnosticsContext = cosmosDiagnostics != null ? cosmosDiagnostics.getDiagnosticsContext() : null;
+        Collection<CosmosDiagnosticsRequestInfo> requestInfos = diagnosticsContext != null ? diagnosticsContext.getRequestInfo() : null;
+
+        if (requestInfos == null) {
+            return null;
+        }
+
+        String partitionKeyRangeId = null;
+
+        for (CosmosDiagnosticsRequestInfo requestInfo : requestInfos) {
+            if (requestInfo.getPartitionKeyRangeId() != null) {
+                partitionKeyRangeId = requestInfo.getPartitionKeyRangeId();
+            }
+        }
+
+        return partitionKeyRangeId;
+    }
+}
@@ -0,0 +1,384 @@
+package org.example;
+
+import com.azure.cosmos.CosmosDiagnostics;
+import com.azure.cosmos.implementation.CosmosDaemonThreadFactory;
+import com.azure.cosmos.models.SqlParameter;
+import com.azure.cosmos.models.SqlQuerySpec;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+// Prepares the queries of the query workload, cycling through the configured shapes, and records every page of
+// them: its latency, request charge and, for the first page, the time to first page. Each shape is logged per
+// reporting interval as a QueryInterval line, so cross partition shapes can be lined up against POINT queries and
+// the fault phases while a partition fails over.
+//
+// PAGED queries share one continuation token, each reads the page after the one the previous query read and the scan
+// starts over after its last page. Concurrent PAGED queries can read the same page.
+public class QueryEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(QueryEngine.class);
+
+    private static final int NUMBER_OF_SIGNIFICANT_VALUE_DIGITS = 3;
+
+    private static final Duration AGGREGATE_WINDOW = Duration.ofMinutes(1);
+
+    private final List<QueryShape> queryShapes;
+    private final int pageSize;
+    private final DrillMetrics metrics;
+
+    // queries without parameter values of their own share these
+    private final SqlQuerySpec orderByQuerySpec;
+    private final SqlQuerySpec pagedQuerySpec;
+
+    private final AtomicLong queryCount = new AtomicLong(0);
+    private final AtomicReference<String> pagedContinuationToken = new AtomicReference<>();
+
+    // fixed after construction
+    private final Map<QueryShape, ShapeStats> shapeStats = new EnumMap<>(QueryShape.class);
+
+    private ScheduledExecutorService intervalReportingExecutor;
+
+    public QueryEngine(List<QueryShape> queryShapes, int pageSize, DrillMetrics metrics) {
+
+        if (queryShapes.isEmpty()) {
+            throw new IllegalArgumentException("queryShapes should name at least one query shape");
+        }
+
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("queryPageSize should be greater than 0");
+        }
+
+        this.queryShapes = List.copyOf(queryShapes);
+        this.pageSize = pageSize;
+        this.metrics = metrics;
+        this.orderByQuerySpec = new SqlQuerySpec(QueryShape.ORDER_BY.getQueryText(), new SqlParameter("@top", pageSize));
+        this.pagedQuerySpec = new SqlQuerySpec(QueryShape.PAGED.getQueryText());
+
+        for (QueryShape queryShape : queryShapes) {
+            shapeStats.put(queryShape, new ShapeStats());
+        }
+    }
+
+    public static QueryEngine fromConfiguration(Configuration cfg, DrillMetrics metrics) {
+        return new QueryEngine(parseQueryShapes(cfg.getQueryShapes()), cfg.getQueryPageSize(), metrics);
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    // Null when the shape needs a persisted id and none is persisted yet
+    public QueryExecution nextQuery(IdReservoir successfullyPersistedIds, KeySpace keySpace, long operationStartNanos) {
+
+        QueryShape queryShape = queryShapes.get((int) Math.floorMod(queryCount.getAndIncrement(), (long) queryShapes.size()));
+
+        switch (queryShape) {
+            case POINT:
+            case CROSS_PARTITION: {
+
+                String id = successfullyPersistedIds.sample();
+
+                if (id == null) {
+                    return null;
+                }
+
+                return new QueryExecution(
+                        queryShape,
+                        new SqlQuerySpec(queryShape.getQueryText(), new SqlParameter("@id", id)),
+                        queryShape == QueryShape.POINT ? keySpace.getPartitionKeyValue(id) : null,
+                        null,
+                        Integer.MAX_VALUE,
+                        operationStartNanos);
+            }
+            case ORDER_BY:
+                return new QueryExecution(queryShape, orderByQuerySpec, null, null, Integer.MAX_VALUE, operationStartNanos);
+            case AGGREGATE:
+                return new QueryExecution(
+                        queryShape,
+                        new SqlQuerySpec(
+                                queryShape.getQueryText(),
+                                new SqlParameter("@since", TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()) - AGGREGATE_WINDOW.getSeconds())),
+                        null,
+                        null,
+                        Integer.MAX_VALUE,
+                        operationStartNanos);
+            default:
+                return new QueryExecution(queryShape, pagedQuerySpec, null, pagedContinuationToken.get(), 1, operationStartNanos);
+        }
+    }
+
+    public void onPage(QueryExecution execution, QueryPage page) {
+
+        long nowNanos = System.nanoTime();
+        long pageLatencyNanos = nowNanos - execution.lastPageNanos;
+        boolean isFirstPage = execution.pageCount == 0;
+        DataPlaneResponse response = page.getResponse();
+
+        execution.pageCount++;
+        execution.lastPageNanos = nowNanos;
+        execution.requestCharge += response.getRequestCharge();
+        execution.contactedRegionNames.addAll(response.getContactedRegionNames());
+        execution.sessionToken = response.getSessionToken();
+        execution.cosmosDiagnostics = response.getCosmosDiagnostics();
+        execution.nextContinuationToken = page.getContinuationToken();
+
+        ShapeStats stats = shapeStats.get(execution.queryShape);
+        long pageLatencyMicros = Math.max(0, TimeUnit.NANOSECONDS.toMicros(pageLatencyNanos));
+
+        stats.pageCount.increment();
+        stats.requestCharge.add(response.getRequestCharge());
+        stats.pageLatencyRecorder.recordValue(pageLatencyMicros);
+
+        if (isFirstPage) {
+            stats.timeToFirstPageRecorder.recordValue(pageLatencyMicros);
+        }
+
+        metrics.recordQueryPage(execution.queryShape, isFirstPage, pageLatencyNanos, response.getRequestCharge());
+    }
+
+    public void onCompleted(QueryExecution execution, boolean isSuccess, boolean isAvailabilityRelatedFailure) {
+
+        ShapeStats stats = shapeStats.get(execution.queryShape);
+
+        stats.queryCount.increment();
+
+        if (isSuccess) {
+            metrics.recordQuery(execution.queryShape, "success");
+
+            if (execution.queryShape == QueryShape.PAGED) {
+                pagedContinuationToken.set(execution.nextContinuationToken);
+            }
+        } else if (isAvailabilityRelatedFailure) {
+            stats.failureCount.increment();
+            stats.availabilityFailureCount.increment();
+            metrics.recordQuery(execution.queryShape, "availability_failure");
+        } else {
+            stats.failureCount.increment();
+            metrics.recordQuery(execution.queryShape, "failure");
+        }
+    }
+
+    public synchronized void startIntervalReporting(Duration reportingInterval) {
+
+        if (intervalReportingExecutor != null) {
+            return;
+        }
+
+        intervalReportingExecutor = new ScheduledThreadPoolExecutor(1, new CosmosDaemonThreadFactory("QueryReporter"));
+        intervalReportingExecutor.scheduleAtFixedRate(
+                this::logInterval,
+                reportingInterval.toMillis(),
+                reportingInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stopIntervalReporting() {
+
+        if (intervalReportingExecutor != null) {
+            intervalReportingExecutor.shutdownNow();
+            intervalReportingExecutor = null;
+        }
+    }
+
+    public synchronized void logSummary() {
+
+        for (Map.Entry<QueryShape, ShapeStats> entry : shapeStats.entrySet()) {
+
+            ShapeStats stats = entry.getValue();
+
+            stats.foldInterval();
+
+            logger.info(
+                    "QuerySummary [shape={}, {}, timeToFirstPage=[{}], pageLatency=[{}]]",
+                    entry.getKey(),
+                    toCountString(stats.cumulativeQueryCount, stats.cumulativeFailureCount, stats.cumulativeAvailabilityFailureCount, stats.cumulativePageCount, stats.cumulativeRequestCharge),
+                    LatencyRecorder.toPercentileString(stats.cumulativeTimeToFirstPageHistogram),
+                    LatencyRecorder.toPercentileString(stats.cumulativePageLatencyHistogram));
+        }
+    }
+
+    private synchronized void logInterval() {
+        try {
+            for (Map.Entry<QueryShape, ShapeStats> entry : shapeStats.entrySet()) {
+
+                IntervalStats interval = entry.getValue().foldInterval();
+
+                logger.info(
+                        "QueryInterval [shape={}, {}, timeToFirstPage=[{}], pageLatency=[{}]]",
+                        entry.getKey(),
+                        toCountString(interval.queryCount, interval.failureCount, interval.availabilityFailureCount, interval.pageCount, interval.requestCharge),
+                        LatencyRecorder.toPercentileString(interval.timeToFirstPageHistogram),
+                        LatencyRecorder.toPercentileString(interval.pageLatencyHistogram));
+            }
+        } catch (Exception e) {
+            logger.error("Failed to report query intervals", e);
+        }
+    }
+
+    private static String toCountString(long queryCount, long failureCount, long availabilityFailureCount, long pageCount, double requestCharge) {
+        return "queries=" + queryCount
+                + ", failures=" + failureCount
+                + ", availabilityFailures=" + availabilityFailureCount
+                + ", pagesPerQuery=" + String.format(Locale.ROOT, "%.2f", queryCount == 0 ? 0.0 : (double) pageCount / queryCount)
+                + ", requestChargePerPage=" + String.format(Locale.ROOT, "%.2f", pageCount == 0 ? 0.0 : requestCharge / pageCount);
+    }
+
+    static List<QueryShape> parseQueryShapes(String commaSeparatedQueryShapes) {
+
+        List<QueryShape> parsedQueryShapes = new ArrayList<>();
+
+        for (String queryShape : commaSeparatedQueryShapes.split(",")) {
+
+            String normalizedQueryShape = queryShape.trim().toUpperCase(Locale.ROOT).replace(" ", "_").replace("-", "_");
+
+            if (normalizedQueryShape.isEmpty()) {
+                continue;
+            }
+
+            try {
+                parsedQueryShapes.add(QueryShape.valueOf(normalizedQueryShape));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid query shape '" + queryShape.trim() + "', expected one of POINT, CROSS_PARTITION, ORDER_BY, AGGREGATE or PAGED");
+            }
+        }
+
+        return parsedQueryShapes;
+    }
+
+    // The state of one query, its pages are emitted one after the other
+    public static class QueryExecution {
+
+        private final QueryShape queryShape;
+        private final SqlQuerySpec querySpec;
+        private final String partitionKeyValue;
+        private final String continuationToken;
+        private final int maxPageCount;
+
+        private final Set<String> contactedRegionNames = new LinkedHashSet<>();
+        private int pageCount;
+        private long lastPageNanos;
+        private double requestCharge;
+        private String sessionToken;
+        private CosmosDiagnostics cosmosDiagnostics;
+        private String nextContinuationToken;
+
+        private QueryExecution(
+                QueryShape queryShape,
+                SqlQuerySpec querySpec,
+                String partitionKeyValue,
+                String continuationToken,
+                int maxPageCount,
+                long operationStartNanos) {
+
+            this.queryShape = queryShape;
+            this.querySpec = querySpec;
+            this.partitionKeyValue = partitionKeyValue;
+            this.continuationToken = continuationToken;
+            this.maxPageCount = maxPageCount;
+            this.lastPageNanos = operationStartNanos;
+        }
+
+        public QueryShape getQueryShape() { return queryShape; }
+        public SqlQuerySpec getQuerySpec() { return querySpec; }
+        // null for queries across partitions
+        public String getPartitionKeyValue() { return partitionKeyValue; }
+        public String getContinuationToken() { return continuationToken; }
+        public int getMaxPageCount() { return maxPageCount; }
+
+        // The query as a whole: the request charge of all pages, the regions any page contacted and the session
+        // token and diagnostics of the last page
+        public DataPlaneResponse toResponse() {
+            return new DataPlaneResponse(200, contactedRegionNames, sessionToken, requestCharge, cosmosDiagnostics);
+        }
+    }
+
+    private static class ShapeStats {
+
+        private final LongAdder queryCount = new LongAdder();
+        private final LongAdder failureCount = new LongAdder();
+        private final LongAdder availabilityFailureCount = new LongAdder();
+        private final LongAdder pageCount = new LongAdder();
+        private final DoubleAdder requestCharge = new DoubleAdder();
+        private final Recorder timeToFirstPageRecorder = new Recorder(NUMBER_OF_SIGNIFICANT_VALUE_DIGITS);
+        private final Recorder pageLatencyRecorder = new Recorder(NUMBER_OF_SIGNIFICANT_VALUE_DIGITS);
+
+        // guarded by the engine
+        private long cumulativeQueryCount;
+        private long cumulativeFailureCount;
+        private long cumulativeAvailabilityFailureCount;
+        private long cumulativePageCount;
+        private double cumulativeRequestCharge;
+        private final Histogram cumulativeTimeToFirstPageHistogram = new Histogram(NUMBER_OF_SIGNIFICANT_VALUE_DIGITS);
+        private final Histogram cumulativePageLatencyHistogram = new Histogram(NUMBER_OF_SIGNIFICANT_VALUE_DIGITS);
+
+        // Takes the interval since the last fold and adds it to the cumulative stats
+        IntervalStats foldInterval() {
+
+            IntervalStats interval = new IntervalStats(
+                    queryCount.sumThenReset(),
+                    failureCount.sumThenReset(),
+                    availabilityFailureCount.sumThenReset(),
+                    pageCount.sumThenReset(),
+                    requestCharge.sumThenReset(),
+                    timeToFirstPageRecorder.getIntervalHistogram(),
+                    pageLatencyRecorder.getIntervalHistogram());
+
+            cumulativeQueryCount += interval.queryCount;
+            cumulativeFailureCount += interval.failureCount;
+            cumulativeAvailabilityFailureCount += interval.availabilityFailureCount;
+            cumulativePageCount += interval.pageCount;
+            cumulativeRequestCharge += interval.requestCharge;
+            cumulativeTimeToFirstPageHistogram.add(interval.timeToFirstPageHistogram);
+            cumulativePageLatencyHistogram.add(interval.pageLatencyHistogram);
+
+            return interval;
+        }
+    }
+
+    private static class IntervalStats {
+
+        private final long queryCount;
+        private final long failureCount;
+        private final long availabilityFailureCount;
+        private final long pageCount;
+        private final double requestCharge;
+        private final Histogram timeToFirstPageHistogram;
+        private final Histogram pageLatencyHistogram;
+
+        IntervalStats(
+                long queryCount,
+                long failureCount,
+                long availabilityFailureCount,
+                long pageCount,
+                double requestCharge,
+                Histogram timeToFirstPageHistogram,
+                Histogram pageLatencyHistogram) {
+
+            this.queryCount = queryCount;
+            this.failureCount = failureCount;
+            this.availabilityFailureCount = availabilityFailureCount;
+            this.pageCount = pageCount;
+            this.requestCharge = requestCharge;
+            this.timeToFirstPageHistogram = timeToFirstPageHistogram;
+            this.pageLatencyHistogram = pageLatencyHistogram;
+        }
+    }
+}
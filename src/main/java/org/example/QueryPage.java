@@ -0,0 +1,16 @@
+package org.example;
+
+// One page of a query, the continuation token resumes the query after it and is null on its last page
+public class QueryPage {
+
+    private final String continuationToken;
+    private final DataPlaneResponse response;
+
+    public QueryPage(String continuationToken, DataPlaneResponse response) {
+        this.continuationToken = continuationToken;
+        this.response = response;
+    }
+
+    public String getContinuationToken() { return continuationToken; }
+    public DataPlaneResponse getResponse() { return response; }
+}
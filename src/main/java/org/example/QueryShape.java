@@ -0,0 +1,26 @@
+package org.example;
+
+// The queries of the query workload, parameterized so that each text is prepared once per drill and queries only
+// bind their parameter values
+public enum QueryShape {
+    // a persisted document by id within its partition key
+    POINT("SELECT * FROM c WHERE c.id = @id"),
+    // the same lookup without a partition key, fanned out to every partition key range
+    CROSS_PARTITION("SELECT * FROM c WHERE c.id = @id"),
+    // the most recently written documents across partitions
+    ORDER_BY("SELECT TOP @top c.id, c._ts FROM c ORDER BY c._ts DESC"),
+    // a count of the documents written recently across partitions
+    AGGREGATE("SELECT VALUE COUNT(1) FROM c WHERE c._ts >= @since"),
+    // one page of a scan across partitions per query, continuing where the previous query's page ended
+    PAGED("SELECT c.id FROM c");
+
+    private final String queryText;
+
+    QueryShape(String queryText) {
+        this.queryText = queryText;
+    }
+
+    public String getQueryText() {
+        return queryText;
+    }
+}
@@ -0,0 +1,488 @@
+package org.example;
+
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+// Computes the failover and failback windows of each operation type from the stream of completed operations,
+// either live (fed from the response path of the workloads) or replayed from a drill log. Live, the response path only
+// copies each operation into a slot of an MpscRingBuffer, a background aggregator thread tracks the transitions, the
+// same way RingBufferDrillEventSink hands events to its writer. Operations arriving while the aggregator is a full ring
+// behind are dropped and counted in the report.
+//
+// A transition starts with the first availability related failure (408 / 503, as in
+// WorkloadUtils.isAvailabilityRelatedFailure) and is dated back to when that operation was issued.
+// - time to detect   - until the first availability failure was surfaced to the caller
+// - time to failover - until the first success contacting a region outside the regions served from before the failure
+// - time to recover  - until the first success after the last availability failure of the transition, the
+//                      transition is considered over once no availability failure is seen for the quiet period
+// - time to failback - until the first success served from the original regions again after a failover
+//
+// Usage: java -cp <jar> org.example.RecoveryAnalyzer <drill log> [report file] [availability target] [quiet period in seconds]
+public class RecoveryAnalyzer {
+
+    private static final Logger logger = LoggerFactory.getLogger(RecoveryAnalyzer.class);
+
+    private final String drillId;
+    private final double availabilityTarget;
+    private final long quietPeriodMillis;
+
+    // guarded by this
+    private final Map<String, OperationTracker> operationTrackers = new TreeMap<>();
+
+    // null when operations are analyzed on the caller's thread, as when replaying a drill log
+    private final MpscRingBuffer<OperationSlot> ringBuffer;
+
+    // ringBufferSize 0 analyzes each operation on the caller's thread, otherwise it is rounded up to a power of 2
+    public RecoveryAnalyzer(String drillId, double availabilityTarget, Duration quietPeriod, int ringBufferSize) {
+
+        if (availabilityTarget <= 0 || availabilityTarget >= 1) {
+            throw new IllegalArgumentException("availabilityTarget should be between 0 and 1");
+        }
+
+        if (ringBufferSize < 0) {
+            throw new IllegalArgumentException("ringBufferSize should not be negative");
+        }
+
+        this.drillId = drillId;
+        this.availabilityTarget = availabilityTarget;
+        this.quietPeriodMillis = quietPeriod.toMillis();
+
+        if (ringBufferSize == 0) {
+            this.ringBuffer = null;
+            return;
+        }
+
+        this.ringBuffer = new MpscRingBuffer<>(ringBufferSize, OperationSlot::new);
+        this.ringBuffer.start("RecoveryAnalyzer", this::onSlot, () -> {});
+    }
+
+    public static RecoveryAnalyzer fromConfiguration(Configuration cfg) {
+        return new RecoveryAnalyzer(
+                cfg.getDrillId(),
+                cfg.getAvailabilityTarget(),
+                Duration.ofSeconds(cfg.getRecoveryQuietPeriodInSeconds()),
+                cfg.getDrillEventRingBufferSize());
+    }
+
+    public static void main(String[] args) throws IOException {
+
+        if (args.length < 1) {
+            System.err.println("Usage: RecoveryAnalyzer <drill log> [report file] [availability target] [quiet period in seconds]");
+            System.exit(1);
+        }
+
+        Path drillLogPath = Paths.get(args[0]);
+        Path reportPath = args.length > 1
+                ? Paths.get(args[1])
+                : drillLogPath.resolveSibling(drillLogPath.getFileName() + ".recovery.json");
+        double availabilityTarget = args.length > 2 ? Double.parseDouble(args[2]) : 0.999;
+        Duration quietPeriod = Duration.ofSeconds(args.length > 3 ? Long.parseLong(args[3]) : 30);
+
+        RecoveryAnalyzer recoveryAnalyzer = new RecoveryAnalyzer(drillLogPath.getFileName().toString(), availabilityTarget, quietPeriod, 0);
+        long recordCount = 0;
+
+        try (BufferedReader reader = Files.newBufferedReader(drillLogPath, StandardCharsets.UTF_8)) {
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                DrillLogRecord drillLogRecord = DrillLogRecord.parse(line);
+
+                if (drillLogRecord != null) {
+                    recoveryAnalyzer.onOperation(drillLogRecord);
+                    recordCount++;
+                }
+            }
+        }
+
+        logger.info("Replayed {} operations from {}", recordCount, drillLogPath);
+
+        recoveryAnalyzer.writeReport(reportPath);
+    }
+
+    public void onOperation(DrillLogRecord drillLogRecord) {
+        onOperation(
+                drillLogRecord.getTimeOfResponseEpochMillis(),
+                drillLogRecord.getOperationType(),
+                drillLogRecord.getStatusCode(),
+                drillLogRecord.getLatencyMicros(),
+                drillLogRecord.getCommaSeparatedContactedRegions());
+    }
+
+    // Never blocks, with a ring buffer the operation is only handed over to the aggregator thread
+    public void onOperation(
+            long timeOfResponseEpochMillis,
+            String operationType,
+            int statusCode,
+            long latencyMicros,
+            String commaSeparatedContactedRegions) {
+
+        if (ringBuffer == null) {
+            analyze(timeOfResponseEpochMillis, operationType, statusCode, latencyMicros, commaSeparatedContactedRegions);
+            return;
+        }
+
+        OperationSlot slot = ringBuffer.claim();
+
+        if (slot == null) {
+            return;
+        }
+
+        slot.timeOfResponseEpochMillis = timeOfResponseEpochMillis;
+        slot.operationType = operationType;
+        slot.statusCode = statusCode;
+        slot.latencyMicros = latencyMicros;
+        slot.commaSeparatedContactedRegions = commaSeparatedContactedRegions;
+        ringBuffer.publish(slot);
+    }
+
+    // Analyzes the operations handed over so far and stops the aggregator thread
+    public void close() {
+        if (ringBuffer != null) {
+            ringBuffer.close();
+        }
+    }
+
+    public void writeReport(Path reportPath) {
+
+        close();
+
+        String report = toJson();
+
+        try {
+            if (reportPath.getParent() != null) {
+                Files.createDirectories(reportPath.getParent());
+            }
+
+            Files.write(reportPath, report.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to write recovery report " + reportPath, e);
+        }
+
+        logger.info("RecoveryReport written to {} : {}", reportPath, report);
+    }
+
+    public synchronized String toJson() {
+
+        StringBuilder json = new StringBuilder(1024);
+
+        json.append('{');
+        appendStringField(json, "drillId", drillId, false);
+        appendStringField(json, "generatedAt", Instant.now().toString(), true);
+        json.append(",\"availabilityTarget\":").append(availabilityTarget);
+        json.append(",\"quietPeriodMillis\":").append(quietPeriodMillis);
+        json.append(",\"droppedOperations\":").append(ringBuffer != null ? ringBuffer.getDroppedCount() : 0);
+        json.append(",\"operations\":[");
+
+        boolean isFirstOperation = true;
+
+        for (OperationTracker operationTracker : operationTrackers.values()) {
+            if (!isFirstOperation) {
+                json.append(',');
+            }
+
+            operationTracker.appendJson(json);
+            isFirstOperation = false;
+        }
+
+        json.append("]}");
+
+        return json.toString();
+    }
+
+    private synchronized void analyze(
+            long timeOfResponseEpochMillis,
+            String operationType,
+            int statusCode,
+            long latencyMicros,
+            String commaSeparatedContactedRegions) {
+
+        operationTrackers
+                .computeIfAbsent(operationType, OperationTracker::new)
+                .onOperation(timeOfResponseEpochMillis, statusCode, latencyMicros, commaSeparatedContactedRegions);
+    }
+
+    private void onSlot(OperationSlot slot) {
+        analyze(slot.timeOfResponseEpochMillis, slot.operationType, slot.statusCode, slot.latencyMicros, slot.commaSeparatedContactedRegions);
+        slot.operationType = null;
+        slot.commaSeparatedContactedRegions = null;
+    }
+
+    private static boolean isAvailabilityRelatedFailure(int statusCode) {
+        return statusCode == 503 || statusCode == 408;
+    }
+
+    private static boolean isSuccess(int statusCode) {
+        return statusCode >= 200 && statusCode < 300;
+    }
+
+    private static Set<String> toRegionSet(String commaSeparatedContactedRegions) {
+
+        Set<String> regions = new TreeSet<>();
+
+        if (commaSeparatedContactedRegions != null) {
+            for (String region : commaSeparatedContactedRegions.split(",")) {
+                if (!region.trim().isEmpty()) {
+                    regions.add(region.trim());
+                }
+            }
+        }
+
+        return regions;
+    }
+
+    private static void appendStringField(StringBuilder json, String name, String value, boolean isSeparatorNeeded) {
+
+        if (isSeparatorNeeded) {
+            json.append(',');
+        }
+
+        json.append('"').append(name).append("\":");
+        JsonStrings.appendQuoted(json, value);
+    }
+
+    private static void appendNullableLongField(StringBuilder json, String name, Long value) {
+        json.append(",\"").append(name).append("\":").append(value != null ? value.toString() : "null");
+    }
+
+    private class OperationTracker {
+
+        private final String operationType;
+        private final List<Transition> transitions = new ArrayList<>();
+
+        private long operationCount = 0;
+        private long availabilityFailureCount = 0;
+        private Set<String> lastSuccessRegions = null;
+
+        // the contacted regions rarely change between operations, they are only parsed again when they do
+        private String lastCommaSeparatedContactedRegions = null;
+        private Set<String> lastContactedRegions = toRegionSet(null);
+
+        private Transition openTransition = null;
+        private Transition transitionAwaitingFailback = null;
+
+        private OperationTracker(String operationType) {
+            this.operationType = operationType;
+        }
+
+        private void onOperation(long timeOfResponseEpochMillis, int statusCode, long latencyMicros, String commaSeparatedContactedRegions) {
+
+            operationCount++;
+
+            boolean isAvailabilityRelatedFailure = isAvailabilityRelatedFailure(statusCode);
+            Set<String> regions = toContactedRegions(commaSeparatedContactedRegions);
+
+            if (isAvailabilityRelatedFailure) {
+                availabilityFailureCount++;
+            }
+
+            if (openTransition != null
+                    && !isAvailabilityRelatedFailure
+                    && timeOfResponseEpochMillis - openTransition.lastFailureEpochMillis >= quietPeriodMillis) {
+                closeOpenTransition();
+            }
+
+            if (openTransition == null) {
+
+                if (isAvailabilityRelatedFailure) {
+                    openTransition = new Transition(timeOfResponseEpochMillis, latencyMicros, lastSuccessRegions);
+                    transitionAwaitingFailback = null;
+                    transitions.add(openTransition);
+                } else if (isSuccess(statusCode)) {
+                    onSuccessOutsideOfTransition(timeOfResponseEpochMillis, regions);
+                }
+
+                return;
+            }
+
+            openTransition.onOperation(timeOfResponseEpochMillis, statusCode, latencyMicros, regions, isAvailabilityRelatedFailure);
+        }
+
+        private Set<String> toContactedRegions(String commaSeparatedContactedRegions) {
+
+            if (!Objects.equals(commaSeparatedContactedRegions, lastCommaSeparatedContactedRegions)) {
+                lastCommaSeparatedContactedRegions = commaSeparatedContactedRegions;
+                lastContactedRegions = toRegionSet(commaSeparatedContactedRegions);
+            }
+
+            return lastContactedRegions;
+        }
+
+        private void onSuccessOutsideOfTransition(long timeOfResponseEpochMillis, Set<String> regions) {
+
+            if (transitionAwaitingFailback != null && transitionAwaitingFailback.baselineRegions.containsAll(regions)) {
+                transitionAwaitingFailback.failbackEpochMillis = timeOfResponseEpochMillis;
+                transitionAwaitingFailback = null;
+            }
+
+            lastSuccessRegions = regions;
+        }
+
+        private void closeOpenTransition() {
+
+            openTransition.close();
+
+            if (openTransition.firstFailoverEpochMillis != null && openTransition.failbackEpochMillis == null) {
+                transitionAwaitingFailback = openTransition;
+            }
+
+            if (openTransition.lastSuccessRegions != null) {
+                lastSuccessRegions = openTransition.lastSuccessRegions;
+            }
+
+            openTransition = null;
+        }
+
+        private void appendJson(StringBuilder json) {
+
+            double errorBudget = (1 - availabilityTarget) * operationCount;
+
+            json.append('{');
+            appendStringField(json, "operationType", operationType, false);
+            json.append(",\"operations\":").append(operationCount);
+            json.append(",\"availabilityFailures\":").append(availabilityFailureCount);
+            json.append(",\"errorBudgetOperations\":").append(String.format(Locale.ROOT, "%.3f", errorBudget));
+            json.append(",\"errorBudgetConsumedRatio\":").append(errorBudget > 0 ? String.format(Locale.ROOT, "%.3f", availabilityFailureCount / errorBudget) : "null");
+            json.append(",\"transitions\":[");
+
+            for (int i = 0; i < transitions.size(); i++) {
+                if (i > 0) {
+                    json.append(',');
+                }
+
+                transitions.get(i).appendJson(json, errorBudget);
+            }
+
+            json.append("]}");
+        }
+    }
+
+    private static class OperationSlot extends MpscRingBuffer.Slot {
+
+        private long timeOfResponseEpochMillis;
+        private String operationType;
+        private int statusCode;
+        private long latencyMicros;
+        private String commaSeparatedContactedRegions;
+    }
+
+    private static class Transition {
+
+        private final long startEpochMillis;
+        private final long firstFailureEpochMillis;
+        private final Set<String> baselineRegions;
+        private final Histogram latencyHistogram = new Histogram(3);
+
+        // operations after the last availability failure only belong to the transition if another one follows
+        private final Histogram pendingLatencyHistogram = new Histogram(3);
+        private long pendingOperationCount = 0;
+        private Long firstSuccessAfterLastFailureEpochMillis = null;
+
+        private long lastFailureEpochMillis;
+        private long operationCount = 1;
+        private long availabilityFailureCount = 1;
+        private Long firstFailoverEpochMillis = null;
+        private Set<String> failoverRegions = null;
+        private Long recoveredEpochMillis = null;
+        private Long failbackEpochMillis = null;
+        private Set<String> lastSuccessRegions = null;
+
+        private Transition(long firstFailureEpochMillis, long latencyMicros, Set<String> baselineRegions) {
+            this.startEpochMillis = firstFailureEpochMillis - latencyMicros / 1000;
+            this.firstFailureEpochMillis = firstFailureEpochMillis;
+            this.lastFailureEpochMillis = firstFailureEpochMillis;
+            this.baselineRegions = baselineRegions;
+            this.latencyHistogram.recordValue(latencyMicros);
+        }
+
+        private void onOperation(
+                long timeOfResponseEpochMillis,
+                int statusCode,
+                long latencyMicros,
+                Set<String> regions,
+                boolean isAvailabilityRelatedFailure) {
+
+            if (isAvailabilityRelatedFailure) {
+                latencyHistogram.add(pendingLatencyHistogram);
+                pendingLatencyHistogram.reset();
+                operationCount += pendingOperationCount + 1;
+                pendingOperationCount = 0;
+                firstSuccessAfterLastFailureEpochMillis = null;
+
+                latencyHistogram.recordValue(latencyMicros);
+                availabilityFailureCount++;
+                lastFailureEpochMillis = Math.max(lastFailureEpochMillis, timeOfResponseEpochMillis);
+                return;
+            }
+
+            pendingLatencyHistogram.recordValue(latencyMicros);
+            pendingOperationCount++;
+
+            if (!isSuccess(statusCode)) {
+                return;
+            }
+
+            if (firstSuccessAfterLastFailureEpochMillis == null) {
+                firstSuccessAfterLastFailureEpochMillis = timeOfResponseEpochMillis;
+            }
+
+            if (firstFailoverEpochMillis == null && baselineRegions != null && !baselineRegions.containsAll(regions)) {
+                firstFailoverEpochMillis = timeOfResponseEpochMillis;
+                failoverRegions = regions;
+            } else if (firstFailoverEpochMillis != null && failbackEpochMillis == null && baselineRegions.containsAll(regions)) {
+                failbackEpochMillis = timeOfResponseEpochMillis;
+            }
+
+            lastSuccessRegions = regions;
+        }
+
+        private void close() {
+            recoveredEpochMillis = firstSuccessAfterLastFailureEpochMillis;
+        }
+
+        private void appendJson(StringBuilder json, double errorBudget) {
+
+            // a transition still open at the end of the drill may have recovered within the last quiet period
+            Long recoveredEpochMillis = this.recoveredEpochMillis != null ? this.recoveredEpochMillis : firstSuccessAfterLastFailureEpochMillis;
+
+            json.append('{');
+            json.append("\"startEpochMillis\":").append(startEpochMillis);
+            appendNullableLongField(json, "firstFailureEpochMillis", firstFailureEpochMillis);
+            appendNullableLongField(json, "firstFailoverEpochMillis", firstFailoverEpochMillis);
+            appendNullableLongField(json, "recoveredEpochMillis", recoveredEpochMillis);
+            appendNullableLongField(json, "failbackEpochMillis", failbackEpochMillis);
+            appendStringField(json, "baselineRegions", baselineRegions != null ? String.join(",", baselineRegions) : null, true);
+            appendStringField(json, "failoverRegions", failoverRegions != null ? String.join(",", failoverRegions) : null, true);
+            appendNullableLongField(json, "timeToDetectMillis", firstFailureEpochMillis - startEpochMillis);
+            appendNullableLongField(json, "timeToFailoverMillis", firstFailoverEpochMillis != null ? firstFailoverEpochMillis - startEpochMillis : null);
+            appendNullableLongField(json, "timeToRecoverMillis", recoveredEpochMillis != null ? recoveredEpochMillis - startEpochMillis : null);
+            appendNullableLongField(json, "timeToFailbackMillis", failbackEpochMillis != null ? failbackEpochMillis - startEpochMillis : null);
+            json.append(",\"isRecovered\":").append(recoveredEpochMillis != null);
+            json.append(",\"operations\":").append(operationCount);
+            json.append(",\"availabilityFailures\":").append(availabilityFailureCount);
+            json.append(",\"errorBudgetConsumedRatio\":").append(errorBudget > 0 ? String.format(Locale.ROOT, "%.3f", availabilityFailureCount / errorBudget) : "null");
+            json.append(",\"p50LatencyMillis\":").append(latencyHistogram.getValueAtPercentile(50) / 1000.0);
+            json.append(",\"p99LatencyMillis\":").append(latencyHistogram.getValueAtPercentile(99) / 1000.0);
+            json.append(",\"maxLatencyMillis\":").append(latencyHistogram.getMaxValue() / 1000.0);
+            json.append('}');
+        }
+    }
+}
@@ -21,6 +21,8 @@ public class RequestResponseInfo {
 
     private final int subStatusCode;
 
+    private final long latencyMicros;
+
     private final String commaSeparatedContactedRegions;
 
     private final String cosmosDiagnosticsContext;
@@ -41,6 +43,22 @@ public class RequestResponseInfo {
 
     private final String latestRecordedSessionToken;
 
+    private final String faultPhase;
+
+    // -1 when the operation had no diagnostics
+    private final long diagnosticsDurationMicros;
+
+    private final int retryCount;
+
+    private final double requestCharge;
+
+    private final int maxRequestPayloadSizeInBytes;
+
+    private final boolean isHedged;
+
+    // null unless cosmosDiagnosticsContext holds the full diagnostics
+    private final String fullDiagnosticsReason;
+
     private RequestResponseInfo(Builder builder) {
         this.timeOfResponse = builder.timeOfResponse;
         this.operationType = builder.operationType;
@@ -50,6 +68,7 @@ public class RequestResponseInfo {
         this.threadId = builder.threadId;
         this.statusCode = builder.statusCode;
         this.subStatusCode = builder.subStatusCode;
+        this.latencyMicros = builder.latencyMicros;
         this.commaSeparatedContactedRegions = builder.commaSeparatedContactedRegions;
         this.cosmosDiagnosticsContext = builder.cosmosDiagnosticsContext;
         this.errorMessage = builder.errorMessage;
@@ -60,6 +79,13 @@ public class RequestResponseInfo {
         this.databaseName = builder.databaseName;
         this.runTimeRemaining = builder.runTimeRemaining;
         this.latestRecordedSessionToken = builder.latestRecordedSessionToken;
+        this.faultPhase = builder.faultPhase;
+        this.diagnosticsDurationMicros = builder.diagnosticsDurationMicros;
+        this.retryCount = builder.retryCount;
+        this.requestCharge = builder.requestCharge;
+        this.maxRequestPayloadSizeInBytes = builder.maxRequestPayloadSizeInBytes;
+        this.isHedged = builder.isHedged;
+        this.fullDiagnosticsReason = builder.fullDiagnosticsReason;
     }
 
     // Getters
@@ -71,6 +97,7 @@ public class RequestResponseInfo {
     public int getThreadId() { return threadId; }
     public int getStatusCode() { return statusCode; }
     public int getSubStatusCode() { return subStatusCode; }
+    public long getLatencyMicros() { return latencyMicros; }
     public String getCommaSeparatedContactedRegions() { return commaSeparatedContactedRegions; }
     public String getCosmosDiagnosticsContext() { return cosmosDiagnosticsContext; }
     public String getErrorMessage() { return errorMessage; }
@@ -81,6 +108,13 @@ public class RequestResponseInfo {
     public String getDatabaseName() { return databaseName; }
     public Duration getRunTimeRemaining() { return runTimeRemaining; }
     public String getLatestRecordedSessionToken() { return latestRecordedSessionToken; }
+    public String getFaultPhase() { return faultPhase; }
+    public long getDiagnosticsDurationMicros() { return diagnosticsDurationMicros; }
+    public int getRetryCount() { return retryCount; }
+    public double getRequestCharge() { return requestCharge; }
+    public int getMaxRequestPayloadSizeInBytes() { return maxRequestPayloadSizeInBytes; }
+    public boolean isHedged() { return isHedged; }
+    public String getFullDiagnosticsReason() { return fullDiagnosticsReason; }
 
     public static Builder builder() {
         return new Builder();
@@ -95,6 +129,7 @@ public class RequestResponseInfo {
         private int threadId;
         private int statusCode;
         private int subStatusCode;
+        private long latencyMicros;
         private String commaSeparatedContactedRegions;
         private String cosmosDiagnosticsContext = "";  // Default empty string
         private String errorMessage = "";  // Default empty string
@@ -105,6 +140,13 @@ public class RequestResponseInfo {
         private String databaseName;
         private Duration runTimeRemaining;
         private String latestRecordedSessionToken;
+        private String faultPhase;
+        private long diagnosticsDurationMicros = -1;
+        private int retryCount;
+        private double requestCharge;
+        private int maxRequestPayloadSizeInBytes;
+        private boolean isHedged;
+        private String fullDiagnosticsReason;
 
         private Builder() {}
 
@@ -173,6 +215,11 @@ public class RequestResponseInfo {
             return this;
         }
 
+        public Builder latencyMicros(long latencyMicros) {
+            this.latencyMicros = latencyMicros;
+            return this;
+        }
+
         public Builder commaSeparatedContactedRegions(String commaSeparatedContactedRegions) {
             this.commaSeparatedContactedRegions = commaSeparatedContactedRegions;
             return this;
@@ -218,11 +265,36 @@ public class RequestResponseInfo {
             return this;
         }
 
+        public Builder withDiagnosticsSummary(
+                long diagnosticsDurationMicros,
+                int retryCount,
+                double requestCharge,
+                int maxRequestPayloadSizeInBytes,
+                boolean isHedged) {
+
+            this.diagnosticsDurationMicros = diagnosticsDurationMicros;
+            this.retryCount = retryCount;
+            this.requestCharge = requestCharge;
+            this.maxRequestPayloadSizeInBytes = maxRequestPayloadSizeInBytes;
+            this.isHedged = isHedged;
+            return this;
+        }
+
+        public Builder fullDiagnosticsReason(String fullDiagnosticsReason) {
+            this.fullDiagnosticsReason = fullDiagnosticsReason;
+            return this;
+        }
+
         public Builder latestRecordedSessionToken(String latestRecordedSessionToken) {
             this.latestRecordedSessionToken = latestRecordedSessionToken;
             return this;
         }
 
+        public Builder faultPhase(String faultPhase) {
+            this.faultPhase = faultPhase;
+            return this;
+        }
+
         public RequestResponseInfo build() {
             validateRequiredFields();
             return new RequestResponseInfo(this);
@@ -274,6 +346,7 @@ public class RequestResponseInfo {
                 "threadId=" + threadId + ", " +
                 "statusCode=" + statusCode + ", " +
                 "subStatusCode=" + subStatusCode + ", " +
+                "latencyMicros=" + latencyMicros + ", " +
                 "commaSeparatedContactedRegions=" + commaSeparatedContactedRegions + ", " +
                 "cosmosDiagnosticsContext=" + cosmosDiagnosticsContext + ", " +
                 "errorMessage=" + errorMessage + ", " +
@@ -283,6 +356,15 @@ public class RequestResponseInfo {
                 "possiblyColdStartClient=" + possiblyColdStartClient + ", " +
                 "databaseName=" + databaseName + ", " +
                 "runTimeRemaining=" + runTimeRemaining + ", " +
-                "latestRecordedSessionToken=" + latestRecordedSessionToken + "]";
+                "latestRecordedSessionToken=" + latestRecordedSessionToken +
+                (faultPhase != null ? ", faultPhase=" + faultPhase : "") +
+                (diagnosticsDurationMicros >= 0
+                        ? ", diagnosticsDurationMicros=" + diagnosticsDurationMicros +
+                                ", retryCount=" + retryCount +
+                                ", requestCharge=" + requestCharge +
+                                ", maxRequestPayloadSizeInBytes=" + maxRequestPayloadSizeInBytes +
+                                ", isHedged=" + isHedged
+                        : "") +
+                (fullDiagnosticsReason != null ? ", fullDiagnosticsReason=" + fullDiagnosticsReason : "") + "]";
     }
 }
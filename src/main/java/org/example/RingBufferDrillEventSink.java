@@ -0,0 +1,193 @@
+package org.example;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+
+// Multi-producer / single-consumer ring of preallocated DrillEvent slots drained into an NDJSON file
+// by one background writer (an MpscRingBuffer). Producers never block - when the writer falls a full ring behind,
+// events are dropped and counted so that a slow disk can't throttle the load generators.
+public class RingBufferDrillEventSink implements DrillEventSink {
+
+    private static final Logger logger = LoggerFactory.getLogger(RingBufferDrillEventSink.class);
+
+    private static final int WRITE_BUFFER_SIZE = 1 << 16;
+
+    private final MpscRingBuffer<DrillEvent> ringBuffer;
+
+    private final Path eventLogPath;
+    private final Writer writer;
+    private final StringBuilder lineBuilder = new StringBuilder(1024);
+
+    // only touched by the writer thread
+    private boolean hasUnflushedEvents = false;
+
+    public RingBufferDrillEventSink(Configuration cfg, Instant startTime, Duration runDuration) {
+
+        this.ringBuffer = new MpscRingBuffer<>(cfg.getDrillEventRingBufferSize(), DrillEvent::new);
+
+        this.eventLogPath = Paths.get(
+                cfg.getDrillEventLogDirectory(),
+                "ppaf_events_" + cfg.getDrillId() + "_" + startTime.toEpochMilli() + ".ndjson");
+
+        try {
+            Files.createDirectories(this.eventLogPath.toAbsolutePath().getParent());
+            this.writer = new BufferedWriter(
+                    new OutputStreamWriter(Files.newOutputStream(this.eventLogPath), StandardCharsets.UTF_8),
+                    WRITE_BUFFER_SIZE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to open drill event log " + this.eventLogPath, e);
+        }
+
+        writeHeader(cfg, startTime, runDuration);
+
+        this.ringBuffer.start("DrillEventWriter", this::onEvent, this::onIdle);
+
+        logger.info("Writing drill events to {} with a ring buffer of {} slots", this.eventLogPath.toAbsolutePath(), this.ringBuffer.getCapacity());
+    }
+
+    @Override
+    public DrillEvent claim() {
+        return ringBuffer.claim();
+    }
+
+    @Override
+    public void publish(DrillEvent drillEvent) {
+        ringBuffer.publish(drillEvent);
+    }
+
+    public long getDroppedCount() {
+        return ringBuffer.getDroppedCount();
+    }
+
+    @Override
+    public void close() {
+
+        ringBuffer.close();
+
+        try {
+            writer.close();
+        } catch (IOException e) {
+            logger.error("Failed to close drill event log {}", eventLogPath, e);
+        }
+
+        logger.info(
+                "Drill event log {} closed - written : {}, dropped : {}",
+                eventLogPath.toAbsolutePath(),
+                ringBuffer.getConsumedCount(),
+                ringBuffer.getDroppedCount());
+    }
+
+    private void onEvent(DrillEvent drillEvent) {
+        writeEvent(drillEvent);
+        drillEvent.reset();
+        hasUnflushedEvents = true;
+    }
+
+    // the writer has caught up, events written so far are flushed rather than waiting for the buffer to fill
+    private void onIdle() {
+        if (hasUnflushedEvents) {
+            flush();
+            hasUnflushedEvents = false;
+        }
+    }
+
+    private void writeHeader(Configuration cfg, Instant startTime, Duration runDuration) {
+
+        lineBuilder.setLength(0);
+        lineBuilder.append("{\"type\":\"header\"");
+        appendStringField("drillId", cfg.getDrillId());
+        appendStringField("accountName", cfg.getAccountHost());
+        appendStringField("databaseName", cfg.getDatabaseName());
+        appendStringField("containerName", cfg.getContainerName());
+        appendStringField("connectionMode", cfg.getConnectionMode().name());
+        appendStringField("startTime", startTime.toString());
+        appendLongField("runDurationMillis", runDuration.toMillis());
+        lineBuilder.append("}\n");
+
+        writeLine();
+        flush();
+    }
+
+    private void writeEvent(DrillEvent drillEvent) {
+
+        lineBuilder.setLength(0);
+        lineBuilder.append("{\"type\":\"event\"");
+        appendLongField("timeOfResponse", drillEvent.getTimeOfResponseEpochMillis());
+        appendStringField("operationType", drillEvent.getOperationType());
+        appendLongField("threadId", drillEvent.getThreadId());
+        lineBuilder.append(",\"isSuccess\":").append(drillEvent.isSuccess());
+        appendLongField("statusCode", drillEvent.getStatusCode());
+        appendLongField("subStatusCode", drillEvent.getSubStatusCode());
+        appendLongField("latencyMicros", drillEvent.getLatencyMicros());
+        appendStringField("contactedRegions", drillEvent.getCommaSeparatedContactedRegions());
+        appendLongField("successCountUntilNow", drillEvent.getSuccessCountUntilNow());
+        appendLongField("failureCountUntilNow", drillEvent.getFailureCountUntilNow());
+        appendLongField("runTimeRemainingMillis", drillEvent.getRunTimeRemainingMillis());
+
+        if (drillEvent.getLatestRecordedSessionToken() != null) {
+            appendStringField("latestRecordedSessionToken", drillEvent.getLatestRecordedSessionToken());
+        }
+
+        if (drillEvent.getFaultPhase() != null) {
+            appendStringField("faultPhase", drillEvent.getFaultPhase());
+        }
+
+        if (drillEvent.getErrorMessage() != null) {
+            appendStringField("errorMessage", drillEvent.getErrorMessage());
+        }
+
+        if (drillEvent.hasDiagnosticsSummary()) {
+            appendLongField("diagnosticsDurationMicros", drillEvent.getDiagnosticsDurationMicros());
+            appendLongField("retryCount", drillEvent.getRetryCount());
+            lineBuilder.append(",\"requestCharge\":").append(drillEvent.getRequestCharge());
+            appendLongField("maxRequestPayloadSizeInBytes", drillEvent.getMaxRequestPayloadSizeInBytes());
+            lineBuilder.append(",\"isHedged\":").append(drillEvent.isHedged());
+        }
+
+        if (drillEvent.getCosmosDiagnostics() != null) {
+            appendStringField("fullDiagnosticsReason", drillEvent.getFullDiagnosticsReason());
+            appendStringField("cosmosDiagnostics", drillEvent.getCosmosDiagnostics().toString());
+        }
+
+        lineBuilder.append("}\n");
+
+        writeLine();
+    }
+
+    private void writeLine() {
+        try {
+            writer.append(lineBuilder);
+        } catch (IOException e) {
+            logger.error("Failed to write to drill event log {}", eventLogPath, e);
+        }
+    }
+
+    private void flush() {
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            logger.error("Failed to flush drill event log {}", eventLogPath, e);
+        }
+    }
+
+    private void appendLongField(String name, long value) {
+        lineBuilder.append(",\"").append(name).append("\":").append(value);
+    }
+
+    private void appendStringField(String name, String value) {
+        lineBuilder.append(",\"").append(name).append("\":");
+        JsonStrings.appendQuoted(lineBuilder, value);
+    }
+}
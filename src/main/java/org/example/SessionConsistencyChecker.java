@@ -0,0 +1,507 @@
+package org.example;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Checks reads for monotonic reads per partition key range while the drill runs. The session tokens of create and
+// read responses ("<pkRangeId>:<version>#<globalLsn>#<regionId>=<localLsn>..", comma separated per range) are parsed
+// into LSN vectors of primitive longs, and each range keeps the vectors it has seen, ordered by the time they were
+// recorded. A read is a violation when its vector is behind the highest vector recorded before the read started:
+// a lower version or global LSN, or with the same version a lower local LSN of a region both carry.
+//
+// Only progress is recorded. Each range keeps the vectors of the last -sessionConsistencyHistoryInSeconds, in a ring
+// which grows with the write rate, so reads slowed down by a failover are still checked against what was observed
+// before they started. Vectors recorded within the same HISTORY_GRANULARITY_NANOS are merged into one, which bounds the
+// history and only ever checks a read against a vector a little older than its start. A read which took longer than
+// the history can't be checked and is counted as unchecked.
+public class SessionConsistencyChecker {
+
+    private static final Logger logger = LoggerFactory.getLogger(SessionConsistencyChecker.class);
+
+    private static final int INITIAL_HISTORY_CAPACITY = 64;
+    private static final long HISTORY_GRANULARITY_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final int MAX_REGION_ID = 15;
+    private static final int MAX_PARTITION_KEY_RANGE_ID = 1 << 16;
+    private static final int MAX_LOGGED_VIOLATIONS = 100;
+
+    // vector layout, local LSNs are indexed by region id and ABSENT when the token doesn't carry the region
+    private static final int VERSION = 0;
+    private static final int GLOBAL_LSN = 1;
+    private static final int FIRST_LOCAL_LSN = 2;
+    private static final int VECTOR_LENGTH = FIRST_LOCAL_LSN + MAX_REGION_ID + 1;
+    private static final long ABSENT = Long.MIN_VALUE;
+
+    private static final int NO_VIOLATION = -2;
+    private static final int GLOBAL_VIOLATION = -1;
+
+    private final DrillMetrics metrics;
+    // null unless the drill stops on the first violation
+    private final DrillLifecycle lifecycle;
+    private final long historyNanos;
+
+    private final ThreadLocal<long[]> parsedVectors = ThreadLocal.withInitial(() -> new long[VECTOR_LENGTH]);
+    private volatile RangeHistory[] rangeHistories = new RangeHistory[0];
+
+    private final LongAdder checkedReadCount = new LongAdder();
+    private final LongAdder uncheckedReadCount = new LongAdder();
+    private final LongAdder violationCount = new LongAdder();
+    private final LongAdder unparsableTokenCount = new LongAdder();
+    private final Map<String, LongAdder> violationCountsPerRegion = new ConcurrentHashMap<>();
+
+    public SessionConsistencyChecker(DrillMetrics metrics, DrillLifecycle lifecycle, Duration history) {
+
+        if (history.isNegative() || history.isZero()) {
+            throw new IllegalArgumentException("sessionConsistencyHistoryInSeconds should be positive");
+        }
+
+        this.metrics = metrics;
+        this.lifecycle = lifecycle;
+        this.historyNanos = history.toNanos();
+    }
+
+    public static SessionConsistencyChecker fromConfiguration(Configuration cfg, DrillMetrics metrics, DrillLifecycle lifecycle) {
+        return new SessionConsistencyChecker(
+                metrics,
+                cfg.shouldStopOnSessionConsistencyViolation() ? lifecycle : null,
+                Duration.ofSeconds(cfg.getSessionConsistencyHistoryInSeconds()));
+    }
+
+    // Creates record the session token they observed, reads are checked against what was observed before they started
+    // and then recorded. Responses of other operations aren't checked.
+    public void onResponse(String operationType, String sessionToken, Set<String> contactedRegionNames, long operationStartNanos) {
+
+        if (sessionToken == null || sessionToken.isEmpty()) {
+            return;
+        }
+
+        boolean isRead;
+
+        switch (operationType) {
+            case WorkloadUtils.READ_OP:
+                isRead = true;
+                break;
+            case WorkloadUtils.CREATE_OP:
+            case WorkloadUtils.BULK_CREATE_OP:
+            case WorkloadUtils.BATCH_OP:
+                isRead = false;
+                break;
+            default:
+                return;
+        }
+
+        long[] vector = parsedVectors.get();
+        int segmentStart = 0;
+
+        while (segmentStart < sessionToken.length()) {
+
+            int segmentEnd = sessionToken.indexOf(',', segmentStart);
+
+            if (segmentEnd < 0) {
+                segmentEnd = sessionToken.length();
+            }
+
+            int partitionKeyRangeId = parse(sessionToken, segmentStart, segmentEnd, vector);
+
+            if (partitionKeyRangeId < 0) {
+                unparsableTokenCount.increment();
+            } else {
+                onVector(partitionKeyRangeId, vector, isRead, contactedRegionNames, operationStartNanos);
+            }
+
+            segmentStart = segmentEnd + 1;
+        }
+    }
+
+    public void logSummary() {
+
+        Map<String, Long> violationsPerRegion = new TreeMap<>();
+
+        for (Map.Entry<String, LongAdder> entry : violationCountsPerRegion.entrySet()) {
+            violationsPerRegion.put(entry.getKey(), entry.getValue().sum());
+        }
+
+        logger.info(
+                "SessionConsistencySummary [checkedReads={}, uncheckedReads={}, violations={}, violationsPerRegion={}, unparsableTokens={}]",
+                checkedReadCount.sum(),
+                uncheckedReadCount.sum(),
+                violationCount.sum(),
+                violationsPerRegion,
+                unparsableTokenCount.sum());
+    }
+
+    private void onVector(int partitionKeyRangeId, long[] vector, boolean isRead, Set<String> contactedRegionNames, long operationStartNanos) {
+
+        RangeHistory rangeHistory = getRangeHistory(partitionKeyRangeId);
+
+        long expectedVersion;
+        long expectedGlobalLsn;
+        int violatedRegionId;
+
+        synchronized (rangeHistory) {
+
+            if (!isRead) {
+                rangeHistory.record(System.nanoTime(), vector);
+                return;
+            }
+
+            int expectedIndex = rangeHistory.latestIndexAtOrBefore(operationStartNanos);
+
+            if (expectedIndex == RangeHistory.EVICTED) {
+                uncheckedReadCount.increment();
+                rangeHistory.record(System.nanoTime(), vector);
+                return;
+            }
+
+            checkedReadCount.increment();
+
+            if (expectedIndex == RangeHistory.NONE) {
+                rangeHistory.record(System.nanoTime(), vector);
+                return;
+            }
+
+            int expectedOffset = expectedIndex * VECTOR_LENGTH;
+
+            expectedVersion = rangeHistory.vectors[expectedOffset + VERSION];
+            expectedGlobalLsn = rangeHistory.vectors[expectedOffset + GLOBAL_LSN];
+            violatedRegionId = findViolation(rangeHistory.vectors, expectedOffset, vector);
+
+            rangeHistory.record(System.nanoTime(), vector);
+
+            if (violatedRegionId == NO_VIOLATION) {
+                return;
+            }
+        }
+
+        onViolation(partitionKeyRangeId, contactedRegionNames, expectedVersion, expectedGlobalLsn, vector, violatedRegionId);
+    }
+
+    // NO_VIOLATION, GLOBAL_VIOLATION for a lower version or global LSN, otherwise the region id with a lower local LSN
+    private static int findViolation(long[] vectors, int expectedOffset, long[] vector) {
+
+        if (vector[VERSION] < vectors[expectedOffset + VERSION] || vector[GLOBAL_LSN] < vectors[expectedOffset + GLOBAL_LSN]) {
+            return GLOBAL_VIOLATION;
+        }
+
+        if (vector[VERSION] != vectors[expectedOffset + VERSION]) {
+            return NO_VIOLATION;
+        }
+
+        for (int regionId = 0; regionId <= MAX_REGION_ID; regionId++) {
+
+            long expectedLocalLsn = vectors[expectedOffset + FIRST_LOCAL_LSN + regionId];
+            long localLsn = vector[FIRST_LOCAL_LSN + regionId];
+
+            if (expectedLocalLsn != ABSENT && localLsn != ABSENT && localLsn < expectedLocalLsn) {
+                return regionId;
+            }
+        }
+
+        return NO_VIOLATION;
+    }
+
+    private void onViolation(
+            int partitionKeyRangeId,
+            Set<String> contactedRegionNames,
+            long expectedVersion,
+            long expectedGlobalLsn,
+            long[] vector,
+            int violatedRegionId) {
+
+        violationCount.increment();
+
+        for (String contactedRegionName : contactedRegionNames) {
+            violationCountsPerRegion.computeIfAbsent(contactedRegionName, region -> new LongAdder()).increment();
+            metrics.recordSessionConsistencyViolation(contactedRegionName);
+        }
+
+        if (violationCount.sum() <= MAX_LOGGED_VIOLATIONS) {
+            logger.warn(
+                    "SessionConsistencyViolation [timestamp={}, partitionKeyRangeId={}, contactedRegions={}, expected={}#{}, observed={}#{}, behindLocalLsnOfRegionId={}]",
+                    Instant.now(),
+                    partitionKeyRangeId,
+                    String.join(",", contactedRegionNames),
+                    expectedVersion,
+                    expectedGlobalLsn,
+                    vector[VERSION],
+                    vector[GLOBAL_LSN],
+                    violatedRegionId == GLOBAL_VIOLATION ? "none" : violatedRegionId);
+        }
+
+        if (lifecycle != null) {
+            lifecycle.requestStop("monotonic read violation on partition key range " + partitionKeyRangeId);
+        }
+    }
+
+    private RangeHistory getRangeHistory(int partitionKeyRangeId) {
+
+        RangeHistory[] histories = rangeHistories;
+
+        if (partitionKeyRangeId < histories.length && histories[partitionKeyRangeId] != null) {
+            return histories[partitionKeyRangeId];
+        }
+
+        synchronized (this) {
+
+            histories = rangeHistories;
+
+            if (partitionKeyRangeId >= histories.length) {
+                histories = Arrays.copyOf(histories, Math.max(partitionKeyRangeId + 1, 2 * histories.length));
+            } else if (histories[partitionKeyRangeId] != null) {
+                return histories[partitionKeyRangeId];
+            } else {
+                histories = histories.clone();
+            }
+
+            histories[partitionKeyRangeId] = new RangeHistory(historyNanos);
+            rangeHistories = histories;
+
+            return histories[partitionKeyRangeId];
+        }
+    }
+
+    // Parses one "<pkRangeId>:<token>" segment into the vector, the token is either a vector session token or a bare
+    // global LSN (version 0). Returns the partition key range id, or -1 if the segment doesn't parse.
+    static int parse(String sessionToken, int start, int end, long[] vector) {
+
+        Arrays.fill(vector, FIRST_LOCAL_LSN, VECTOR_LENGTH, ABSENT);
+
+        int separator = sessionToken.indexOf(':', start);
+
+        if (separator < 0 || separator >= end) {
+            return -1;
+        }
+
+        long partitionKeyRangeId = parseLong(sessionToken, start, separator);
+
+        if (partitionKeyRangeId < 0 || partitionKeyRangeId >= MAX_PARTITION_KEY_RANGE_ID) {
+            return -1;
+        }
+
+        int fieldStart = separator + 1;
+        int fieldEnd = indexOf(sessionToken, '#', fieldStart, end);
+
+        if (fieldEnd == end) {
+            vector[VERSION] = 0;
+            vector[GLOBAL_LSN] = parseLong(sessionToken, fieldStart, end);
+            return vector[GLOBAL_LSN] == Long.MIN_VALUE ? -1 : (int) partitionKeyRangeId;
+        }
+
+        vector[VERSION] = parseLong(sessionToken, fieldStart, fieldEnd);
+
+        fieldStart = fieldEnd + 1;
+        fieldEnd = indexOf(sessionToken, '#', fieldStart, end);
+        vector[GLOBAL_LSN] = parseLong(sessionToken, fieldStart, fieldEnd);
+
+        if (vector[VERSION] == Long.MIN_VALUE || vector[GLOBAL_LSN] == Long.MIN_VALUE) {
+            return -1;
+        }
+
+        while (fieldEnd < end) {
+
+            fieldStart = fieldEnd + 1;
+            fieldEnd = indexOf(sessionToken, '#', fieldStart, end);
+
+            int equals = indexOf(sessionToken, '=', fieldStart, fieldEnd);
+            long regionId = parseLong(sessionToken, fieldStart, equals);
+            long localLsn = equals < fieldEnd ? parseLong(sessionToken, equals + 1, fieldEnd) : Long.MIN_VALUE;
+
+            if (regionId < 0 || localLsn == Long.MIN_VALUE) {
+                return -1;
+            }
+
+            // regions beyond the tracked ids are left out of the comparison
+            if (regionId <= MAX_REGION_ID) {
+                vector[FIRST_LOCAL_LSN + (int) regionId] = localLsn;
+            }
+        }
+
+        return (int) partitionKeyRangeId;
+    }
+
+    private static int indexOf(String value, char c, int start, int end) {
+
+        for (int i = start; i < end; i++) {
+            if (value.charAt(i) == c) {
+                return i;
+            }
+        }
+
+        return end;
+    }
+
+    // Long.MIN_VALUE if the characters aren't an optionally negative decimal number
+    private static long parseLong(String value, int start, int end) {
+
+        if (start >= end) {
+            return Long.MIN_VALUE;
+        }
+
+        boolean isNegative = value.charAt(start) == '-';
+        int i = isNegative ? start + 1 : start;
+
+        if (i >= end || end - i > 18) {
+            return Long.MIN_VALUE;
+        }
+
+        long result = 0;
+
+        for (; i < end; i++) {
+
+            char c = value.charAt(i);
+
+            if (c < '0' || c > '9') {
+                return Long.MIN_VALUE;
+            }
+
+            result = result * 10 + (c - '0');
+        }
+
+        return isNegative ? -result : result;
+    }
+
+    // The vectors of one partition key range in the order they were recorded, each the element-wise max of the
+    // vectors recorded so far, in a ring which only drops its oldest vectors once they are older than the history.
+    // Guarded by its own monitor.
+    private static class RangeHistory {
+
+        static final int NONE = -1;
+        static final int EVICTED = -2;
+
+        private final long historyNanos;
+        private final long[] merged = new long[VECTOR_LENGTH];
+
+        private long[] recordedNanos = new long[INITIAL_HISTORY_CAPACITY];
+        private long[] vectors = new long[INITIAL_HISTORY_CAPACITY * VECTOR_LENGTH];
+
+        // ring positions, the capacity is a power of 2
+        private int oldestIndex;
+        private int count;
+        private boolean hasDropped;
+
+        RangeHistory(long historyNanos) {
+            this.historyNanos = historyNanos;
+        }
+
+        // The latest vector recorded at or before the given time, NONE if nothing was, EVICTED if it was dropped
+        int latestIndexAtOrBefore(long nanos) {
+
+            // the vectors are recorded in time order
+            int low = 0;
+            int high = count - 1;
+            int found = -1;
+
+            while (low <= high) {
+
+                int middle = (low + high) >>> 1;
+
+                if (recordedNanos[indexOf(middle)] - nanos <= 0) {
+                    found = middle;
+                    low = middle + 1;
+                } else {
+                    high = middle - 1;
+                }
+            }
+
+            if (found >= 0) {
+                return indexOf(found);
+            }
+
+            return hasDropped ? EVICTED : NONE;
+        }
+
+        void record(long nanos, long[] vector) {
+
+            if (count == 0) {
+                append(nanos, vector);
+                return;
+            }
+
+            int latestIndex = indexOf(count - 1);
+            int latestOffset = latestIndex * VECTOR_LENGTH;
+            boolean hasProgressed = false;
+
+            // local LSNs are only comparable within a version, a new version starts them over
+            boolean isNewVersion = vector[VERSION] > vectors[latestOffset + VERSION];
+
+            for (int i = 0; i < VECTOR_LENGTH; i++) {
+
+                long latest = vectors[latestOffset + i];
+
+                if (i >= FIRST_LOCAL_LSN && isNewVersion) {
+                    merged[i] = vector[i];
+                    hasProgressed = true;
+                } else if (vector[i] > latest) {
+                    merged[i] = vector[i];
+                    hasProgressed = true;
+                } else {
+                    merged[i] = latest;
+                }
+            }
+
+            if (!hasProgressed) {
+                return;
+            }
+
+            // reads which started before the merge are checked against the vector before it, a little older
+            if (count > 1 && Math.floorDiv(nanos, HISTORY_GRANULARITY_NANOS) == Math.floorDiv(recordedNanos[latestIndex], HISTORY_GRANULARITY_NANOS)) {
+                recordedNanos[latestIndex] = nanos;
+                System.arraycopy(merged, 0, vectors, latestOffset, VECTOR_LENGTH);
+                return;
+            }
+
+            append(nanos, merged);
+        }
+
+        private void append(long nanos, long[] vector) {
+
+            // the latest vector at or before the start of the history stays, reads which started since need it
+            long historyStartNanos = nanos - historyNanos;
+
+            while (count > 1 && recordedNanos[indexOf(1)] - historyStartNanos <= 0) {
+                oldestIndex = indexOf(1);
+                count--;
+                hasDropped = true;
+            }
+
+            if (count == recordedNanos.length) {
+                grow();
+            }
+
+            int index = indexOf(count);
+
+            recordedNanos[index] = nanos;
+            System.arraycopy(vector, 0, vectors, index * VECTOR_LENGTH, VECTOR_LENGTH);
+            count++;
+        }
+
+        private void grow() {
+
+            long[] grownRecordedNanos = new long[2 * recordedNanos.length];
+            long[] grownVectors = new long[2 * vectors.length];
+
+            for (int i = 0; i < count; i++) {
+                grownRecordedNanos[i] = recordedNanos[indexOf(i)];
+                System.arraycopy(vectors, indexOf(i) * VECTOR_LENGTH, grownVectors, i * VECTOR_LENGTH, VECTOR_LENGTH);
+            }
+
+            recordedNanos = grownRecordedNanos;
+            vectors = grownVectors;
+            oldestIndex = 0;
+        }
+
+        // the ring position of the i-th oldest vector
+        private int indexOf(int i) {
+            return (oldestIndex + i) & (recordedNanos.length - 1);
+        }
+    }
+}
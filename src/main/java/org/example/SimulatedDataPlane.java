@@ -0,0 +1,558 @@
+package org.example;
+
+import com.azure.cosmos.models.CosmosItemRequestOptions;
+import com.azure.cosmos.models.SqlQuerySpec;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+// In-process stand-in for a multi-region, single write region account with per partition automatic failover,
+// so the drill engine can be load tested without an account. Every operation completes after a latency drawn
+// from the log-normal distribution of the regions it contacted.
+//
+// - Partition key values are hashed onto partitions, each with its own write region and LSN. Item bodies aren't
+//   kept, the drill only reads ids it persisted before.
+// - During the configured outage the first region is unavailable for a share of the partitions. Writes to those
+//   partitions fail with 503 until the partition fails over to the next region, reads are retried in the next
+//   region. Partitions fail back once the outage is over.
+// - Reads carrying a session token that the serving region hasn't replicated yet are retried in the write region,
+//   as the SDK does on a 404 / 1002.
+// - A configurable share of all operations fails with a transient 503, 408 or 410.
+// - With the change feed enabled each partition keeps the ids it wrote in LSN order until a consumer reads past
+//   them, a change becomes visible on the change feed once replicated.
+public class SimulatedDataPlane implements DataPlane {
+
+    // per KB written
+    private static final double CREATE_REQUEST_CHARGE = 5.71;
+    private static final double READ_REQUEST_CHARGE = 1.0;
+    private static final double QUERY_REQUEST_CHARGE = 2.83;
+
+    private static final int CHANGE_FEED_PAGE_SIZE = 1000;
+
+    // how long a partially filled micro batch waits for more documents before it is sent
+    private static final Duration BULK_MICRO_BATCH_FLUSH_INTERVAL = Duration.ofMillis(100);
+
+    private final String[] regionNames;
+    private final double[] medianLatencyMillis;
+    private final double latencySigma;
+    private final double transientFailureRate;
+    private final long replicationLagNanos;
+
+    private final long outageStartNanos;
+    private final long outageEndNanos;
+    private final long failoverDelayNanos;
+    private final int affectedPartitionCount;
+    private final boolean isChangeFeedEnabled;
+
+    private final Partition[] partitions;
+    // contacted region sets are shared between responses rather than built per operation
+    private final Set<String>[] singleRegionSets;
+    private final Set<String>[][] regionPairSets;
+
+    private final long startNanos = System.nanoTime();
+
+    @SuppressWarnings("unchecked")
+    public SimulatedDataPlane(
+            Map<String, Double> medianLatencyMillisByRegion,
+            double latencySigma,
+            int partitionCount,
+            double transientFailureRate,
+            Duration replicationLag,
+            Duration outageStart,
+            Duration outageDuration,
+            double outagePartitionFraction,
+            Duration failoverDelay,
+            boolean isChangeFeedEnabled) {
+
+        if (medianLatencyMillisByRegion.isEmpty()) {
+            throw new IllegalArgumentException("At least one region should be simulated");
+        }
+
+        if (partitionCount <= 0) {
+            throw new IllegalArgumentException("partitionCount should be greater than 0");
+        }
+
+        if (transientFailureRate < 0 || transientFailureRate > 1 || outagePartitionFraction < 0 || outagePartitionFraction > 1) {
+            throw new IllegalArgumentException("transientFailureRate and outagePartitionFraction should be between 0 and 1");
+        }
+
+        this.regionNames = medianLatencyMillisByRegion.keySet().toArray(new String[0]);
+        this.medianLatencyMillis = medianLatencyMillisByRegion.values().stream().mapToDouble(Double::doubleValue).toArray();
+        this.latencySigma = latencySigma;
+        this.transientFailureRate = transientFailureRate;
+        this.replicationLagNanos = replicationLag.toNanos();
+        this.outageStartNanos = outageStart.toNanos();
+        this.outageEndNanos = outageStart.plus(outageDuration).toNanos();
+        this.failoverDelayNanos = failoverDelay.toNanos();
+        this.affectedPartitionCount = outageDuration.isZero() || regionNames.length < 2
+                ? 0
+                : (int) Math.round(outagePartitionFraction * partitionCount);
+        this.isChangeFeedEnabled = isChangeFeedEnabled;
+
+        this.partitions = new Partition[partitionCount];
+
+        for (int i = 0; i < partitionCount; i++) {
+            this.partitions[i] = new Partition(i);
+        }
+
+        this.singleRegionSets = new Set[regionNames.length];
+        this.regionPairSets = new Set[regionNames.length][regionNames.length];
+
+        for (int i = 0; i < regionNames.length; i++) {
+            this.singleRegionSets[i] = Collections.singleton(regionNames[i]);
+
+            for (int j = 0; j < regionNames.length; j++) {
+                Set<String> regionPair = new LinkedHashSet<>();
+                regionPair.add(regionNames[i]);
+                regionPair.add(regionNames[j]);
+                this.regionPairSets[i][j] = Collections.unmodifiableSet(regionPair);
+            }
+        }
+    }
+
+    public static SimulatedDataPlane fromConfiguration(Configuration cfg) {
+        return new SimulatedDataPlane(
+                parseRegions(cfg.getSimulatorRegions()),
+                cfg.getSimulatorLatencySigma(),
+                cfg.getSimulatorPartitionCount(),
+                cfg.getSimulatorTransientFailureRate(),
+                Duration.ofMillis(cfg.getSimulatorReplicationLagInMillis()),
+                cfg.getSimulatorOutageStart(),
+                cfg.getSimulatorOutageDuration(),
+                cfg.getSimulatorOutagePartitionFraction(),
+                cfg.getSimulatorFailoverDelay(),
+                cfg.getDrillWorkloadType() == WorkloadType.PPAFChangeFeedWorkload);
+    }
+
+    // Parses "East US=4,West US=38" - regions in preference order, each with its median latency in milliseconds
+    static Map<String, Double> parseRegions(String regions) {
+
+        Map<String, Double> medianLatencyMillisByRegion = new LinkedHashMap<>();
+
+        for (String region : regions.split(",")) {
+
+            String[] nameAndLatency = region.split("=");
+
+            if (nameAndLatency.length != 2 || nameAndLatency[0].trim().isEmpty()) {
+                throw new IllegalArgumentException("Invalid simulator region '" + region + "', expected <region name>=<median latency in ms>");
+            }
+
+            medianLatencyMillisByRegion.put(nameAndLatency[0].trim(), Double.parseDouble(nameAndLatency[1].trim()));
+        }
+
+        return medianLatencyMillisByRegion;
+    }
+
+    public List<String> getRegionNames() {
+        return new ArrayList<>(List.of(regionNames));
+    }
+
+    @Override
+    public Mono<DataPlaneResponse> createItem(GeneratedDocument document, CosmosItemRequestOptions requestOptions) {
+        return Mono.defer(() -> complete(write(document.getPk(), List.of(document.getId()), createRequestCharge(document))));
+    }
+
+    @Override
+    public Mono<DataPlaneResponse> upsertItem(Book book) {
+        return Mono.defer(() -> complete(write(book.getPk(), List.of(book.getId()), CREATE_REQUEST_CHARGE)));
+    }
+
+    // The SDK forms micro batches per partition key range, the simulator forms them in arrival order with a
+    // concurrency of maxMicroBatchConcurrency per partition. Every document is written to its own partition and the
+    // micro batch completes after its slowest write.
+    @Override
+    public Flux<BulkOperationResult> executeBulkCreates(Flux<GeneratedDocument> documents, int maxMicroBatchSize, int maxMicroBatchConcurrency) {
+        return documents
+                .map(document -> new PendingBulkCreate(document, System.nanoTime()))
+                .bufferTimeout(maxMicroBatchSize, BULK_MICRO_BATCH_FLUSH_INTERVAL)
+                .flatMap(this::completeMicroBatch, maxMicroBatchConcurrency * partitions.length);
+    }
+
+    // A transactional batch is a single write to its partition, it fails or succeeds as a whole
+    @Override
+    public Mono<DataPlaneResponse> executeTransactionalBatchCreates(String partitionKeyValue, List<GeneratedDocument> documents) {
+        return Mono.defer(() -> {
+
+            List<String> ids = new ArrayList<>(documents.size());
+            double requestCharge = 0;
+
+            for (GeneratedDocument document : documents) {
+                ids.add(document.getId());
+                requestCharge += createRequestCharge(document);
+            }
+
+            return complete(write(partitionKeyValue, ids, requestCharge));
+        });
+    }
+
+    @Override
+    public Mono<DataPlaneResponse> readItem(String id, String partitionKeyValue, CosmosItemRequestOptions requestOptions) {
+        return Mono.defer(() -> complete(read(partitionKeyValue, requestOptions != null ? requestOptions.getSessionToken() : null, READ_REQUEST_CHARGE)));
+    }
+
+    // A query within a partition key is served by its partition in a single page. A query across partitions is
+    // served by every partition concurrently, one page each emitted in partition order, the continuation token being
+    // the id of the next partition. Documents aren't stored, so pages are served whatever the page size.
+    @Override
+    public Flux<QueryPage> queryItems(SqlQuerySpec querySpec, String partitionKeyValue, String continuationToken, int pageSize) {
+
+        if (partitionKeyValue != null) {
+            return Mono.defer(() -> complete(read(partitionKeyValue, null, QUERY_REQUEST_CHARGE)))
+                    .map(response -> new QueryPage(null, response))
+                    .flux();
+        }
+
+        int firstPartition = continuationToken != null ? Integer.parseInt(continuationToken) : 0;
+
+        return Flux
+                .range(firstPartition, partitions.length - firstPartition)
+                .flatMapSequential(
+                        partitionId -> Mono
+                                .defer(() -> complete(read(partitions[partitionId], null, QUERY_REQUEST_CHARGE)))
+                                .map(response -> new QueryPage(partitionId + 1 < partitions.length ? String.valueOf(partitionId + 1) : null, response)),
+                        partitions.length);
+    }
+
+    @Override
+    public Mono<List<String>> getFeedRanges() {
+        return Mono.fromCallable(() -> {
+
+            List<String> feedRanges = new ArrayList<>(partitions.length);
+
+            for (Partition partition : partitions) {
+                feedRanges.add(String.valueOf(partition.id));
+            }
+
+            return feedRanges;
+        });
+    }
+
+    // Feed ranges are partition ids and continuation tokens the LSN of the last change read. A read emits a single
+    // page, the consumer reads again as long as pages carry changes.
+    @Override
+    public Flux<ChangeFeedPage> readChangeFeed(String feedRange, String continuationToken) {
+        return Mono.defer(() -> {
+
+            if (!isChangeFeedEnabled) {
+                return Mono.<ChangeFeedPage>error(new IllegalStateException("The simulator's change feed is only enabled for PPAFChangeFeedWorkload"));
+            }
+
+            Partition partition = partitions[Integer.parseInt(feedRange)];
+            Outcome outcome = read(partition, null, QUERY_REQUEST_CHARGE);
+            long lastLsn;
+
+            if (continuationToken == null) {
+                synchronized (partition) {
+                    lastLsn = partition.lsn.get();
+                }
+            } else {
+                lastLsn = Long.parseLong(continuationToken);
+            }
+
+            // changes before the continuation token have been consumed
+            partition.changeFeed.headMap(lastLsn, true).clear();
+
+            List<String> ids = new ArrayList<>();
+            long nowNanos = System.nanoTime();
+
+            if (continuationToken != null) {
+                for (Map.Entry<Long, ChangeFeedEntry> entry : partition.changeFeed.tailMap(lastLsn, false).entrySet()) {
+
+                    if (ids.size() >= CHANGE_FEED_PAGE_SIZE || nowNanos - entry.getValue().writeNanos < replicationLagNanos) {
+                        break;
+                    }
+
+                    ids.addAll(entry.getValue().ids);
+                    lastLsn = entry.getKey();
+                }
+            }
+
+            String nextContinuationToken = String.valueOf(lastLsn);
+
+            return complete(outcome).map(response -> new ChangeFeedPage(ids, nextContinuationToken, response));
+        }).flux();
+    }
+
+    private Flux<BulkOperationResult> completeMicroBatch(List<PendingBulkCreate> microBatch) {
+
+        List<BulkOperationResult> results = new ArrayList<>(microBatch.size());
+        long latencyNanos = 0;
+
+        for (PendingBulkCreate pendingBulkCreate : microBatch) {
+
+            GeneratedDocument document = pendingBulkCreate.document;
+            Outcome outcome = write(document.getPk(), List.of(document.getId()), createRequestCharge(document));
+
+            latencyNanos = Math.max(latencyNanos, outcome.latencyNanos);
+            results.add(outcome.exception != null
+                    ? BulkOperationResult.failure(document, pendingBulkCreate.operationStartNanos, outcome.exception)
+                    : BulkOperationResult.success(document, pendingBulkCreate.operationStartNanos, outcome.response));
+        }
+
+        return Mono.delay(Duration.ofNanos(latencyNanos)).thenMany(Flux.fromIterable(results));
+    }
+
+    private Outcome write(String partitionKeyValue, List<String> ids, double requestCharge) {
+
+        long nowNanos = System.nanoTime();
+        long elapsedNanos = nowNanos - startNanos;
+        Partition partition = partitionFor(partitionKeyValue);
+        int writeRegion = writeRegion(partition, elapsedNanos);
+
+        Outcome transientFailure = transientFailure(partition, writeRegion);
+
+        if (transientFailure != null) {
+            return transientFailure;
+        }
+
+        if (!isAvailable(partition, writeRegion, elapsedNanos)) {
+            return Outcome.failure(
+                    partition, 503, 21008, "Service unavailable - partition " + partition.id + " has no write region yet",
+                    singleRegionSets[writeRegion], sampleLatencyNanos(writeRegion));
+        }
+
+        long lsn;
+
+        // appended under the partition's lock, so the change feed never shows a change before an earlier one
+        if (isChangeFeedEnabled) {
+            synchronized (partition) {
+                lsn = partition.lsn.incrementAndGet();
+                partition.changeFeed.put(lsn, new ChangeFeedEntry(ids, System.nanoTime()));
+            }
+        } else {
+            lsn = partition.lsn.incrementAndGet();
+        }
+
+        partition.lastWriteNanos = nowNanos;
+
+        String sessionToken = partition.id + ":-1#" + lsn;
+        int clientWriteRegion = partition.clientWriteRegion;
+
+        // the first write after a failover or failback is rejected by the region the client still writes to
+        // (403 / 3) and retried in the new write region
+        if (clientWriteRegion != writeRegion) {
+            partition.clientWriteRegion = writeRegion;
+
+            return Outcome.success(
+                    201, regionPairSets[clientWriteRegion][writeRegion], sessionToken, requestCharge,
+                    sampleLatencyNanos(clientWriteRegion) + sampleLatencyNanos(writeRegion));
+        }
+
+        return Outcome.success(201, singleRegionSets[writeRegion], sessionToken, requestCharge, sampleLatencyNanos(writeRegion));
+    }
+
+    private Outcome read(String partitionKeyValue, String sessionToken, double requestCharge) {
+        return read(partitionFor(partitionKeyValue), sessionToken, requestCharge);
+    }
+
+    private Outcome read(Partition partition, String sessionToken, double requestCharge) {
+
+        long elapsedNanos = System.nanoTime() - startNanos;
+        int writeRegion = writeRegion(partition, elapsedNanos);
+        int readRegion = 0;
+        long latencyNanos = 0;
+
+        // regions unavailable for the partition are tried first, the read is then retried in the next region
+        while (!isAvailable(partition, readRegion, elapsedNanos)) {
+            latencyNanos += sampleLatencyNanos(readRegion);
+            readRegion++;
+        }
+
+        Outcome transientFailure = transientFailure(partition, readRegion);
+
+        if (transientFailure != null) {
+            return transientFailure;
+        }
+
+        latencyNanos += sampleLatencyNanos(readRegion);
+
+        long requestedLsn = parseLsn(sessionToken, partition.id);
+
+        if (readRegion != writeRegion
+                && isAvailable(partition, writeRegion, elapsedNanos)
+                && requestedLsn > visibleLsn(partition, System.nanoTime())) {
+            return Outcome.success(
+                    200, regionPairSets[readRegion][writeRegion], partition.id + ":-1#" + partition.lsn.get(), requestCharge * 2,
+                    latencyNanos + sampleLatencyNanos(writeRegion));
+        }
+
+        return Outcome.success(
+                200,
+                regionPairSets[0][readRegion],
+                partition.id + ":-1#" + partition.lsn.get(),
+                requestCharge,
+                latencyNanos);
+    }
+
+    private Outcome transientFailure(Partition partition, int region) {
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        if (transientFailureRate == 0 || random.nextDouble() >= transientFailureRate) {
+            return null;
+        }
+
+        switch (random.nextInt(3)) {
+            case 0:
+                return Outcome.failure(partition, 503, 21008, "Service unavailable (simulated)", singleRegionSets[region], sampleLatencyNanos(region));
+            case 1:
+                return Outcome.failure(partition, 408, 20008, "Request timeout (simulated)", singleRegionSets[region], sampleLatencyNanos(region));
+            default:
+                return Outcome.failure(partition, 410, 1002, "Partition key range gone (simulated)", singleRegionSets[region], sampleLatencyNanos(region));
+        }
+    }
+
+    private Mono<DataPlaneResponse> complete(Outcome outcome) {
+
+        Mono<Long> latency = Mono.delay(Duration.ofNanos(outcome.latencyNanos));
+
+        if (outcome.exception != null) {
+            return latency.then(Mono.error(outcome.exception));
+        }
+
+        return latency.map(ignored -> outcome.response);
+    }
+
+    private boolean isOutageActive(long elapsedNanos) {
+        return elapsedNanos >= outageStartNanos && elapsedNanos < outageEndNanos;
+    }
+
+    private boolean isAffected(Partition partition) {
+        return partition.id < affectedPartitionCount;
+    }
+
+    private boolean isAvailable(Partition partition, int region, long elapsedNanos) {
+        return region != 0 || !isAffected(partition) || !isOutageActive(elapsedNanos);
+    }
+
+    // an affected partition moves its writes to the next region the failover delay after the outage started and
+    // moves them back the failover delay after the outage ended
+    private int writeRegion(Partition partition, long elapsedNanos) {
+
+        if (isAffected(partition)
+                && elapsedNanos >= outageStartNanos + failoverDelayNanos
+                && elapsedNanos < outageEndNanos + failoverDelayNanos) {
+            return 1;
+        }
+
+        return 0;
+    }
+
+    private long visibleLsn(Partition partition, long nowNanos) {
+        long lsn = partition.lsn.get();
+        return nowNanos - partition.lastWriteNanos >= replicationLagNanos ? lsn : lsn - 1;
+    }
+
+    private Partition partitionFor(String partitionKeyValue) {
+        return partitions[Math.floorMod(partitionKeyValue.hashCode(), partitions.length)];
+    }
+
+    private long sampleLatencyNanos(int region) {
+        double latencyMillis = medianLatencyMillis[region] * Math.exp(latencySigma * ThreadLocalRandom.current().nextGaussian());
+        return (long) (latencyMillis * 1_000_000);
+    }
+
+    private static double createRequestCharge(GeneratedDocument document) {
+        return CREATE_REQUEST_CHARGE * Math.max(1.0, document.getSerializedSizeInBytes() / 1024.0);
+    }
+
+    // Session tokens look like "<partition>:-1#<lsn>", possibly several comma separated ones
+    private static long parseLsn(String sessionToken, int partitionId) {
+
+        if (sessionToken == null || sessionToken.isEmpty()) {
+            return -1;
+        }
+
+        String partitionPrefix = partitionId + ":";
+
+        for (String partitionSessionToken : sessionToken.split(",")) {
+            if (partitionSessionToken.startsWith(partitionPrefix)) {
+                int lsnStart = partitionSessionToken.lastIndexOf('#');
+
+                try {
+                    return lsnStart < 0 ? -1 : Long.parseLong(partitionSessionToken.substring(lsnStart + 1));
+                } catch (NumberFormatException e) {
+                    return -1;
+                }
+            }
+        }
+
+        return -1;
+    }
+
+    private static class Partition {
+
+        private final int id;
+        // the id failures are attributed to, successes carry it in their session token
+        private final String partitionKeyRangeId;
+        private final AtomicLong lsn = new AtomicLong();
+        // keyed by LSN, only kept with the change feed enabled
+        private final ConcurrentSkipListMap<Long, ChangeFeedEntry> changeFeed = new ConcurrentSkipListMap<>();
+        private volatile long lastWriteNanos;
+        // the write region the simulated client last wrote to
+        private volatile int clientWriteRegion;
+
+        Partition(int id) {
+            this.id = id;
+            this.partitionKeyRangeId = String.valueOf(id);
+        }
+    }
+
+    private static class ChangeFeedEntry {
+
+        private final List<String> ids;
+        private final long writeNanos;
+
+        ChangeFeedEntry(List<String> ids, long writeNanos) {
+            this.ids = ids;
+            this.writeNanos = writeNanos;
+        }
+    }
+
+    private static class PendingBulkCreate {
+
+        private final GeneratedDocument document;
+        private final long operationStartNanos;
+
+        PendingBulkCreate(GeneratedDocument document, long operationStartNanos) {
+            this.document = document;
+            this.operationStartNanos = operationStartNanos;
+        }
+    }
+
+    private static class Outcome {
+
+        private final DataPlaneResponse response;
+        private final DataPlaneException exception;
+        private final long latencyNanos;
+
+        private Outcome(DataPlaneResponse response, DataPlaneException exception, long latencyNanos) {
+            this.response = response;
+            this.exception = exception;
+            this.latencyNanos = latencyNanos;
+        }
+
+        static Outcome success(int statusCode, Set<String> contactedRegionNames, String sessionToken, double requestCharge, long latencyNanos) {
+            return new Outcome(new DataPlaneResponse(statusCode, contactedRegionNames, sessionToken, requestCharge, null), null, latencyNanos);
+        }
+
+        static Outcome failure(
+                Partition partition, int statusCode, int subStatusCode, String message, Set<String> contactedRegionNames, long latencyNanos) {
+            return new Outcome(
+                    null,
+                    new DataPlaneException(message, statusCode, subStatusCode, contactedRegionNames, null, partition.partitionKeyRangeId, null),
+                    latencyNanos);
+        }
+    }
+}
@@ -2,15 +2,13 @@ package org.example;
 
 
 import com.azure.cosmos.CosmosAsyncClient;
-import com.azure.cosmos.CosmosClientBuilder;
 import com.azure.cosmos.implementation.DatabaseAccount;
 import com.azure.cosmos.implementation.DatabaseAccountLocation;
 import com.azure.cosmos.implementation.GlobalEndpointManager;
 import com.azure.cosmos.implementation.RxDocumentClientImpl;
-import com.azure.cosmos.implementation.TestConfigurations;
 
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -18,30 +16,18 @@ import java.util.concurrent.ConcurrentHashMap;
 
 public class Utils {
 
-    public static List<String> getPreferredRegions(Configuration configuration) {
-
-        String documentEndpoint = configuration.getAccountHost().isEmpty() ? TestConfigurations.HOST : configuration.getAccountHost();
-        String masterKey = configuration.getAccountMasterKey().isEmpty() ? TestConfigurations.MASTER_KEY : configuration.getAccountMasterKey();
-
-        try (CosmosAsyncClient client = new CosmosClientBuilder()
-                .endpoint(documentEndpoint)
-                .key(masterKey)
-                .buildAsyncClient()) {
+    // Read off the account the client already fetched on startup, empty if the client doesn't expose it
+    public static List<String> getReadableRegions(CosmosAsyncClient client) {
 
+        try {
             RxDocumentClientImpl documentClient = (RxDocumentClientImpl) ReflectionUtils.get(client, "asyncDocumentClient");
             GlobalEndpointManager globalEndpointManager = documentClient.getGlobalEndpointManager();
 
             DatabaseAccount databaseAccount = globalEndpointManager.getLatestDatabaseAccount();
 
             return new ArrayList<>(getAccountLevelLocationContext(databaseAccount, false).serviceOrderedReadableRegions);
-        }
-        catch (Exception e) {
-
-            if (documentEndpoint.contains("test14")) {
-                return Arrays.asList("North Central US", "West US", "East Asia");
-            } else {
-                return Arrays.asList("North Central US", "West US 2", "Central US");
-            }
+        } catch (Exception e) {
+            return Collections.emptyList();
         }
     }
 
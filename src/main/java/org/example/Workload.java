@@ -1,5 +1,11 @@
 package org.example;
 
 public interface Workload {
-    void execute(Configuration cfg);
+
+    default void execute(Configuration cfg) {
+        execute(cfg, null);
+    }
+
+    // The listener, if any, gets the interval latency histograms of the drill as they are reported
+    void execute(Configuration cfg, LatencyIntervalListener latencyIntervalListener);
 }
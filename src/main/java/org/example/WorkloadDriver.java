@@ -14,14 +14,27 @@ public class WorkloadDriver {
 
         JCommander.newBuilder().addObject(config).build().parse(args);
 
-        if (config.getDrillWorkloadType() == WorkloadType.PPAFDrillWorkload) {
-            Workload workload = new PPAFDrillWorkload();
-            logger.info("Running PPAF Drill workload");
-            workload.execute(config);
+        if (config.getDrillRole() == DrillRole.COORDINATOR) {
+            logger.info("Coordinating PPAF Drill agents");
+            new DrillCoordinator(config, args).run();
+        } else if (config.getDrillRole() == DrillRole.AGENT) {
+            logger.info("Running as a PPAF Drill agent");
+            new DrillAgent(config).run();
         } else {
-            Workload workload = new PPAFForSessionConsistencyWorkload();
-            logger.info("Running PPAF For Session Consistency Drill workload");
-            workload.execute(config);
+            run(config, null);
         }
     }
+
+    // Runs the drill workload of the configuration, the listener (if any) gets its interval latency histograms. All
+    // workload types but the session consistency one are variants of the generic drill.
+    static void run(Configuration config, LatencyIntervalListener latencyIntervalListener) {
+
+        WorkloadType workloadType = config.getDrillWorkloadType();
+        Workload workload = workloadType == WorkloadType.PPAFForSessionConsistencyWorkload
+                ? new PPAFForSessionConsistencyWorkload()
+                : new PPAFDrillWorkload(workloadType);
+
+        logger.info("Running {} workload", workloadType.getDisplayName());
+        workload.execute(config, latencyIntervalListener);
+    }
 }
@@ -1,5 +1,19 @@
 package org.example;
 
 public enum WorkloadType {
-    PPAFDrillWorkload, PPAFForSessionConsistencyWorkload
+    PPAFDrillWorkload("PPAF Drill"),
+    PPAFForSessionConsistencyWorkload("PPAF For Session Consistency Drill"),
+    PPAFBulkIngestWorkload("PPAF Bulk Ingest Drill"),
+    PPAFTransactionalBatchWorkload("PPAF Transactional Batch Drill"),
+    PPAFChangeFeedWorkload("PPAF Change Feed Drill");
+
+    private final String displayName;
+
+    WorkloadType(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
 }
@@ -1,28 +1,30 @@
 package org.example;
 
-import com.azure.cosmos.CosmosAsyncContainer;
-import com.azure.cosmos.CosmosDiagnosticsContext;
+import com.azure.cosmos.CosmosDiagnostics;
 import com.azure.cosmos.CosmosEndToEndOperationLatencyPolicyConfig;
 import com.azure.cosmos.CosmosEndToEndOperationLatencyPolicyConfigBuilder;
-import com.azure.cosmos.CosmosException;
 import com.azure.cosmos.CosmosRegionSwitchHint;
 import com.azure.cosmos.SessionRetryOptions;
 import com.azure.cosmos.SessionRetryOptionsBuilder;
 import com.azure.cosmos.ThresholdBasedAvailabilityStrategy;
+import com.azure.cosmos.implementation.CosmosDaemonThreadFactory;
 import com.azure.cosmos.models.CosmosItemRequestOptions;
 import com.azure.cosmos.models.CosmosQueryRequestOptions;
-import com.azure.cosmos.models.PartitionKey;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import java.time.Duration;
-import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
-import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
 public class WorkloadUtils {
@@ -32,6 +34,9 @@ public class WorkloadUtils {
     public static final String CREATE_OP = "create";
     public static final String READ_OP = "read";
     public static final String QUERY_OP = "query";
+    public static final String BULK_CREATE_OP = "bulkCreate";
+    public static final String BATCH_OP = "batch";
+    public static final String CHANGE_FEED_OP = "changeFeed";
 
     public static final CosmosEndToEndOperationLatencyPolicyConfig E2E_POLICY_FOR_WRITE
             = new CosmosEndToEndOperationLatencyPolicyConfigBuilder(Duration.ofSeconds(3)).build();
@@ -65,634 +70,909 @@ public class WorkloadUtils {
             .regionSwitchHint(CosmosRegionSwitchHint.LOCAL_REGION_PREFERRED)
             .build();
 
-    public static final Integer MAX_ID_CACHE_SIZE = 100;
-
     public static void onCreate(
-            CosmosAsyncContainer cosmosAsyncContainer,
-            Configuration cfg,
-            Instant startTime,
-            Duration runDuration,
+            DataPlane dataPlane,
+            DrillContext drillContext,
             int scheduledFutureId,
             AtomicInteger successCount,
             AtomicInteger failureCount,
-            CopyOnWriteArrayList<String> successfullyPersistedIds,
-            Object lock) throws InterruptedException {
+            IdReservoir successfullyPersistedIds) throws InterruptedException {
 
-        while (!Instant.now().minus(runDuration).isAfter(startTime)) {
+        OperationPacer pacer = drillContext.getPacingController().getPacer(CREATE_OP);
 
-            for (int i = 0; i < 10; i++) {
+        while (pacer.acquire(drillContext::isRunDurationElapsed)) {
 
-                Book book = Book.build();
+            createItemOperation(
+                    dataPlane,
+                    drillContext,
+                    scheduledFutureId,
+                    successCount,
+                    failureCount,
+                    successfullyPersistedIds,
+                    System.nanoTime())
+                    .block();
+        }
+    }
 
-                synchronized (lock) {
+    public static Mono<Void> createItemOperation(
+            DataPlane dataPlane,
+            DrillContext drillContext,
+            int scheduledFutureId,
+            AtomicInteger successCount,
+            AtomicInteger failureCount,
+            IdReservoir successfullyPersistedIds,
+            long operationStartNanos) {
 
-                    if (successfullyPersistedIds.size() == MAX_ID_CACHE_SIZE) {
-                        successfullyPersistedIds.remove(0);
-                    }
-                }
-
-                cosmosAsyncContainer
-                        .createItem(book, cfg.shouldWritesHaveE2ETimeout() ? REQUEST_OPTIONS_FOR_CREATE_WITH_E2E_TIMEOUT : REQUEST_OPTIONS_FOR_CREATE_WO_E2E_TIMEOUT)
-                        .doOnSuccess(createResponse -> {
-
-                            successfullyPersistedIds.add(book.getId());
-
-                            int successCountSnapshot = successCount.incrementAndGet();
-                            int failureCountSnapshot = failureCount.get();
-                            int statusCode = createResponse.getStatusCode();
-
-                            Instant timeOfResponse = Instant.now();
-                            Duration remainingTime = runDuration.minus(Duration.between(startTime, timeOfResponse));
-
-                            Set<String> contactedRegionNames = createResponse.getDiagnostics().getDiagnosticsContext().getContactedRegionNames();
-                            String commaSeparatedContactedRegionNames = String.join(",", contactedRegionNames);
-
-                            RequestResponseInfo requestResponseInfo;
-
-                            if (cfg.shouldLogCosmosDiagnosticsForSuccessfulResponse()) {
-                                requestResponseInfo = RequestResponseInfo.builder()
-                                        .timeOfResponse(timeOfResponse)
-                                        .operationType(CREATE_OP)
-                                        .drillId(cfg.getDrillId())
-                                        .withCounts(successCountSnapshot, failureCountSnapshot)
-                                        .threadId(scheduledFutureId)
-                                        .withSuccessResponse(statusCode, createResponse.getDiagnostics().toString())
-                                        .commaSeparatedContactedRegions(commaSeparatedContactedRegionNames)
-                                        .connectionModeAsStr(cfg.getConnectionMode().name())
-                                        .containerName(cfg.getContainerName())
-                                        .accountName(cfg.getAccountHost())
-                                        .possiblyColdStartClient(runDuration.compareTo(Duration.ofHours(1)) < 0)
-                                        .databaseName(cfg.getDatabaseName())
-                                        .runTimeRemaining(remainingTime)
-                                        .build();
-                            } else {
-                                requestResponseInfo = RequestResponseInfo.builder()
-                                        .timeOfResponse(timeOfResponse)
-                                        .operationType(CREATE_OP)
-                                        .drillId(cfg.getDrillId())
-                                        .withCounts(successCountSnapshot, failureCountSnapshot)
-                                        .threadId(scheduledFutureId)
-                                        .withSuccessResponse(statusCode, "")
-                                        .commaSeparatedContactedRegions(commaSeparatedContactedRegionNames)
-                                        .connectionModeAsStr(cfg.getConnectionMode().name())
-                                        .containerName(cfg.getContainerName())
-                                        .accountName(cfg.getAccountHost())
-                                        .possiblyColdStartClient(runDuration.compareTo(Duration.ofHours(1)) < 0)
-                                        .databaseName(cfg.getDatabaseName())
-                                        .runTimeRemaining(remainingTime)
-                                        .build();
-                            }
-
-                            logger.info(requestResponseInfo.toString());
-                        })
-                        .onErrorComplete(throwable -> {
-
-                            if (throwable instanceof CosmosException) {
-
-                                int successCountSnapshot = successCount.get();
-                                int failureCountSnapshot = failureCount.incrementAndGet();
-
-                                CosmosException cosmosException = (CosmosException) throwable;
-
-                                int statusCode = cosmosException.getStatusCode();
-
-                                Instant timeOfResponse = Instant.now();
-                                Duration remainingTime = runDuration.minus(Duration.between(startTime, timeOfResponse));
-
-                                CosmosDiagnosticsContext cosmosDiagnosticsContext = cosmosException.getDiagnostics().getDiagnosticsContext();
-
-                                Set<String> contactedRegionNames = cosmosDiagnosticsContext.getContactedRegionNames();
-                                String commaSeparatedContactedRegionNames = String.join(",", contactedRegionNames);
-
-                                RequestResponseInfo requestResponseInfo = RequestResponseInfo.builder()
-                                        .timeOfResponse(timeOfResponse)
-                                        .operationType(CREATE_OP)
-                                        .drillId(cfg.getDrillId())
-                                        .withCounts(successCountSnapshot, failureCountSnapshot)
-                                        .threadId(scheduledFutureId)
-                                        .withErrorResponse(statusCode, cosmosException.getSubStatusCode(), cosmosException.getMessage(), cosmosException.getDiagnostics().toString())
-                                        .commaSeparatedContactedRegions(commaSeparatedContactedRegionNames)
-                                        .connectionModeAsStr(cfg.getConnectionMode().name())
-                                        .containerName(cfg.getContainerName())
-                                        .accountName(cfg.getAccountHost())
-                                        .possiblyColdStartClient(runDuration.compareTo(Duration.ofHours(1)) < 0)
-                                        .databaseName(cfg.getDatabaseName())
-                                        .runTimeRemaining(remainingTime)
-                                        .build();
-
-                                logger.error(requestResponseInfo.toString());
-                            }
-                            return true;
-                        })
-                        .block();
-
-                Thread.sleep(cfg.getSleepTime());
-            }
+        Configuration cfg = drillContext.getCfg();
+        KeySpace keySpace = drillContext.getKeySpace();
+        String id = keySpace.nextId();
+        GeneratedDocument document = drillContext.getDocumentGenerator().next(id, keySpace.getPartitionKeyValue(id));
+        ChangeFeedTracker changeFeedTracker = drillContext.getChangeFeedTracker();
+
+        if (changeFeedTracker != null) {
+            changeFeedTracker.onCreateIssued(document.getId(), operationStartNanos);
         }
+
+        return dataPlane
+                .createItem(document, cfg.shouldWritesHaveE2ETimeout() ? REQUEST_OPTIONS_FOR_CREATE_WITH_E2E_TIMEOUT : REQUEST_OPTIONS_FOR_CREATE_WO_E2E_TIMEOUT)
+                .doOnSuccess(createResponse -> {
+
+                    successfullyPersistedIds.add(document.getId());
+
+                    if (changeFeedTracker != null) {
+                        changeFeedTracker.onCreateCompleted(document.getId(), true);
+                    }
+                    onDocumentsWritten(drillContext, CREATE_OP, 1, document.getSerializedSizeInBytes());
+
+                    onSuccessfulResponse(
+                            drillContext,
+                            CREATE_OP,
+                            scheduledFutureId,
+                            successCount,
+                            failureCount,
+                            createResponse,
+                            null,
+                            operationStartNanos);
+                })
+                .onErrorComplete(throwable -> {
+
+                    if (changeFeedTracker != null) {
+                        changeFeedTracker.onCreateCompleted(document.getId(), false);
+                    }
+
+                    if (throwable instanceof DataPlaneException) {
+                        onFailedResponse(
+                                drillContext,
+                                CREATE_OP,
+                                scheduledFutureId,
+                                successCount,
+                                failureCount,
+                                (DataPlaneException) throwable,
+                                operationStartNanos);
+                    }
+                    return true;
+                })
+                .then()
+                .doOnSubscribe(subscription -> drillContext.getMetrics().onOperationStarted(CREATE_OP))
+                .doFinally(signalType -> drillContext.getMetrics().onOperationFinished(CREATE_OP));
     }
 
     public static void onCreateStopOnFirstFailure(
-            CosmosAsyncContainer cosmosAsyncContainer,
-            Configuration cfg,
-            Instant startTime,
-            Duration runDuration,
+            DataPlane dataPlane,
+            DrillContext drillContext,
             int scheduledFutureId,
             AtomicInteger successCount,
             AtomicInteger failureCount,
             AtomicBoolean isFailureDetected,
             AtomicReference<String> latestRecordedSessionToken) throws InterruptedException {
 
-        while (!Instant.now().minus(runDuration).isAfter(startTime) && !isFailureDetected.get()) {
-
-            for (int i = 0; i < 1; i++) {
-
-                Book book = Book.build();
-
-                cosmosAsyncContainer
-                        .createItem(book, REQUEST_OPTIONS_FOR_CREATE_WITH_E2E_TIMEOUT)
-                        .doOnSuccess(createResponse -> {
-
-                            int successCountSnapshot = successCount.incrementAndGet();
-                            int failureCountSnapshot = failureCount.get();
-                            int statusCode = createResponse.getStatusCode();
-
-                            Instant timeOfResponse = Instant.now();
-                            Duration remainingTime = runDuration.minus(Duration.between(startTime, timeOfResponse));
-
-                            Set<String> contactedRegionNames = createResponse.getDiagnostics().getDiagnosticsContext().getContactedRegionNames();
-                            String commaSeparatedContactedRegionNames = String.join(",", contactedRegionNames);
-
-                            latestRecordedSessionToken.set(createResponse.getSessionToken());
-
-                            RequestResponseInfo requestResponseInfo;
-
-                            if (cfg.shouldLogCosmosDiagnosticsForSuccessfulResponse()) {
-                                requestResponseInfo = RequestResponseInfo.builder()
-                                        .timeOfResponse(timeOfResponse)
-                                        .operationType(CREATE_OP)
-                                        .drillId(cfg.getDrillId())
-                                        .withCounts(successCountSnapshot, failureCountSnapshot)
-                                        .threadId(scheduledFutureId)
-                                        .withSuccessResponse(statusCode, createResponse.getDiagnostics().toString())
-                                        .commaSeparatedContactedRegions(commaSeparatedContactedRegionNames)
-                                        .connectionModeAsStr(cfg.getConnectionMode().name())
-                                        .containerName(cfg.getContainerName())
-                                        .accountName(cfg.getAccountHost())
-                                        .possiblyColdStartClient(runDuration.compareTo(Duration.ofHours(1)) < 0)
-                                        .databaseName(cfg.getDatabaseName())
-                                        .runTimeRemaining(remainingTime)
-                                        .build();
-                            } else {
-                                requestResponseInfo = RequestResponseInfo.builder()
-                                        .timeOfResponse(timeOfResponse)
-                                        .operationType(CREATE_OP)
-                                        .drillId(cfg.getDrillId())
-                                        .withCounts(successCountSnapshot, failureCountSnapshot)
-                                        .threadId(scheduledFutureId)
-                                        .withSuccessResponse(statusCode, "")
-                                        .commaSeparatedContactedRegions(commaSeparatedContactedRegionNames)
-                                        .connectionModeAsStr(cfg.getConnectionMode().name())
-                                        .containerName(cfg.getContainerName())
-                                        .accountName(cfg.getAccountHost())
-                                        .possiblyColdStartClient(runDuration.compareTo(Duration.ofHours(1)) < 0)
-                                        .databaseName(cfg.getDatabaseName())
-                                        .runTimeRemaining(remainingTime)
-                                        .build();
-                            }
-
-                            logger.info(requestResponseInfo.toString());
-                        })
-                        .onErrorComplete(throwable -> {
-
-                            if (throwable instanceof CosmosException) {
-
-                                int successCountSnapshot = successCount.get();
-                                int failureCountSnapshot = failureCount.incrementAndGet();
-
-                                CosmosException cosmosException = (CosmosException) throwable;
-
-                                if (isAvailabilityRelatedFailure(cosmosException)) {
-                                    isFailureDetected.compareAndSet(false, true);
-                                }
-
-                                int statusCode = cosmosException.getStatusCode();
-
-                                Instant timeOfResponse = Instant.now();
-                                Duration remainingTime = runDuration.minus(Duration.between(startTime, timeOfResponse));
-
-                                CosmosDiagnosticsContext cosmosDiagnosticsContext = cosmosException.getDiagnostics().getDiagnosticsContext();
-
-                                Set<String> contactedRegionNames = cosmosDiagnosticsContext.getContactedRegionNames();
-                                String commaSeparatedContactedRegionNames = String.join(",", contactedRegionNames);
-
-                                RequestResponseInfo requestResponseInfo = RequestResponseInfo.builder()
-                                        .timeOfResponse(timeOfResponse)
-                                        .operationType(CREATE_OP)
-                                        .drillId(cfg.getDrillId())
-                                        .withCounts(successCountSnapshot, failureCountSnapshot)
-                                        .threadId(scheduledFutureId)
-                                        .withErrorResponse(statusCode, cosmosException.getSubStatusCode(), cosmosException.getMessage(), cosmosException.getDiagnostics().toString())
-                                        .commaSeparatedContactedRegions(commaSeparatedContactedRegionNames)
-                                        .connectionModeAsStr(cfg.getConnectionMode().name())
-                                        .containerName(cfg.getContainerName())
-                                        .accountName(cfg.getAccountHost())
-                                        .possiblyColdStartClient(runDuration.compareTo(Duration.ofHours(1)) < 0)
-                                        .databaseName(cfg.getDatabaseName())
-                                        .runTimeRemaining(remainingTime)
-                                        .build();
-
-                                logger.error(requestResponseInfo.toString());
-                            }
-                            return true;
-                        })
-                        .block();
-
-                Thread.sleep(cfg.getSleepTime());
-            }
+        OperationPacer pacer = drillContext.getPacingController().getPacer(CREATE_OP);
+
+        while (pacer.acquire(() -> drillContext.isRunDurationElapsed() || isFailureDetected.get())) {
+
+            createItemStopOnFirstFailureOperation(
+                    dataPlane,
+                    drillContext,
+                    scheduledFutureId,
+                    successCount,
+                    failureCount,
+                    isFailureDetected,
+                    latestRecordedSessionToken,
+                    System.nanoTime())
+                    .block();
         }
     }
 
-    public static void onRead(
-            CosmosAsyncContainer cosmosAsyncContainer,
-            Configuration cfg,
-            Instant startTime,
-            Duration runDuration,
+    public static Mono<Void> createItemStopOnFirstFailureOperation(
+            DataPlane dataPlane,
+            DrillContext drillContext,
             int scheduledFutureId,
             AtomicInteger successCount,
             AtomicInteger failureCount,
-            CopyOnWriteArrayList<String> successfullyCreatedIds,
-            ThreadLocalRandom random,
-            Object lock) throws InterruptedException {
+            AtomicBoolean isFailureDetected,
+            AtomicReference<String> latestRecordedSessionToken,
+            long operationStartNanos) {
+
+        KeySpace keySpace = drillContext.getKeySpace();
+        String id = keySpace.nextId();
+        GeneratedDocument document = drillContext.getDocumentGenerator().next(id, keySpace.getPartitionKeyValue(id));
+
+        return dataPlane
+                .createItem(document, REQUEST_OPTIONS_FOR_CREATE_WITH_E2E_TIMEOUT)
+                .doOnSuccess(createResponse -> {
+
+                    latestRecordedSessionToken.set(createResponse.getSessionToken());
+                    onDocumentsWritten(drillContext, CREATE_OP, 1, document.getSerializedSizeInBytes());
+
+                    onSuccessfulResponse(
+                            drillContext,
+                            CREATE_OP,
+                            scheduledFutureId,
+                            successCount,
+                            failureCount,
+                            createResponse,
+                            null,
+                            operationStartNanos);
+                })
+                .onErrorComplete(throwable -> {
+
+                    if (throwable instanceof DataPlaneException) {
+
+                        DataPlaneException dataPlaneException = (DataPlaneException) throwable;
+
+                        if (isAvailabilityRelatedFailure(dataPlaneException)) {
+                            isFailureDetected.compareAndSet(false, true);
+                        }
+
+                        onFailedResponse(
+                                drillContext,
+                                CREATE_OP,
+                                scheduledFutureId,
+                                successCount,
+                                failureCount,
+                                dataPlaneException,
+                                operationStartNanos);
+                    }
+                    return true;
+                })
+                .then()
+                .doOnSubscribe(subscription -> drillContext.getMetrics().onOperationStarted(CREATE_OP))
+                .doFinally(signalType -> drillContext.getMetrics().onOperationFinished(CREATE_OP));
+    }
 
-        while (!Instant.now().minus(runDuration).isAfter(startTime)) {
+    // Feeds a single bulk ingest pipeline until the run duration elapses, the pacer meters the documents going in
+    public static void onBulkCreate(
+            DataPlane dataPlane,
+            DrillContext drillContext,
+            int scheduledFutureId,
+            AtomicInteger successCount,
+            AtomicInteger failureCount,
+            IdReservoir successfullyPersistedIds) {
+
+        bulkCreateOperation(
+                dataPlane,
+                drillContext,
+                scheduledFutureId,
+                successCount,
+                failureCount,
+                successfullyPersistedIds)
+                .block();
+    }
 
-            for (int i = 0; i < 10; i++) {
+    public static Mono<Void> bulkCreateOperation(
+            DataPlane dataPlane,
+            DrillContext drillContext,
+            int scheduledFutureId,
+            AtomicInteger successCount,
+            AtomicInteger failureCount,
+            IdReservoir successfullyPersistedIds) {
+
+        Configuration cfg = drillContext.getCfg();
+        KeySpace keySpace = drillContext.getKeySpace();
+        DocumentGenerator documentGenerator = drillContext.getDocumentGenerator();
+        OperationPacer pacer = drillContext.getPacingController().getPacer(BULK_CREATE_OP);
+
+        // acquire parks the emitting thread, which is kept off the threads the bulk executor requests documents on
+        Flux<GeneratedDocument> documents = Flux
+                .<GeneratedDocument>generate(sink -> {
+                    try {
+                        if (pacer.acquire(drillContext::isRunDurationElapsed)) {
+                            String id = keySpace.nextId();
+                            sink.next(documentGenerator.next(id, keySpace.getPartitionKeyValue(id)));
+                        } else {
+                            sink.complete();
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        sink.complete();
+                    }
+                })
+                .doOnNext(document -> drillContext.getMetrics().onOperationStarted(BULK_CREATE_OP))
+                .subscribeOn(Schedulers.boundedElastic());
+
+        return dataPlane
+                .executeBulkCreates(documents, cfg.getBulkMaxMicroBatchSize(), cfg.getBulkMaxMicroBatchConcurrency())
+                .doOnNext(bulkOperationResult -> {
+
+                    GeneratedDocument document = bulkOperationResult.getDocument();
+
+                    drillContext.getMetrics().onOperationFinished(BULK_CREATE_OP);
+
+                    if (bulkOperationResult.isSuccess()) {
+
+                        successfullyPersistedIds.add(document.getId());
+                        onDocumentsWritten(drillContext, BULK_CREATE_OP, 1, document.getSerializedSizeInBytes());
+
+                        onSuccessfulResponse(
+                                drillContext,
+                                BULK_CREATE_OP,
+                                scheduledFutureId,
+                                successCount,
+                                failureCount,
+                                bulkOperationResult.getResponse(),
+                                null,
+                                bulkOperationResult.getOperationStartNanos());
+                    } else {
+                        onFailedResponse(
+                                drillContext,
+                                BULK_CREATE_OP,
+                                scheduledFutureId,
+                                successCount,
+                                failureCount,
+                                bulkOperationResult.getException(),
+                                bulkOperationResult.getOperationStartNanos());
+                    }
+                })
+                .doOnError(throwable -> logger.error("Bulk ingest pipeline failed, no more documents are ingested", throwable))
+                .onErrorComplete()
+                .then();
+    }
 
-                String idToRead;
+    public static void onBatchCreate(
+            DataPlane dataPlane,
+            DrillContext drillContext,
+            int scheduledFutureId,
+            AtomicInteger successCount,
+            AtomicInteger failureCount,
+            IdReservoir successfullyPersistedIds) throws InterruptedException {
+
+        OperationPacer pacer = drillContext.getPacingController().getPacer(BATCH_OP);
+
+        while (pacer.acquire(drillContext::isRunDurationElapsed)) {
 
-                synchronized (lock) {
-                    if (successfullyCreatedIds.isEmpty()) {
-                        continue;
+            batchCreateOperation(
+                    dataPlane,
+                    drillContext,
+                    scheduledFutureId,
+                    successCount,
+                    failureCount,
+                    successfullyPersistedIds,
+                    System.nanoTime())
+                    .block();
+        }
+    }
+
+    // Creates batchSize documents sharing one partition key value in a transactional batch, which succeeds or
+    // fails as one operation
+    public static Mono<Void> batchCreateOperation(
+            DataPlane dataPlane,
+            DrillContext drillContext,
+            int scheduledFutureId,
+            AtomicInteger successCount,
+            AtomicInteger failureCount,
+            IdReservoir successfullyPersistedIds,
+            long operationStartNanos) {
+
+        KeySpace keySpace = drillContext.getKeySpace();
+        DocumentGenerator documentGenerator = drillContext.getDocumentGenerator();
+        String partitionKeyValue = keySpace.nextPartitionKeyValue();
+        int batchSize = drillContext.getCfg().getBatchSize();
+
+        List<GeneratedDocument> documents = new ArrayList<>(batchSize);
+        long batchSizeInBytes = 0;
+
+        for (int i = 0; i < batchSize; i++) {
+            GeneratedDocument document = documentGenerator.next(keySpace.nextId(partitionKeyValue), partitionKeyValue);
+            documents.add(document);
+            batchSizeInBytes += document.getSerializedSizeInBytes();
+        }
+
+        long writtenBytes = batchSizeInBytes;
+
+        return dataPlane
+                .executeTransactionalBatchCreates(partitionKeyValue, documents)
+                .doOnSuccess(batchResponse -> {
+
+                    for (GeneratedDocument document : documents) {
+                        successfullyPersistedIds.add(document.getId());
                     }
 
-                    idToRead = successfullyCreatedIds.get(random.nextInt(successfullyCreatedIds.size()));
-                }
-
-                cosmosAsyncContainer
-                        .readItem(idToRead, new PartitionKey(idToRead), Book.class)
-                        .doOnSuccess(readResponse -> {
-
-                            int successCountSnapshot = successCount.incrementAndGet();
-                            int failureCountSnapshot = failureCount.get();
-                            int statusCode = readResponse.getStatusCode();
-
-                            Instant timeOfResponse = Instant.now();
-                            Duration remainingTime = runDuration.minus(Duration.between(startTime, timeOfResponse));
-
-                            Set<String> contactedRegionNames = readResponse.getDiagnostics().getDiagnosticsContext().getContactedRegionNames();
-                            String commaSeparatedContactedRegionNames = String.join(",", contactedRegionNames);
-
-                            RequestResponseInfo requestResponseInfo;
-
-                            if (cfg.shouldLogCosmosDiagnosticsForSuccessfulResponse()) {
-                                requestResponseInfo = RequestResponseInfo.builder()
-                                        .timeOfResponse(timeOfResponse)
-                                        .operationType(READ_OP)
-                                        .drillId(cfg.getDrillId())
-                                        .withCounts(successCountSnapshot, failureCountSnapshot)
-                                        .threadId(scheduledFutureId)
-                                        .withSuccessResponse(statusCode, readResponse.getDiagnostics().toString())
-                                        .commaSeparatedContactedRegions(commaSeparatedContactedRegionNames)
-                                        .connectionModeAsStr(cfg.getConnectionMode().name())
-                                        .containerName(cfg.getContainerName())
-                                        .accountName(cfg.getAccountHost())
-                                        .possiblyColdStartClient(runDuration.compareTo(Duration.ofHours(1)) < 0)
-                                        .databaseName(cfg.getDatabaseName())
-                                        .runTimeRemaining(remainingTime)
-                                        .build();
-                            } else {
-                                requestResponseInfo = RequestResponseInfo.builder()
-                                        .timeOfResponse(timeOfResponse)
-                                        .operationType(READ_OP)
-                                        .drillId(cfg.getDrillId())
-                                        .withCounts(successCountSnapshot, failureCountSnapshot)
-                                        .threadId(scheduledFutureId)
-                                        .withSuccessResponse(statusCode, "")
-                                        .commaSeparatedContactedRegions(commaSeparatedContactedRegionNames)
-                                        .connectionModeAsStr(cfg.getConnectionMode().name())
-                                        .containerName(cfg.getContainerName())
-                                        .accountName(cfg.getAccountHost())
-                                        .possiblyColdStartClient(runDuration.compareTo(Duration.ofHours(1)) < 0)
-                                        .databaseName(cfg.getDatabaseName())
-                                        .runTimeRemaining(remainingTime)
-                                        .build();
-                            }
-
-                            logger.info(requestResponseInfo.toString());
-                        })
-                        .onErrorComplete(throwable -> {
-
-                            if (throwable instanceof CosmosException) {
-
-                                int successCountSnapshot = successCount.get();
-                                int failureCountSnapshot = failureCount.incrementAndGet();
-
-                                CosmosException cosmosException = (CosmosException) throwable;
-
-                                int statusCode = cosmosException.getStatusCode();
-
-                                Instant timeOfResponse = Instant.now();
-                                Duration remainingTime = runDuration.minus(Duration.between(startTime, timeOfResponse));
-
-                                CosmosDiagnosticsContext cosmosDiagnosticsContext = cosmosException.getDiagnostics().getDiagnosticsContext();
-
-                                Set<String> contactedRegionNames = cosmosDiagnosticsContext.getContactedRegionNames();
-                                String commaSeparatedContactedRegionNames = String.join(",", contactedRegionNames);
-
-                                RequestResponseInfo requestResponseInfo = RequestResponseInfo.builder()
-                                        .timeOfResponse(timeOfResponse)
-                                        .operationType(READ_OP)
-                                        .drillId(cfg.getDrillId())
-                                        .withCounts(successCountSnapshot, failureCountSnapshot)
-                                        .threadId(scheduledFutureId)
-                                        .withErrorResponse(statusCode, cosmosException.getSubStatusCode(), cosmosException.getMessage(), cosmosException.getDiagnostics().toString())
-                                        .commaSeparatedContactedRegions(commaSeparatedContactedRegionNames)
-                                        .connectionModeAsStr(cfg.getConnectionMode().name())
-                                        .containerName(cfg.getContainerName())
-                                        .accountName(cfg.getAccountHost())
-                                        .possiblyColdStartClient(runDuration.compareTo(Duration.ofHours(1)) < 0)
-                                        .databaseName(cfg.getDatabaseName())
-                                        .runTimeRemaining(remainingTime)
-                                        .build();
-
-                                logger.error(requestResponseInfo.toString());
-                            }
-                            return true;
-                        })
-                        .block();
-
-                Thread.sleep(cfg.getSleepTime());
+                    onDocumentsWritten(drillContext, BATCH_OP, documents.size(), writtenBytes);
+
+                    onSuccessfulResponse(
+                            drillContext,
+                            BATCH_OP,
+                            scheduledFutureId,
+                            successCount,
+                            failureCount,
+                            batchResponse,
+                            null,
+                            operationStartNanos);
+                })
+                .onErrorComplete(throwable -> {
+
+                    if (throwable instanceof DataPlaneException) {
+                        onFailedResponse(
+                                drillContext,
+                                BATCH_OP,
+                                scheduledFutureId,
+                                successCount,
+                                failureCount,
+                                (DataPlaneException) throwable,
+                                operationStartNanos);
+                    }
+                    return true;
+                })
+                .then()
+                .doOnSubscribe(subscription -> drillContext.getMetrics().onOperationStarted(BATCH_OP))
+                .doFinally(signalType -> drillContext.getMetrics().onOperationFinished(BATCH_OP));
+    }
+
+    // Pull model consumer of one feed range until the run duration elapses. Pages are read back to back while the
+    // feed range has changes, once it is caught up the consumer polls every changeFeedPollIntervalInMillis.
+    public static void onChangeFeed(
+            DataPlane dataPlane,
+            DrillContext drillContext,
+            int scheduledFutureId,
+            AtomicInteger successCount,
+            AtomicInteger failureCount,
+            String feedRange,
+            String feedRangeId,
+            String initialContinuationToken) throws InterruptedException {
+
+        AtomicReference<String> continuationToken = new AtomicReference<>(initialContinuationToken);
+        long pollIntervalMillis = drillContext.getCfg().getChangeFeedPollIntervalInMillis();
+
+        while (!drillContext.isRunDurationElapsed()) {
+
+            Long consumedCount = changeFeedOperation(
+                    dataPlane,
+                    drillContext,
+                    scheduledFutureId,
+                    successCount,
+                    failureCount,
+                    feedRange,
+                    feedRangeId,
+                    continuationToken,
+                    System.nanoTime())
+                    .block();
+
+            if (consumedCount == null || consumedCount == 0) {
+                TimeUnit.MILLISECONDS.sleep(pollIntervalMillis);
             }
         }
     }
 
+    // Reads the feed range from the continuation token until it is caught up, each page is recorded as an operation
+    // and the continuation token advanced past it. Emits the no. of documents consumed.
+    public static Mono<Long> changeFeedOperation(
+            DataPlane dataPlane,
+            DrillContext drillContext,
+            int scheduledFutureId,
+            AtomicInteger successCount,
+            AtomicInteger failureCount,
+            String feedRange,
+            String feedRangeId,
+            AtomicReference<String> continuationToken,
+            long operationStartNanos) {
+
+        ChangeFeedTracker changeFeedTracker = drillContext.getChangeFeedTracker();
+        AtomicLong consumedCount = new AtomicLong();
+        AtomicLong pageStartNanos = new AtomicLong(operationStartNanos);
+
+        return dataPlane
+                .readChangeFeed(feedRange, continuationToken.get())
+                .doOnNext(changeFeedPage -> {
+
+                    for (String id : changeFeedPage.getIds()) {
+                        changeFeedTracker.onConsumed(feedRangeId, id);
+                    }
+
+                    consumedCount.addAndGet(changeFeedPage.getIds().size());
+                    continuationToken.set(changeFeedPage.getContinuationToken());
+
+                    onSuccessfulResponse(
+                            drillContext,
+                            CHANGE_FEED_OP,
+                            scheduledFutureId,
+                            successCount,
+                            failureCount,
+                            changeFeedPage.getResponse(),
+                            null,
+                            pageStartNanos.getAndSet(System.nanoTime()));
+                })
+                .onErrorComplete(throwable -> {
+
+                    if (throwable instanceof DataPlaneException) {
+                        onFailedResponse(
+                                drillContext,
+                                CHANGE_FEED_OP,
+                                scheduledFutureId,
+                                successCount,
+                                failureCount,
+                                (DataPlaneException) throwable,
+                                pageStartNanos.get());
+                    }
+                    return true;
+                })
+                .then(Mono.fromCallable(consumedCount::get))
+                .doOnSubscribe(subscription -> drillContext.getMetrics().onOperationStarted(CHANGE_FEED_OP))
+                .doFinally(signalType -> drillContext.getMetrics().onOperationFinished(CHANGE_FEED_OP));
+    }
+
+    public static void onRead(
+            DataPlane dataPlane,
+            DrillContext drillContext,
+            int scheduledFutureId,
+            AtomicInteger successCount,
+            AtomicInteger failureCount,
+            IdReservoir successfullyCreatedIds) throws InterruptedException {
+
+        OperationPacer pacer = drillContext.getPacingController().getPacer(READ_OP);
+
+        while (pacer.acquire(drillContext::isRunDurationElapsed)) {
+
+            readItemOperation(
+                    dataPlane,
+                    drillContext,
+                    scheduledFutureId,
+                    successCount,
+                    failureCount,
+                    successfullyCreatedIds,
+                    System.nanoTime())
+                    .block();
+        }
+    }
+
+    public static Mono<Void> readItemOperation(
+            DataPlane dataPlane,
+            DrillContext drillContext,
+            int scheduledFutureId,
+            AtomicInteger successCount,
+            AtomicInteger failureCount,
+            IdReservoir successfullyCreatedIds,
+            long operationStartNanos) {
+
+        String idToRead = successfullyCreatedIds.sample();
+
+        if (idToRead == null) {
+            return Mono.empty();
+        }
+
+        String partitionKeyValue = drillContext.getKeySpace().getPartitionKeyValue(idToRead);
+
+        AvailabilityStrategyExperiment experiment = drillContext.getAvailabilityStrategyExperiment();
+        AvailabilityStrategyExperiment.ReadVariant readVariant = experiment != null ? experiment.nextVariant() : null;
+
+        return dataPlane
+                .readItem(idToRead, partitionKeyValue, readVariant != null ? readVariant.getRequestOptions() : null)
+                .doOnSuccess(readResponse -> {
+
+                    if (readVariant != null) {
+                        experiment.recordSuccess(
+                                readVariant,
+                                System.nanoTime() - operationStartNanos,
+                                readResponse.getRequestCharge(),
+                                readResponse.getCosmosDiagnostics());
+                    }
+
+                    onSuccessfulResponse(
+                            drillContext,
+                            READ_OP,
+                            scheduledFutureId,
+                            successCount,
+                            failureCount,
+                            readResponse,
+                            null,
+                            operationStartNanos);
+                })
+                .onErrorComplete(throwable -> {
+
+                    if (throwable instanceof DataPlaneException) {
+
+                        if (readVariant != null) {
+                            experiment.recordFailure(
+                                    readVariant,
+                                    System.nanoTime() - operationStartNanos,
+                                    isAvailabilityRelatedFailure((DataPlaneException) throwable),
+                                    ((DataPlaneException) throwable).getCosmosDiagnostics());
+                        }
+
+                        onFailedResponse(
+                                drillContext,
+                                READ_OP,
+                                scheduledFutureId,
+                                successCount,
+                                failureCount,
+                                (DataPlaneException) throwable,
+                                operationStartNanos);
+                    }
+                    return true;
+                })
+                .then()
+                .doOnSubscribe(subscription -> drillContext.getMetrics().onOperationStarted(READ_OP))
+                .doFinally(signalType -> drillContext.getMetrics().onOperationFinished(READ_OP));
+    }
+
     public static void onSessionRead(
-            CosmosAsyncContainer cosmosAsyncContainer,
-            Configuration cfg,
-            Instant startTime,
-            Duration runDuration,
+            DataPlane dataPlane,
+            DrillContext drillContext,
             int scheduledFutureId,
             AtomicInteger successCount,
             AtomicInteger failureCount,
             String designatedIdToRead,
             AtomicReference<String> sessionTokenFromLatestCreate) throws InterruptedException {
 
-        while (!Instant.now().minus(runDuration).isAfter(startTime)) {
-
-            for (int i = 0; i < 1; i++) {
-
-                CosmosItemRequestOptions requestOptions = new CosmosItemRequestOptions()
-                        .setCosmosEndToEndOperationLatencyPolicyConfig(E2E_POLICY_FOR_READ);
-
-                if (cfg.shouldUseSessionTokenOnRequestOptions()) {
-                    requestOptions.setSessionToken(sessionTokenFromLatestCreate.get());
-                }
-
-                cosmosAsyncContainer
-                        .readItem(designatedIdToRead, new PartitionKey(designatedIdToRead), requestOptions, Book.class)
-                        .doOnSuccess(readResponse -> {
-
-                            int successCountSnapshot = successCount.incrementAndGet();
-                            int failureCountSnapshot = failureCount.get();
-                            int statusCode = readResponse.getStatusCode();
-
-                            Instant timeOfResponse = Instant.now();
-                            Duration remainingTime = runDuration.minus(Duration.between(startTime, timeOfResponse));
-
-                            Set<String> contactedRegionNames = readResponse.getDiagnostics().getDiagnosticsContext().getContactedRegionNames();
-                            String commaSeparatedContactedRegionNames = String.join(",", contactedRegionNames);
-
-                            RequestResponseInfo requestResponseInfo;
-
-                            if (cfg.shouldLogCosmosDiagnosticsForSuccessfulResponse()) {
-                                requestResponseInfo = RequestResponseInfo.builder()
-                                        .timeOfResponse(timeOfResponse)
-                                        .operationType(READ_OP)
-                                        .drillId(cfg.getDrillId())
-                                        .withCounts(successCountSnapshot, failureCountSnapshot)
-                                        .threadId(scheduledFutureId)
-                                        .withSuccessResponse(statusCode, readResponse.getDiagnostics().toString())
-                                        .commaSeparatedContactedRegions(commaSeparatedContactedRegionNames)
-                                        .connectionModeAsStr(cfg.getConnectionMode().name())
-                                        .containerName(cfg.getContainerName())
-                                        .accountName(cfg.getAccountHost())
-                                        .possiblyColdStartClient(runDuration.compareTo(Duration.ofHours(1)) < 0)
-                                        .databaseName(cfg.getDatabaseName())
-                                        .runTimeRemaining(remainingTime)
-                                        .latestRecordedSessionToken(sessionTokenFromLatestCreate.get())
-                                        .build();
-                            } else {
-                                requestResponseInfo = RequestResponseInfo.builder()
-                                        .timeOfResponse(timeOfResponse)
-                                        .operationType(READ_OP)
-                                        .drillId(cfg.getDrillId())
-                                        .withCounts(successCountSnapshot, failureCountSnapshot)
-                                        .threadId(scheduledFutureId)
-                                        .withSuccessResponse(statusCode, "")
-                                        .commaSeparatedContactedRegions(commaSeparatedContactedRegionNames)
-                                        .connectionModeAsStr(cfg.getConnectionMode().name())
-                                        .containerName(cfg.getContainerName())
-                                        .accountName(cfg.getAccountHost())
-                                        .possiblyColdStartClient(runDuration.compareTo(Duration.ofHours(1)) < 0)
-                                        .databaseName(cfg.getDatabaseName())
-                                        .runTimeRemaining(remainingTime)
-                                        .latestRecordedSessionToken(sessionTokenFromLatestCreate.get())
-                                        .build();
-                            }
-
-                            logger.info(requestResponseInfo.toString());
-                        })
-                        .onErrorComplete(throwable -> {
-
-                            if (throwable instanceof CosmosException) {
-
-                                int successCountSnapshot = successCount.get();
-                                int failureCountSnapshot = failureCount.incrementAndGet();
-
-                                CosmosException cosmosException = (CosmosException) throwable;
-
-                                int statusCode = cosmosException.getStatusCode();
-
-                                Instant timeOfResponse = Instant.now();
-                                Duration remainingTime = runDuration.minus(Duration.between(startTime, timeOfResponse));
-
-                                CosmosDiagnosticsContext cosmosDiagnosticsContext = cosmosException.getDiagnostics().getDiagnosticsContext();
-
-                                Set<String> contactedRegionNames = cosmosDiagnosticsContext.getContactedRegionNames();
-                                String commaSeparatedContactedRegionNames = String.join(",", contactedRegionNames);
-
-                                RequestResponseInfo requestResponseInfo = RequestResponseInfo.builder()
-                                        .timeOfResponse(timeOfResponse)
-                                        .operationType(READ_OP)
-                                        .drillId(cfg.getDrillId())
-                                        .withCounts(successCountSnapshot, failureCountSnapshot)
-                                        .threadId(scheduledFutureId)
-                                        .withErrorResponse(statusCode, cosmosException.getSubStatusCode(), cosmosException.getMessage(), cosmosException.getDiagnostics().toString())
-                                        .commaSeparatedContactedRegions(commaSeparatedContactedRegionNames)
-                                        .connectionModeAsStr(cfg.getConnectionMode().name())
-                                        .containerName(cfg.getContainerName())
-                                        .accountName(cfg.getAccountHost())
-                                        .possiblyColdStartClient(runDuration.compareTo(Duration.ofHours(1)) < 0)
-                                        .databaseName(cfg.getDatabaseName())
-                                        .runTimeRemaining(remainingTime)
-                                        .build();
-
-                                logger.error(requestResponseInfo.toString());
-                            }
-                            return true;
-                        })
-                        .block();
-
-                Thread.sleep(cfg.getSleepTime());
-            }
+        OperationPacer pacer = drillContext.getPacingController().getPacer(READ_OP);
+
+        while (pacer.acquire(drillContext::isRunDurationElapsed)) {
+
+            sessionReadItemOperation(
+                    dataPlane,
+                    drillContext,
+                    scheduledFutureId,
+                    successCount,
+                    failureCount,
+                    designatedIdToRead,
+                    sessionTokenFromLatestCreate,
+                    System.nanoTime())
+                    .block();
         }
     }
 
+    public static Mono<Void> sessionReadItemOperation(
+            DataPlane dataPlane,
+            DrillContext drillContext,
+            int scheduledFutureId,
+            AtomicInteger successCount,
+            AtomicInteger failureCount,
+            String designatedIdToRead,
+            AtomicReference<String> sessionTokenFromLatestCreate,
+            long operationStartNanos) {
+
+        CosmosItemRequestOptions requestOptions = new CosmosItemRequestOptions()
+                .setCosmosEndToEndOperationLatencyPolicyConfig(E2E_POLICY_FOR_READ);
+
+        if (drillContext.getCfg().shouldUseSessionTokenOnRequestOptions()) {
+            requestOptions.setSessionToken(sessionTokenFromLatestCreate.get());
+        }
+
+        String partitionKeyValue = drillContext.getKeySpace().getPartitionKeyValue(designatedIdToRead);
+
+        return dataPlane
+                .readItem(designatedIdToRead, partitionKeyValue, requestOptions)
+                .doOnSuccess(readResponse -> onSuccessfulResponse(
+                        drillContext,
+                        READ_OP,
+                        scheduledFutureId,
+                        successCount,
+                        failureCount,
+                        readResponse,
+                        sessionTokenFromLatestCreate.get(),
+                        operationStartNanos))
+                .onErrorComplete(throwable -> {
+
+                    if (throwable instanceof DataPlaneException) {
+                        onFailedResponse(
+                                drillContext,
+                                READ_OP,
+                                scheduledFutureId,
+                                successCount,
+                                failureCount,
+                                (DataPlaneException) throwable,
+                                operationStartNanos);
+                    }
+                    return true;
+                })
+                .then()
+                .doOnSubscribe(subscription -> drillContext.getMetrics().onOperationStarted(READ_OP))
+                .doFinally(signalType -> drillContext.getMetrics().onOperationFinished(READ_OP));
+    }
+
+    // Each worker awaits its query, so at most one query per worker is in flight
     public static void onQuery(
-            CosmosAsyncContainer cosmosAsyncContainer,
-            Configuration cfg,
-            Instant startTime,
-            Duration runDuration,
+            DataPlane dataPlane,
+            DrillContext drillContext,
             int scheduledFutureId,
             AtomicInteger successCount,
             AtomicInteger failureCount,
-            CopyOnWriteArrayList<String> successfullyPersistedIds,
-            ThreadLocalRandom random,
-            Object lock) throws InterruptedException {
+            IdReservoir successfullyPersistedIds) throws InterruptedException {
 
-        while (!Instant.now().minus(runDuration).isAfter(startTime)) {
+        OperationPacer pacer = drillContext.getPacingController().getPacer(QUERY_OP);
 
-            for (int i = 0; i < 10; i++) {
+        while (pacer.acquire(drillContext::isRunDurationElapsed)) {
 
-                String idToQuery;
+            queryItemOperation(
+                    dataPlane,
+                    drillContext,
+                    scheduledFutureId,
+                    successCount,
+                    failureCount,
+                    successfullyPersistedIds,
+                    System.nanoTime())
+                    .block();
+        }
+    }
+
+    // A query counts as one operation once all its pages arrived, its pages are recorded by the query engine as
+    // they arrive
+    public static Mono<Void> queryItemOperation(
+            DataPlane dataPlane,
+            DrillContext drillContext,
+            int scheduledFutureId,
+            AtomicInteger successCount,
+            AtomicInteger failureCount,
+            IdReservoir successfullyPersistedIds,
+            long operationStartNanos) {
 
-                synchronized (lock) {
-                    if (successfullyPersistedIds.isEmpty()) {
-                        continue;
+        QueryEngine queryEngine = drillContext.getQueryEngine();
+        QueryEngine.QueryExecution query = queryEngine.nextQuery(successfullyPersistedIds, drillContext.getKeySpace(), operationStartNanos);
+
+        if (query == null) {
+            return Mono.empty();
+        }
+
+        // queries across partitions aren't attributed to a partition key range
+        boolean isSinglePartition = query.getPartitionKeyValue() != null;
+
+        return dataPlane
+                .queryItems(query.getQuerySpec(), query.getPartitionKeyValue(), query.getContinuationToken(), queryEngine.getPageSize())
+                .take(query.getMaxPageCount())
+                .doOnNext(queryPage -> queryEngine.onPage(query, queryPage))
+                .then(Mono.fromCallable(query::toResponse))
+                .doOnSuccess(queryResponse -> {
+                    queryEngine.onCompleted(query, true, false);
+                    onSuccessfulResponseInPartitionKeyRange(
+                            drillContext,
+                            QUERY_OP,
+                            isSinglePartition ? queryResponse.getPartitionKeyRangeId() : null,
+                            scheduledFutureId,
+                            successCount,
+                            failureCount,
+                            queryResponse,
+                            null,
+                            operationStartNanos);
+                })
+                .onErrorComplete(throwable -> {
+
+                    if (throwable instanceof DataPlaneException) {
+
+                        DataPlaneException dataPlaneException = (DataPlaneException) throwable;
+
+                        queryEngine.onCompleted(query, false, isAvailabilityRelatedFailure(dataPlaneException));
+                        onFailedResponseInPartitionKeyRange(
+                                drillContext,
+                                QUERY_OP,
+                                isSinglePartition ? dataPlaneException.getPartitionKeyRangeId() : null,
+                                scheduledFutureId,
+                                successCount,
+                                failureCount,
+                                dataPlaneException,
+                                operationStartNanos);
                     }
+                    return true;
+                })
+                .then()
+                .doOnSubscribe(subscription -> drillContext.getMetrics().onOperationStarted(QUERY_OP))
+                .doFinally(signalType -> drillContext.getMetrics().onOperationFinished(QUERY_OP));
+    }
 
-                    idToQuery = successfullyPersistedIds.get(random.nextInt(successfullyPersistedIds.size()));
-                }
-
-                String query = String.format("SELECT * FROM c WHERE c.id = '%s'", idToQuery);
-
-                cosmosAsyncContainer
-                        .queryItems(query, Book.class)
-                        .byPage()
-                        .doOnNext(feedResponse -> {
-                            int successCountSnapshot = successCount.incrementAndGet();
-                            int failureCountSnapshot = failureCount.get();
-                            int statusCode = 200; // FeedResponse doesn't have status code, assume 200 for success
-                            int subStatusCode = 0;
-
-                            Instant timeOfResponse = Instant.now();
-                            Duration remainingTime = runDuration.minus(Duration.between(startTime, timeOfResponse));
-
-                            Set<String> contactedRegionNames = feedResponse.getCosmosDiagnostics().getDiagnosticsContext().getContactedRegionNames();
-                            String commaSeparatedContactedRegionNames = String.join(",", contactedRegionNames);
-
-                            RequestResponseInfo requestResponseInfo;
-
-                            if (cfg.shouldLogCosmosDiagnosticsForSuccessfulResponse()) {
-                                requestResponseInfo = RequestResponseInfo.builder()
-                                        .timeOfResponse(timeOfResponse)
-                                        .operationType(QUERY_OP)
-                                        .drillId(cfg.getDrillId())
-                                        .withCounts(successCountSnapshot, failureCountSnapshot)
-                                        .threadId(scheduledFutureId)
-                                        .withSuccessResponse(statusCode, feedResponse.getCosmosDiagnostics().toString())
-                                        .commaSeparatedContactedRegions(commaSeparatedContactedRegionNames)
-                                        .connectionModeAsStr(cfg.getConnectionMode().name())
-                                        .containerName(cfg.getContainerName())
-                                        .accountName(cfg.getAccountHost())
-                                        .possiblyColdStartClient(runDuration.compareTo(Duration.ofHours(1)) < 0)
-                                        .databaseName(cfg.getDatabaseName())
-                                        .runTimeRemaining(remainingTime)
-                                        .build();
-                            } else {
-                                requestResponseInfo = RequestResponseInfo.builder()
-                                        .timeOfResponse(timeOfResponse)
-                                        .operationType(QUERY_OP)
-                                        .drillId(cfg.getDrillId())
-                                        .withCounts(successCountSnapshot, failureCountSnapshot)
-                                        .threadId(scheduledFutureId)
-                                        .withSuccessResponse(statusCode, "")
-                                        .commaSeparatedContactedRegions(commaSeparatedContactedRegionNames)
-                                        .connectionModeAsStr(cfg.getConnectionMode().name())
-                                        .containerName(cfg.getContainerName())
-                                        .accountName(cfg.getAccountHost())
-                                        .possiblyColdStartClient(runDuration.compareTo(Duration.ofHours(1)) < 0)
-                                        .databaseName(cfg.getDatabaseName())
-                                        .runTimeRemaining(remainingTime)
-                                        .build();
-                            }
-
-                            logger.info(requestResponseInfo.toString());
-                        })
-                        .onErrorComplete(throwable -> {
-                            if (throwable instanceof CosmosException) {
-                                int successCountSnapshot = successCount.get();
-                                int failureCountSnapshot = failureCount.incrementAndGet();
-
-                                CosmosException cosmosException = (CosmosException) throwable;
-
-                                int statusCode = cosmosException.getStatusCode();
-                                int subStatusCode = cosmosException.getSubStatusCode();
-
-                                Instant timeOfResponse = Instant.now();
-                                Duration remainingTime = runDuration.minus(Duration.between(startTime, timeOfResponse));
-
-                                CosmosDiagnosticsContext cosmosDiagnosticsContext = cosmosException.getDiagnostics().getDiagnosticsContext();
-
-                                Set<String> contactedRegionNames = cosmosDiagnosticsContext.getContactedRegionNames();
-                                String commaSeparatedContactedRegionNames = String.join(",", contactedRegionNames);
-
-                                RequestResponseInfo requestResponseInfo = RequestResponseInfo.builder()
-                                        .timeOfResponse(timeOfResponse)
-                                        .operationType(QUERY_OP)
-                                        .drillId(cfg.getDrillId())
-                                        .withCounts(successCountSnapshot, failureCountSnapshot)
-                                        .threadId(scheduledFutureId)
-                                        .withErrorResponse(statusCode, cosmosException.getSubStatusCode(), cosmosException.getMessage(), cosmosException.getDiagnostics().toString())
-                                        .commaSeparatedContactedRegions(commaSeparatedContactedRegionNames)
-                                        .connectionModeAsStr(cfg.getConnectionMode().name())
-                                        .containerName(cfg.getContainerName())
-                                        .accountName(cfg.getAccountHost())
-                                        .possiblyColdStartClient(runDuration.compareTo(Duration.ofHours(1)) < 0)
-                                        .databaseName(cfg.getDatabaseName())
-                                        .runTimeRemaining(remainingTime)
-                                        .build();
-
-                                logger.error(requestResponseInfo.toString());
-                            }
-                            return true;
-                        })
-                        .subscribe();
-
-                Thread.sleep(cfg.getSleepTime());
-            }
+    private static void onDocumentsWritten(DrillContext drillContext, String operationType, int documentCount, long bytes) {
+        drillContext.getPacingController().getPacer(operationType).onDocumentsWritten(documentCount, bytes);
+        drillContext.getMetrics().recordDocumentsWritten(operationType, documentCount, bytes);
+    }
+
+    private static void onSuccessfulResponse(
+            DrillContext drillContext,
+            String operationType,
+            int scheduledFutureId,
+            AtomicInteger successCount,
+            AtomicInteger failureCount,
+            DataPlaneResponse response,
+            String latestRecordedSessionToken,
+            long operationStartNanos) {
+
+        onSuccessfulResponseInPartitionKeyRange(
+                drillContext,
+                operationType,
+                response.getPartitionKeyRangeId(),
+                scheduledFutureId,
+                successCount,
+                failureCount,
+                response,
+                latestRecordedSessionToken,
+                operationStartNanos);
+    }
+
+    private static void onSuccessfulResponseInPartitionKeyRange(
+            DrillContext drillContext,
+            String operationType,
+            String partitionKeyRangeId,
+            int scheduledFutureId,
+            AtomicInteger successCount,
+            AtomicInteger failureCount,
+            DataPlaneResponse response,
+            String latestRecordedSessionToken,
+            long operationStartNanos) {
+
+        long latencyNanos = System.nanoTime() - operationStartNanos;
+
+        int successCountSnapshot = successCount.incrementAndGet();
+        int failureCountSnapshot = failureCount.get();
+
+        int statusCode = response.getStatusCode();
+        Set<String> contactedRegionNames = response.getContactedRegionNames();
+        String commaSeparatedContactedRegionNames = String.join(",", contactedRegionNames);
+
+        drillContext.getLatencyRecorder().recordLatency(
+                operationType, commaSeparatedContactedRegionNames, partitionKeyRangeId, statusCode, 0, latencyNanos);
+        drillContext.getMetrics().recordOperation(
+                operationType, statusCode, 0, contactedRegionNames, partitionKeyRangeId, latencyNanos, true, false);
+        drillContext.getMetrics().recordRequestCharge(operationType, response.getRequestCharge());
+        drillContext.getPacingController().onCompleted(operationType, true, response.getRequestCharge());
+
+        FaultScenarioEngine faultScenarioEngine = drillContext.getFaultScenarioEngine();
+        String faultPhase = faultScenarioEngine != null ? faultScenarioEngine.recordOperation(operationType, latencyNanos, false) : null;
+
+        SessionConsistencyChecker sessionConsistencyChecker = drillContext.getSessionConsistencyChecker();
+
+        if (sessionConsistencyChecker != null) {
+            sessionConsistencyChecker.onResponse(operationType, response.getSessionToken(), contactedRegionNames, operationStartNanos);
+        }
+
+        long timeOfResponseEpochMillis = System.currentTimeMillis();
+
+        drillContext.getRecoveryAnalyzer().onOperation(
+                timeOfResponseEpochMillis, operationType, statusCode, TimeUnit.NANOSECONDS.toMicros(latencyNanos), commaSeparatedContactedRegionNames);
+
+        DrillEventSink drillEventSink = drillContext.getDrillEventSink();
+        DrillEvent drillEvent = drillEventSink.claim();
+
+        if (drillEvent == null) {
+            return;
+        }
+
+        try {
+            CosmosDiagnostics cosmosDiagnostics = response.getCosmosDiagnostics();
+
+            drillEvent
+                    .timeOfResponseEpochMillis(timeOfResponseEpochMillis)
+                    .operationType(operationType)
+                    .threadId(scheduledFutureId)
+                    .withCounts(successCountSnapshot, failureCountSnapshot)
+                    .withSuccessResponse(statusCode)
+                    .cosmosDiagnostics(
+                            cosmosDiagnostics,
+                            cosmosDiagnostics != null
+                                    ? drillContext.getDiagnosticsSampler().sample(operationType, true, TimeUnit.NANOSECONDS.toMicros(latencyNanos))
+                                    : null)
+                    .latencyMicros(TimeUnit.NANOSECONDS.toMicros(latencyNanos))
+                    .commaSeparatedContactedRegions(commaSeparatedContactedRegionNames)
+                    .runTimeRemainingMillis(drillContext.getRunTimeRemainingMillis(timeOfResponseEpochMillis))
+                    .latestRecordedSessionToken(latestRecordedSessionToken)
+                    .faultPhase(faultPhase);
+        } finally {
+            drillEventSink.publish(drillEvent);
+        }
+    }
+
+    private static void onFailedResponse(
+            DrillContext drillContext,
+            String operationType,
+            int scheduledFutureId,
+            AtomicInteger successCount,
+            AtomicInteger failureCount,
+            DataPlaneException dataPlaneException,
+            long operationStartNanos) {
+
+        onFailedResponseInPartitionKeyRange(
+                drillContext,
+                operationType,
+                dataPlaneException.getPartitionKeyRangeId(),
+                scheduledFutureId,
+                successCount,
+                failureCount,
+                dataPlaneException,
+                operationStartNanos);
+    }
+
+    private static void onFailedResponseInPartitionKeyRange(
+            DrillContext drillContext,
+            String operationType,
+            String partitionKeyRangeId,
+            int scheduledFutureId,
+            AtomicInteger successCount,
+            AtomicInteger failureCount,
+            DataPlaneException dataPlaneException,
+            long operationStartNanos) {
+
+        long latencyNanos = System.nanoTime() - operationStartNanos;
+
+        int successCountSnapshot = successCount.get();
+        int failureCountSnapshot = failureCount.incrementAndGet();
+
+        int statusCode = dataPlaneException.getStatusCode();
+        int subStatusCode = dataPlaneException.getSubStatusCode();
+
+        Set<String> contactedRegionNames = dataPlaneException.getContactedRegionNames();
+        String commaSeparatedContactedRegionNames = String.join(",", contactedRegionNames);
+
+        drillContext.getLatencyRecorder().recordLatency(
+                operationType, commaSeparatedContactedRegionNames, partitionKeyRangeId, statusCode, subStatusCode, latencyNanos);
+        drillContext.getMetrics().recordOperation(
+                operationType, statusCode, subStatusCode, contactedRegionNames, partitionKeyRangeId, latencyNanos, false,
+                isAvailabilityRelatedFailure(dataPlaneException));
+        drillContext.getPacingController().onCompleted(operationType, false, 0);
+
+        FaultScenarioEngine faultScenarioEngine = drillContext.getFaultScenarioEngine();
+        String faultPhase = faultScenarioEngine != null
+                ? faultScenarioEngine.recordOperation(operationType, latencyNanos, isAvailabilityRelatedFailure(dataPlaneException))
+                : null;
+
+        long timeOfResponseEpochMillis = System.currentTimeMillis();
+
+        drillContext.getRecoveryAnalyzer().onOperation(
+                timeOfResponseEpochMillis, operationType, statusCode, TimeUnit.NANOSECONDS.toMicros(latencyNanos), commaSeparatedContactedRegionNames);
+
+        DrillEventSink drillEventSink = drillContext.getDrillEventSink();
+        DrillEvent drillEvent = drillEventSink.claim();
+
+        if (drillEvent == null) {
+            return;
+        }
+
+        try {
+            drillEvent
+                    .timeOfResponseEpochMillis(timeOfResponseEpochMillis)
+                    .operationType(operationType)
+                    .threadId(scheduledFutureId)
+                    .withCounts(successCountSnapshot, failureCountSnapshot)
+                    .withErrorResponse(statusCode, subStatusCode, dataPlaneException.getMessage())
+                    .cosmosDiagnostics(
+                            dataPlaneException.getCosmosDiagnostics(),
+                            dataPlaneException.getCosmosDiagnostics() != null
+                                    ? drillContext.getDiagnosticsSampler().sample(operationType, false, TimeUnit.NANOSECONDS.toMicros(latencyNanos))
+                                    : null)
+                    .latencyMicros(TimeUnit.NANOSECONDS.toMicros(latencyNanos))
+                    .commaSeparatedContactedRegions(commaSeparatedContactedRegionNames)
+                    .runTimeRemainingMillis(drillContext.getRunTimeRemainingMillis(timeOfResponseEpochMillis))
+                    .latestRecordedSessionToken(null)
+                    .faultPhase(faultPhase);
+        } finally {
+            drillEventSink.publish(drillEvent);
         }
     }
 
+    // Closed loop workers block for the duration of every operation, on virtual threads
+    // that only parks the virtual thread so each logical worker no longer costs an OS thread
+    public static ThreadFactory createWorkerThreadFactory(Configuration cfg, String namePrefix) {
+
+        if (cfg.getExecutionMode() == ExecutionMode.VIRTUAL_THREADS) {
+            return Thread.ofVirtual().name(namePrefix + "-", 0).factory();
+        }
+
+        return new CosmosDaemonThreadFactory(namePrefix);
+    }
+
     public static void cleanUpSystemProperties(List<String> systemPropertyKeys) {
         for (String key : systemPropertyKeys) {
             System.clearProperty(key);
         }
     }
 
-    public static boolean isAvailabilityRelatedFailure(CosmosException cosmosException) {
+    public static boolean isAvailabilityRelatedFailure(DataPlaneException dataPlaneException) {
 
-        int statusCode = cosmosException.getStatusCode();
+        int statusCode = dataPlaneException.getStatusCode();
 
         return statusCode == 503 || statusCode == 408;
     }
@@ -0,0 +1,43 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class DrillCoordinatorTest {
+
+    @Test
+    public void withholdsCredentialsAndSecretInEveryForm() {
+
+        String[] args = {
+                "-drillRole", "COORDINATOR",
+                "-accountHost", "https://account.documents.azure.com:443/",
+                "--accountMasterKey", "key",
+                "-coordinatorSecret=secret",
+                "--accountHost=https://account.documents.azure.com:443/",
+                "-drillId", "fleet-drill"
+        };
+
+        assertArrayEquals(
+                new String[] {"-drillRole", "COORDINATOR", "-drillId", "fleet-drill"},
+                DrillCoordinator.withoutWithheldParameters(args));
+    }
+
+    @Test
+    public void keepsValuesWhichOnlyLookLikeWithheldParameters() {
+
+        String[] args = {"-drillId", "accountMasterKey", "-accountHostSuffix", "x"};
+
+        assertArrayEquals(args, DrillCoordinator.withoutWithheldParameters(args));
+    }
+
+    @Test
+    public void rejectsMissingSecret() {
+
+        Configuration cfg = new Configuration();
+        cfg.setDrillRole(DrillRole.COORDINATOR);
+
+        assertThrows(IllegalArgumentException.class, () -> new DrillCoordinator(cfg, new String[0]));
+    }
+}
@@ -0,0 +1,144 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class DrillLogIndexerTest {
+
+    private static final int SLICE_SIZE_IN_BYTES = 1024;
+    private static final Instant START = Instant.parse("2026-03-01T10:00:00Z");
+
+    @TempDir
+    Path tempDir;
+
+    // Shifting the lines by one byte at a time moves every slice boundary across every position of a line: right
+    // before and after a newline, inside the marker and inside the fields
+    @Test
+    public void indexesEachLineOnceWhateverSliceItStraddles() throws IOException {
+
+        ForkJoinPool forkJoinPool = new ForkJoinPool(4);
+
+        try {
+            for (int shift = 0; shift < 400; shift++) {
+
+                Path drillLog = writeDrillLog(shift, 60, true);
+                DrillLogIndex drillLogIndex = new DrillLogIndexer(SLICE_SIZE_IN_BYTES, forkJoinPool).index(drillLog);
+
+                assertRows(drillLogIndex, 60, "shift " + shift);
+            }
+        } finally {
+            forkJoinPool.shutdown();
+        }
+    }
+
+    @Test
+    public void indexesLastLineWithoutTrailingNewline() throws IOException {
+
+        ForkJoinPool forkJoinPool = new ForkJoinPool(2);
+
+        try {
+            for (int shift = 0; shift < 50; shift++) {
+
+                Path drillLog = writeDrillLog(shift, 20, false);
+
+                assertRows(new DrillLogIndexer(SLICE_SIZE_IN_BYTES, forkJoinPool).index(drillLog), 20, "shift " + shift);
+            }
+        } finally {
+            forkJoinPool.shutdown();
+        }
+    }
+
+    @Test
+    public void indexesSameRowsAsSingleSlice() throws IOException {
+
+        Path drillLog = writeDrillLog(7, 200, true);
+        ForkJoinPool forkJoinPool = new ForkJoinPool(4);
+
+        try {
+            DrillLogIndex sliced = new DrillLogIndexer(SLICE_SIZE_IN_BYTES, forkJoinPool).index(drillLog);
+            DrillLogIndex whole = new DrillLogIndexer(Long.MAX_VALUE, forkJoinPool).index(drillLog);
+
+            assertEquals(whole.size(), sliced.size());
+            assertEquals(whole.getStatusCounts(), sliced.getStatusCounts());
+
+            for (int row = 0; row < whole.size(); row++) {
+                assertEquals(whole.getTimeOfResponseEpochMillis(row), sliced.getTimeOfResponseEpochMillis(row));
+                assertEquals(whole.getOperationType(row), sliced.getOperationType(row));
+                assertEquals(whole.getCommaSeparatedContactedRegions(row), sliced.getCommaSeparatedContactedRegions(row));
+            }
+        } finally {
+            forkJoinPool.shutdown();
+        }
+    }
+
+    @Test
+    public void rejectsSlicesSmallerThanOneKilobyte() {
+        assertThrows(IllegalArgumentException.class, () -> new DrillLogIndexer(1023, ForkJoinPool.commonPool()));
+    }
+
+    private static void assertRows(DrillLogIndex drillLogIndex, int lineCount, String message) {
+
+        assertEquals(lineCount, drillLogIndex.size(), message);
+
+        for (int row = 0; row < lineCount; row++) {
+            assertEquals(row, drillLogIndex.getThreadId(row), message);
+            assertEquals(START.plusMillis(row * 250L).toEpochMilli(), drillLogIndex.getTimeOfResponseEpochMillis(row), message);
+            assertEquals(row % 3 == 0 ? "read" : "create", drillLogIndex.getOperationType(row), message);
+            assertEquals(row % 5 == 0 ? 503 : 201, drillLogIndex.getStatusCode(row), message);
+            assertEquals(row % 5 == 0 ? 21008 : 0, drillLogIndex.getSubStatusCode(row), message);
+            assertEquals(1000L + row, drillLogIndex.getLatencyMicros(row), message);
+            assertEquals(row % 2 == 0 ? "East US" : "East US,West US", drillLogIndex.getCommaSeparatedContactedRegions(row), message);
+        }
+    }
+
+    // RequestResponseInfo lines of varying length with unrelated log lines in between, after a first line of the
+    // given length. Every tenth line is longer than a slice, so some slices hold no line start at all.
+    private Path writeDrillLog(int shift, int lineCount, boolean hasTrailingNewline) throws IOException {
+
+        StringBuilder drillLog = new StringBuilder();
+
+        drillLog.append("x".repeat(shift)).append('\n');
+
+        for (int row = 0; row < lineCount; row++) {
+
+            if (row % 4 == 1) {
+                drillLog.append("INFO  PacingController - unrelated line ").append("-".repeat(row % 7)).append('\n');
+            }
+
+            Instant timeOfResponse = START.plusMillis(row * 250L);
+
+            drillLog
+                    .append(timeOfResponse)
+                    .append(" INFO  DrillEventSink - RequestResponseInfo [timeOfResponse=").append(timeOfResponse)
+                    .append(", operationType=").append(row % 3 == 0 ? "read" : "create")
+                    .append(", drillId=test, successCountUntilNow=").append(row)
+                    .append(", failureCountUntilNow=0, threadId=").append(row)
+                    .append(", statusCode=").append(row % 5 == 0 ? 503 : 201)
+                    .append(", subStatusCode=").append(row % 5 == 0 ? 21008 : 0)
+                    .append(", latencyMicros=").append(1000 + row)
+                    .append(", commaSeparatedContactedRegions=").append(row % 2 == 0 ? "East US" : "East US,West US")
+                    .append(", cosmosDiagnosticsContext=null, errorMessage=").append("e".repeat(row % 10 == 9 ? 3000 : row % 11))
+                    .append(", connectionModeAsStr=DIRECT, containerName=c, accountName=a, possiblyColdStartClient=false")
+                    .append(", databaseName=d, runTimeRemaining=PT1M, latestRecordedSessionToken=null]");
+
+            if (row < lineCount - 1 || hasTrailingNewline) {
+                drillLog.append('\n');
+            }
+        }
+
+        Path drillLogPath = tempDir.resolve("drill-" + shift + ".log");
+        Files.write(drillLogPath, drillLog.toString().getBytes(StandardCharsets.UTF_8));
+
+        return drillLogPath;
+    }
+}
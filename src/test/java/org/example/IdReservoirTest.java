@@ -0,0 +1,174 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class IdReservoirTest {
+
+    @Test
+    public void samplesNothingBeforeFirstAdd() {
+
+        IdReservoir idReservoir = new IdReservoir(16, IdSamplingStrategy.UNIFORM);
+
+        assertTrue(idReservoir.isEmpty());
+        assertEquals(0, idReservoir.size());
+        assertNull(idReservoir.sample());
+    }
+
+    @Test
+    public void keepsOnlyLatestIdWithCapacityOfOne() {
+
+        IdReservoir idReservoir = new IdReservoir(1, IdSamplingStrategy.UNIFORM);
+
+        idReservoir.add("a");
+        idReservoir.add("b");
+        idReservoir.add("c");
+
+        assertFalse(idReservoir.isEmpty());
+        assertEquals(1, idReservoir.size());
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals("c", idReservoir.sample());
+        }
+    }
+
+    // Stripe count and stripe capacity are rounded up to powers of two, the rounding never loses capacity
+    @Test
+    public void holdsAtLeastItsCapacity() {
+
+        for (int capacity : new int[] {1, 2, 3, 5, 7, 100, 1000, 1023, 1025}) {
+
+            IdReservoir idReservoir = new IdReservoir(capacity, IdSamplingStrategy.UNIFORM);
+
+            for (int i = 0; i < 100 * capacity + 10_000; i++) {
+                idReservoir.add("id-" + i);
+            }
+
+            assertTrue(idReservoir.size() >= capacity, "capacity " + capacity + " holds " + idReservoir.size());
+        }
+    }
+
+    @Test
+    public void sizeGrowsWithAddsUntilFull() {
+
+        IdReservoir idReservoir = new IdReservoir(1024, IdSamplingStrategy.UNIFORM);
+
+        for (int i = 0; i < 10; i++) {
+            idReservoir.add("id-" + i);
+        }
+
+        assertEquals(10, idReservoir.size());
+    }
+
+    @Test
+    public void samplesOnlyAddedIds() {
+
+        for (IdSamplingStrategy samplingStrategy : IdSamplingStrategy.values()) {
+
+            IdReservoir idReservoir = new IdReservoir(4096, samplingStrategy);
+            Set<String> addedIds = new HashSet<>();
+
+            for (int i = 0; i < 100; i++) {
+                idReservoir.add("id-" + i);
+                addedIds.add("id-" + i);
+            }
+
+            for (int i = 0; i < 10_000; i++) {
+                assertTrue(addedIds.contains(idReservoir.sample()), samplingStrategy.toString());
+            }
+        }
+    }
+
+    // With a single stripe the ring overwrites the oldest ids, samples only ever see the last capacity ones
+    @Test
+    public void overwritesOldestIdsOnceFull() {
+
+        IdReservoir idReservoir = new IdReservoir(1, IdSamplingStrategy.RECENCY_BIASED);
+
+        for (int i = 0; i < 1000; i++) {
+            idReservoir.add("id-" + i);
+            assertEquals("id-" + i, idReservoir.sample());
+        }
+    }
+
+    @Test
+    public void recencyBiasedSamplingFavoursRecentIds() {
+
+        IdReservoir biased = new IdReservoir(4096, IdSamplingStrategy.RECENCY_BIASED);
+        IdReservoir uniform = new IdReservoir(4096, IdSamplingStrategy.UNIFORM);
+
+        for (int i = 0; i < 4096; i++) {
+            biased.add(String.valueOf(i));
+            uniform.add(String.valueOf(i));
+        }
+
+        assertTrue(averageSampledId(biased) > averageSampledId(uniform) + 500);
+    }
+
+    // Writers check their samples on their own threads, a failed check surfaces through the future
+    @Test
+    public void samplesWhileWritersAdd() throws Exception {
+
+        IdReservoir idReservoir = new IdReservoir(256, IdSamplingStrategy.RECENCY_BIASED);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try {
+            List<Future<String>> writers = new ArrayList<>();
+
+            for (int writer = 0; writer < 4; writer++) {
+
+                int writerId = writer;
+
+                writers.add(executor.submit(() -> {
+                    for (int i = 0; i < 50_000; i++) {
+
+                        idReservoir.add(writerId + "-" + i);
+                        String sampledId = idReservoir.sample();
+
+                        if (sampledId == null || sampledId.indexOf('-') <= 0) {
+                            return "writer " + writerId + " sampled " + sampledId + " after its add " + i;
+                        }
+                    }
+
+                    return null;
+                }));
+            }
+
+            for (Future<String> writer : writers) {
+                assertNull(writer.get(30, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void rejectsNonPositiveCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new IdReservoir(0, IdSamplingStrategy.UNIFORM));
+    }
+
+    private static double averageSampledId(IdReservoir idReservoir) {
+
+        long sum = 0;
+
+        for (int i = 0; i < 20_000; i++) {
+            sum += Long.parseLong(idReservoir.sample());
+        }
+
+        return sum / 20_000.0;
+    }
+}
@@ -0,0 +1,114 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class KeySpaceTest {
+
+    private static final int SAMPLE_COUNT = 200_000;
+
+    @Test
+    public void idsAddressTheirPartitionKeyValue() {
+
+        KeySpace keySpace = new KeySpace(8, PartitionKeyDistribution.UNIFORM, 1.0);
+
+        for (int i = 0; i < 1000; i++) {
+
+            String id = keySpace.nextId();
+            String partitionKeyValue = keySpace.getPartitionKeyValue(id);
+
+            assertTrue(partitionKeyValue.matches("pk-[0-7]"), partitionKeyValue);
+            assertTrue(id.startsWith(partitionKeyValue + "_"), id);
+        }
+
+        assertEquals("pk-3", keySpace.getPartitionKeyValue(keySpace.nextId("pk-3")));
+    }
+
+    @Test
+    public void idIsItsOwnPartitionKeyValueWithoutPartitionKeyValues() {
+
+        KeySpace keySpace = new KeySpace(0, PartitionKeyDistribution.UNIFORM, 1.0);
+        String id = keySpace.nextId();
+
+        assertEquals(id, keySpace.getPartitionKeyValue(id));
+        assertEquals("no-separator", keySpace.getPartitionKeyValue("no-separator"));
+        assertNotEquals(keySpace.nextPartitionKeyValue(), keySpace.nextPartitionKeyValue());
+    }
+
+    // Partition key values containing the separator keep it, only the last one separates the id suffix
+    @Test
+    public void splitsIdAtLastSeparator() {
+
+        KeySpace keySpace = new KeySpace(0, PartitionKeyDistribution.UNIFORM, 1.0);
+
+        assertEquals("tenant_a", keySpace.getPartitionKeyValue(keySpace.nextId("tenant_a")));
+    }
+
+    @Test
+    public void samplesUniformly() {
+
+        double[] frequencies = sample(new KeySpace(10, PartitionKeyDistribution.UNIFORM, 1.0), 10);
+
+        for (double frequency : frequencies) {
+            assertEquals(0.1, frequency, 0.01);
+        }
+    }
+
+    @Test
+    public void samplesZipfianByRank() {
+
+        for (double zipfianExponent : new double[] {0.5, 1.0, 2.0}) {
+
+            double[] frequencies = sample(new KeySpace(10, PartitionKeyDistribution.ZIPFIAN, zipfianExponent), 10);
+            double harmonic = 0;
+
+            for (int rank = 1; rank <= 10; rank++) {
+                harmonic += 1.0 / Math.pow(rank, zipfianExponent);
+            }
+
+            for (int rank = 1; rank <= 10; rank++) {
+                assertEquals(
+                        1.0 / Math.pow(rank, zipfianExponent) / harmonic,
+                        frequencies[rank - 1],
+                        0.01,
+                        "rank " + rank + " with exponent " + zipfianExponent);
+            }
+        }
+    }
+
+    @Test
+    public void samplesSingleValue() {
+        assertEquals(1.0, sample(new KeySpace(1, PartitionKeyDistribution.ZIPFIAN, 1.0), 1)[0], 1e-9);
+    }
+
+    @Test
+    public void rejectsInvalidParameters() {
+
+        assertThrows(IllegalArgumentException.class, () -> new KeySpace(-1, PartitionKeyDistribution.UNIFORM, 1.0));
+        assertThrows(IllegalArgumentException.class, () -> new KeySpace(10, PartitionKeyDistribution.ZIPFIAN, 0));
+
+        Configuration cfg = new Configuration();
+        cfg.setPartitionKeyCount(10);
+        cfg.setPartitionKeyPath("/id");
+
+        assertThrows(IllegalArgumentException.class, () -> KeySpace.fromConfiguration(cfg));
+    }
+
+    private static double[] sample(KeySpace keySpace, int partitionKeyCount) {
+
+        double[] frequencies = new double[partitionKeyCount];
+
+        for (int i = 0; i < SAMPLE_COUNT; i++) {
+
+            String partitionKeyValue = keySpace.nextPartitionKeyValue();
+
+            frequencies[Integer.parseInt(partitionKeyValue.substring("pk-".length()))] += 1.0 / SAMPLE_COUNT;
+        }
+
+        return frequencies;
+    }
+}
@@ -0,0 +1,232 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LoadProfileTest {
+
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+    // getElapsedNanosForOperations searches down to this resolution
+    private static final long SEARCH_RESOLUTION_NANOS = 1000;
+
+    @Test
+    public void integratesStepRateAtStepBoundaries() {
+
+        LoadProfile loadProfile = step(100, Duration.ofSeconds(10), 4);
+
+        assertEquals(0, loadProfile.getExpectedOperations(0), 1e-9);
+        assertEquals(250, loadProfile.getExpectedOperations(seconds(10)), 1e-6);
+        assertEquals(750, loadProfile.getExpectedOperations(seconds(20)), 1e-6);
+        assertEquals(1500, loadProfile.getExpectedOperations(seconds(30)), 1e-6);
+        assertEquals(2500, loadProfile.getExpectedOperations(seconds(40)), 1e-6);
+        // the last step holds the target rate
+        assertEquals(3500, loadProfile.getExpectedOperations(seconds(50)), 1e-6);
+    }
+
+    @Test
+    public void stepRateStartsAtFirstStepAndHoldsTarget() {
+
+        LoadProfile loadProfile = step(100, Duration.ofSeconds(10), 4);
+
+        assertEquals(25, loadProfile.getOperationsPerSecond(0), 1e-9);
+        assertEquals(25, loadProfile.getOperationsPerSecond(seconds(10) - 1), 1e-9);
+        assertEquals(50, loadProfile.getOperationsPerSecond(seconds(10)), 1e-9);
+        assertEquals(100, loadProfile.getOperationsPerSecond(seconds(30)), 1e-9);
+        assertEquals(100, loadProfile.getOperationsPerSecond(seconds(3600)), 1e-9);
+        assertEquals(100, loadProfile.getPeakOperationsPerSecond(), 1e-9);
+    }
+
+    @Test
+    public void invertsStepIntegralAtStepBoundaries() {
+
+        LoadProfile loadProfile = step(100, Duration.ofSeconds(10), 4);
+
+        assertEquals(seconds(10), loadProfile.getElapsedNanosForOperations(250), SEARCH_RESOLUTION_NANOS);
+        assertEquals(seconds(20), loadProfile.getElapsedNanosForOperations(750), SEARCH_RESOLUTION_NANOS);
+        assertEquals(seconds(30), loadProfile.getElapsedNanosForOperations(1500), SEARCH_RESOLUTION_NANOS);
+        assertEquals(seconds(40), loadProfile.getElapsedNanosForOperations(2500), SEARCH_RESOLUTION_NANOS);
+
+        // the first operations are due at the rate of the first step
+        assertEquals(seconds(1) / 25, loadProfile.getElapsedNanosForOperations(1), SEARCH_RESOLUTION_NANOS);
+    }
+
+    @Test
+    public void invertsStepIntegral() {
+        assertInverse(step(100, Duration.ofSeconds(10), 4), 5000);
+        assertInverse(step(3, Duration.ofSeconds(2), 7), 200);
+    }
+
+    @Test
+    public void integratesSinusoidalRateOverPeriods() {
+
+        LoadProfile loadProfile = sinusoidal(100, Duration.ofSeconds(60), 0.5);
+        double halfPeriodSeconds = 30;
+
+        // the rate is above the target for the first half period and below it for the second
+        assertEquals(100 * (halfPeriodSeconds + 0.5 * 60 / Math.PI), loadProfile.getExpectedOperations(seconds(30)), 1e-6);
+        assertEquals(6000, loadProfile.getExpectedOperations(seconds(60)), 1e-6);
+        assertEquals(60000, loadProfile.getExpectedOperations(seconds(600)), 1e-6);
+        assertEquals(150, loadProfile.getPeakOperationsPerSecond(), 1e-9);
+    }
+
+    @Test
+    public void invertsSinusoidalIntegralAtPeriodEdges() {
+
+        LoadProfile loadProfile = sinusoidal(100, Duration.ofSeconds(60), 0.5);
+
+        assertEquals(seconds(60), loadProfile.getElapsedNanosForOperations(6000), SEARCH_RESOLUTION_NANOS);
+        assertEquals(seconds(120), loadProfile.getElapsedNanosForOperations(12000), SEARCH_RESOLUTION_NANOS);
+        assertEquals(
+                seconds(30),
+                loadProfile.getElapsedNanosForOperations(100 * (30 + 0.5 * 60 / Math.PI)),
+                SEARCH_RESOLUTION_NANOS);
+    }
+
+    // With the full amplitude the rate touches 0 three quarters into each period, the integral stays flat there
+    @Test
+    public void invertsSinusoidalIntegralWhereRateTouchesZero() {
+
+        LoadProfile loadProfile = sinusoidal(10, Duration.ofSeconds(4), 1.0);
+
+        assertEquals(0, loadProfile.getOperationsPerSecond(seconds(3)), 1e-9);
+        assertInverse(loadProfile, 200);
+    }
+
+    @Test
+    public void invertsSinusoidalIntegral() {
+        assertInverse(sinusoidal(100, Duration.ofSeconds(60), 0.5), 10000);
+        assertInverse(sinusoidal(7, Duration.ofMillis(1500), 0.9), 300);
+    }
+
+    @Test
+    public void integralMatchesRate() {
+
+        Configuration cfg = new Configuration();
+        cfg.setRampUpDuration(Duration.ofSeconds(5));
+
+        assertIntegralMatchesRate(withType(cfg, LoadProfileType.RAMP, 40), seconds(12));
+        assertIntegralMatchesRate(step(40, Duration.ofSeconds(3), 3), seconds(12));
+        assertIntegralMatchesRate(sinusoidal(40, Duration.ofSeconds(5), 0.7), seconds(12));
+        assertIntegralMatchesRate(LoadProfile.constant(40), seconds(12));
+    }
+
+    // Invocations which still pass -sleepTime keep the rate their threads used to issue operations at
+    @Test
+    public void derivesTargetRateFromSleepTimeUnlessGiven() {
+
+        Configuration cfg = new Configuration();
+
+        assertEquals(100, LoadProfile.fromConfiguration(cfg, WorkloadUtils.CREATE_OP).getPeakOperationsPerSecond(), 1e-9);
+
+        cfg.setNumberOfThreads(4);
+        cfg.setSleepTime(2000);
+
+        assertEquals(2, LoadProfile.fromConfiguration(cfg, WorkloadUtils.CREATE_OP).getPeakOperationsPerSecond(), 1e-9);
+
+        cfg.setTargetOperationsPerSecond(50);
+
+        assertEquals(50, LoadProfile.fromConfiguration(cfg, WorkloadUtils.CREATE_OP).getPeakOperationsPerSecond(), 1e-9);
+    }
+
+    @Test
+    public void rejectsNonPositiveSleepTime() {
+
+        Configuration cfg = new Configuration();
+        cfg.setSleepTime(0);
+
+        assertThrows(IllegalArgumentException.class, () -> LoadProfile.fromConfiguration(cfg, WorkloadUtils.CREATE_OP));
+    }
+
+    @Test
+    public void dueTimeOfNoOperationsIsStart() {
+
+        LoadProfile loadProfile = step(100, Duration.ofSeconds(10), 4);
+
+        assertEquals(0, loadProfile.getElapsedNanosForOperations(0));
+        assertEquals(0, loadProfile.getElapsedNanosForOperations(-1));
+        assertEquals(0, loadProfile.getExpectedOperations(-seconds(1)), 1e-9);
+    }
+
+    @Test
+    public void rejectsOutOfRangeParameters() {
+        assertThrows(IllegalArgumentException.class, () -> LoadProfile.constant(0));
+        assertThrows(IllegalArgumentException.class, () -> sinusoidal(100, Duration.ofSeconds(60), 1.5));
+        assertThrows(IllegalArgumentException.class, () -> step(100, Duration.ZERO, 4));
+        assertThrows(IllegalArgumentException.class, () -> step(100, Duration.ofSeconds(10), 0));
+    }
+
+    // The n-th operation is due at the first time n operations are expected
+    private static void assertInverse(LoadProfile loadProfile, int operationCount) {
+
+        long previousDueNanos = 0;
+
+        for (int operations = 1; operations <= operationCount; operations++) {
+
+            long dueNanos = loadProfile.getElapsedNanosForOperations(operations);
+
+            assertTrue(loadProfile.getExpectedOperations(dueNanos) >= operations, "operation " + operations + " due too early");
+            assertTrue(
+                    loadProfile.getExpectedOperations(dueNanos - SEARCH_RESOLUTION_NANOS - 1) < operations,
+                    "operation " + operations + " due too late");
+            assertTrue(dueNanos >= previousDueNanos, "operation " + operations + " due before the previous one");
+
+            previousDueNanos = dueNanos;
+        }
+    }
+
+    // Midpoint rule over 1 ms intervals
+    private static void assertIntegralMatchesRate(LoadProfile loadProfile, long endNanos) {
+
+        long intervalNanos = TimeUnit.MILLISECONDS.toNanos(1);
+        double integral = 0;
+
+        for (long startNanos = 0; startNanos < endNanos; startNanos += intervalNanos) {
+
+            integral += loadProfile.getOperationsPerSecond(startNanos + intervalNanos / 2) * intervalNanos / NANOS_PER_SECOND;
+
+            if ((startNanos + intervalNanos) % seconds(1) == 0) {
+                assertEquals(
+                        loadProfile.getExpectedOperations(startNanos + intervalNanos),
+                        integral,
+                        1e-3,
+                        loadProfile + " at " + (startNanos + intervalNanos) + " ns");
+            }
+        }
+    }
+
+    private static LoadProfile step(int targetOperationsPerSecond, Duration stepDuration, int stepCount) {
+
+        Configuration cfg = new Configuration();
+        cfg.setLoadProfileStepDuration(stepDuration);
+        cfg.setLoadProfileStepCount(stepCount);
+
+        return withType(cfg, LoadProfileType.STEP, targetOperationsPerSecond);
+    }
+
+    private static LoadProfile sinusoidal(int targetOperationsPerSecond, Duration period, double amplitude) {
+
+        Configuration cfg = new Configuration();
+        cfg.setLoadProfilePeriod(period);
+        cfg.setLoadProfileAmplitude(amplitude);
+
+        return withType(cfg, LoadProfileType.SINUSOIDAL, targetOperationsPerSecond);
+    }
+
+    private static LoadProfile withType(Configuration cfg, LoadProfileType loadProfileType, int targetOperationsPerSecond) {
+
+        cfg.setLoadProfileType(loadProfileType);
+        cfg.setTargetOperationsPerSecond(targetOperationsPerSecond);
+
+        return LoadProfile.fromConfiguration(cfg, WorkloadUtils.CREATE_OP);
+    }
+
+    private static long seconds(long seconds) {
+        return seconds * NANOS_PER_SECOND;
+    }
+}
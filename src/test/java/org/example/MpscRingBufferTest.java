@@ -0,0 +1,99 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MpscRingBufferTest {
+
+    @Test
+    public void roundsCapacityUpToPowerOfTwo() {
+        assertEquals(4, new MpscRingBuffer<>(1, MpscRingBuffer.Slot::new).getCapacity());
+        assertEquals(8, new MpscRingBuffer<>(5, MpscRingBuffer.Slot::new).getCapacity());
+        assertEquals(1024, new MpscRingBuffer<>(1024, MpscRingBuffer.Slot::new).getCapacity());
+    }
+
+    // Without a consumer the ring fills up, claims beyond its capacity are dropped
+    @Test
+    public void dropsClaimsOnceFull() {
+
+        MpscRingBuffer<MpscRingBuffer.Slot> ringBuffer = new MpscRingBuffer<>(4, MpscRingBuffer.Slot::new);
+
+        for (int i = 0; i < 4; i++) {
+            ringBuffer.publish(ringBuffer.claim());
+        }
+
+        assertNull(ringBuffer.claim());
+        assertNull(ringBuffer.claim());
+        assertEquals(2, ringBuffer.getDroppedCount());
+    }
+
+    // Every slot claimed before close is consumed exactly once, whether published in time or dropped
+    @Test
+    public void consumesEveryPublishedSlotOnce() throws Exception {
+
+        MpscRingBuffer<ValueSlot> ringBuffer = new MpscRingBuffer<>(64, ValueSlot::new);
+        AtomicLong consumedSum = new AtomicLong(0);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        ringBuffer.start("MpscRingBufferTest", slot -> consumedSum.addAndGet(slot.value), () -> {});
+
+        try {
+            List<Future<Long>> producers = new ArrayList<>();
+
+            for (int producer = 0; producer < 4; producer++) {
+                producers.add(executor.submit(() -> {
+
+                    long publishedSum = 0;
+
+                    for (long value = 1; value <= 20_000; value++) {
+
+                        ValueSlot slot = ringBuffer.claim();
+
+                        if (slot != null) {
+                            slot.value = value;
+                            ringBuffer.publish(slot);
+                            publishedSum += value;
+                        }
+                    }
+
+                    return publishedSum;
+                }));
+            }
+
+            long publishedSum = 0;
+
+            for (Future<Long> producer : producers) {
+                publishedSum += producer.get(30, TimeUnit.SECONDS);
+            }
+
+            ringBuffer.close();
+
+            assertEquals(publishedSum, consumedSum.get());
+            assertEquals(4 * 20_000, ringBuffer.getConsumedCount() + ringBuffer.getDroppedCount());
+            assertTrue(ringBuffer.getConsumedCount() > 0);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void rejectsNonPositiveSize() {
+        assertThrows(IllegalArgumentException.class, () -> new MpscRingBuffer<>(0, MpscRingBuffer.Slot::new));
+    }
+
+    private static class ValueSlot extends MpscRingBuffer.Slot {
+        private long value;
+    }
+}
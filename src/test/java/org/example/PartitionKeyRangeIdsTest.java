@@ -0,0 +1,55 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class PartitionKeyRangeIdsTest {
+
+    @Test
+    public void takesRangeIdFromSessionTokenPrefix() {
+        assertEquals("3", PartitionKeyRangeIds.fromSessionToken("3:-1#12"));
+        assertEquals("17", PartitionKeyRangeIds.fromSessionToken("17:1#100#1=40#2=45"));
+        assertEquals("0", PartitionKeyRangeIds.fromSessionToken("0:5"));
+        assertEquals("4096", PartitionKeyRangeIds.fromSessionToken("4096:1#7"));
+    }
+
+    @Test
+    public void reusesIdsOfLowRanges() {
+        assertSame(PartitionKeyRangeIds.fromSessionToken("5:-1#1"), PartitionKeyRangeIds.fromSessionToken("5:-1#2"));
+    }
+
+    @Test
+    public void attributesNoRangeToMultiRangeOrMalformedTokens() {
+        assertNull(PartitionKeyRangeIds.fromSessionToken(null));
+        assertNull(PartitionKeyRangeIds.fromSessionToken(""));
+        assertNull(PartitionKeyRangeIds.fromSessionToken("0:-1#1,1:-1#2"));
+        assertNull(PartitionKeyRangeIds.fromSessionToken(":1#2"));
+        assertNull(PartitionKeyRangeIds.fromSessionToken("a:1#2"));
+        assertNull(PartitionKeyRangeIds.fromSessionToken("-1:1#2"));
+        assertNull(PartitionKeyRangeIds.fromSessionToken("12"));
+        assertNull(PartitionKeyRangeIds.fromSessionToken("1234567890:1#2"));
+    }
+
+    @Test
+    public void attributesNoRangeWithoutDiagnostics() {
+        assertNull(PartitionKeyRangeIds.fromDiagnostics(null));
+    }
+
+    @Test
+    public void responsesTakeRangeIdFromTheirSessionToken() {
+        assertEquals("2", new DataPlaneResponse(201, Set.of("East US"), "2:-1#9", 5.0, null).getPartitionKeyRangeId());
+        assertNull(new DataPlaneResponse(200, Set.of("East US"), "0:-1#1,1:-1#2", 5.0, null).getPartitionKeyRangeId());
+        assertNull(new DataPlaneResponse(200, Set.of("East US"), null, 5.0, null).getPartitionKeyRangeId());
+    }
+
+    @Test
+    public void failuresCarryTheirRangeId() {
+        assertEquals("4", new DataPlaneException("gone", 410, 1002, Set.of(), null, "4", null).getPartitionKeyRangeId());
+        assertNull(new DataPlaneException("timeout", 408, 0, Set.of(), null, null).getPartitionKeyRangeId());
+    }
+}
@@ -0,0 +1,191 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SessionConsistencyCheckerTest {
+
+    // vector layout of SessionConsistencyChecker
+    private static final int VERSION = 0;
+    private static final int GLOBAL_LSN = 1;
+    private static final int FIRST_LOCAL_LSN = 2;
+    private static final int VECTOR_LENGTH = 18;
+    private static final long ABSENT = Long.MIN_VALUE;
+
+    @Test
+    public void parsesVectorSessionToken() {
+
+        long[] vector = new long[VECTOR_LENGTH];
+
+        assertEquals(17, parse("17:1#100#1=40#2=45", vector));
+        assertEquals(1, vector[VERSION]);
+        assertEquals(100, vector[GLOBAL_LSN]);
+        assertEquals(ABSENT, vector[FIRST_LOCAL_LSN]);
+        assertEquals(40, vector[FIRST_LOCAL_LSN + 1]);
+        assertEquals(45, vector[FIRST_LOCAL_LSN + 2]);
+        assertEquals(ABSENT, vector[FIRST_LOCAL_LSN + 3]);
+    }
+
+    @Test
+    public void parsesBareGlobalLsnAsVersionZero() {
+
+        long[] vector = new long[VECTOR_LENGTH];
+
+        assertEquals(3, parse("3:12", vector));
+        assertEquals(0, vector[VERSION]);
+        assertEquals(12, vector[GLOBAL_LSN]);
+    }
+
+    @Test
+    public void parsesNegativeVersion() {
+
+        long[] vector = new long[VECTOR_LENGTH];
+
+        assertEquals(0, parse("0:-1#7", vector));
+        assertEquals(-1, vector[VERSION]);
+        assertEquals(7, vector[GLOBAL_LSN]);
+    }
+
+    @Test
+    public void parsesEachRangeOfMultiRangeToken() {
+
+        String sessionToken = "0:1#5#0=3,1:2#9#0=4#1=8";
+        int comma = sessionToken.indexOf(',');
+        long[] vector = new long[VECTOR_LENGTH];
+
+        assertEquals(0, SessionConsistencyChecker.parse(sessionToken, 0, comma, vector));
+        assertEquals(1, vector[VERSION]);
+        assertEquals(5, vector[GLOBAL_LSN]);
+        assertEquals(3, vector[FIRST_LOCAL_LSN]);
+        assertEquals(ABSENT, vector[FIRST_LOCAL_LSN + 1]);
+
+        assertEquals(1, SessionConsistencyChecker.parse(sessionToken, comma + 1, sessionToken.length(), vector));
+        assertEquals(2, vector[VERSION]);
+        assertEquals(9, vector[GLOBAL_LSN]);
+        assertEquals(4, vector[FIRST_LOCAL_LSN]);
+        assertEquals(8, vector[FIRST_LOCAL_LSN + 1]);
+    }
+
+    @Test
+    public void leavesOutRegionsBeyondTheTrackedIds() {
+
+        long[] vector = new long[VECTOR_LENGTH];
+
+        assertEquals(1, parse("1:1#2#16=5", vector));
+
+        for (int i = FIRST_LOCAL_LSN; i < VECTOR_LENGTH; i++) {
+            assertEquals(ABSENT, vector[i]);
+        }
+    }
+
+    @Test
+    public void rejectsMalformedSegments() {
+
+        long[] vector = new long[VECTOR_LENGTH];
+
+        assertEquals(-1, parse("", vector));
+        assertEquals(-1, parse("abc", vector));
+        assertEquals(-1, parse(":1#2", vector));
+        assertEquals(-1, parse("1:", vector));
+        assertEquals(-1, parse("x:1#2", vector));
+        assertEquals(-1, parse("1:x#2", vector));
+        assertEquals(-1, parse("1:1#", vector));
+        assertEquals(-1, parse("1:1#2#3", vector));
+        assertEquals(-1, parse("1:1#2#1=", vector));
+        assertEquals(-1, parse("1:1#2#=4", vector));
+        assertEquals(-1, parse("65536:1#2", vector));
+        assertEquals(-1, parse("1:1234567890123456789", vector));
+    }
+
+    @Test
+    public void doesNotReportProgress() {
+        assertFalse(isViolation("0:1#100#0=40#1=45", "0:1#101#0=41#1=45"));
+        assertFalse(isViolation("0:1#100#0=40#1=45", "0:1#100#0=40#1=45"));
+    }
+
+    @Test
+    public void reportsLowerGlobalLsn() {
+        assertTrue(isViolation("0:1#100#0=40", "0:1#99#0=40"));
+    }
+
+    @Test
+    public void reportsLowerVersion() {
+        assertTrue(isViolation("0:2#100", "0:1#100"));
+    }
+
+    @Test
+    public void reportsLowerLocalLsnOfSharedRegionWithSameVersion() {
+        assertTrue(isViolation("0:1#100#0=40#1=45", "0:1#100#0=40#1=44"));
+    }
+
+    @Test
+    public void ignoresLocalLsnsAcrossVersionsAndOfRegionsNotBothCarry() {
+        assertFalse(isViolation("0:1#100#0=40#1=45", "0:2#100#0=40#1=10"));
+        assertFalse(isViolation("0:1#100#1=45", "0:1#100#0=10"));
+    }
+
+    @Test
+    public void checksEachRangeOfMultiRangeTokenSeparately() {
+        assertFalse(isViolation("0:1#100,1:1#50", "0:1#100,1:1#51"));
+        assertTrue(isViolation("0:1#100,1:1#50", "0:1#101,1:1#49"));
+        assertFalse(isViolation("0:1#100", "1:1#1"));
+    }
+
+    @Test
+    public void doesNotCheckReadsAgainstTokensRecordedAfterTheyStarted() {
+
+        DrillLifecycle lifecycle = new DrillLifecycle(Duration.ofMinutes(1), Duration.ZERO);
+        SessionConsistencyChecker checker = newChecker(lifecycle);
+
+        long readStartNanos = System.nanoTime();
+
+        checker.onResponse(WorkloadUtils.CREATE_OP, "0:1#100", Set.of("East US"), readStartNanos);
+        checker.onResponse(WorkloadUtils.READ_OP, "0:1#90", Set.of("East US"), readStartNanos);
+
+        assertFalse(lifecycle.isStopRequested());
+    }
+
+    @Test
+    public void ignoresResponsesOfOtherOperations() {
+
+        DrillLifecycle lifecycle = new DrillLifecycle(Duration.ofMinutes(1), Duration.ZERO);
+        SessionConsistencyChecker checker = newChecker(lifecycle);
+
+        checker.onResponse(WorkloadUtils.CREATE_OP, "0:1#100", Set.of("East US"), System.nanoTime());
+        checker.onResponse(WorkloadUtils.QUERY_OP, "0:1#90", Set.of("East US"), System.nanoTime());
+
+        assertFalse(lifecycle.isStopRequested());
+    }
+
+    @Test
+    public void rejectsNonPositiveHistory() {
+        assertThrows(IllegalArgumentException.class, () -> new SessionConsistencyChecker(new DrillMetrics(new Configuration()), null, Duration.ZERO));
+    }
+
+    private static int parse(String sessionToken, long[] vector) {
+        return SessionConsistencyChecker.parse(sessionToken, 0, sessionToken.length(), vector);
+    }
+
+    // Creates the written token, then reads the read token in an operation started after the create completed
+    private static boolean isViolation(String writtenSessionToken, String readSessionToken) {
+
+        DrillLifecycle lifecycle = new DrillLifecycle(Duration.ofMinutes(1), Duration.ZERO);
+        SessionConsistencyChecker checker = newChecker(lifecycle);
+
+        checker.onResponse(WorkloadUtils.CREATE_OP, writtenSessionToken, Set.of("East US"), System.nanoTime());
+        checker.onResponse(WorkloadUtils.READ_OP, readSessionToken, Set.of("West US"), System.nanoTime());
+
+        return lifecycle.isStopRequested();
+    }
+
+    private static SessionConsistencyChecker newChecker(DrillLifecycle lifecycle) {
+        return new SessionConsistencyChecker(new DrillMetrics(new Configuration()), lifecycle, Duration.ofSeconds(60));
+    }
+}